@@ -0,0 +1,74 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This benchmark measures how many requests a running building can take in, one at a
+ * time with addRequest() and in batches with addRequests().  Each invocation adds a
+ * block of requests and then empties the queues, so they never grow without bound.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class AddRequestBenchmark {
+  private static final int BLOCK = 1024;
+
+  private MeasuredBuilding building;
+  private Traffic traffic;
+
+  /**
+   * Create a running building and the requests to add.
+   */
+  @Setup
+  public void setUp() {
+    this.building = new MeasuredBuilding(30, 8, 8, "fifo");
+    this.building.startElevatorSystem();
+    this.traffic = new Traffic(30, BLOCK, 3);
+  }
+
+  /**
+   * Add a block of requests one at a time.
+   *
+   * @return the number of requests accepted.
+   */
+  @Benchmark
+  @OperationsPerInvocation(BLOCK)
+  public int addRequest() {
+    int accepted = 0;
+    for (int i = 0; i < BLOCK; i++) {
+      if (this.traffic.addNext(this.building)) {
+        accepted++;
+      }
+    }
+    this.building.clearQueues();
+    return accepted;
+  }
+
+  /**
+   * Add a block of requests as one batch.
+   *
+   * @return the status of the requests.
+   */
+  @Benchmark
+  @OperationsPerInvocation(BLOCK)
+  public byte[] addRequests() {
+    byte[] statuses = this.building.addRequests(this.traffic.startFloors(),
+        this.traffic.endFloors());
+    this.building.clearQueues();
+    return statuses;
+  }
+}
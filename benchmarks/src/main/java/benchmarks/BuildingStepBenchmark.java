@@ -0,0 +1,73 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This benchmark measures Building.stepElevatorSystem() for different fleet sizes,
+ * strategies and numbers of waiting requests.  Before each step the queues are topped
+ * back up to the chosen depth, so the backlog stays the same for the whole run; the
+ * top-up is part of the measured time, as it would be for a building under that load.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class BuildingStepBenchmark {
+  @Param({"1", "16", "128"})
+  public int elevators;
+
+  @Param({"0", "64", "4096"})
+  public int queueDepth;
+
+  @Param({"fifo", "eta"})
+  public String strategy;
+
+  private MeasuredBuilding building;
+  private Traffic traffic;
+
+  /**
+   * Create a running 30 floor building and warm its queues up to the chosen depth.
+   */
+  @Setup(Level.Trial)
+  public void setUp() {
+    this.building = new MeasuredBuilding(30, this.elevators, 8, this.strategy);
+    this.building.startElevatorSystem();
+    this.traffic = new Traffic(30, 1 << 16, 7);
+    for (int i = 0; i < 1000; i++) {
+      this.topUp();
+      this.building.stepElevatorSystem();
+    }
+  }
+
+  private void topUp() {
+    while (this.building.queuedRequests() < this.queueDepth) {
+      this.traffic.addNext(this.building);
+    }
+  }
+
+  /**
+   * Top up the queues and run one step.
+   *
+   * @return the number of waiting requests after the step.
+   */
+  @Benchmark
+  public int step() {
+    this.topUp();
+    this.building.stepElevatorSystem();
+    return this.building.queuedRequests();
+  }
+}
@@ -0,0 +1,132 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * This class compares a JMH result file with the recorded baseline and lists every
+ * benchmark that got slower.  Both files are written by JMH with {@code -rf json}.
+ * A benchmark counts as a regression when its score moves the wrong way by more than
+ * the threshold and by more than the error bars of the two runs together, so noise
+ * on a quiet machine does not fail the check.
+ *
+ * <p>Usage: {@code CompareResults baseline.json results.json [thresholdPercent]}.
+ * The exit status is 1 if anything regressed, and 2 if there is no baseline to compare
+ * with.  The baseline is benchmarks/baseline.json; the pom says which JVM and hardware
+ * it was recorded on.</p>
+ */
+public final class CompareResults {
+  private static final double DEFAULT_THRESHOLD_PERCENT = 10;
+
+  private CompareResults() {
+  }
+
+  /**
+   * This method is the entry point of the comparison.
+   *
+   * @param args the baseline file, the results file and an optional threshold.
+   * @throws IOException if a file cannot be read.
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length < 2 || args.length > 3) {
+      System.err.println("Usage: CompareResults baseline.json results.json [thresholdPercent]");
+      System.exit(2);
+    }
+    double threshold = args.length == 3
+        ? Double.parseDouble(args[2]) : DEFAULT_THRESHOLD_PERCENT;
+    Path baselinePath = Path.of(args[0]);
+    if (!Files.isRegularFile(baselinePath)) {
+      System.err.println("No baseline at " + baselinePath + ". Record one by running the "
+          + "benchmarks on the reference machine and copying the results file there.");
+      System.exit(2);
+    }
+    Map<String, Score> baseline = read(baselinePath);
+    if (baseline.isEmpty()) {
+      System.err.println("The baseline " + baselinePath + " has no benchmarks in it.");
+      System.exit(2);
+    }
+    Map<String, Score> results = read(Path.of(args[1]));
+
+    int regressions = 0;
+    for (String name : new TreeSet<>(results.keySet())) {
+      Score now = results.get(name);
+      Score before = baseline.get(name);
+      if (before == null) {
+        System.out.printf("NEW        %-70s %12.3f %s%n", name, now.score, now.unit);
+        continue;
+      }
+      if (!before.unit.equals(now.unit)) {
+        System.out.printf("UNIT       %-70s %s -> %s%n", name, before.unit, now.unit);
+        continue;
+      }
+      double change = (now.score - before.score) / before.score * 100;
+      // a positive slowdown is worse, whichever way the mode counts
+      double slowdown = now.higherIsBetter ? -change : change;
+      double noise = Math.abs(now.error) + Math.abs(before.error);
+      boolean regressed = slowdown > threshold
+          && Math.abs(now.score - before.score) > noise;
+      if (regressed) {
+        regressions++;
+      }
+      System.out.printf("%-10s %-70s %12.3f -> %12.3f %s (%+.1f%%)%n",
+          regressed ? "REGRESSED" : "ok", name, before.score, now.score, now.unit, change);
+    }
+    for (String name : baseline.keySet()) {
+      if (!results.containsKey(name)) {
+        System.out.printf("MISSING    %s%n", name);
+      }
+    }
+
+    System.out.println(regressions + " regression(s) over " + threshold + "%");
+    if (regressions > 0) {
+      System.exit(1);
+    }
+  }
+
+  /**
+   * Read a JMH json file into scores by benchmark name and parameters.
+   */
+  private static Map<String, Score> read(Path path) throws IOException {
+    JSONArray runs = new JSONArray(new String(Files.readAllBytes(path), StandardCharsets.UTF_8));
+    Map<String, Score> scores = new TreeMap<>();
+    for (int i = 0; i < runs.length(); i++) {
+      JSONObject run = runs.getJSONObject(i);
+      StringBuilder name = new StringBuilder(run.getString("benchmark"));
+      JSONObject params = run.optJSONObject("params");
+      if (params != null) {
+        for (String key : new TreeSet<>(params.keySet())) {
+          name.append(' ').append(key).append('=').append(params.get(key));
+        }
+      }
+      JSONObject metric = run.getJSONObject("primaryMetric");
+      scores.put(name.toString(), new Score(metric.getDouble("score"),
+          metric.optDouble("scoreError", 0), metric.getString("scoreUnit"),
+          "thrpt".equals(run.getString("mode"))));
+    }
+    return scores;
+  }
+
+  /**
+   * The primary score of one benchmark run.
+   */
+  private static final class Score {
+    private final double score;
+    private final double error;
+    private final String unit;
+    private final boolean higherIsBetter;
+
+    private Score(double score, double error, String unit, boolean higherIsBetter) {
+      this.score = score;
+      this.error = Double.isNaN(error) ? 0 : error;
+      this.unit = unit;
+      this.higherIsBetter = higherIsBetter;
+    }
+  }
+}
@@ -0,0 +1,105 @@
+package benchmarks;
+
+import building.RequestQueue;
+import building.dispatch.DispatchStrategy;
+import elevator.Elevator;
+import elevator.ElevatorInterface;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This benchmark measures one call to DispatchStrategy.distributeRequests() with a
+ * large backlog, which is what the building does each step.  Every call starts from
+ * fresh elevators waiting at the bottom and full queues, set up outside the measured
+ * time.  A call with a big backlog takes long enough that the per-invocation setup
+ * does not skew the result.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class DispatchBenchmark {
+  private static final int FLOORS = 30;
+  private static final int CAPACITY = 8;
+
+  @Param({"1000", "100000"})
+  public int backlog;
+
+  @Param({"16", "128"})
+  public int elevators;
+
+  @Param({"fifo", "collective", "nearest", "eta"})
+  public String strategy;
+
+  private DispatchStrategy dispatchStrategy;
+  private long[] upPacked;
+  private long[] downPacked;
+  private int upCount;
+  private int downCount;
+
+  private ElevatorInterface[] cars;
+  private final RequestQueue upRequests = new RequestQueue();
+  private final RequestQueue downRequests = new RequestQueue();
+
+  /**
+   * Create the strategy and split the backlog into up and down requests.
+   */
+  @Setup(Level.Trial)
+  public void setUpTrial() {
+    this.dispatchStrategy = MeasuredBuilding.strategy(this.strategy);
+    Traffic traffic = new Traffic(FLOORS, this.backlog, 11);
+    this.upPacked = new long[this.backlog];
+    this.downPacked = new long[this.backlog];
+    for (int i = 0; i < this.backlog; i++) {
+      int start = traffic.startFloors()[i];
+      int end = traffic.endFloors()[i];
+      if (end > start) {
+        this.upPacked[this.upCount++] = RequestQueue.pack(start, end);
+      } else {
+        this.downPacked[this.downCount++] = RequestQueue.pack(start, end);
+      }
+    }
+  }
+
+  /**
+   * Refill the queues and put fresh elevators at the bottom.
+   */
+  @Setup(Level.Invocation)
+  public void setUpInvocation() {
+    this.cars = new ElevatorInterface[this.elevators];
+    for (int i = 0; i < this.elevators; i++) {
+      Elevator car = new Elevator(FLOORS, CAPACITY);
+      car.start();
+      this.cars[i] = car;
+    }
+    this.upRequests.clear();
+    this.downRequests.clear();
+    this.upRequests.addAll(this.upPacked, this.upCount);
+    this.downRequests.addAll(this.downPacked, this.downCount);
+  }
+
+  /**
+   * Hand out the backlog once.
+   *
+   * @return the number of requests left waiting.
+   */
+  @Benchmark
+  public int distributeRequests() {
+    this.dispatchStrategy.distributeRequests(this.cars, this.upRequests, this.downRequests,
+        CAPACITY);
+    return this.upRequests.size() + this.downRequests.size();
+  }
+}
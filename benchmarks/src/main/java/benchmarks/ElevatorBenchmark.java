@@ -0,0 +1,65 @@
+package benchmarks;
+
+import elevator.Elevator;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This benchmark measures one Elevator.step() of a car that is kept busy: whenever it
+ * is taking requests at the top or bottom it is given another run of stops.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ElevatorBenchmark {
+  @Param({"10", "30", "1000"})
+  public int floors;
+
+  @Param({"1", "8"})
+  public int requestsPerRun;
+
+  private Elevator elevator;
+  private int[] startFloors;
+  private int[] endFloors;
+
+  /**
+   * Create a started elevator and the requests it is given on each run.
+   */
+  @Setup(Level.Iteration)
+  public void setUp() {
+    this.elevator = new Elevator(this.floors, Elevator.MAX_OCCUPANCY,
+        this.floors > Elevator.MAX_FLOORS);
+    this.elevator.start();
+    Traffic traffic = new Traffic(this.floors, this.requestsPerRun, 42);
+    this.startFloors = traffic.startFloors();
+    this.endFloors = traffic.endFloors();
+  }
+
+  /**
+   * Step the elevator once, giving it a new run if it is waiting for one.
+   *
+   * @return the floor the elevator is on, so the step cannot be optimised away.
+   */
+  @Benchmark
+  public int step() {
+    if (this.elevator.isTakingRequests()) {
+      this.elevator.processRequests(this.startFloors, this.endFloors, this.requestsPerRun);
+    }
+    this.elevator.step();
+    return this.elevator.getCurrentFloor();
+  }
+}
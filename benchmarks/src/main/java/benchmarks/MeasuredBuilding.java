@@ -0,0 +1,67 @@
+package benchmarks;
+
+import building.Building;
+import building.dispatch.CollectiveControlDispatch;
+import building.dispatch.DispatchStrategy;
+import building.dispatch.EtaCostDispatch;
+import building.dispatch.FifoDispatch;
+import building.dispatch.NearestCarDispatch;
+
+/**
+ * This class is a building that lets the benchmarks look at and empty its request
+ * queues, so a benchmark can hold the backlog at a fixed depth.
+ */
+public class MeasuredBuilding extends Building {
+
+  /**
+   * This constructor is used to create a new MeasuredBuilding.
+   *
+   * @param numberOfFloors    the number of floors.
+   * @param numberOfElevators the number of elevators.
+   * @param elevatorCapacity  the capacity of each elevator.
+   * @param strategy          the name of the dispatch strategy, see strategy().
+   */
+  public MeasuredBuilding(int numberOfFloors, int numberOfElevators, int elevatorCapacity,
+                          String strategy) {
+    super(numberOfFloors, numberOfElevators, elevatorCapacity, strategy(strategy));
+  }
+
+  /**
+   * This method is used to get the number of requests waiting in both queues.
+   *
+   * @return the number of waiting requests.
+   */
+  public int queuedRequests() {
+    return this.upRequests.size() + this.downRequests.size();
+  }
+
+  /**
+   * This method is used to drop every waiting request.
+   */
+  public void clearQueues() {
+    this.upRequests.clear();
+    this.downRequests.clear();
+  }
+
+  /**
+   * This method is used to create a dispatch strategy by name.
+   *
+   * @param name fifo, collective, nearest or eta.
+   * @return a new strategy.
+   * @throws IllegalArgumentException if the name is not known.
+   */
+  public static DispatchStrategy strategy(String name) {
+    switch (name) {
+      case "fifo":
+        return new FifoDispatch();
+      case "collective":
+        return new CollectiveControlDispatch();
+      case "nearest":
+        return new NearestCarDispatch();
+      case "eta":
+        return new EtaCostDispatch();
+      default:
+        throw new IllegalArgumentException("Unknown strategy: " + name);
+    }
+  }
+}
@@ -0,0 +1,101 @@
+package benchmarks;
+
+import building.BuildingReport;
+import building.BuildingReportBuffer;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This benchmark measures the cost of reporting on a busy building: taking a snapshot
+ * report, copying into a reusable buffer, and turning a report into text with
+ * toString() or into a reused StringBuilder.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ReportBenchmark {
+  @Param({"3", "16", "128"})
+  public int elevators;
+
+  @Param({"0", "256"})
+  public int queueDepth;
+
+  private MeasuredBuilding building;
+  private BuildingReport report;
+  private final BuildingReportBuffer buffer = new BuildingReportBuffer();
+  private final StringBuilder text = new StringBuilder();
+
+  /**
+   * Run a 30 floor building for a while so the cars are spread out with stops,
+   * then fill the queues to the chosen depth.
+   */
+  @Setup
+  public void setUp() {
+    this.building = new MeasuredBuilding(30, this.elevators, 8, "eta");
+    this.building.startElevatorSystem();
+    Traffic traffic = new Traffic(30, 1 << 12, 5);
+    for (int i = 0; i < 500; i++) {
+      traffic.addNext(this.building);
+      this.building.stepElevatorSystem();
+    }
+    while (this.building.queuedRequests() < this.queueDepth) {
+      traffic.addNext(this.building);
+    }
+    this.report = this.building.getBuildingReport();
+  }
+
+  /**
+   * Take a snapshot report.
+   *
+   * @return the report.
+   */
+  @Benchmark
+  public BuildingReport getBuildingReport() {
+    return this.building.getBuildingReport();
+  }
+
+  /**
+   * Copy the state into a reusable buffer.
+   *
+   * @return the buffer.
+   */
+  @Benchmark
+  public BuildingReportBuffer copyReportTo() {
+    this.building.copyReportTo(this.buffer);
+    return this.buffer;
+  }
+
+  /**
+   * Turn a report into a new string.
+   *
+   * @return the text.
+   */
+  @Benchmark
+  public String reportToString() {
+    return this.report.toString();
+  }
+
+  /**
+   * Write a report into a reused builder.
+   *
+   * @return the number of characters written.
+   */
+  @Benchmark
+  public int reportAppendTo() {
+    this.text.setLength(0);
+    return this.report.appendTo(this.text).length();
+  }
+}
@@ -0,0 +1,62 @@
+package benchmarks;
+
+import java.util.Random;
+
+/**
+ * This class holds a fixed, seeded list of requests for the benchmarks to cycle
+ * through, so every run sees the same traffic and no random numbers are drawn
+ * while measuring.
+ */
+public final class Traffic {
+  private final int[] startFloors;
+  private final int[] endFloors;
+  private int next;
+
+  /**
+   * This constructor is used to create the traffic for a building.
+   *
+   * @param numberOfFloors the number of floors.
+   * @param size           the number of requests before the list repeats.
+   * @param seed           the seed for the requests.
+   */
+  public Traffic(int numberOfFloors, int size, long seed) {
+    Random random = new Random(seed);
+    this.startFloors = new int[size];
+    this.endFloors = new int[size];
+    for (int i = 0; i < size; i++) {
+      int start = random.nextInt(numberOfFloors);
+      this.startFloors[i] = start;
+      this.endFloors[i] = (start + 1 + random.nextInt(numberOfFloors - 1)) % numberOfFloors;
+    }
+  }
+
+  /**
+   * This method is used to add the next request to a building.
+   *
+   * @param building the building.
+   * @return true if the building accepted it.
+   */
+  public boolean addNext(MeasuredBuilding building) {
+    int i = this.next;
+    this.next = i + 1 == this.startFloors.length ? 0 : i + 1;
+    return building.addRequest(this.startFloors[i], this.endFloors[i]);
+  }
+
+  /**
+   * This method is used to get the start floors of every request.
+   *
+   * @return the start floors, not a copy.
+   */
+  public int[] startFloors() {
+    return this.startFloors;
+  }
+
+  /**
+   * This method is used to get the end floors of every request.
+   *
+   * @return the end floors, not a copy.
+   */
+  public int[] endFloors() {
+    return this.endFloors;
+  }
+}
@@ -1,11 +1,18 @@
 package building;
 
+import building.dispatch.DispatchStrategy;
+import building.dispatch.FifoDispatch;
+import building.enums.Direction;
 import building.enums.ElevatorSystemStatus;
+import building.enums.RequestStatus;
+import building.journal.EventJournal;
 import elevator.Elevator;
 import elevator.ElevatorInterface;
 import elevator.ElevatorReport;
-import java.util.ArrayList;
-import java.util.List;
+import elevator.FloorMask;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import scanerzus.Request;
 
 
@@ -13,13 +20,43 @@ import scanerzus.Request;
  * This class represents a building.
  */
 public class Building implements BuildingInterface {
-  protected final List<Request> downRequests = new ArrayList<>();
-  protected final List<Request> upRequests = new ArrayList<>();
+  /**
+   * The number of elevators stepped by one task when stepping in parallel.  Stepping an
+   * elevator is cheap, so smaller slices cost more to hand out than they save.
+   */
+  private static final int ELEVATORS_PER_STEP_TASK = 32;
+
+  protected final RequestQueue downRequests = new RequestQueue();
+  protected final RequestQueue upRequests = new RequestQueue();
   protected final ElevatorInterface[] elevators;
-  protected ElevatorSystemStatus elevatorsStatus;
+  protected volatile ElevatorSystemStatus elevatorsStatus;
   private final int numberOfFloors;
   private final int numberOfElevators;
   private final int elevatorCapacity;
+  private final DispatchStrategy dispatchStrategy;
+  private final boolean supertall;
+  private boolean reverseWhenIdle;
+  private ForkJoinPool stepPool;
+
+  // What each report version saw, so deltas only carry what changed.
+  private long version;
+  private final long[] elevatorVersions;
+  private final int[] elevatorChangeCounts;
+  private long upRequestsVersion;
+  private int upRequestsChangeCount;
+  private long downRequestsVersion;
+  private int downRequestsChangeCount;
+  private ElevatorSystemStatus reportedStatus;
+  private long statusVersion;
+
+  // What the journal last recorded of the system and each elevator.
+  private EventJournal journal;
+  private ElevatorSystemStatus journalStatus;
+  private int[] journalChangeCounts;
+  private int[] journalFloors;
+  private Direction[] journalDirections;
+  private boolean[] journalDoorsClosed;
+  private boolean[] journalOutOfService;
 
 
   /**
@@ -33,24 +70,188 @@ public class Building implements BuildingInterface {
    * @throws IllegalArgumentException if the elevator capacity is less than 3.
    */
   public Building(int numberOfFloors, int numberOfElevators, int elevatorCapacity) {
+    this(numberOfFloors, numberOfElevators, elevatorCapacity, new FifoDispatch());
+  }
+
+  /**
+   * The constructor for the building with a chosen dispatch strategy.
+   *
+   * @param numberOfFloors the number of floors in the building.
+   * @param numberOfElevators the number of elevators in the building.
+   * @param elevatorCapacity the capacity of the elevators in the building.
+   * @param dispatchStrategy the strategy that hands requests to the elevators.
+   * @throws IllegalArgumentException if the number of floors is less than 2.
+   * @throws IllegalArgumentException if the number of elevators is less than 1.
+   * @throws IllegalArgumentException if the elevator capacity is less than 3.
+   * @throws IllegalArgumentException if the dispatch strategy is null.
+   */
+  public Building(int numberOfFloors, int numberOfElevators, int elevatorCapacity,
+                  DispatchStrategy dispatchStrategy) {
+    this(numberOfFloors, numberOfElevators, elevatorCapacity, dispatchStrategy, false);
+  }
+
+  /**
+   * The constructor for the building, optionally as a supertall building.  A supertall
+   * building lifts the limits on the number of floors and the elevator capacity, see
+   * {@link Elevator#SUPERTALL_MAX_FLOORS} and {@link Elevator#SUPERTALL_MAX_OCCUPANCY}.
+   *
+   * @param numberOfFloors the number of floors in the building.
+   * @param numberOfElevators the number of elevators in the building.
+   * @param elevatorCapacity the capacity of the elevators in the building.
+   * @param dispatchStrategy the strategy that hands requests to the elevators.
+   * @param supertall true to use the supertall limits.
+   * @throws IllegalArgumentException if the number of floors is less than 2.
+   * @throws IllegalArgumentException if the number of elevators is less than 1.
+   * @throws IllegalArgumentException if the elevator capacity is less than 3.
+   * @throws IllegalArgumentException if the dispatch strategy is null.
+   * @throws IllegalArgumentException if the elevators cannot serve that many floors
+   *                                  or carry that many people.
+   */
+  public Building(int numberOfFloors, int numberOfElevators, int elevatorCapacity,
+                  DispatchStrategy dispatchStrategy, boolean supertall) {
     if (numberOfFloors < 2) {
       throw new IllegalArgumentException("numberOfFloors must be no less than 2");
     } else if (numberOfElevators < 1) {
       throw new IllegalArgumentException("numberOfElevators must be a positive integer");
     } else if (elevatorCapacity < 3) {
       throw new IllegalArgumentException("elevatorCapacity must be no less than 3");
+    } else if (dispatchStrategy == null) {
+      throw new IllegalArgumentException("dispatchStrategy cannot be null");
     }
 
     this.numberOfFloors = numberOfFloors;
     this.numberOfElevators = numberOfElevators;
     this.elevatorCapacity = elevatorCapacity;
     this.elevators = new Elevator[numberOfElevators];
+    this.dispatchStrategy = dispatchStrategy;
+    this.supertall = supertall;
 
     for (int i = 0; i < numberOfElevators; i++) {
-      this.elevators[i] = new Elevator(this.numberOfFloors, this.elevatorCapacity);
+      this.elevators[i] = new Elevator(this.numberOfFloors, this.elevatorCapacity, supertall);
     }
 
     this.elevatorsStatus = ElevatorSystemStatus.outOfService;
+    this.reportedStatus = this.elevatorsStatus;
+    this.elevatorVersions = new long[numberOfElevators];
+    this.elevatorChangeCounts = new int[numberOfElevators];
+    for (int i = 0; i < numberOfElevators; i++) {
+      this.elevatorChangeCounts[i] = this.elevators[i].getChangeCount();
+    }
+  }
+
+  /**
+   * This method is used to get the strategy that hands requests to the elevators.
+   *
+   * @return the dispatch strategy of the building.
+   */
+  public DispatchStrategy getDispatchStrategy() {
+    return this.dispatchStrategy;
+  }
+
+  /**
+   * This method is used to check if the building uses the supertall limits.
+   *
+   * @return true if the building is supertall, false otherwise.
+   */
+  public boolean isSupertall() {
+    return this.supertall;
+  }
+
+  /**
+   * This method is used to turn early reversal on or off.  When it is on, a moving
+   * elevator turns around as soon as it has no stops and no hall calls left ahead
+   * of it, instead of running on to the top or bottom floor.  An elevator with nothing
+   * to do at the top or bottom stays there instead of setting off empty.
+   *
+   * @param reverseWhenIdle true to turn elevators around early.
+   */
+  public void setReverseWhenIdle(boolean reverseWhenIdle) {
+    this.reverseWhenIdle = reverseWhenIdle;
+  }
+
+  /**
+   * This method is used to check if early reversal is on.
+   *
+   * @return true if elevators turn around early, false otherwise.
+   */
+  public boolean isReverseWhenIdle() {
+    return this.reverseWhenIdle;
+  }
+
+  /**
+   * This method is used to step the elevators in parallel on the given pool.  Each
+   * elevator only changes its own state when it steps, so the elevators are split into
+   * slices that are stepped at the same time, and the step waits for every slice to
+   * finish before requests are handed out.  Handing out requests stays on the calling
+   * thread, so the system behaves exactly as it does when stepped serially.
+   * Fleets too small to split are still stepped serially.
+   *
+   * @param stepPool the pool to step the elevators on, or null to step them serially.
+   */
+  public void setStepPool(ForkJoinPool stepPool) {
+    this.stepPool = stepPool;
+  }
+
+  /**
+   * This method is used to get the pool the elevators are stepped on.
+   *
+   * @return the pool, or null if the elevators are stepped serially.
+   */
+  public ForkJoinPool getStepPool() {
+    return this.stepPool;
+  }
+
+  /**
+   * This method is used to record what the building does in a journal: every request
+   * added to the queues, every request handed to an elevator, and every change of an
+   * elevator's floor, door, direction or service and of the system's status.  The
+   * current state is recorded first, so the journal can be read on its own.  Requests
+   * are only recorded as handed out by strategies that extend AbstractDispatchStrategy.
+   *
+   * @param journal the journal to record in, or null to stop recording.
+   * @throws IllegalArgumentException if the journal is for a building of another size.
+   */
+  public void setJournal(EventJournal journal) {
+    if (journal != null && (journal.getNumOfFloors() != this.numberOfFloors
+        || journal.getNumOfElevators() != this.numberOfElevators)) {
+      throw new IllegalArgumentException("The journal is for a building with "
+          + journal.getNumOfFloors() + " floors and " + journal.getNumOfElevators()
+          + " elevators");
+    }
+    this.journal = journal;
+    this.dispatchStrategy.setJournal(journal);
+    if (journal == null) {
+      return;
+    }
+
+    journal.systemStatus(this.elevatorsStatus);
+    this.journalStatus = this.elevatorsStatus;
+    this.journalChangeCounts = new int[this.numberOfElevators];
+    this.journalFloors = new int[this.numberOfElevators];
+    this.journalDirections = new Direction[this.numberOfElevators];
+    this.journalDoorsClosed = new boolean[this.numberOfElevators];
+    this.journalOutOfService = new boolean[this.numberOfElevators];
+    for (int i = 0; i < this.numberOfElevators; i++) {
+      ElevatorInterface elevator = this.elevators[i];
+      this.journalChangeCounts[i] = elevator.getChangeCount();
+      this.journalFloors[i] = elevator.getCurrentFloor();
+      this.journalDirections[i] = elevator.getDirection();
+      this.journalDoorsClosed[i] = elevator.isDoorClosed();
+      this.journalOutOfService[i] = elevator.isOutOfService();
+      journal.service(i, this.journalOutOfService[i]);
+      journal.floor(i, this.journalFloors[i]);
+      journal.direction(i, this.journalDirections[i]);
+      journal.door(i, this.journalDoorsClosed[i]);
+    }
+  }
+
+  /**
+   * This method is used to get the journal the building records in.
+   *
+   * @return the journal, or null if the building is not recording.
+   */
+  public EventJournal getJournal() {
+    return this.journal;
   }
 
   @Override
@@ -78,6 +279,9 @@ public class Building implements BuildingInterface {
           elevator.start();
         }
         this.elevatorsStatus = ElevatorSystemStatus.running;
+        if (this.journal != null) {
+          this.journalTransitions();
+        }
       }
     } else {
       throw new IllegalStateException("Elevator system is already running");
@@ -95,6 +299,9 @@ public class Building implements BuildingInterface {
         this.upRequests.clear();
         this.downRequests.clear();
       }
+      if (this.journal != null) {
+        this.journalTransitions();
+      }
     } else {
       throw new IllegalStateException("Elevator system is not running now.");
     }
@@ -103,11 +310,12 @@ public class Building implements BuildingInterface {
   @Override
   public void stepElevatorSystem() {
     if (this.elevatorsStatus != ElevatorSystemStatus.outOfService) {
-      for (ElevatorInterface elevator : this.elevators) {
-        elevator.step();
-      }
+      this.stepElevators();
 
       if (this.elevatorsStatus != ElevatorSystemStatus.stopping) {
+        if (this.reverseWhenIdle) {
+          this.reverseIdleElevators();
+        }
         this.distributeRequests();
       } else {
         boolean allElevatorsOnGroundFloor = true;
@@ -122,35 +330,160 @@ public class Building implements BuildingInterface {
           this.elevatorsStatus = ElevatorSystemStatus.outOfService;
         }
       }
+      if (this.journal != null) {
+        this.journalTransitions();
+      }
+    }
+    if (this.journal != null) {
+      this.journal.advance(1);
     }
   }
 
-  private void distributeRequests() {
-    if (!this.upRequests.isEmpty() || !this.downRequests.isEmpty()) {
+  /**
+   * Record in the journal each change of the system's status and of the elevators'
+   * floors, doors, directions and service since it was last looked at.  Elevators
+   * whose change count has not moved are passed over.
+   */
+  private void journalTransitions() {
+    EventJournal journal = this.journal;
+    if (this.elevatorsStatus != this.journalStatus) {
+      journal.systemStatus(this.elevatorsStatus);
+      this.journalStatus = this.elevatorsStatus;
+    }
+    for (int i = 0; i < this.numberOfElevators; i++) {
+      ElevatorInterface elevator = this.elevators[i];
+      int changeCount = elevator.getChangeCount();
+      if (changeCount == this.journalChangeCounts[i]) {
+        continue;
+      }
+      this.journalChangeCounts[i] = changeCount;
+
+      boolean outOfService = elevator.isOutOfService();
+      if (outOfService != this.journalOutOfService[i]) {
+        journal.service(i, outOfService);
+        this.journalOutOfService[i] = outOfService;
+      }
+      int floor = elevator.getCurrentFloor();
+      if (floor != this.journalFloors[i]) {
+        journal.floor(i, floor);
+        this.journalFloors[i] = floor;
+      }
+      Direction direction = elevator.getDirection();
+      if (direction != this.journalDirections[i]) {
+        journal.direction(i, direction);
+        this.journalDirections[i] = direction;
+      }
+      boolean doorClosed = elevator.isDoorClosed();
+      if (doorClosed != this.journalDoorsClosed[i]) {
+        journal.door(i, doorClosed);
+        this.journalDoorsClosed[i] = doorClosed;
+      }
+    }
+  }
 
+  /**
+   * Step every elevator, in parallel when a step pool is set and the fleet is large
+   * enough to split.
+   */
+  private void stepElevators() {
+    if (this.stepPool == null || this.elevators.length <= ELEVATORS_PER_STEP_TASK) {
       for (ElevatorInterface elevator : this.elevators) {
-        if (elevator.isTakingRequests()) {
-          List<Request> requestsForElevator = new ArrayList<>();
-          List<Request> sourceRequests;
-
-          if (elevator.getCurrentFloor() == 0) {
-            sourceRequests = this.upRequests;
-          } else if (elevator.getCurrentFloor() == this.numberOfFloors - 1) {
-            sourceRequests = this.downRequests;
-          } else {
-            continue;
-          }
+        elevator.step();
+      }
+    } else {
+      this.stepPool.invoke(new StepTask(this.elevators, 0, this.elevators.length));
+    }
+  }
 
-          while (!sourceRequests.isEmpty() && requestsForElevator.size() < this.elevatorCapacity) {
-            requestsForElevator.add(sourceRequests.remove(0));
-          }
+  private void distributeRequests() {
+    this.dispatchStrategy.distributeRequests(this.elevators, this.upRequests,
+        this.downRequests, this.elevatorCapacity);
+  }
+
+  @Override
+  public int getIdleSteps() {
+    return this.countIdleSteps();
+  }
+
+  @Override
+  public void skipSteps(int steps) {
+    int idleSteps = this.countIdleSteps();
+    if (steps < 0 || steps > idleSteps) {
+      throw new IllegalArgumentException("Cannot skip " + steps + " steps, only "
+          + idleSteps + " are idle.");
+    }
+    if (this.journal != null) {
+      // idle steps only count down timers, so there is nothing to record
+      this.journal.advance(steps);
+    }
+    if (this.elevatorsStatus == ElevatorSystemStatus.outOfService) {
+      return;
+    }
+    for (ElevatorInterface elevator : this.elevators) {
+      elevator.skipSteps(steps);
+    }
+  }
+
+  /**
+   * Count the steps from now that would only count down timers.  Nothing can be
+   * skipped while requests are waiting or while the system is stopping.
+   */
+  private int countIdleSteps() {
+    if (this.elevatorsStatus == ElevatorSystemStatus.outOfService) {
+      return Integer.MAX_VALUE;
+    } else if (this.elevatorsStatus == ElevatorSystemStatus.stopping
+        || !this.upRequests.isEmpty() || !this.downRequests.isEmpty()) {
+      return 0;
+    }
 
-          elevator.processRequests(requestsForElevator);
+    int idleSteps = Integer.MAX_VALUE;
+    for (ElevatorInterface elevator : this.elevators) {
+      idleSteps = Math.min(idleSteps, elevator.getIdleSteps());
+    }
+    return idleSteps;
+  }
+
+  /**
+   * Turn around every moving elevator that has nothing left to do ahead of it.
+   * An elevator going up with nothing to do at all turns around and heads back
+   * down to wait at the bottom, but one going down only turns around if there
+   * is something for it to do the other way.
+   */
+  private void reverseIdleElevators() {
+    for (ElevatorInterface elevator : this.elevators) {
+      if (elevator.isTakingRequestsAhead() && elevator.isDoorClosed()
+          && !elevator.hasStopsAhead()) {
+        int floor = elevator.getCurrentFloor();
+        boolean up = elevator.getDirection() == Direction.UP;
+        if (!this.hasHallCallsAhead(floor, up)
+            && (up || this.hasHallCallsAhead(floor, true))) {
+          elevator.reverse();
         }
       }
     }
   }
 
+  /**
+   * Check if an elevator moving one way from a floor has to carry on to serve a hall call.
+   * If the dispatch strategy only hands out calls at the top and bottom, the
+   * elevator has to reach the far end when there is any call the other way.
+   * Otherwise it has to carry on for calls its way that start here or ahead,
+   * and for calls the other way that start beyond this floor, since after
+   * turning around here it can pick up the ones that start here.
+   */
+  private boolean hasHallCallsAhead(int floor, boolean up) {
+    int top = this.numberOfFloors - 1;
+    if (!this.dispatchStrategy.picksUpAhead()) {
+      return up ? !this.downRequests.isEmpty() : !this.upRequests.isEmpty();
+    } else if (up) {
+      return this.upRequests.anyStartingBetween(floor, top)
+          || this.downRequests.anyStartingBetween(floor + 1, top);
+    } else {
+      return this.downRequests.anyStartingBetween(0, floor)
+          || this.upRequests.anyStartingBetween(0, floor - 1);
+    }
+  }
+
   @Override
   public BuildingReport getBuildingReport() {
     ElevatorReport[] elevatorReports = new ElevatorReport[this.numberOfElevators];
@@ -161,7 +494,91 @@ public class Building implements BuildingInterface {
 
     return new BuildingReport(this.numberOfFloors,
         this.numberOfElevators, this.elevatorCapacity, elevatorReports,
-        this.upRequests, this.downRequests, this.elevatorsStatus);
+        this.upRequests.snapshot(), this.downRequests.snapshot(), this.elevatorsStatus,
+        this.updateVersion());
+  }
+
+  @Override
+  public void copyReportTo(BuildingReportBuffer buffer) {
+    buffer.reset(this.numberOfFloors, this.numberOfElevators, this.elevatorCapacity,
+        this.elevatorsStatus, this.updateVersion());
+    int words = FloorMask.words(this.numberOfFloors);
+    for (int i = 0; i < this.numberOfElevators; i++) {
+      ElevatorInterface elevator = this.elevators[i];
+      buffer.setElevator(i, elevator.getCurrentFloor(), elevator.getDirection(),
+          elevator.isDoorClosed(), elevator.getDoorOpenTimer(), elevator.getEndWaitTimer(),
+          elevator.isOutOfService(), elevator.isTakingRequests());
+      for (int w = 0; w < words; w++) {
+        buffer.setFloorStopMask(i, w, elevator.getFloorStopMask(w));
+      }
+    }
+    buffer.setRequests(this.upRequests, this.downRequests);
+  }
+
+  @Override
+  public BuildingDelta getBuildingDelta(long sinceVersion) {
+    long currentVersion = this.updateVersion();
+
+    int changed = 0;
+    for (long elevatorVersion : this.elevatorVersions) {
+      if (elevatorVersion > sinceVersion) {
+        changed++;
+      }
+    }
+    int[] elevatorIndexes = new int[changed];
+    ElevatorReport[] elevatorReports = new ElevatorReport[changed];
+    changed = 0;
+    for (int i = 0; i < this.numberOfElevators; i++) {
+      if (this.elevatorVersions[i] > sinceVersion) {
+        elevatorIndexes[changed] = i;
+        elevatorReports[changed] = this.elevators[i].getElevatorStatus();
+        changed++;
+      }
+    }
+
+    return new BuildingDelta(sinceVersion, currentVersion, elevatorIndexes, elevatorReports,
+        this.upRequestsVersion > sinceVersion ? this.upRequests.snapshot() : null,
+        this.downRequestsVersion > sinceVersion ? this.downRequests.snapshot() : null,
+        this.elevatorsStatus, this.statusVersion > sinceVersion);
+  }
+
+  /**
+   * Move to a new version if anything has changed since the last report, marking the
+   * elevators and queues that changed with it.  Nothing is tracked while the building
+   * runs; the change counts of the elevators and queues are only compared here.
+   *
+   * @return the current version.
+   */
+  private long updateVersion() {
+    long next = this.version + 1;
+    boolean changed = false;
+    for (int i = 0; i < this.numberOfElevators; i++) {
+      int changeCount = this.elevators[i].getChangeCount();
+      if (changeCount != this.elevatorChangeCounts[i]) {
+        this.elevatorChangeCounts[i] = changeCount;
+        this.elevatorVersions[i] = next;
+        changed = true;
+      }
+    }
+    if (this.upRequests.getChangeCount() != this.upRequestsChangeCount) {
+      this.upRequestsChangeCount = this.upRequests.getChangeCount();
+      this.upRequestsVersion = next;
+      changed = true;
+    }
+    if (this.downRequests.getChangeCount() != this.downRequestsChangeCount) {
+      this.downRequestsChangeCount = this.downRequests.getChangeCount();
+      this.downRequestsVersion = next;
+      changed = true;
+    }
+    if (this.elevatorsStatus != this.reportedStatus) {
+      this.reportedStatus = this.elevatorsStatus;
+      this.statusVersion = next;
+      changed = true;
+    }
+    if (changed) {
+      this.version = next;
+    }
+    return this.version;
   }
 
   @Override
@@ -171,17 +588,109 @@ public class Building implements BuildingInterface {
       throw new IllegalStateException("Elevator system is not running.");
     } else if (request == null) {
       throw new IllegalArgumentException("Request cannot be null");
-    } else if (request.getStartFloor() >= 0 && request.getStartFloor() < this.numberOfFloors) {
-      if (request.getEndFloor() >= 0 && request.getEndFloor() < this.numberOfFloors) {
-        if (request.getStartFloor() == request.getEndFloor()) {
+    }
+    return this.addRequest(request.getStartFloor(), request.getEndFloor());
+  }
+
+  @Override
+  public boolean addRequest(int startFloor, int endFloor) {
+    this.checkRequest(startFloor, endFloor);
+    if (startFloor < endFloor) {
+      this.upRequests.add(startFloor, endFloor);
+    } else {
+      this.downRequests.add(startFloor, endFloor);
+    }
+    if (this.journal != null) {
+      this.journal.request(startFloor, endFloor);
+    }
+    return true;
+  }
+
+  @Override
+  public byte[] addRequests(int[] startFloors, int[] endFloors) {
+    if (startFloors == null || endFloors == null) {
+      throw new IllegalArgumentException("Floor arrays cannot be null");
+    } else if (startFloors.length != endFloors.length) {
+      throw new IllegalArgumentException("startFloors and endFloors must be the same length");
+    }
+
+    int count = startFloors.length;
+    byte[] statuses = new byte[count];
+    if (this.elevatorsStatus != ElevatorSystemStatus.running) {
+      Arrays.fill(statuses, RequestStatus.NOT_RUNNING.getCode());
+      return statuses;
+    }
+
+    long[] up = new long[count];
+    long[] down = new long[count];
+    int upCount = 0;
+    int downCount = 0;
+    int floors = this.numberOfFloors;
+    for (int i = 0; i < count; i++) {
+      int start = startFloors[i];
+      int end = endFloors[i];
+      if (start < 0 || start >= floors) {
+        statuses[i] = RequestStatus.INVALID_START_FLOOR.getCode();
+      } else if (end < 0 || end >= floors) {
+        statuses[i] = RequestStatus.INVALID_END_FLOOR.getCode();
+      } else if (start == end) {
+        statuses[i] = RequestStatus.SAME_FLOOR.getCode();
+      } else if (start < end) {
+        up[upCount++] = RequestQueue.pack(start, end);
+      } else {
+        down[downCount++] = RequestQueue.pack(start, end);
+      }
+    }
+
+    boolean upAdded = this.enqueueBatch(this.upRequests, up, upCount);
+    boolean downAdded = this.enqueueBatch(this.downRequests, down, downCount);
+    if (!upAdded || !downAdded) {
+      for (int i = 0; i < count; i++) {
+        if (statuses[i] == RequestStatus.ACCEPTED.getCode()
+            && (startFloors[i] < endFloors[i] ? !upAdded : !downAdded)) {
+          statuses[i] = RequestStatus.REJECTED.getCode();
+        }
+      }
+    }
+    return statuses;
+  }
+
+  /**
+   * Add a batch of validated, packed requests that all go the same direction.
+   *
+   * @param queue  the queue for the direction of the requests.
+   * @param packed the packed requests.
+   * @param count  the number of requests in the batch.
+   * @return true if the batch was added, false if it was rejected.
+   */
+  protected boolean enqueueBatch(RequestQueue queue, long[] packed, int count) {
+    queue.addAll(packed, count);
+    if (this.journal != null) {
+      for (int i = 0; i < count; i++) {
+        this.journal.request(RequestQueue.startFloorOf(packed[i]),
+            RequestQueue.endFloorOf(packed[i]));
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Check that the elevator system is taking requests and that the floors
+   * of the request are valid for this building.
+   *
+   * @param startFloor the start floor of the request.
+   * @param endFloor   the end floor of the request.
+   * @throws IllegalStateException if the elevator system is not running.
+   * @throws IllegalArgumentException if either floor is out of range or they are the same.
+   */
+  protected void checkRequest(int startFloor, int endFloor) {
+    if (this.elevatorsStatus == ElevatorSystemStatus.outOfService
+        || this.elevatorsStatus == ElevatorSystemStatus.stopping) {
+      throw new IllegalStateException("Elevator system is not running.");
+    } else if (startFloor >= 0 && startFloor < this.numberOfFloors) {
+      if (endFloor >= 0 && endFloor < this.numberOfFloors) {
+        if (startFloor == endFloor) {
           throw new IllegalArgumentException("Start floor and end floor cannot be the same.");
-        } else {
-          if (request.getStartFloor() < request.getEndFloor()) {
-            this.upRequests.add(request);
-          } else {
-            this.downRequests.add(request);
-          }
-          return true;
         }
       } else {
         throw new IllegalArgumentException("The end floor must be between 0 and "
@@ -192,7 +701,35 @@ public class Building implements BuildingInterface {
           + (this.numberOfFloors - 1));
     }
   }
-}
 
+  /**
+   * A task that steps a slice of the elevators, splitting it in half until the
+   * slices are small enough to step directly.
+   */
+  private static final class StepTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final ElevatorInterface[] elevators;
+    private final int from;
+    private final int to;
 
+    private StepTask(ElevatorInterface[] elevators, int from, int to) {
+      this.elevators = elevators;
+      this.from = from;
+      this.to = to;
+    }
 
+    @Override
+    protected void compute() {
+      if (this.to - this.from <= ELEVATORS_PER_STEP_TASK) {
+        for (int i = this.from; i < this.to; i++) {
+          this.elevators[i].step();
+        }
+      } else {
+        int middle = (this.from + this.to) >>> 1;
+        invokeAll(new StepTask(this.elevators, this.from, middle),
+            new StepTask(this.elevators, middle, this.to));
+      }
+    }
+  }
+}
@@ -0,0 +1,179 @@
+package building;
+
+import building.enums.ElevatorSystemStatus;
+import elevator.ElevatorReport;
+import java.util.List;
+import scanerzus.Request;
+
+
+/**
+ * This class holds what has changed in a building between two versions.  It lists the
+ * elevators whose reports changed and, if a request queue changed, the whole queue as
+ * it is now.  Queues that did not change are left out.  A subscriber that holds a
+ * report for the older version can bring it up to date with applyTo().
+ */
+public class BuildingDelta {
+  private final long fromVersion;
+  private final long toVersion;
+  private final int[] elevatorIndexes;
+  private final ElevatorReport[] elevatorReports;
+  private final List<Request> upRequests;
+  private final List<Request> downRequests;
+  private final ElevatorSystemStatus systemStatus;
+  private final boolean statusChanged;
+
+  /**
+   * This constructor is used to create a new BuildingDelta object.
+   *
+   * @param fromVersion     the version the changes are counted from.
+   * @param toVersion       the version of the building the delta was taken at.
+   * @param elevatorIndexes the indexes of the elevators that changed, in order.
+   * @param elevatorReports the reports of the elevators that changed.
+   * @param upRequests      the up requests, or null if they did not change.
+   * @param downRequests    the down requests, or null if they did not change.
+   * @param systemStatus    the status of the elevator system.
+   * @param statusChanged   true if the status changed since the older version.
+   */
+  public BuildingDelta(long fromVersion,
+                       long toVersion,
+                       int[] elevatorIndexes,
+                       ElevatorReport[] elevatorReports,
+                       List<Request> upRequests,
+                       List<Request> downRequests,
+                       ElevatorSystemStatus systemStatus,
+                       boolean statusChanged) {
+    this.fromVersion = fromVersion;
+    this.toVersion = toVersion;
+    this.elevatorIndexes = elevatorIndexes;
+    this.elevatorReports = elevatorReports;
+    this.upRequests = upRequests;
+    this.downRequests = downRequests;
+    this.systemStatus = systemStatus;
+    this.statusChanged = statusChanged;
+  }
+
+  /**
+   * This method is used to get the version the changes are counted from.
+   *
+   * @return the older version.
+   */
+  public long getFromVersion() {
+    return this.fromVersion;
+  }
+
+  /**
+   * This method is used to get the version of the building the delta was taken at.
+   *
+   * @return the newer version.
+   */
+  public long getToVersion() {
+    return this.toVersion;
+  }
+
+  /**
+   * This method is used to check if nothing has changed.
+   *
+   * @return true if there are no changed elevators or queues and the status is the same.
+   */
+  public boolean isEmpty() {
+    return this.elevatorIndexes.length == 0
+        && this.upRequests == null && this.downRequests == null && !this.statusChanged;
+  }
+
+  /**
+   * This method is used to check if the status of the elevator system changed.
+   *
+   * @return true if the status changed since the older version.
+   */
+  public boolean isStatusChanged() {
+    return this.statusChanged;
+  }
+
+  /**
+   * This method is used to get the number of elevators that changed.
+   *
+   * @return the number of changed elevators.
+   */
+  public int getChangedElevatorCount() {
+    return this.elevatorIndexes.length;
+  }
+
+  /**
+   * This method is used to get the index of a changed elevator in the building.
+   *
+   * @param i the position in the list of changed elevators.
+   * @return the index of the elevator in the building.
+   */
+  public int getChangedElevatorIndex(int i) {
+    return this.elevatorIndexes[i];
+  }
+
+  /**
+   * This method is used to get the report of a changed elevator.
+   *
+   * @param i the position in the list of changed elevators.
+   * @return the new report of the elevator.
+   */
+  public ElevatorReport getChangedElevatorReport(int i) {
+    return this.elevatorReports[i];
+  }
+
+  /**
+   * This method is used to get the up requests if they changed.
+   *
+   * @return the up requests, or null if they did not change.
+   */
+  public List<Request> getUpRequests() {
+    return this.upRequests;
+  }
+
+  /**
+   * This method is used to get the down requests if they changed.
+   *
+   * @return the down requests, or null if they did not change.
+   */
+  public List<Request> getDownRequests() {
+    return this.downRequests;
+  }
+
+  /**
+   * This method is used to get the status of the elevator system.
+   *
+   * @return the status of the elevator system.
+   */
+  public ElevatorSystemStatus getSystemStatus() {
+    return this.systemStatus;
+  }
+
+  /**
+   * This method is used to bring a report up to date.  The report must have been
+   * taken at or after the version this delta counts from.  The report is not changed;
+   * a new report for the newer version is returned.
+   *
+   * @param report the report to update.
+   * @return the report for the version this delta was taken at.
+   * @throws IllegalArgumentException if the report is older than the delta.
+   */
+  public BuildingReport applyTo(BuildingReport report) {
+    if (report.getVersion() < this.fromVersion) {
+      throw new IllegalArgumentException("The report is at version " + report.getVersion()
+          + " but the delta starts at " + this.fromVersion);
+    }
+
+    ElevatorReport[] elevatorReports = report.getElevatorReports();
+    if (this.elevatorIndexes.length > 0) {
+      elevatorReports = elevatorReports.clone();
+      for (int i = 0; i < this.elevatorIndexes.length; i++) {
+        elevatorReports[this.elevatorIndexes[i]] = this.elevatorReports[i];
+      }
+    }
+    return new BuildingReport(report.getNumFloors(),
+        report.getNumElevators(),
+        report.getElevatorCapacity(),
+        elevatorReports,
+        this.upRequests == null ? report.getUpRequests() : this.upRequests,
+        this.downRequests == null ? report.getDownRequests() : this.downRequests,
+        this.systemStatus,
+        this.toVersion);
+  }
+}
@@ -43,6 +43,23 @@ public interface BuildingInterface {
    */
   void stepElevatorSystem();
 
+  /**
+   * This method is used to get the number of steps from now that would only count
+   * down timers, so they can be skipped without changing what the system does.
+   *
+   * @return the number of idle steps, Integer.MAX_VALUE if there is no end to them.
+   */
+  int getIdleSteps();
+
+  /**
+   * This method is used to skip idle steps.  The system ends up exactly as if
+   * stepElevatorSystem() had been called that many times.
+   *
+   * @param steps the number of steps to skip, no more than getIdleSteps().
+   * @throws IllegalArgumentException if steps is negative or more than getIdleSteps().
+   */
+  void skipSteps(int steps);
+
   /**
    * This method is used to get the report of the elevator system.
    *
@@ -50,6 +67,24 @@ public interface BuildingInterface {
    */
   BuildingReport getBuildingReport();
 
+  /**
+   * This method is used to copy the report of the elevator system into a reusable buffer.
+   * Once the buffer has grown to fit the building, this allocates nothing.
+   *
+   * @param buffer the buffer to copy the report into.
+   */
+  void copyReportTo(BuildingReportBuffer buffer);
+
+  /**
+   * This method is used to get what has changed since a report or delta was taken.
+   * Pass the version of the last report or delta seen; the delta holds only the
+   * elevators and request queues that changed after it.
+   *
+   * @param sinceVersion the version to count changes from.
+   * @return the changes since that version.
+   */
+  BuildingDelta getBuildingDelta(long sinceVersion);
+
   /**
    * This method is used to add a request to the elevator system.
    *
@@ -57,4 +92,27 @@ public interface BuildingInterface {
    * @return true if the request was added, false otherwise.
    */
   boolean addRequest(Request request);
+
+  /**
+   * This method is used to add a request to the elevator system without
+   * creating a Request object for it.
+   *
+   * @param startFloor the start floor of the request.
+   * @param endFloor   the end floor of the request.
+   * @return true if the request was added, false otherwise.
+   */
+  boolean addRequest(int startFloor, int endFloor);
+
+  /**
+   * This method is used to add a batch of requests to the elevator system.
+   * The whole batch is validated in one pass and nothing is thrown for bad tickets;
+   * instead each ticket gets a RequestStatus code in the returned array.
+   * All the valid tickets are added to the request queues together.
+   *
+   * @param startFloors the start floors of the requests.
+   * @param endFloors   the end floors of the requests, in the same order.
+   * @return the RequestStatus code of each request, in the same order.
+   * @throws IllegalArgumentException if either array is null or they differ in length.
+   */
+  byte[] addRequests(int[] startFloors, int[] endFloors);
 }
@@ -2,26 +2,33 @@ package building;
 
 import building.enums.ElevatorSystemStatus;
 import elevator.ElevatorReport;
+import elevator.ReportText;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 import scanerzus.Request;
 
 
 /**
  * This is the reporting class for the building.
+ * A report taken from a building is a snapshot: it does not change as the building runs,
+ * so it can be handed to another thread and read there.
  */
 public class BuildingReport {
-  int numFloors;
-  int numElevators;
+  final int numFloors;
+  final int numElevators;
 
-  int elevatorCapacity;
+  final int elevatorCapacity;
 
-  ElevatorReport[] elevatorReports;
+  final ElevatorReport[] elevatorReports;
 
-  List<Request> upRequests;
+  final List<Request> upRequests;
 
-  List<Request> downRequests;
+  final List<Request> downRequests;
 
-  ElevatorSystemStatus systemStatus;
+  final ElevatorSystemStatus systemStatus;
+
+  final long version;
 
   /**
    * This constructor is used to create a new BuildingReport object.
@@ -41,6 +48,31 @@ public class BuildingReport {
                         List<Request> upRequests,
                         List<Request> downRequests,
                         ElevatorSystemStatus systemStatus) {
+    this(numFloors, numElevators, elevatorCapacity, elevatorsReports, upRequests, downRequests,
+        systemStatus, 0);
+  }
+
+  /**
+   * This constructor is used to create a new BuildingReport object for a version
+   * of the building.
+   *
+   * @param numFloors        The number of floors in the building.
+   * @param numElevators     The number of elevators in the building.
+   * @param elevatorCapacity The capacity of the elevators.
+   * @param elevatorsReports The status of the elevators.
+   * @param upRequests       The up requests for the elevators.
+   * @param downRequests     The down requests for the elevators.
+   * @param systemStatus     The status of the elevator system.
+   * @param version          The version of the building the report was taken at.
+   */
+  public BuildingReport(int numFloors,
+                        int numElevators,
+                        int elevatorCapacity,
+                        ElevatorReport[] elevatorsReports,
+                        List<Request> upRequests,
+                        List<Request> downRequests,
+                        ElevatorSystemStatus systemStatus,
+                        long version) {
     this.numFloors = numFloors;
     this.numElevators = numElevators;
     this.elevatorCapacity = elevatorCapacity;
@@ -48,6 +80,7 @@ public class BuildingReport {
     this.upRequests = upRequests;
     this.downRequests = downRequests;
     this.systemStatus = systemStatus;
+    this.version = version;
   }
 
   /**
@@ -113,6 +146,16 @@ public class BuildingReport {
     return this.systemStatus;
   }
 
+  /**
+   * This method is used to get the version of the building the report was taken at.
+   * Pass it to getBuildingDelta() to find out what has changed since.
+   *
+   * @return the version of the report.
+   */
+  public long getVersion() {
+    return this.version;
+  }
+
   /**
    * This method is used to print out .
    *
@@ -120,21 +163,55 @@ public class BuildingReport {
    */
   @Override
   public String toString() {
-    StringBuilder sb = new StringBuilder();
-    sb.append("Building Report:");
-    sb.append("\n\s\sNumber of Floors: ").append(numFloors);
-    sb.append("\s (from 0 to ").append(numFloors - 1);
-    sb.append(")");
-    sb.append("\n\s\sNumber of Elevators: ").append(numElevators);
-    sb.append("\n\s\sElevator Capacity: ").append(elevatorCapacity);
-    StringBuilder elevatorReports = new StringBuilder();
+    return this.appendTo(new StringBuilder(256 + this.numElevators
+        * (32 + 3 * this.numFloors))).toString();
+  }
+
+  /**
+   * This method is used to write the report into a StringBuilder.  The text is the same
+   * as toString() but no intermediate strings are made, so a caller that reuses its
+   * builder can print a report every step without String.format or concatenation.
+   *
+   * @param sb the builder to write to.
+   * @return the builder.
+   */
+  public StringBuilder appendTo(StringBuilder sb) {
+    try {
+      this.appendTo((Appendable) sb);
+    } catch (IOException e) {
+      // a StringBuilder never throws
+      throw new UncheckedIOException(e);
+    }
+    return sb;
+  }
+
+  /**
+   * This method is used to write the report to any Appendable, such as a Writer.
+   * The text is the same as toString().
+   *
+   * @param out where to write the report.
+   * @throws IOException if out throws it.
+   */
+  public void appendTo(Appendable out) throws IOException {
+    out.append("Building Report:");
+    out.append("\n\s\sNumber of Floors: ");
+    ReportText.appendInt(out, this.numFloors);
+    out.append("\s (from 0 to ");
+    ReportText.appendInt(out, this.numFloors - 1);
+    out.append(')');
+    out.append("\n\s\sNumber of Elevators: ");
+    ReportText.appendInt(out, this.numElevators);
+    out.append("\n\s\sElevator Capacity: ");
+    ReportText.appendInt(out, this.elevatorCapacity);
+    out.append("\n\s\sElevator Reports: ");
     for (ElevatorReport elevatorReport : this.elevatorReports) {
-      elevatorReports.append("\n\s\s\s\s").append(elevatorReport);
+      out.append("\n\s\s\s\s");
+      elevatorReport.appendTo(out);
     }
-    sb.append("\n\s\sElevator Reports: ").append(elevatorReports);
-    sb.append("\n\s\sUp Requests: ").append(upRequests);
-    sb.append("\n\s\sDown Requests: ").append(downRequests);
-    sb.append("\n\s\sSystem Status: ").append(systemStatus);
-    return sb.toString();
+    out.append("\n\s\sUp Requests: ");
+    RequestQueue.appendRequests(out, this.upRequests);
+    out.append("\n\s\sDown Requests: ");
+    RequestQueue.appendRequests(out, this.downRequests);
+    out.append("\n\s\sSystem Status: ").append(this.systemStatus.toString());
   }
 }
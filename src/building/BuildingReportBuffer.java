@@ -0,0 +1,302 @@
+package building;
+
+import building.enums.Direction;
+import building.enums.ElevatorSystemStatus;
+import elevator.FloorMask;
+
+
+/**
+ * This class is a reusable report of a building, kept in primitive arrays.  It holds
+ * the same information as a BuildingReport, but the building copies its state into
+ * the same buffer every time instead of building new report objects, so once the
+ * arrays have grown to fit, taking a report allocates nothing.
+ *
+ * <p>The buffer is overwritten by every copy, so it must not be read while the building
+ * is copying into it.  Use BuildingReport to hand a report to another thread.</p>
+ */
+public class BuildingReportBuffer {
+  private int numFloors;
+  private int numElevators;
+  private int elevatorCapacity;
+  private ElevatorSystemStatus systemStatus;
+  private long version;
+
+  private int[] currentFloors = new int[0];
+  private Direction[] directions = new Direction[0];
+  private boolean[] doorsClosed = new boolean[0];
+  private int[] doorOpenTimers = new int[0];
+  private int[] endWaitTimers = new int[0];
+  private boolean[] outOfService = new boolean[0];
+  private boolean[] takingRequests = new boolean[0];
+  private int stopWords;
+  private long[] floorStops = new long[0];
+
+  private long[] upRequests = new long[0];
+  private int upCount;
+  private long[] downRequests = new long[0];
+  private int downCount;
+
+  /**
+   * Size the buffer for a building, growing the arrays only if they are too small.
+   */
+  void reset(int numFloors, int numElevators, int elevatorCapacity,
+             ElevatorSystemStatus systemStatus, long version) {
+    this.numFloors = numFloors;
+    this.numElevators = numElevators;
+    this.elevatorCapacity = elevatorCapacity;
+    this.systemStatus = systemStatus;
+    this.version = version;
+    this.stopWords = FloorMask.words(numFloors);
+    if (this.currentFloors.length < numElevators) {
+      this.currentFloors = new int[numElevators];
+      this.directions = new Direction[numElevators];
+      this.doorsClosed = new boolean[numElevators];
+      this.doorOpenTimers = new int[numElevators];
+      this.endWaitTimers = new int[numElevators];
+      this.outOfService = new boolean[numElevators];
+      this.takingRequests = new boolean[numElevators];
+    }
+    if (this.floorStops.length < numElevators * this.stopWords) {
+      this.floorStops = new long[numElevators * this.stopWords];
+    }
+  }
+
+  /**
+   * Copy the state of one elevator into the buffer.
+   */
+  void setElevator(int index, int currentFloor, Direction direction, boolean doorClosed,
+                   int doorOpenTimer, int endWaitTimer, boolean outOfService,
+                   boolean takingRequests) {
+    this.currentFloors[index] = currentFloor;
+    this.directions[index] = direction;
+    this.doorsClosed[index] = doorClosed;
+    this.doorOpenTimers[index] = doorOpenTimer;
+    this.endWaitTimers[index] = endWaitTimer;
+    this.outOfService[index] = outOfService;
+    this.takingRequests[index] = takingRequests;
+  }
+
+  /**
+   * Copy one word of an elevator's stop mask into the buffer.
+   */
+  void setFloorStopMask(int index, int word, long mask) {
+    this.floorStops[index * this.stopWords + word] = mask;
+  }
+
+  /**
+   * Copy the request queues into the buffer.
+   */
+  void setRequests(RequestQueue up, RequestQueue down) {
+    if (this.upRequests.length < up.size()) {
+      this.upRequests = new long[Math.max(up.size(), this.upRequests.length << 1)];
+    }
+    if (this.downRequests.length < down.size()) {
+      this.downRequests = new long[Math.max(down.size(), this.downRequests.length << 1)];
+    }
+    this.upCount = up.copyTo(this.upRequests);
+    this.downCount = down.copyTo(this.downRequests);
+  }
+
+  /**
+   * This method is used to get the number of floors in the building.
+   *
+   * @return the number of floors in the building.
+   */
+  public int getNumFloors() {
+    return this.numFloors;
+  }
+
+  /**
+   * This method is used to get the number of elevators in the building.
+   *
+   * @return the number of elevators in the building.
+   */
+  public int getNumElevators() {
+    return this.numElevators;
+  }
+
+  /**
+   * This method is used to get the max occupancy of the elevators.
+   *
+   * @return the max occupancy of the elevators.
+   */
+  public int getElevatorCapacity() {
+    return this.elevatorCapacity;
+  }
+
+  /**
+   * This method is used to get the status of the elevator system.
+   *
+   * @return the status of the elevator system.
+   */
+  public ElevatorSystemStatus getSystemStatus() {
+    return this.systemStatus;
+  }
+
+  /**
+   * This method is used to get the version of the building the report was taken at.
+   *
+   * @return the version of the report.
+   */
+  public long getVersion() {
+    return this.version;
+  }
+
+  /**
+   * This method is used to get the current floor of an elevator.
+   *
+   * @param elevator the index of the elevator.
+   * @return the current floor of the elevator.
+   */
+  public int getCurrentFloor(int elevator) {
+    return this.currentFloors[this.checkElevator(elevator)];
+  }
+
+  /**
+   * This method is used to get the direction of an elevator.
+   *
+   * @param elevator the index of the elevator.
+   * @return the direction of the elevator.
+   */
+  public Direction getDirection(int elevator) {
+    return this.directions[this.checkElevator(elevator)];
+  }
+
+  /**
+   * This method is used to get the status of the door of an elevator.
+   *
+   * @param elevator the index of the elevator.
+   * @return true if the door is closed.
+   */
+  public boolean isDoorClosed(int elevator) {
+    return this.doorsClosed[this.checkElevator(elevator)];
+  }
+
+  /**
+   * This method is used to get the door timer of an elevator.
+   *
+   * @param elevator the index of the elevator.
+   * @return the door timer.
+   */
+  public int getDoorOpenTimer(int elevator) {
+    return this.doorOpenTimers[this.checkElevator(elevator)];
+  }
+
+  /**
+   * This method is used to get the end of run timer of an elevator.
+   *
+   * @param elevator the index of the elevator.
+   * @return the end of run timer.
+   */
+  public int getEndWaitTimer(int elevator) {
+    return this.endWaitTimers[this.checkElevator(elevator)];
+  }
+
+  /**
+   * This method is used to check if an elevator is out of service.
+   *
+   * @param elevator the index of the elevator.
+   * @return true if the elevator is out of service.
+   */
+  public boolean isOutOfService(int elevator) {
+    return this.outOfService[this.checkElevator(elevator)];
+  }
+
+  /**
+   * This method is used to check if an elevator is taking requests.
+   *
+   * @param elevator the index of the elevator.
+   * @return true if the elevator is taking requests.
+   */
+  public boolean isTakingRequests(int elevator) {
+    return this.takingRequests[this.checkElevator(elevator)];
+  }
+
+  /**
+   * This method is used to check if an elevator will stop at a floor.
+   *
+   * @param elevator the index of the elevator.
+   * @param floor    the floor.
+   * @return true if the elevator has a stop request for the floor.
+   */
+  public boolean hasStopAt(int elevator, int floor) {
+    this.checkFloor(floor);
+    return (this.getFloorStopMask(elevator, floor >>> 6) & (1L << floor)) != 0;
+  }
+
+  /**
+   * This method is used to get one word of the stop requests of an elevator.
+   *
+   * @param elevator the index of the elevator.
+   * @param word     the word of the mask, see {@link FloorMask}.
+   * @return the stop requests in that word.
+   */
+  public long getFloorStopMask(int elevator, int word) {
+    return this.floorStops[this.checkElevator(elevator) * this.stopWords + this.checkWord(word)];
+  }
+
+  /**
+   * This method is used to get the number of up requests.
+   *
+   * @return the number of up requests.
+   */
+  public int getUpRequestCount() {
+    return this.upCount;
+  }
+
+  /**
+   * This method is used to get an up request, packed as by RequestQueue.pack().
+   *
+   * @param index the position of the request, 0 being the oldest.
+   * @return the packed request.
+   */
+  public long getUpRequest(int index) {
+    if (index < 0 || index >= this.upCount) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.upCount);
+    }
+    return this.upRequests[index];
+  }
+
+  /**
+   * This method is used to get the number of down requests.
+   *
+   * @return the number of down requests.
+   */
+  public int getDownRequestCount() {
+    return this.downCount;
+  }
+
+  /**
+   * This method is used to get a down request, packed as by RequestQueue.pack().
+   *
+   * @param index the position of the request, 0 being the oldest.
+   * @return the packed request.
+   */
+  public long getDownRequest(int index) {
+    if (index < 0 || index >= this.downCount) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.downCount);
+    }
+    return this.downRequests[index];
+  }
+
+  private int checkElevator(int elevator) {
+    if (elevator < 0 || elevator >= this.numElevators) {
+      throw new IndexOutOfBoundsException("Elevator: " + elevator + ", Elevators: "
+          + this.numElevators);
+    }
+    return elevator;
+  }
+
+  private void checkFloor(int floor) {
+    if (floor < 0 || floor >= this.numFloors) {
+      throw new IndexOutOfBoundsException("Floor: " + floor + ", Floors: " + this.numFloors);
+    }
+  }
+
+  private int checkWord(int word) {
+    if (word < 0 || word >= this.stopWords) {
+      throw new IndexOutOfBoundsException("Word: " + word + ", Words: " + this.stopWords);
+    }
+    return word;
+  }
+}
@@ -0,0 +1,180 @@
+package building;
+
+import building.dispatch.DispatchStrategy;
+import building.dispatch.FifoDispatch;
+import building.enums.ElevatorSystemStatus;
+import building.journal.EventJournal;
+
+
+/**
+ * This class represents a building whose requests can be added from many threads.
+ * Scanner threads validate their tickets and hand them to a lock-free inbox without
+ * ever taking a lock.  The simulation thread moves the tickets from the inbox into the
+ * up and down request queues at the start of each step, so the rest of the building
+ * only ever runs on one thread.
+ */
+public class ConcurrentBuilding extends Building {
+  private static final int DEFAULT_INBOX_CAPACITY = 1 << 16;
+
+  private final RequestInbox upInbox;
+  private final RequestInbox downInbox;
+
+  /**
+   * The constructor for the building, using the default inbox capacity.
+   *
+   * @param numberOfFloors the number of floors in the building.
+   * @param numberOfElevators the number of elevators in the building.
+   * @param elevatorCapacity the capacity of the elevators in the building.
+   * @throws IllegalArgumentException if the number of floors is less than 2.
+   * @throws IllegalArgumentException if the number of elevators is less than 1.
+   * @throws IllegalArgumentException if the elevator capacity is less than 3.
+   */
+  public ConcurrentBuilding(int numberOfFloors, int numberOfElevators, int elevatorCapacity) {
+    this(numberOfFloors, numberOfElevators, elevatorCapacity, DEFAULT_INBOX_CAPACITY);
+  }
+
+  /**
+   * The constructor for the building.
+   *
+   * @param numberOfFloors the number of floors in the building.
+   * @param numberOfElevators the number of elevators in the building.
+   * @param elevatorCapacity the capacity of the elevators in the building.
+   * @param inboxCapacity the number of requests each direction can hold between steps.
+   * @throws IllegalArgumentException if the number of floors is less than 2.
+   * @throws IllegalArgumentException if the number of elevators is less than 1.
+   * @throws IllegalArgumentException if the elevator capacity is less than 3.
+   * @throws IllegalArgumentException if the inbox capacity is less than 1.
+   */
+  public ConcurrentBuilding(int numberOfFloors, int numberOfElevators, int elevatorCapacity,
+                            int inboxCapacity) {
+    this(numberOfFloors, numberOfElevators, elevatorCapacity, new FifoDispatch(),
+        inboxCapacity);
+  }
+
+  /**
+   * The constructor for the building with a chosen dispatch strategy.
+   *
+   * @param numberOfFloors the number of floors in the building.
+   * @param numberOfElevators the number of elevators in the building.
+   * @param elevatorCapacity the capacity of the elevators in the building.
+   * @param dispatchStrategy the strategy that hands requests to the elevators.
+   * @param inboxCapacity the number of requests each direction can hold between steps.
+   * @throws IllegalArgumentException if the number of floors is less than 2.
+   * @throws IllegalArgumentException if the number of elevators is less than 1.
+   * @throws IllegalArgumentException if the elevator capacity is less than 3.
+   * @throws IllegalArgumentException if the dispatch strategy is null.
+   * @throws IllegalArgumentException if the inbox capacity is less than 1.
+   */
+  public ConcurrentBuilding(int numberOfFloors, int numberOfElevators, int elevatorCapacity,
+                            DispatchStrategy dispatchStrategy, int inboxCapacity) {
+    this(numberOfFloors, numberOfElevators, elevatorCapacity, dispatchStrategy, inboxCapacity,
+        false);
+  }
+
+  /**
+   * The constructor for the building with a chosen dispatch strategy, optionally
+   * as a supertall building.
+   *
+   * @param numberOfFloors the number of floors in the building.
+   * @param numberOfElevators the number of elevators in the building.
+   * @param elevatorCapacity the capacity of the elevators in the building.
+   * @param dispatchStrategy the strategy that hands requests to the elevators.
+   * @param inboxCapacity the number of requests each direction can hold between steps.
+   * @param supertall true to use the supertall limits.
+   * @throws IllegalArgumentException if the number of floors is less than 2.
+   * @throws IllegalArgumentException if the number of elevators is less than 1.
+   * @throws IllegalArgumentException if the elevator capacity is less than 3.
+   * @throws IllegalArgumentException if the dispatch strategy is null.
+   * @throws IllegalArgumentException if the inbox capacity is less than 1.
+   * @throws IllegalArgumentException if the elevators cannot serve that many floors
+   *                                  or carry that many people.
+   */
+  public ConcurrentBuilding(int numberOfFloors, int numberOfElevators, int elevatorCapacity,
+                            DispatchStrategy dispatchStrategy, int inboxCapacity,
+                            boolean supertall) {
+    super(numberOfFloors, numberOfElevators, elevatorCapacity, dispatchStrategy, supertall);
+    this.upInbox = new RequestInbox(inboxCapacity);
+    this.downInbox = new RequestInbox(inboxCapacity);
+  }
+
+  /**
+   * Add a request from any thread.  The request is validated on the calling
+   * thread and becomes visible in the building at the start of the next step.
+   *
+   * @param startFloor the start floor of the request.
+   * @param endFloor   the end floor of the request.
+   * @return true if the request was added, false if the inbox is full.
+   */
+  @Override
+  public boolean addRequest(int startFloor, int endFloor) {
+    this.checkRequest(startFloor, endFloor);
+    if (startFloor < endFloor) {
+      return this.upInbox.offer(RequestQueue.pack(startFloor, endFloor));
+    } else {
+      return this.downInbox.offer(RequestQueue.pack(startFloor, endFloor));
+    }
+  }
+
+  /**
+   * Add a batch of validated requests to the inbox for their direction
+   * with a single claim, instead of to the queue itself.
+   */
+  @Override
+  protected boolean enqueueBatch(RequestQueue queue, long[] packed, int count) {
+    if (queue == this.upRequests) {
+      return this.upInbox.offerAll(packed, count);
+    } else {
+      return this.downInbox.offerAll(packed, count);
+    }
+  }
+
+  @Override
+  public void stepElevatorSystem() {
+    this.drainInboxes();
+    super.stepElevatorSystem();
+  }
+
+  /**
+   * Requests waiting in the inbox are moved into the queues first, so a step that
+   * would pick them up is never counted as idle.
+   */
+  @Override
+  public int getIdleSteps() {
+    this.drainInboxes();
+    return super.getIdleSteps();
+  }
+
+  @Override
+  public void stopElevatorSystem() {
+    super.stopElevatorSystem();
+    this.drainInboxes();
+  }
+
+  /**
+   * Move the requests that have arrived since the last step into the request queues.
+   * Requests that raced with a stop are dropped, just like the queued ones.
+   */
+  private void drainInboxes() {
+    if (this.elevatorsStatus == ElevatorSystemStatus.running) {
+      int upFrom = this.upRequests.size();
+      int downFrom = this.downRequests.size();
+      this.upInbox.drainTo(this.upRequests);
+      this.downInbox.drainTo(this.downRequests);
+      EventJournal journal = this.getJournal();
+      if (journal != null) {
+        // requests are recorded as they reach the queues, on the simulation thread
+        journalRequests(journal, this.upRequests, upFrom);
+        journalRequests(journal, this.downRequests, downFrom);
+      }
+    } else {
+      this.upInbox.drainTo(null);
+      this.downInbox.drainTo(null);
+    }
+  }
+
+  private static void journalRequests(EventJournal journal, RequestQueue queue, int from) {
+    for (int i = from; i < queue.size(); i++) {
+      journal.request(queue.getStartFloor(i), queue.getEndFloor(i));
+    }
+  }
+}
@@ -0,0 +1,138 @@
+package building;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+
+/**
+ * This class is a bounded, lock-free, multi-producer single-consumer queue of packed
+ * requests.  Any number of scanner threads may offer requests at the same time, and a
+ * single simulation thread drains them.  Producers never block: when the inbox is full
+ * the offer fails and the caller decides what to do.
+ *
+ * <p>Every slot carries a sequence number.  A producer claims a position by moving the
+ * tail with a compare-and-set, writes the request into the slot and then publishes it by
+ * storing the next sequence number.  The consumer only reads a slot once it has been
+ * published and hands the slot back to the producers one lap later.</p>
+ */
+final class RequestInbox {
+  private final long[] requests;
+  private final AtomicLongArray sequences;
+  private final int mask;
+  private final AtomicLong tail = new AtomicLong();
+  private long head;
+
+  /**
+   * This constructor is used to create a new RequestInbox.
+   *
+   * @param capacity the minimum number of requests the inbox can hold,
+   *                 rounded up to a power of two.
+   * @throws IllegalArgumentException if the capacity is less than 1 or too large.
+   */
+  RequestInbox(int capacity) {
+    if (capacity < 1 || capacity > (1 << 30)) {
+      throw new IllegalArgumentException("capacity must be between 1 and " + (1 << 30));
+    }
+    int size = Integer.highestOneBit(capacity);
+    if (size < capacity) {
+      size <<= 1;
+    }
+    this.requests = new long[size];
+    this.sequences = new AtomicLongArray(size);
+    for (int i = 0; i < size; i++) {
+      this.sequences.set(i, i);
+    }
+    this.mask = size - 1;
+  }
+
+  /**
+   * This method is used to get the number of requests the inbox can hold.
+   *
+   * @return the capacity of the inbox.
+   */
+  int capacity() {
+    return this.requests.length;
+  }
+
+  /**
+   * This method is used by a producer to add a packed request.  It is safe to call
+   * from any thread.
+   *
+   * @param packed the packed request.
+   * @return true if the request was added, false if the inbox is full.
+   */
+  boolean offer(long packed) {
+    while (true) {
+      long position = this.tail.get();
+      int index = (int) position & this.mask;
+      long sequence = this.sequences.get(index);
+      if (sequence == position) {
+        if (this.tail.compareAndSet(position, position + 1)) {
+          this.requests[index] = packed;
+          this.sequences.set(index, position + 1);
+          return true;
+        }
+      } else if (sequence < position) {
+        return false;
+      }
+    }
+  }
+
+  /**
+   * This method is used by a producer to add a batch of packed requests with a single
+   * claim on the tail.  Either the whole batch is added or none of it is.
+   *
+   * @param packed the packed requests.
+   * @param count  the number of requests to add from the start of the array.
+   * @return true if the batch was added, false if there is not enough room for it.
+   */
+  boolean offerAll(long[] packed, int count) {
+    if (count == 0) {
+      return true;
+    } else if (count > this.requests.length) {
+      return false;
+    }
+    while (true) {
+      long position = this.tail.get();
+      long last = position + count - 1;
+      // The consumer frees slots in order, so if the last slot is free they all are.
+      long sequence = this.sequences.get((int) last & this.mask);
+      if (sequence == last) {
+        if (this.tail.compareAndSet(position, position + count)) {
+          for (int i = 0; i < count; i++) {
+            int index = (int) (position + i) & this.mask;
+            this.requests[index] = packed[i];
+            this.sequences.set(index, position + i + 1);
+          }
+          return true;
+        }
+      } else if (sequence < last) {
+        return false;
+      }
+    }
+  }
+
+  /**
+   * This method is used by the consumer to move every published request into the queue.
+   * It must only be called from the consumer thread.
+   *
+   * @param queue the queue to move the requests into, or null to discard them.
+   * @return the number of requests taken from the inbox.
+   */
+  int drainTo(RequestQueue queue) {
+    int count = 0;
+    while (true) {
+      int index = (int) this.head & this.mask;
+      if (this.sequences.get(index) != this.head + 1) {
+        return count;
+      }
+      long packed = this.requests[index];
+      this.sequences.set(index, this.head + this.requests.length);
+      this.head++;
+      count++;
+      if (queue != null) {
+        queue.add(RequestQueue.startFloorOf(packed), RequestQueue.endFloorOf(packed));
+      }
+    }
+  }
+}
@@ -0,0 +1,572 @@
+package building;
+
+import elevator.FloorMask;
+import elevator.ReportText;
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+import scanerzus.Request;
+
+
+/**
+ * This class is used to hold the pending requests of the building in arrival order.
+ * The requests are kept in a growable ring buffer so that adding a request at the tail
+ * and taking a request from the head are both constant time operations.
+ * Each request is packed into a single long (start floor in the high half, end floor in
+ * the low half), so the queue holds no Request object per ticket.
+ * The queue also counts the requests waiting at each start floor and keeps the floors
+ * with waiting requests in a {@link FloorMask}, so checking a range of floors for hall
+ * calls does not depend on how many requests are waiting.
+ *
+ * <p>A snapshot shares the buffer with the queue instead of copying it.  The queue
+ * remembers which slots a snapshot can still see and copies the buffer only before it
+ * would overwrite one of them, so taking a snapshot every step costs nothing until the
+ * queue wraps around onto those slots or closes a gap in the middle.</p>
+ */
+public final class RequestQueue {
+  private static final int DEFAULT_CAPACITY = 16;
+
+  private long[] buffer;
+  private int head;
+  private int size;
+  private final List<Request> view;
+  private long[] takenBits = new long[1];
+  private int[] startCounts = new int[0];
+  private long[] startFloors = new long[0];
+  private boolean shared;
+  private int sharedHead;
+  private int sharedLength;
+  private int changeCount;
+
+  /**
+   * This constructor is used to create a new, empty RequestQueue.
+   */
+  public RequestQueue() {
+    this.buffer = new long[DEFAULT_CAPACITY];
+    this.head = 0;
+    this.size = 0;
+    this.view = Collections.unmodifiableList(new QueueView());
+  }
+
+  /**
+   * This method is used to pack a request into a single long.
+   *
+   * @param startFloor the start floor of the request.
+   * @param endFloor   the end floor of the request.
+   * @return the packed request.
+   */
+  public static long pack(int startFloor, int endFloor) {
+    return ((long) startFloor << 32) | (endFloor & 0xFFFFFFFFL);
+  }
+
+  /**
+   * This method is used to get the start floor of a packed request.
+   *
+   * @param packed the packed request.
+   * @return the start floor of the request.
+   */
+  public static int startFloorOf(long packed) {
+    return (int) (packed >> 32);
+  }
+
+  /**
+   * This method is used to get the end floor of a packed request.
+   *
+   * @param packed the packed request.
+   * @return the end floor of the request.
+   */
+  public static int endFloorOf(long packed) {
+    return (int) packed;
+  }
+
+  /**
+   * This method is used to add a request to the tail of the queue.
+   *
+   * @param startFloor the start floor of the request.
+   * @param endFloor   the end floor of the request.
+   * @throws IllegalArgumentException if the start floor is negative.
+   */
+  public void add(int startFloor, int endFloor) {
+    if (this.size == this.buffer.length) {
+      this.grow();
+    }
+    this.countStart(startFloor);
+    int tail = (this.head + this.size) & (this.buffer.length - 1);
+    this.beforeWrite(tail, 1);
+    this.buffer[tail] = pack(startFloor, endFloor);
+    this.size++;
+    this.changeCount++;
+  }
+
+  /**
+   * This method is used to add a batch of packed requests to the tail of the queue.
+   * The buffer is grown at most once and the requests are copied in one go.
+   *
+   * @param packed the packed requests, see {@link #pack(int, int)}.
+   * @param count  the number of requests to add from the start of the array.
+   * @throws IllegalArgumentException if any start floor is negative.
+   */
+  public void addAll(long[] packed, int count) {
+    while (this.size + count > this.buffer.length) {
+      this.grow();
+    }
+    for (int i = 0; i < count; i++) {
+      if (startFloorOf(packed[i]) < 0) {
+        throw new IllegalArgumentException("The start floor cannot be negative.");
+      }
+    }
+    for (int i = 0; i < count; i++) {
+      this.countStart(startFloorOf(packed[i]));
+    }
+    int tail = (this.head + this.size) & (this.buffer.length - 1);
+    this.beforeWrite(tail, count);
+    int firstPart = Math.min(count, this.buffer.length - tail);
+    System.arraycopy(packed, 0, this.buffer, tail, firstPart);
+    System.arraycopy(packed, firstPart, this.buffer, 0, count - firstPart);
+    this.size += count;
+    if (count > 0) {
+      this.changeCount++;
+    }
+  }
+
+  /**
+   * This method is used to take up to max requests from the head of the queue.
+   * The floors of the requests taken are written to the given arrays, oldest first.
+   *
+   * @param startFloors the array to write the start floors to.
+   * @param endFloors   the array to write the end floors to.
+   * @param max         the maximum number of requests to take.
+   * @return the number of requests taken.
+   */
+  public int poll(int[] startFloors, int[] endFloors, int max) {
+    int count = Math.min(max, this.size);
+    int mask = this.buffer.length - 1;
+    for (int i = 0; i < count; i++) {
+      long packed = this.buffer[(this.head + i) & mask];
+      startFloors[i] = startFloorOf(packed);
+      endFloors[i] = endFloorOf(packed);
+      this.uncountStart(startFloors[i]);
+    }
+    this.head = (this.head + count) & mask;
+    this.size -= count;
+    if (count > 0) {
+      this.changeCount++;
+    }
+    return count;
+  }
+
+  /**
+   * This method is used to take up to max of the oldest requests whose start floor is
+   * between lowFloor and highFloor, inclusive.  The requests left behind keep their order.
+   * The floors of the requests taken are written to the given arrays, oldest first.
+   *
+   * @param lowFloor    the lowest start floor to take.
+   * @param highFloor   the highest start floor to take.
+   * @param startFloors the array to write the start floors to.
+   * @param endFloors   the array to write the end floors to.
+   * @param max         the maximum number of requests to take.
+   * @return the number of requests taken.
+   */
+  public int pollStartingBetween(int lowFloor, int highFloor,
+                                 int[] startFloors, int[] endFloors, int max) {
+    if (!this.anyStartingBetween(lowFloor, highFloor)) {
+      return 0;
+    }
+    int mask = this.buffer.length - 1;
+    int taken = 0;
+    int last = -1;
+    for (int i = 0; i < this.size && taken < max; i++) {
+      long packed = this.buffer[(this.head + i) & mask];
+      int start = startFloorOf(packed);
+      if (start >= lowFloor && start <= highFloor) {
+        startFloors[taken] = start;
+        endFloors[taken] = endFloorOf(packed);
+        this.uncountStart(start);
+        taken++;
+        last = i;
+      }
+    }
+    if (taken == 0) {
+      return 0;
+    }
+
+    // Every match up to the last one taken was taken, so close the gaps by moving
+    // the requests left in front of it towards the tail.
+    int write = last;
+    for (int i = last; i >= 0; i--) {
+      long packed = this.buffer[(this.head + i) & mask];
+      int start = startFloorOf(packed);
+      if (start < lowFloor || start > highFloor) {
+        this.beforeWrite((this.head + write) & mask, 1);
+        this.buffer[(this.head + write) & mask] = packed;
+        write--;
+      }
+    }
+    this.head = (this.head + taken) & mask;
+    this.size -= taken;
+    this.changeCount++;
+    return taken;
+  }
+
+  /**
+   * This method is used to check if any request starts between lowFloor and highFloor,
+   * inclusive.  This looks at the floors with waiting requests, not at the requests.
+   *
+   * @param lowFloor  the lowest start floor to look for.
+   * @param highFloor the highest start floor to look for.
+   * @return true if at least one request starts in that range.
+   */
+  public boolean anyStartingBetween(int lowFloor, int highFloor) {
+    if (this.size == 0 || highFloor < lowFloor) {
+      return false;
+    }
+    int floor = FloorMask.nextAbove(this.startFloors, Math.max(lowFloor, 0) - 1);
+    return floor >= 0 && floor <= highFloor;
+  }
+
+  /**
+   * This method is used to get the number of requests waiting at a start floor.
+   *
+   * @param startFloor the start floor.
+   * @return the number of requests that start at that floor.
+   */
+  public int countStartingAt(int startFloor) {
+    if (startFloor < 0 || startFloor >= this.startCounts.length) {
+      return 0;
+    }
+    return this.startCounts[startFloor];
+  }
+
+  /**
+   * This method is used to offer the requests, oldest first, to a visitor and take the
+   * ones it accepts, stopping once max requests have been taken.  The requests left
+   * behind keep their order.
+   *
+   * @param visitor the visitor that decides which requests to take.
+   * @param max     the maximum number of requests to take.
+   * @return the number of requests taken.
+   */
+  public int pollIf(Visitor visitor, int max) {
+    int mask = this.buffer.length - 1;
+    int words = (this.size + 63) >>> 6;
+    if (this.takenBits.length < words) {
+      this.takenBits = new long[words];
+    }
+
+    int taken = 0;
+    int last = -1;
+    for (int i = 0; i < this.size && taken < max; i++) {
+      long packed = this.buffer[(this.head + i) & mask];
+      if (visitor.take(startFloorOf(packed), endFloorOf(packed))) {
+        this.takenBits[i >>> 6] |= 1L << i;
+        this.uncountStart(startFloorOf(packed));
+        taken++;
+        last = i;
+      }
+    }
+    if (taken == 0) {
+      return 0;
+    }
+
+    int write = last;
+    for (int i = last; i >= 0; i--) {
+      if ((this.takenBits[i >>> 6] & (1L << i)) == 0) {
+        this.beforeWrite((this.head + write) & mask, 1);
+        this.buffer[(this.head + write) & mask] = this.buffer[(this.head + i) & mask];
+        write--;
+      }
+    }
+    for (int w = 0; w <= (last >>> 6); w++) {
+      this.takenBits[w] = 0;
+    }
+    this.head = (this.head + taken) & mask;
+    this.size -= taken;
+    this.changeCount++;
+    return taken;
+  }
+
+  /**
+   * This method is used to copy the packed requests, oldest first, into an array.
+   *
+   * @param packed the array to copy into, with room for size() requests.
+   * @return the number of requests copied.
+   * @throws IndexOutOfBoundsException if the array is too small.
+   */
+  public int copyTo(long[] packed) {
+    if (packed.length < this.size) {
+      throw new IndexOutOfBoundsException("Need room for " + this.size + " requests, have "
+          + packed.length);
+    }
+    int firstPart = Math.min(this.size, this.buffer.length - this.head);
+    System.arraycopy(this.buffer, this.head, packed, 0, firstPart);
+    System.arraycopy(this.buffer, 0, packed, firstPart, this.size - firstPart);
+    return this.size;
+  }
+
+  /**
+   * This method is used to get the start floor of the request at the given position.
+   *
+   * @param index the position of the request, 0 being the oldest request.
+   * @return the start floor of the request.
+   * @throws IndexOutOfBoundsException if the index is out of range.
+   */
+  public int getStartFloor(int index) {
+    return startFloorOf(this.packedAt(index));
+  }
+
+  /**
+   * This method is used to get the end floor of the request at the given position.
+   *
+   * @param index the position of the request, 0 being the oldest request.
+   * @return the end floor of the request.
+   * @throws IndexOutOfBoundsException if the index is out of range.
+   */
+  public int getEndFloor(int index) {
+    return endFloorOf(this.packedAt(index));
+  }
+
+  /**
+   * This method is used to get the request at the given position, counted from the head.
+   * A new Request is created for the ticket each time this is called.
+   *
+   * @param index the position of the request, 0 being the oldest request.
+   * @return the request at the given position.
+   * @throws IndexOutOfBoundsException if the index is out of range.
+   */
+  public Request get(int index) {
+    long packed = this.packedAt(index);
+    return new Request(startFloorOf(packed), endFloorOf(packed));
+  }
+
+  /**
+   * This method is used to get the number of requests in the queue.
+   *
+   * @return the number of requests in the queue.
+   */
+  public int size() {
+    return this.size;
+  }
+
+  /**
+   * This method is used to check if the queue is empty.
+   *
+   * @return true if there are no requests in the queue, false otherwise.
+   */
+  public boolean isEmpty() {
+    return this.size == 0;
+  }
+
+  /**
+   * This method is used to get a count that changes whenever the requests in the
+   * queue change, so a caller can tell if the queue has changed without looking at it.
+   *
+   * @return the change count.
+   */
+  public int getChangeCount() {
+    return this.changeCount;
+  }
+
+  /**
+   * This method is used to remove all the requests from the queue.
+   */
+  public void clear() {
+    if (this.size > 0) {
+      this.changeCount++;
+    }
+    this.head = 0;
+    this.size = 0;
+    Arrays.fill(this.startCounts, 0);
+    FloorMask.clear(this.startFloors);
+  }
+
+  /**
+   * This method is used to get a read-only view of the queue.
+   * The view is backed by the queue, so it reflects later changes to the queue.
+   *
+   * @return a read-only list of the requests, oldest first.
+   */
+  public List<Request> asList() {
+    return this.view;
+  }
+
+  /**
+   * This method is used to take a point-in-time copy of the queue.  The snapshot never
+   * changes, even as the queue does, and can be read from any thread once it has been
+   * handed over.  Taking it does not copy the requests.
+   *
+   * @return an unmodifiable list of the requests in the queue now, oldest first.
+   */
+  public List<Request> snapshot() {
+    if (this.size == 0) {
+      return Collections.emptyList();
+    }
+    int capacity = this.buffer.length;
+    if (this.shared) {
+      int from = (this.head - this.sharedHead) & (capacity - 1);
+      this.sharedLength = Math.min(capacity, Math.max(this.sharedLength, from + this.size));
+    } else {
+      this.shared = true;
+      this.sharedHead = this.head;
+      this.sharedLength = this.size;
+    }
+    return new Snapshot(this.buffer, this.head, this.size);
+  }
+
+  @Override
+  public String toString() {
+    return this.view.toString();
+  }
+
+  /**
+   * Copy the buffer before writing count slots from the given slot if a snapshot
+   * can still see any of them.
+   */
+  private void beforeWrite(int slot, int count) {
+    if (this.shared) {
+      int offset = (slot - this.sharedHead) & (this.buffer.length - 1);
+      if (offset < this.sharedLength || offset + count > this.buffer.length) {
+        this.buffer = this.buffer.clone();
+        this.shared = false;
+      }
+    }
+  }
+
+  private long packedAt(int index) {
+    if (index < 0 || index >= this.size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.size);
+    }
+    return this.buffer[(this.head + index) & (this.buffer.length - 1)];
+  }
+
+  /**
+   * Count a request waiting at a start floor, making room for the floor if needed.
+   */
+  private void countStart(int floor) {
+    if (floor < 0) {
+      throw new IllegalArgumentException("The start floor cannot be negative.");
+    }
+    if (floor >= this.startCounts.length) {
+      int length = Math.max(floor + 1, this.startCounts.length << 1);
+      this.startCounts = Arrays.copyOf(this.startCounts, length);
+      this.startFloors = Arrays.copyOf(this.startFloors, FloorMask.words(length));
+    }
+    if (this.startCounts[floor]++ == 0) {
+      FloorMask.add(this.startFloors, floor);
+    }
+  }
+
+  /**
+   * Stop counting a request that has left the queue.
+   */
+  private void uncountStart(int floor) {
+    if (--this.startCounts[floor] == 0) {
+      FloorMask.remove(this.startFloors, floor);
+    }
+  }
+
+  /**
+   * Double the capacity of the buffer, moving the requests so the head is at index 0.
+   */
+  private void grow() {
+    long[] larger = new long[this.buffer.length << 1];
+    int firstPart = Math.min(this.size, this.buffer.length - this.head);
+    System.arraycopy(this.buffer, this.head, larger, 0, firstPart);
+    System.arraycopy(this.buffer, 0, larger, firstPart, this.size - firstPart);
+    this.buffer = larger;
+    this.head = 0;
+    this.shared = false;
+  }
+
+  /**
+   * This interface is used to decide which requests to take in pollIf.
+   */
+  public interface Visitor {
+
+    /**
+     * This method is called once for each request offered, oldest first.
+     *
+     * @param startFloor the start floor of the request.
+     * @param endFloor   the end floor of the request.
+     * @return true to take the request out of the queue, false to leave it.
+     */
+    boolean take(int startFloor, int endFloor);
+  }
+
+  /**
+   * Write a list of requests the way List.toString() does, reading a snapshot's
+   * packed requests directly so no Request objects are made.
+   */
+  static void appendRequests(Appendable out, List<Request> requests) throws IOException {
+    out.append('[');
+    if (requests instanceof Snapshot) {
+      Snapshot snapshot = (Snapshot) requests;
+      for (int i = 0; i < snapshot.size; i++) {
+        if (i > 0) {
+          out.append(", ");
+        }
+        long packed = snapshot.buffer[(snapshot.head + i) & (snapshot.buffer.length - 1)];
+        ReportText.appendInt(out, startFloorOf(packed));
+        out.append("->");
+        ReportText.appendInt(out, endFloorOf(packed));
+      }
+    } else {
+      boolean first = true;
+      for (Request request : requests) {
+        if (!first) {
+          out.append(", ");
+        }
+        first = false;
+        out.append(String.valueOf(request));
+      }
+    }
+    out.append(']');
+  }
+
+  /**
+   * An unmodifiable list over a buffer that the queue will no longer write to
+   * where the list can see.
+   */
+  private static final class Snapshot extends AbstractList<Request> implements RandomAccess {
+    private final long[] buffer;
+    private final int head;
+    private final int size;
+
+    private Snapshot(long[] buffer, int head, int size) {
+      this.buffer = buffer;
+      this.head = head;
+      this.size = size;
+    }
+
+    @Override
+    public Request get(int index) {
+      if (index < 0 || index >= this.size) {
+        throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.size);
+      }
+      long packed = this.buffer[(this.head + index) & (this.buffer.length - 1)];
+      return new Request(startFloorOf(packed), endFloorOf(packed));
+    }
+
+    @Override
+    public int size() {
+      return this.size;
+    }
+  }
+
+  /**
+   * A list view over the ring buffer.
+   */
+  private final class QueueView extends AbstractList<Request> implements RandomAccess {
+    @Override
+    public Request get(int index) {
+      return RequestQueue.this.get(index);
+    }
+
+    @Override
+    public int size() {
+      return RequestQueue.this.size;
+    }
+  }
+}
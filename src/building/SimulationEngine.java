@@ -0,0 +1,202 @@
+package building;
+
+import building.enums.RequestStatus;
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
+
+/**
+ * This class runs a building as a discrete event simulation.  Requests are scheduled
+ * for the step at which they arrive and kept in a priority queue keyed by simulated time.
+ * Instead of calling stepElevatorSystem() for every step, the engine asks the building
+ * how many of the coming steps would only count down door and waiting timers and jumps
+ * straight past them, to the next door close, end of a wait, or request arrival.
+ * The building goes through exactly the same states as it would if it were stepped
+ * one step at a time with the requests added at the start of their step.
+ */
+public class SimulationEngine {
+  private final BuildingInterface building;
+  private final PriorityQueue<Arrival> arrivals = new PriorityQueue<>();
+  private long time;
+  private long arrivalSequence;
+  private long stepsRun;
+  private long stepsSkipped;
+  private long requestsRejected;
+  private int[] arrivingStarts = new int[16];
+  private int[] arrivingEnds = new int[16];
+
+  /**
+   * This constructor is used to create a new SimulationEngine at time 0.
+   *
+   * @param building the building to simulate.
+   * @throws IllegalArgumentException if the building is null.
+   */
+  public SimulationEngine(BuildingInterface building) {
+    if (building == null) {
+      throw new IllegalArgumentException("building cannot be null");
+    }
+    this.building = building;
+  }
+
+  /**
+   * This method is used to schedule a request to arrive at the start of a step.
+   *
+   * @param time       the step at which the request arrives, not before the current time.
+   * @param startFloor the start floor of the request.
+   * @param endFloor   the end floor of the request.
+   * @throws IllegalArgumentException if the time is in the past.
+   */
+  public void scheduleRequest(long time, int startFloor, int endFloor) {
+    if (time < this.time) {
+      throw new IllegalArgumentException("Cannot schedule a request at " + time
+          + ", the time is already " + this.time);
+    }
+    this.arrivals.add(new Arrival(time, this.arrivalSequence++, startFloor, endFloor));
+  }
+
+  /**
+   * This method is used to run the simulation until the given time.  Requests
+   * scheduled for that time have not been added yet when this returns.
+   *
+   * @param endTime the time to stop at.
+   * @throws IllegalArgumentException if the end time is in the past.
+   */
+  public void runUntil(long endTime) {
+    if (endTime < this.time) {
+      throw new IllegalArgumentException("Cannot run until " + endTime
+          + ", the time is already " + this.time);
+    }
+
+    while (this.time < endTime) {
+      Arrival next = this.arrivals.peek();
+      long target = Math.min(endTime, next == null ? Long.MAX_VALUE : next.time);
+      if (target > this.time) {
+        long idle = Math.min(this.building.getIdleSteps(), target - this.time);
+        if (idle > 0) {
+          this.building.skipSteps((int) idle);
+          this.time += idle;
+          this.stepsSkipped += idle;
+          continue;
+        }
+      }
+
+      this.addArrivals();
+      this.building.stepElevatorSystem();
+      this.time++;
+      this.stepsRun++;
+    }
+  }
+
+  /**
+   * This method is used to get the current simulated time, in steps.
+   *
+   * @return the current time.
+   */
+  public long getTime() {
+    return this.time;
+  }
+
+  /**
+   * This method is used to get the number of steps that were actually run.
+   *
+   * @return the number of steps run.
+   */
+  public long getStepsRun() {
+    return this.stepsRun;
+  }
+
+  /**
+   * This method is used to get the number of idle steps that were skipped.
+   *
+   * @return the number of steps skipped.
+   */
+  public long getStepsSkipped() {
+    return this.stepsSkipped;
+  }
+
+  /**
+   * This method is used to get the number of scheduled requests the building did not
+   * accept when they arrived, for example because the system was not running.
+   *
+   * @return the number of rejected requests.
+   */
+  public long getRequestsRejected() {
+    return this.requestsRejected;
+  }
+
+  /**
+   * This method is used to get the number of requests still waiting to arrive.
+   *
+   * @return the number of scheduled requests.
+   */
+  public int getPendingArrivals() {
+    return this.arrivals.size();
+  }
+
+  /**
+   * This method is used to get the time of the next scheduled request.
+   *
+   * @return the time the next request arrives, or Long.MAX_VALUE if there is none.
+   */
+  public long getNextArrivalTime() {
+    Arrival next = this.arrivals.peek();
+    return next == null ? Long.MAX_VALUE : next.time;
+  }
+
+  /**
+   * Add every request that arrives at the current time as one batch.
+   */
+  private void addArrivals() {
+    Arrival next = this.arrivals.peek();
+    if (next == null || next.time != this.time) {
+      return;
+    }
+
+    // the queue is ordered by time, so only the arrivals due now are looked at
+    int count = 0;
+    while (next != null && next.time == this.time) {
+      if (count == this.arrivingStarts.length) {
+        this.arrivingStarts = Arrays.copyOf(this.arrivingStarts, count << 1);
+        this.arrivingEnds = Arrays.copyOf(this.arrivingEnds, count << 1);
+      }
+      this.arrivals.poll();
+      this.arrivingStarts[count] = next.startFloor;
+      this.arrivingEnds[count] = next.endFloor;
+      count++;
+      next = this.arrivals.peek();
+    }
+    int[] startFloors = Arrays.copyOf(this.arrivingStarts, count);
+    int[] endFloors = Arrays.copyOf(this.arrivingEnds, count);
+    for (byte status : this.building.addRequests(startFloors, endFloors)) {
+      if (status != RequestStatus.ACCEPTED.getCode()) {
+        this.requestsRejected++;
+      }
+    }
+  }
+
+  /**
+   * A request waiting for its arrival time.  Requests with the same time arrive
+   * in the order they were scheduled.
+   */
+  private static final class Arrival implements Comparable<Arrival> {
+    private final long time;
+    private final long sequence;
+    private final int startFloor;
+    private final int endFloor;
+
+    private Arrival(long time, long sequence, int startFloor, int endFloor) {
+      this.time = time;
+      this.sequence = sequence;
+      this.startFloor = startFloor;
+      this.endFloor = endFloor;
+    }
+
+    @Override
+    public int compareTo(Arrival that) {
+      if (this.time != that.time) {
+        return Long.compare(this.time, that.time);
+      }
+      return Long.compare(this.sequence, that.sequence);
+    }
+  }
+}
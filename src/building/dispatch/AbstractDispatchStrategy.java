@@ -0,0 +1,105 @@
+package building.dispatch;
+
+import building.RequestQueue;
+import building.journal.EventJournal;
+import elevator.ElevatorInterface;
+
+/**
+ * This class holds what the built-in dispatch strategies share: scratch arrays to
+ * hand requests to the elevators without allocating, and a count of the requests
+ * each elevator has been given on its current run, so that an elevator picking
+ * up requests on the way never takes more than its capacity.  Every request an
+ * elevator carries ends ahead of it, so an elevator with no stops left ahead is
+ * empty and its count starts again.  Every request handed out is recorded in the
+ * journal, if there is one.
+ */
+public abstract class AbstractDispatchStrategy implements DispatchStrategy {
+  protected int[] startFloors = new int[0];
+  protected int[] endFloors = new int[0];
+  private int[] ticketsOnRun = new int[0];
+  private EventJournal journal;
+
+  @Override
+  public void setJournal(EventJournal journal) {
+    this.journal = journal;
+  }
+
+  @Override
+  public final void distributeRequests(ElevatorInterface[] elevators, RequestQueue upRequests,
+                                       RequestQueue downRequests, int elevatorCapacity) {
+    if (this.startFloors.length < elevatorCapacity) {
+      this.startFloors = new int[elevatorCapacity];
+      this.endFloors = new int[elevatorCapacity];
+    }
+    if (this.ticketsOnRun.length != elevators.length) {
+      this.ticketsOnRun = new int[elevators.length];
+    }
+    for (int i = 0; i < elevators.length; i++) {
+      ElevatorInterface elevator = elevators[i];
+      if (elevator.isTakingRequests()
+          || (elevator.isTakingRequestsAhead() && !elevator.hasStopsAhead())) {
+        this.ticketsOnRun[i] = 0;
+      }
+    }
+
+    this.distribute(elevators, upRequests, downRequests, elevatorCapacity);
+  }
+
+  /**
+   * This method is used to hand out the requests once the scratch state is ready.
+   *
+   * @param elevators        the elevators of the building.
+   * @param upRequests       the pending up requests, oldest first.
+   * @param downRequests     the pending down requests, oldest first.
+   * @param elevatorCapacity the number of requests an elevator can take on one run.
+   */
+  protected abstract void distribute(ElevatorInterface[] elevators, RequestQueue upRequests,
+                                     RequestQueue downRequests, int elevatorCapacity);
+
+  /**
+   * This method is used to get how many more requests an elevator can take on this run.
+   *
+   * @param index            the index of the elevator.
+   * @param elevatorCapacity the number of requests an elevator can take on one run.
+   * @return the room left on the elevator's run.
+   */
+  protected final int roomOnRun(int index, int elevatorCapacity) {
+    return elevatorCapacity - this.ticketsOnRun[index];
+  }
+
+  /**
+   * This method is used to send an elevator waiting at the top or bottom on a new run.
+   *
+   * @param index       the index of the elevator.
+   * @param elevator    the elevator.
+   * @param startFloors the start floors of the requests.
+   * @param endFloors   the end floors of the requests.
+   * @param count       the number of requests.
+   */
+  protected final void sendFromBottomOrTop(int index, ElevatorInterface elevator,
+                                           int[] startFloors, int[] endFloors, int count) {
+    elevator.processRequests(startFloors, endFloors, count);
+    this.ticketsOnRun[index] = count;
+    if (this.journal != null) {
+      this.journal.assign(index, startFloors, endFloors, count);
+    }
+  }
+
+  /**
+   * This method is used to give a moving elevator requests that start ahead of it.
+   *
+   * @param index       the index of the elevator.
+   * @param elevator    the elevator.
+   * @param startFloors the start floors of the requests.
+   * @param endFloors   the end floors of the requests.
+   * @param count       the number of requests.
+   */
+  protected final void sendAhead(int index, ElevatorInterface elevator,
+                                 int[] startFloors, int[] endFloors, int count) {
+    elevator.processRequestsAhead(startFloors, endFloors, count);
+    this.ticketsOnRun[index] += count;
+    if (this.journal != null) {
+      this.journal.assign(index, startFloors, endFloors, count);
+    }
+  }
+}
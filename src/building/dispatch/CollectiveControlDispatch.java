@@ -0,0 +1,42 @@
+package building.dispatch;
+
+import building.RequestQueue;
+import building.enums.Direction;
+import elevator.ElevatorInterface;
+
+/**
+ * This is the collective control dispatch strategy.  Elevators leave the bottom and
+ * top with the oldest requests like the FIFO strategy, and on the way they also
+ * collect the oldest hall calls that start at or ahead of them and go the same way,
+ * as long as they have room left on the run.
+ */
+public class CollectiveControlDispatch extends FifoDispatch {
+
+  @Override
+  public boolean picksUpAhead() {
+    return true;
+  }
+
+  @Override
+  protected void distributeAhead(int index, ElevatorInterface elevator, RequestQueue upRequests,
+                                 RequestQueue downRequests, int elevatorCapacity) {
+    int room = this.roomOnRun(index, elevatorCapacity);
+    if (room <= 0) {
+      return;
+    }
+
+    int floor = elevator.getCurrentFloor();
+    int count;
+    if (elevator.getDirection() == Direction.UP) {
+      count = upRequests.pollStartingBetween(floor, elevator.getMaxFloor() - 1,
+          this.startFloors, this.endFloors, room);
+    } else {
+      count = downRequests.pollStartingBetween(0, floor,
+          this.startFloors, this.endFloors, room);
+    }
+
+    if (count > 0) {
+      this.sendAhead(index, elevator, this.startFloors, this.endFloors, count);
+    }
+  }
+}
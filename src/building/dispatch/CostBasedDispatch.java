@@ -0,0 +1,190 @@
+package building.dispatch;
+
+import building.RequestQueue;
+import building.enums.Direction;
+import elevator.ElevatorInterface;
+import elevator.FloorMask;
+
+
+/**
+ * This class is the base of the dispatch strategies that give each request, oldest
+ * first, to the elevator that can serve it at the lowest cost.  An elevator can serve
+ * an up request if it is waiting at the bottom, or if it is moving up at or below the
+ * start floor with room left on its run; down requests work the same way from the top.
+ * Each elevator is sent on its way once, with every request it won in this step.
+ */
+public abstract class CostBasedDispatch extends AbstractDispatchStrategy {
+  private static final int NONE = 0;
+  private static final int AT_BOTTOM = 1;
+  private static final int AT_TOP = 2;
+  private static final int MOVING_UP = 3;
+  private static final int MOVING_DOWN = 4;
+
+  private final Assigner assigner = new Assigner();
+  private ElevatorInterface[] elevators;
+  private int[] modes = new int[0];
+  private int[] floors = new int[0];
+  private int[] rooms = new int[0];
+  private int[] assigned = new int[0];
+  private int[][] assignedStarts = new int[0][];
+  private int[][] assignedEnds = new int[0][];
+  private long[][] plannedStops = new long[0][];
+
+  @Override
+  public boolean picksUpAhead() {
+    return true;
+  }
+
+  @Override
+  protected void distribute(ElevatorInterface[] elevators, RequestQueue upRequests,
+                            RequestQueue downRequests, int elevatorCapacity) {
+    if (upRequests.isEmpty() && downRequests.isEmpty()) {
+      return;
+    }
+    this.prepare(elevators, elevatorCapacity);
+
+    int upRoom = 0;
+    int downRoom = 0;
+    for (int i = 0; i < elevators.length; i++) {
+      ElevatorInterface elevator = elevators[i];
+      int floor = elevator.getCurrentFloor();
+      int mode = NONE;
+      int room = 0;
+      if (elevator.isTakingRequests()) {
+        if (floor == 0) {
+          mode = AT_BOTTOM;
+        } else if (floor == elevator.getMaxFloor() - 1) {
+          mode = AT_TOP;
+        }
+        room = elevatorCapacity;
+        FloorMask.clear(this.plannedStops[i]);
+      } else if (elevator.isTakingRequestsAhead()) {
+        mode = elevator.getDirection() == Direction.UP ? MOVING_UP : MOVING_DOWN;
+        room = this.roomOnRun(i, elevatorCapacity);
+        long[] stops = this.plannedStops[i];
+        for (int w = 0; w < stops.length; w++) {
+          stops[w] = elevator.getFloorStopMask(w);
+        }
+      }
+
+      this.modes[i] = mode;
+      this.floors[i] = floor;
+      this.rooms[i] = Math.max(room, 0);
+      this.assigned[i] = 0;
+      if (mode == AT_BOTTOM || mode == MOVING_UP) {
+        upRoom += this.rooms[i];
+      } else if (mode == AT_TOP || mode == MOVING_DOWN) {
+        downRoom += this.rooms[i];
+      }
+    }
+
+    if (upRoom > 0) {
+      this.assigner.up = true;
+      upRequests.pollIf(this.assigner, upRoom);
+    }
+    if (downRoom > 0) {
+      this.assigner.up = false;
+      downRequests.pollIf(this.assigner, downRoom);
+    }
+
+    for (int i = 0; i < elevators.length; i++) {
+      if (this.assigned[i] == 0) {
+        continue;
+      }
+      if (this.modes[i] == AT_BOTTOM || this.modes[i] == AT_TOP) {
+        this.sendFromBottomOrTop(i, elevators[i],
+            this.assignedStarts[i], this.assignedEnds[i], this.assigned[i]);
+      } else {
+        this.sendAhead(i, elevators[i],
+            this.assignedStarts[i], this.assignedEnds[i], this.assigned[i]);
+      }
+    }
+    this.elevators = null;
+  }
+
+  /**
+   * This method is used to work out what it costs for an elevator to serve a request.
+   * Only elevators that can serve the request are asked.
+   *
+   * @param elevator     the elevator.
+   * @param floor        the current floor of the elevator.
+   * @param startFloor   the start floor of the request.
+   * @param plannedStops the floors the elevator will stop at before this request,
+   *                     including requests it has won earlier in this step,
+   *                     as a {@link FloorMask}.
+   * @return the cost, lower is better.
+   */
+  protected abstract int cost(ElevatorInterface elevator, int floor, int startFloor,
+                              long[] plannedStops);
+
+  private void prepare(ElevatorInterface[] elevators, int elevatorCapacity) {
+    this.elevators = elevators;
+    int count = elevators.length;
+    int maxFloor = elevators[0].getMaxFloor();
+    if (this.modes.length != count || this.assignedStarts[0].length < elevatorCapacity
+        || this.plannedStops[0].length != FloorMask.words(maxFloor)) {
+      this.modes = new int[count];
+      this.floors = new int[count];
+      this.rooms = new int[count];
+      this.assigned = new int[count];
+      this.assignedStarts = new int[count][elevatorCapacity];
+      this.assignedEnds = new int[count][elevatorCapacity];
+      this.plannedStops = new long[count][];
+      for (int i = 0; i < count; i++) {
+        this.plannedStops[i] = FloorMask.create(maxFloor);
+      }
+    }
+  }
+
+  private boolean canServe(int index, boolean up, int startFloor) {
+    if (this.rooms[index] <= this.assigned[index]) {
+      return false;
+    }
+    switch (this.modes[index]) {
+      case AT_BOTTOM:
+        return up;
+      case AT_TOP:
+        return !up;
+      case MOVING_UP:
+        return up && startFloor >= this.floors[index];
+      case MOVING_DOWN:
+        return !up && startFloor <= this.floors[index];
+      default:
+        return false;
+    }
+  }
+
+  /**
+   * Picks the cheapest elevator for each request offered by the queue.
+   */
+  private final class Assigner implements RequestQueue.Visitor {
+    private boolean up;
+
+    @Override
+    public boolean take(int startFloor, int endFloor) {
+      int best = -1;
+      int bestCost = Integer.MAX_VALUE;
+      for (int i = 0; i < modes.length; i++) {
+        if (!canServe(i, this.up, startFloor)) {
+          continue;
+        }
+        int cost = cost(elevators[i], floors[i], startFloor, plannedStops[i]);
+        if (best < 0 || cost < bestCost
+            || (cost == bestCost && assigned[i] < assigned[best])) {
+          best = i;
+          bestCost = cost;
+        }
+      }
+      if (best < 0) {
+        return false;
+      }
+
+      assignedStarts[best][assigned[best]] = startFloor;
+      assignedEnds[best][assigned[best]] = endFloor;
+      assigned[best]++;
+      FloorMask.add(plannedStops[best], startFloor);
+      FloorMask.add(plannedStops[best], endFloor);
+      return true;
+    }
+  }
+}
@@ -0,0 +1,46 @@
+package building.dispatch;
+
+import building.RequestQueue;
+import building.journal.EventJournal;
+import elevator.ElevatorInterface;
+
+/**
+ * This interface is used to decide which elevator serves which request.
+ * The building calls it once per step while the elevator system is running.
+ * A strategy may keep scratch state between steps, so each building should
+ * be given its own instance.
+ */
+public interface DispatchStrategy {
+
+  /**
+   * This method is used to hand out pending requests to the elevators.
+   * Requests that are handed out must be taken out of the queues; the rest stay
+   * in the queues, in order, for a later step.
+   *
+   * @param elevators        the elevators of the building.
+   * @param upRequests       the pending up requests, oldest first.
+   * @param downRequests     the pending down requests, oldest first.
+   * @param elevatorCapacity the number of requests an elevator can take on one run.
+   */
+  void distributeRequests(ElevatorInterface[] elevators, RequestQueue upRequests,
+                          RequestQueue downRequests, int elevatorCapacity);
+
+  /**
+   * This method is used to tell if the strategy gives hall calls to elevators that
+   * are already moving.  If it does not, only elevators at the top or bottom get them.
+   *
+   * @return true if moving elevators pick up requests ahead of them.
+   */
+  default boolean picksUpAhead() {
+    return false;
+  }
+
+  /**
+   * This method is used to give the strategy the journal to record the requests it
+   * hands out in.  A strategy that does not record them can ignore it.
+   *
+   * @param journal the journal, or null to stop recording.
+   */
+  default void setJournal(EventJournal journal) {
+  }
+}
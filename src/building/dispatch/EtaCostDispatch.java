@@ -0,0 +1,35 @@
+package building.dispatch;
+
+import elevator.ElevatorInterface;
+import elevator.FloorMask;
+
+/**
+ * This is the estimated time of arrival dispatch strategy.  Each request goes to the
+ * elevator that is expected to reach its start floor in the fewest steps, counting one
+ * step per floor travelled and the time the doors stay open at every planned stop
+ * on the way.
+ */
+public class EtaCostDispatch extends CostBasedDispatch {
+  /**
+   * One step to open the door and three steps with the door open.
+   */
+  static final int STEPS_PER_STOP = 4;
+
+  /**
+   * The steps left for an elevator whose door is already open, at most.
+   */
+  static final int DOOR_OPEN_STEPS = 3;
+
+  @Override
+  protected int cost(ElevatorInterface elevator, int floor, int startFloor,
+                     long[] plannedStops) {
+    int stops = FloorMask.countBetween(plannedStops,
+        Math.min(floor, startFloor), Math.max(floor, startFloor));
+
+    int eta = Math.abs(startFloor - floor) + stops * STEPS_PER_STOP;
+    if (!elevator.isDoorClosed()) {
+      eta += DOOR_OPEN_STEPS;
+    }
+    return eta;
+  }
+}
@@ -0,0 +1,55 @@
+package building.dispatch;
+
+import building.RequestQueue;
+import elevator.ElevatorInterface;
+
+/**
+ * This is the original dispatch strategy.  Each elevator waiting at the bottom takes
+ * the oldest up requests and each elevator waiting at the top takes the oldest down
+ * requests, up to its capacity.  Moving elevators are left alone.
+ */
+public class FifoDispatch extends AbstractDispatchStrategy {
+
+  @Override
+  protected void distribute(ElevatorInterface[] elevators, RequestQueue upRequests,
+                            RequestQueue downRequests, int elevatorCapacity) {
+    if (upRequests.isEmpty() && downRequests.isEmpty()) {
+      return;
+    }
+
+    for (int i = 0; i < elevators.length; i++) {
+      ElevatorInterface elevator = elevators[i];
+      if (elevator.isTakingRequests()) {
+        RequestQueue sourceRequests;
+
+        if (elevator.getCurrentFloor() == 0) {
+          sourceRequests = upRequests;
+        } else if (elevator.getCurrentFloor() == elevator.getMaxFloor() - 1) {
+          sourceRequests = downRequests;
+        } else {
+          continue;
+        }
+
+        int count = sourceRequests.poll(this.startFloors, this.endFloors, elevatorCapacity);
+        this.sendFromBottomOrTop(i, elevator, this.startFloors, this.endFloors, count);
+      } else if (elevator.isTakingRequestsAhead()) {
+        this.distributeAhead(i, elevator, upRequests, downRequests, elevatorCapacity);
+      }
+    }
+  }
+
+  /**
+   * This method is called for each elevator that is moving and can take requests
+   * ahead of it.  The FIFO strategy does not give it any.
+   *
+   * @param index            the index of the elevator.
+   * @param elevator         the elevator.
+   * @param upRequests       the pending up requests, oldest first.
+   * @param downRequests     the pending down requests, oldest first.
+   * @param elevatorCapacity the number of requests an elevator can take on one run.
+   */
+  protected void distributeAhead(int index, ElevatorInterface elevator, RequestQueue upRequests,
+                                 RequestQueue downRequests, int elevatorCapacity) {
+    // moving elevators only serve the requests they left with.
+  }
+}
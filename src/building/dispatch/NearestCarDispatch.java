@@ -0,0 +1,16 @@
+package building.dispatch;
+
+import elevator.ElevatorInterface;
+
+/**
+ * This is the nearest car dispatch strategy.  Each request goes to the elevator
+ * closest to its start floor among those that can serve it.
+ */
+public class NearestCarDispatch extends CostBasedDispatch {
+
+  @Override
+  protected int cost(ElevatorInterface elevator, int floor, int startFloor,
+                     long[] plannedStops) {
+    return Math.abs(startFloor - floor);
+  }
+}
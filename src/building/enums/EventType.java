@@ -0,0 +1,55 @@
+package building.enums;
+
+/**
+ * This enum is used to represent the kinds of event in a building's event journal.
+ * Each type has a one byte code that starts its event in the journal.
+ */
+public enum EventType {
+  TICK((byte) 0, "Tick"),
+  SYSTEM_STATUS((byte) 1, "System status"),
+  REQUEST((byte) 2, "Request"),
+  ASSIGN((byte) 3, "Assign"),
+  FLOOR((byte) 4, "Floor"),
+  DOOR_OPEN((byte) 5, "Door open"),
+  DOOR_CLOSE((byte) 6, "Door close"),
+  DIRECTION((byte) 7, "Direction"),
+  SERVICE((byte) 8, "Service");
+
+  private static final EventType[] BY_CODE = values();
+
+  private final byte code;
+  private final String display;
+
+  EventType(byte code, String display) {
+    this.code = code;
+    this.display = display;
+  }
+
+  /**
+   * This method is used to get the one byte code of the event type.
+   *
+   * @return the code of the event type.
+   */
+  public byte getCode() {
+    return this.code;
+  }
+
+  /**
+   * This method is used to get the event type for a one byte code.
+   *
+   * @param code the code of the event type.
+   * @return the event type with that code.
+   * @throws IllegalArgumentException if there is no event type with that code.
+   */
+  public static EventType fromCode(byte code) {
+    if (code < 0 || code >= BY_CODE.length) {
+      throw new IllegalArgumentException("Unknown event type code: " + code);
+    }
+    return BY_CODE[code];
+  }
+
+  @Override
+  public String toString() {
+    return this.display;
+  }
+}
@@ -0,0 +1,52 @@
+package building.enums;
+
+/**
+ * This enum is used to represent the outcome of adding one request in a batch.
+ * Each status has a one byte code so a whole batch can be reported in a byte array.
+ */
+public enum RequestStatus {
+  ACCEPTED((byte) 0, "Accepted"),
+  NOT_RUNNING((byte) 1, "Elevator system is not running"),
+  INVALID_START_FLOOR((byte) 2, "Invalid start floor"),
+  INVALID_END_FLOOR((byte) 3, "Invalid end floor"),
+  SAME_FLOOR((byte) 4, "Start floor and end floor are the same"),
+  REJECTED((byte) 5, "Request queue is full");
+
+  private static final RequestStatus[] BY_CODE = values();
+
+  private final byte code;
+  private final String display;
+
+  RequestStatus(byte code, String display) {
+    this.code = code;
+    this.display = display;
+  }
+
+  /**
+   * This method is used to get the one byte code of the status.
+   *
+   * @return the code of the status.
+   */
+  public byte getCode() {
+    return this.code;
+  }
+
+  /**
+   * This method is used to get the status for a one byte code.
+   *
+   * @param code the code of the status.
+   * @return the status with that code.
+   * @throws IllegalArgumentException if there is no status with that code.
+   */
+  public static RequestStatus fromCode(byte code) {
+    if (code < 0 || code >= BY_CODE.length) {
+      throw new IllegalArgumentException("Unknown request status code: " + code);
+    }
+    return BY_CODE[code];
+  }
+
+  @Override
+  public String toString() {
+    return this.display;
+  }
+}
@@ -0,0 +1,291 @@
+package building.journal;
+
+import building.enums.Direction;
+import building.enums.ElevatorSystemStatus;
+import building.enums.EventType;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * This class writes the events of a building to an append-only binary journal: each
+ * request added, each request handed to an elevator, and each change of an elevator's
+ * floor, door, direction or service, and of the system's status.
+ *
+ * <p>The journal starts with a header of {@value #HEADER_SIZE} bytes: the magic number,
+ * the format version, the number of floors and the number of elevators.  Then come the
+ * events, each a one byte EventType code followed by its fields, little endian, with
+ * floors and elevator indexes as unsigned shorts.  Events do not carry their tick; a
+ * TICK event is written before the first event of a tick instead, so idle and skipped
+ * steps cost nothing.</p>
+ *
+ * <p>Events are gathered in a buffer and written to the file in batches when it
+ * fills, when flush() is called, and on close.  The building calls the event methods
+ * while it steps, so they throw UncheckedIOException if the file cannot be written.
+ * A journal is not thread safe and belongs to one building.</p>
+ */
+public class EventJournal implements Closeable {
+  /**
+   * The first four bytes of a journal, "ELVJ".
+   */
+  public static final int MAGIC = 0x4a564c45;
+
+  /**
+   * The version of the format written.
+   */
+  public static final int VERSION = 1;
+
+  /**
+   * The number of bytes before the first event.
+   */
+  public static final int HEADER_SIZE = 16;
+
+  /**
+   * The most floors or elevators a journal can hold.
+   */
+  public static final int MAX_COUNT = 0x10000;
+
+  private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+  // the longest event is a tick: its code and a long
+  private static final int MAX_EVENT_SIZE = 1 + Long.BYTES;
+
+  private final FileChannel channel;
+  private final ByteBuffer buffer;
+  private final int numberOfFloors;
+  private final int numberOfElevators;
+  private long tick;
+  private long writtenTick;
+  private long events;
+  private boolean closed;
+
+  /**
+   * This constructor is used to create a new journal, replacing any file at the path.
+   *
+   * @param path              where to write the journal.
+   * @param numberOfFloors    the number of floors of the building.
+   * @param numberOfElevators the number of elevators of the building.
+   * @throws IOException if the file cannot be created.
+   * @throws IllegalArgumentException if the building is too large for the journal.
+   */
+  public EventJournal(Path path, int numberOfFloors, int numberOfElevators)
+      throws IOException {
+    this(path, numberOfFloors, numberOfElevators, DEFAULT_BUFFER_SIZE);
+  }
+
+  /**
+   * This constructor is used to create a new journal that writes in batches of the
+   * given number of bytes.
+   */
+  EventJournal(Path path, int numberOfFloors, int numberOfElevators, int bufferSize)
+      throws IOException {
+    if (numberOfFloors < 1 || numberOfFloors > MAX_COUNT
+        || numberOfElevators < 1 || numberOfElevators > MAX_COUNT) {
+      throw new IllegalArgumentException("A journal holds from 1 to " + MAX_COUNT
+          + " floors and elevators");
+    }
+    if (bufferSize < HEADER_SIZE) {
+      throw new IllegalArgumentException("The buffer must hold the header");
+    }
+    this.numberOfFloors = numberOfFloors;
+    this.numberOfElevators = numberOfElevators;
+    this.channel = FileChannel.open(path, StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+    this.buffer = ByteBuffer.allocateDirect(bufferSize).order(ByteOrder.LITTLE_ENDIAN);
+    this.buffer.putInt(MAGIC).putInt(VERSION).putInt(numberOfFloors)
+        .putInt(numberOfElevators);
+  }
+
+  /**
+   * This method is used to get the number of floors of the building.
+   *
+   * @return the number of floors.
+   */
+  public int getNumOfFloors() {
+    return this.numberOfFloors;
+  }
+
+  /**
+   * This method is used to get the number of elevators of the building.
+   *
+   * @return the number of elevators.
+   */
+  public int getNumOfElevators() {
+    return this.numberOfElevators;
+  }
+
+  /**
+   * This method is used to get the current tick, the number of steps the building
+   * has taken since the journal was started.
+   *
+   * @return the current tick.
+   */
+  public long getTick() {
+    return this.tick;
+  }
+
+  /**
+   * This method is used to move the journal on by a number of steps.  Events written
+   * after this carry the new tick.
+   *
+   * @param steps the number of steps taken.
+   * @throws IllegalArgumentException if steps is negative.
+   */
+  public void advance(long steps) {
+    if (steps < 0) {
+      throw new IllegalArgumentException("steps cannot be negative");
+    }
+    this.tick += steps;
+  }
+
+  /**
+   * This method is used to get the number of events written, not counting ticks.
+   *
+   * @return the number of events.
+   */
+  public long getEventCount() {
+    return this.events;
+  }
+
+  /**
+   * This method is used to record a change of the system's status.
+   *
+   * @param status the new status.
+   */
+  public void systemStatus(ElevatorSystemStatus status) {
+    this.begin(EventType.SYSTEM_STATUS).put((byte) status.ordinal());
+  }
+
+  /**
+   * This method is used to record a request being added to the request queues.
+   *
+   * @param startFloor the start floor of the request.
+   * @param endFloor   the end floor of the request.
+   */
+  public void request(int startFloor, int endFloor) {
+    this.begin(EventType.REQUEST).putShort((short) startFloor).putShort((short) endFloor);
+  }
+
+  /**
+   * This method is used to record requests being handed to an elevator.
+   *
+   * @param elevator    the index of the elevator.
+   * @param startFloors the start floors of the requests.
+   * @param endFloors   the end floors of the requests.
+   * @param count       the number of requests.
+   */
+  public void assign(int elevator, int[] startFloors, int[] endFloors, int count) {
+    for (int i = 0; i < count; i++) {
+      this.begin(EventType.ASSIGN).putShort((short) elevator)
+          .putShort((short) startFloors[i]).putShort((short) endFloors[i]);
+    }
+  }
+
+  /**
+   * This method is used to record an elevator arriving at a floor.
+   *
+   * @param elevator the index of the elevator.
+   * @param floor    the floor.
+   */
+  public void floor(int elevator, int floor) {
+    this.begin(EventType.FLOOR).putShort((short) elevator).putShort((short) floor);
+  }
+
+  /**
+   * This method is used to record an elevator's door opening or closing.
+   *
+   * @param elevator the index of the elevator.
+   * @param closed   true if the door closed, false if it opened.
+   */
+  public void door(int elevator, boolean closed) {
+    this.begin(closed ? EventType.DOOR_CLOSE : EventType.DOOR_OPEN)
+        .putShort((short) elevator);
+  }
+
+  /**
+   * This method is used to record a change of an elevator's direction.
+   *
+   * @param elevator  the index of the elevator.
+   * @param direction the new direction.
+   */
+  public void direction(int elevator, Direction direction) {
+    this.begin(EventType.DIRECTION).putShort((short) elevator)
+        .put((byte) direction.ordinal());
+  }
+
+  /**
+   * This method is used to record an elevator going into or out of service.
+   *
+   * @param elevator     the index of the elevator.
+   * @param outOfService true if the elevator went out of service.
+   */
+  public void service(int elevator, boolean outOfService) {
+    this.begin(EventType.SERVICE).putShort((short) elevator)
+        .put((byte) (outOfService ? 1 : 0));
+  }
+
+  /**
+   * Make room for an event, writing a tick first if the tick has moved on,
+   * and start the event.
+   */
+  private ByteBuffer begin(EventType type) {
+    if (this.closed) {
+      throw new IllegalStateException("The journal is closed");
+    }
+    if (this.buffer.remaining() < 2 * MAX_EVENT_SIZE) {
+      try {
+        this.writeBuffer();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+    if (this.tick != this.writtenTick) {
+      this.buffer.put(EventType.TICK.getCode()).putLong(this.tick);
+      this.writtenTick = this.tick;
+    }
+    this.events++;
+    return this.buffer.put(type.getCode());
+  }
+
+  private void writeBuffer() throws IOException {
+    this.buffer.flip();
+    while (this.buffer.hasRemaining()) {
+      this.channel.write(this.buffer);
+    }
+    this.buffer.clear();
+  }
+
+  /**
+   * This method is used to write the events gathered so far to the file.
+   *
+   * @throws IOException if the file cannot be written.
+   */
+  public void flush() throws IOException {
+    if (!this.closed) {
+      this.writeBuffer();
+    }
+  }
+
+  /**
+   * This method is used to write the last events and close the journal.
+   *
+   * @throws IOException if the file cannot be written.
+   */
+  @Override
+  public void close() throws IOException {
+    if (this.closed) {
+      return;
+    }
+    try {
+      this.writeBuffer();
+    } finally {
+      this.closed = true;
+      this.channel.close();
+    }
+  }
+}
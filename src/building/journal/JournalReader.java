@@ -0,0 +1,293 @@
+package building.journal;
+
+import building.enums.Direction;
+import building.enums.ElevatorSystemStatus;
+import building.enums.EventType;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * This class reads a journal written by EventJournal, one event at a time.  Ticks are
+ * not returned as events; the tick of each event is read with getTick().
+ *
+ * <p>A journal whose building stopped before it was closed may end part way through
+ * an event.  Reading stops cleanly before that event, and isTruncated() says so.</p>
+ */
+public class JournalReader implements Closeable {
+  private static final int BUFFER_SIZE = 64 * 1024;
+  private static final Direction[] DIRECTIONS = Direction.values();
+  private static final ElevatorSystemStatus[] STATUSES = ElevatorSystemStatus.values();
+
+  private final FileChannel channel;
+  private final ByteBuffer buffer;
+  private final int numberOfFloors;
+  private final int numberOfElevators;
+  private boolean endOfFile;
+  private boolean truncated;
+
+  private long tick;
+  private EventType type;
+  private int elevator;
+  private int startFloor;
+  private int endFloor;
+  private int floor;
+  private Direction direction;
+  private ElevatorSystemStatus status;
+  private boolean outOfService;
+
+  /**
+   * This constructor is used to open a journal.
+   *
+   * @param path the journal to read.
+   * @throws IOException if the file cannot be read or is not a journal.
+   */
+  public JournalReader(Path path) throws IOException {
+    this.channel = FileChannel.open(path, StandardOpenOption.READ);
+    this.buffer = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    this.buffer.flip();
+    try {
+      if (!this.fill(EventJournal.HEADER_SIZE)) {
+        throw new IOException("The file is too short to be a journal");
+      }
+      if (this.buffer.getInt() != EventJournal.MAGIC) {
+        throw new IOException("The file is not a journal");
+      }
+      int version = this.buffer.getInt();
+      if (version != EventJournal.VERSION) {
+        throw new IOException("Journal version " + version + " is not supported");
+      }
+      this.numberOfFloors = this.buffer.getInt();
+      this.numberOfElevators = this.buffer.getInt();
+    } catch (IOException | RuntimeException e) {
+      this.channel.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Make sure at least the given number of bytes are in the buffer.
+   *
+   * @return false if the file ends first.
+   */
+  private boolean fill(int bytes) throws IOException {
+    if (this.buffer.remaining() >= bytes) {
+      return true;
+    }
+    this.buffer.compact();
+    while (this.buffer.position() < bytes && !this.endOfFile) {
+      if (this.channel.read(this.buffer) < 0) {
+        this.endOfFile = true;
+      }
+    }
+    this.buffer.flip();
+    return this.buffer.remaining() >= bytes;
+  }
+
+  /**
+   * This method is used to get the number of floors of the building.
+   *
+   * @return the number of floors.
+   */
+  public int getNumOfFloors() {
+    return this.numberOfFloors;
+  }
+
+  /**
+   * This method is used to get the number of elevators of the building.
+   *
+   * @return the number of elevators.
+   */
+  public int getNumOfElevators() {
+    return this.numberOfElevators;
+  }
+
+  /**
+   * This method is used to move to the next event.
+   *
+   * @return true if there was another event, false at the end of the journal.
+   * @throws IOException if the journal cannot be read or holds an unknown event.
+   */
+  public boolean next() throws IOException {
+    while (true) {
+      if (!this.fill(1)) {
+        return false;
+      }
+      EventType next;
+      try {
+        next = EventType.fromCode(this.buffer.get(this.buffer.position()));
+      } catch (IllegalArgumentException e) {
+        throw new IOException(e.getMessage());
+      }
+      if (!this.fill(size(next))) {
+        this.truncated = true;
+        return false;
+      }
+      this.buffer.get();
+      switch (next) {
+        case TICK:
+          this.tick = this.buffer.getLong();
+          continue;
+        case SYSTEM_STATUS:
+          this.status = STATUSES[this.buffer.get()];
+          break;
+        case REQUEST:
+          this.startFloor = Short.toUnsignedInt(this.buffer.getShort());
+          this.endFloor = Short.toUnsignedInt(this.buffer.getShort());
+          break;
+        case ASSIGN:
+          this.elevator = Short.toUnsignedInt(this.buffer.getShort());
+          this.startFloor = Short.toUnsignedInt(this.buffer.getShort());
+          this.endFloor = Short.toUnsignedInt(this.buffer.getShort());
+          break;
+        case FLOOR:
+          this.elevator = Short.toUnsignedInt(this.buffer.getShort());
+          this.floor = Short.toUnsignedInt(this.buffer.getShort());
+          break;
+        case DOOR_OPEN:
+        case DOOR_CLOSE:
+          this.elevator = Short.toUnsignedInt(this.buffer.getShort());
+          break;
+        case DIRECTION:
+          this.elevator = Short.toUnsignedInt(this.buffer.getShort());
+          this.direction = DIRECTIONS[this.buffer.get()];
+          break;
+        case SERVICE:
+          this.elevator = Short.toUnsignedInt(this.buffer.getShort());
+          this.outOfService = this.buffer.get() != 0;
+          break;
+        default:
+          throw new IOException("Unknown event type: " + next);
+      }
+      this.type = next;
+      return true;
+    }
+  }
+
+  /**
+   * The number of bytes of an event, counting its code.
+   */
+  private static int size(EventType type) {
+    switch (type) {
+      case TICK:
+        return 1 + Long.BYTES;
+      case SYSTEM_STATUS:
+        return 2;
+      case REQUEST:
+      case FLOOR:
+        return 5;
+      case ASSIGN:
+        return 7;
+      case DOOR_OPEN:
+      case DOOR_CLOSE:
+        return 3;
+      default:
+        return 4;
+    }
+  }
+
+  /**
+   * This method is used to check if the journal ended part way through an event.
+   *
+   * @return true if the last event was cut short.
+   */
+  public boolean isTruncated() {
+    return this.truncated;
+  }
+
+  /**
+   * This method is used to get the tick of the current event.
+   *
+   * @return the tick.
+   */
+  public long getTick() {
+    return this.tick;
+  }
+
+  /**
+   * This method is used to get the type of the current event.
+   *
+   * @return the event type.
+   */
+  public EventType getType() {
+    return this.type;
+  }
+
+  /**
+   * This method is used to get the elevator of an ASSIGN, FLOOR, DOOR_OPEN, DOOR_CLOSE,
+   * DIRECTION or SERVICE event.
+   *
+   * @return the index of the elevator.
+   */
+  public int getElevator() {
+    return this.elevator;
+  }
+
+  /**
+   * This method is used to get the start floor of a REQUEST or ASSIGN event.
+   *
+   * @return the start floor.
+   */
+  public int getStartFloor() {
+    return this.startFloor;
+  }
+
+  /**
+   * This method is used to get the end floor of a REQUEST or ASSIGN event.
+   *
+   * @return the end floor.
+   */
+  public int getEndFloor() {
+    return this.endFloor;
+  }
+
+  /**
+   * This method is used to get the floor of a FLOOR event.
+   *
+   * @return the floor.
+   */
+  public int getFloor() {
+    return this.floor;
+  }
+
+  /**
+   * This method is used to get the direction of a DIRECTION event.
+   *
+   * @return the direction.
+   */
+  public Direction getDirection() {
+    return this.direction;
+  }
+
+  /**
+   * This method is used to get the status of a SYSTEM_STATUS event.
+   *
+   * @return the system status.
+   */
+  public ElevatorSystemStatus getStatus() {
+    return this.status;
+  }
+
+  /**
+   * This method is used to check if a SERVICE event took the elevator out of service.
+   *
+   * @return true if the elevator went out of service, false if it came back.
+   */
+  public boolean isOutOfService() {
+    return this.outOfService;
+  }
+
+  /**
+   * This method is used to close the journal.
+   *
+   * @throws IOException if the file cannot be closed.
+   */
+  @Override
+  public void close() throws IOException {
+    this.channel.close();
+  }
+}
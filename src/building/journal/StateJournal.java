@@ -0,0 +1,522 @@
+package building.journal;
+
+import building.BuildingReportBuffer;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * This class writes the state of a building at each recorded tick to a compact journal:
+ * every car's floor, direction, door, timers, service and stops, the system's status,
+ * and the number of requests waiting each way.
+ *
+ * <p>Consecutive states differ in only a field or two, so most frames are deltas that
+ * hold only the cars that changed and only what changed about them.  Numbers are
+ * written as varints, and changes to a number as zig-zag varints of the difference, so
+ * a timer counting down or a car moving a floor takes one byte.  A car's flags are
+ * packed into one byte, and which fields changed share a byte with the gap from the
+ * last car that changed.  Its stops are written as the floors that were added or
+ * cleared instead of as the whole stop mask.  A car whose floor and timers moved by
+ * the same amounts as the last time it changed, as a moving car or a running timer
+ * does, is written as a single byte that says so.</p>
+ *
+ * <p>Every so many frames a keyframe holds the whole state, and an index of the
+ * keyframes is written at the end when the journal is closed, so StateJournalReader
+ * can jump to any tick by decoding one keyframe and the deltas after it.</p>
+ *
+ * <p>The journal starts with a header of {@value #HEADER_SIZE} bytes: the magic number,
+ * the format version, the number of floors and the number of elevators.  Each frame is
+ * a type byte, the length of its body as a varint, and the body.  The index frame is
+ * followed by a trailer of {@value #TRAILER_SIZE} bytes: where the index starts, the
+ * last tick, the number of frames and the magic number again.</p>
+ */
+public class StateJournal implements Closeable {
+  /**
+   * The first four bytes of a state journal, "ELVS".
+   */
+  public static final int MAGIC = 0x53564c45;
+
+  /**
+   * The version of the format written.
+   */
+  public static final int VERSION = 1;
+
+  /**
+   * The number of bytes before the first frame.
+   */
+  public static final int HEADER_SIZE = 16;
+
+  /**
+   * The number of bytes after the index.
+   */
+  public static final int TRAILER_SIZE = 28;
+
+  /**
+   * The default number of frames from one keyframe to the next.
+   */
+  public static final int DEFAULT_KEYFRAME_INTERVAL = 256;
+
+  static final byte KEYFRAME = 0;
+  static final byte DELTA = 1;
+  static final byte INDEX = 2;
+
+  // which fields of a car changed in a delta
+  static final int FLOOR_CHANGED = 1;
+  static final int FLAGS_CHANGED = 1 << 1;
+  static final int DOOR_TIMER_CHANGED = 1 << 2;
+  static final int WAIT_TIMER_CHANGED = 1 << 3;
+  static final int STOPS_CHANGED = 1 << 4;
+  static final int REPEATED = 1 << 5;
+
+  // which fields of the system changed in a delta, and if it is the tick after the last
+  static final int STATUS_CHANGED = 1;
+  static final int UP_CHANGED = 1 << 1;
+  static final int DOWN_CHANGED = 1 << 2;
+  static final int NEXT_TICK = 1 << 3;
+
+  // the bits of a car's change mask, below the gap from the last car that changed
+  static final int CHANGE_BITS = 6;
+
+  // a car's flags: the direction in the low two bits, then the door, service and taking
+  static final int DOOR_CLOSED = 1 << 2;
+  static final int OUT_OF_SERVICE = 1 << 3;
+  static final int TAKING_REQUESTS = 1 << 4;
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final FileChannel channel;
+  private final ByteBuffer buffer;
+  private final int numberOfFloors;
+  private final int numberOfElevators;
+  private final int keyframeInterval;
+  private final int words;
+
+  // the state last written
+  private long tick = -1;
+  private int status;
+  private int upCount;
+  private int downCount;
+  private final int[] floors;
+  private final int[] flags;
+  private final int[] doorTimers;
+  private final int[] waitTimers;
+  private final long[] stops;
+
+  // how much each car's floor and timers moved the last time it was written
+  private final int[] floorSteps;
+  private final int[] doorSteps;
+  private final int[] waitSteps;
+
+  private byte[] body = new byte[256];
+  private int bodyLength;
+  private long position = HEADER_SIZE;
+  private long frames;
+  private long[] keyframeTicks = new long[64];
+  private long[] keyframeOffsets = new long[64];
+  private int keyframes;
+  private boolean closed;
+
+  /**
+   * This constructor is used to create a new state journal with the default keyframe
+   * interval, replacing any file at the path.
+   *
+   * @param path              where to write the journal.
+   * @param numberOfFloors    the number of floors of the building.
+   * @param numberOfElevators the number of elevators of the building.
+   * @throws IOException if the file cannot be created.
+   * @throws IllegalArgumentException if the building has no floors or no elevators.
+   */
+  public StateJournal(Path path, int numberOfFloors, int numberOfElevators)
+      throws IOException {
+    this(path, numberOfFloors, numberOfElevators, DEFAULT_KEYFRAME_INTERVAL);
+  }
+
+  /**
+   * This constructor is used to create a new state journal, replacing any file at the
+   * path.  A shorter keyframe interval makes jumping to a tick faster and the journal
+   * larger.
+   *
+   * @param path              where to write the journal.
+   * @param numberOfFloors    the number of floors of the building.
+   * @param numberOfElevators the number of elevators of the building.
+   * @param keyframeInterval  the number of frames from one keyframe to the next.
+   * @throws IOException if the file cannot be created.
+   * @throws IllegalArgumentException if an argument is less than 1.
+   */
+  public StateJournal(Path path, int numberOfFloors, int numberOfElevators,
+                      int keyframeInterval) throws IOException {
+    if (numberOfFloors < 1 || numberOfElevators < 1 || keyframeInterval < 1) {
+      throw new IllegalArgumentException("The floors, elevators and keyframe interval "
+          + "must be at least 1");
+    }
+    this.numberOfFloors = numberOfFloors;
+    this.numberOfElevators = numberOfElevators;
+    this.keyframeInterval = keyframeInterval;
+    this.words = (numberOfFloors + 63) >>> 6;
+    this.floors = new int[numberOfElevators];
+    this.flags = new int[numberOfElevators];
+    this.doorTimers = new int[numberOfElevators];
+    this.waitTimers = new int[numberOfElevators];
+    this.stops = new long[numberOfElevators * this.words];
+    this.floorSteps = new int[numberOfElevators];
+    this.doorSteps = new int[numberOfElevators];
+    this.waitSteps = new int[numberOfElevators];
+
+    this.channel = FileChannel.open(path, StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+    this.buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    this.buffer.putInt(MAGIC).putInt(VERSION).putInt(numberOfFloors)
+        .putInt(numberOfElevators);
+  }
+
+  /**
+   * This method is used to get the number of frames written.
+   *
+   * @return the number of frames.
+   */
+  public long getFrameCount() {
+    return this.frames;
+  }
+
+  /**
+   * This method is used to get the last tick recorded.
+   *
+   * @return the last tick, or -1 if nothing has been recorded.
+   */
+  public long getLastTick() {
+    return this.tick;
+  }
+
+  /**
+   * This method is used to get the number of bytes written so far, counting the
+   * ones still in the buffer.
+   *
+   * @return the size of the journal.
+   */
+  public long getSize() {
+    return this.position;
+  }
+
+  /**
+   * This method is used to record the state of the building at a tick.
+   *
+   * @param tick  the tick, after the last one recorded.
+   * @param state the state of the building, from copyReportTo().
+   * @throws IOException if the journal cannot be written.
+   * @throws IllegalArgumentException if the tick is not after the last one, or the state
+   *                                  is of a building of another size.
+   * @throws IllegalStateException if the journal is closed.
+   */
+  public void append(long tick, BuildingReportBuffer state) throws IOException {
+    if (this.closed) {
+      throw new IllegalStateException("The journal is closed");
+    }
+    if (tick <= this.tick || tick < 0) {
+      throw new IllegalArgumentException("Tick " + tick + " is not after tick " + this.tick);
+    }
+    if (state.getNumFloors() != this.numberOfFloors
+        || state.getNumElevators() != this.numberOfElevators) {
+      throw new IllegalArgumentException("The state is of a building with "
+          + state.getNumFloors() + " floors and " + state.getNumElevators() + " elevators");
+    }
+
+    this.bodyLength = 0;
+    if (this.frames % this.keyframeInterval == 0) {
+      this.writeKeyframe(tick, state);
+    } else {
+      this.writeDelta(tick, state);
+    }
+    this.tick = tick;
+    this.frames++;
+  }
+
+  private void writeKeyframe(long tick, BuildingReportBuffer state) throws IOException {
+    if (this.keyframes == this.keyframeTicks.length) {
+      this.keyframeTicks = Arrays.copyOf(this.keyframeTicks, this.keyframes << 1);
+      this.keyframeOffsets = Arrays.copyOf(this.keyframeOffsets, this.keyframes << 1);
+    }
+    this.keyframeTicks[this.keyframes] = tick;
+    this.keyframeOffsets[this.keyframes] = this.position;
+    this.keyframes++;
+
+    this.status = state.getSystemStatus().ordinal();
+    this.upCount = state.getUpRequestCount();
+    this.downCount = state.getDownRequestCount();
+    this.putVarLong(tick);
+    this.putByte(this.status);
+    this.putVarLong(this.upCount);
+    this.putVarLong(this.downCount);
+    Arrays.fill(this.floorSteps, 0);
+    Arrays.fill(this.doorSteps, 0);
+    Arrays.fill(this.waitSteps, 0);
+    for (int e = 0; e < this.numberOfElevators; e++) {
+      this.flags[e] = flagsOf(state, e);
+      this.floors[e] = state.getCurrentFloor(e);
+      this.doorTimers[e] = state.getDoorOpenTimer(e);
+      this.waitTimers[e] = state.getEndWaitTimer(e);
+      this.putByte(this.flags[e]);
+      this.putVarLong(this.floors[e]);
+      this.putVarLong(zigZag(this.doorTimers[e]));
+      this.putVarLong(zigZag(this.waitTimers[e]));
+
+      // the stops are written as the floors they are on, each as the gap from the last
+      int count = 0;
+      for (int w = 0; w < this.words; w++) {
+        long mask = state.getFloorStopMask(e, w);
+        this.stops[e * this.words + w] = mask;
+        count += Long.bitCount(mask);
+      }
+      this.putVarLong(count);
+      this.putFloors(e, null, state);
+    }
+    this.writeFrame(KEYFRAME);
+  }
+
+  private void writeDelta(long tick, BuildingReportBuffer state) throws IOException {
+    int status = state.getSystemStatus().ordinal();
+    int upCount = state.getUpRequestCount();
+    int downCount = state.getDownRequestCount();
+    int changed = (status != this.status ? STATUS_CHANGED : 0)
+        | (upCount != this.upCount ? UP_CHANGED : 0)
+        | (downCount != this.downCount ? DOWN_CHANGED : 0)
+        | (tick == this.tick + 1 ? NEXT_TICK : 0);
+    this.putByte(changed);
+    if (tick != this.tick + 1) {
+      this.putVarLong(tick - this.tick);
+    }
+    if (status != this.status) {
+      this.putByte(status);
+      this.status = status;
+    }
+    if (upCount != this.upCount) {
+      this.putVarLong(zigZag(upCount - this.upCount));
+      this.upCount = upCount;
+    }
+    if (downCount != this.downCount) {
+      this.putVarLong(zigZag(downCount - this.downCount));
+      this.downCount = downCount;
+    }
+
+    // the number of changed cars goes first, so leave room for it and count as we go
+    int countAt = this.bodyLength;
+    this.putByte(0);
+    int changedCars = 0;
+    int lastChanged = -1;
+    for (int e = 0; e < this.numberOfElevators; e++) {
+      int carFlags = flagsOf(state, e);
+      int floor = state.getCurrentFloor(e);
+      int doorTimer = state.getDoorOpenTimer(e);
+      int waitTimer = state.getEndWaitTimer(e);
+      int toggled = 0;
+      for (int w = 0; w < this.words; w++) {
+        toggled += Long.bitCount(state.getFloorStopMask(e, w) ^ this.stops[e * this.words + w]);
+      }
+      int mask = (floor != this.floors[e] ? FLOOR_CHANGED : 0)
+          | (carFlags != this.flags[e] ? FLAGS_CHANGED : 0)
+          | (doorTimer != this.doorTimers[e] ? DOOR_TIMER_CHANGED : 0)
+          | (waitTimer != this.waitTimers[e] ? WAIT_TIMER_CHANGED : 0)
+          | (toggled != 0 ? STOPS_CHANGED : 0);
+      if (mask == 0) {
+        continue;
+      }
+
+      changedCars++;
+      long gap = (long) (e - lastChanged - 1) << CHANGE_BITS;
+      lastChanged = e;
+      int floorStep = floor - this.floors[e];
+      int doorStep = doorTimer - this.doorTimers[e];
+      int waitStep = waitTimer - this.waitTimers[e];
+      this.floors[e] = floor;
+      this.doorTimers[e] = doorTimer;
+      this.waitTimers[e] = waitTimer;
+      // a car moving on or a timer counting down changes the same way as last time
+      if ((mask & (FLAGS_CHANGED | STOPS_CHANGED)) == 0 && floorStep == this.floorSteps[e]
+          && doorStep == this.doorSteps[e] && waitStep == this.waitSteps[e]) {
+        this.putVarLong(gap | REPEATED);
+        continue;
+      }
+      this.floorSteps[e] = floorStep;
+      this.doorSteps[e] = doorStep;
+      this.waitSteps[e] = waitStep;
+
+      this.putVarLong(gap | mask);
+      if ((mask & FLOOR_CHANGED) != 0) {
+        this.putVarLong(zigZag(floorStep));
+      }
+      if ((mask & FLAGS_CHANGED) != 0) {
+        this.putByte(carFlags);
+        this.flags[e] = carFlags;
+      }
+      if ((mask & DOOR_TIMER_CHANGED) != 0) {
+        this.putVarLong(zigZag(doorStep));
+      }
+      if ((mask & WAIT_TIMER_CHANGED) != 0) {
+        this.putVarLong(zigZag(waitStep));
+      }
+      if (toggled != 0) {
+        // only the floors whose stop was added or cleared
+        this.putVarLong(toggled);
+        this.putFloors(e, this.stops, state);
+        for (int w = 0; w < this.words; w++) {
+          this.stops[e * this.words + w] = state.getFloorStopMask(e, w);
+        }
+      }
+    }
+    this.putCount(countAt, changedCars);
+    this.writeFrame(DELTA);
+  }
+
+  /**
+   * Write the floors set in a car's stop mask, or toggled from the last one if given,
+   * as gaps from the floor before.
+   */
+  private void putFloors(int e, long[] last, BuildingReportBuffer state) {
+    int previous = -1;
+    for (int w = 0; w < this.words; w++) {
+      long bits = state.getFloorStopMask(e, w);
+      if (last != null) {
+        bits ^= last[e * this.words + w];
+      }
+      while (bits != 0) {
+        int floor = (w << 6) + Long.numberOfTrailingZeros(bits);
+        this.putVarLong(floor - previous - 1);
+        previous = floor;
+        bits &= bits - 1;
+      }
+    }
+  }
+
+  private static int flagsOf(BuildingReportBuffer state, int e) {
+    return state.getDirection(e).ordinal()
+        | (state.isDoorClosed(e) ? DOOR_CLOSED : 0)
+        | (state.isOutOfService(e) ? OUT_OF_SERVICE : 0)
+        | (state.isTakingRequests(e) ? TAKING_REQUESTS : 0);
+  }
+
+  static long zigZag(long value) {
+    return (value << 1) ^ (value >> 63);
+  }
+
+  private void putByte(int value) {
+    if (this.bodyLength == this.body.length) {
+      this.body = Arrays.copyOf(this.body, this.bodyLength << 1);
+    }
+    this.body[this.bodyLength++] = (byte) value;
+  }
+
+  private void putVarLong(long value) {
+    while ((value & ~0x7fL) != 0) {
+      this.putByte((int) (value & 0x7f) | 0x80);
+      value >>>= 7;
+    }
+    this.putByte((int) value);
+  }
+
+  /**
+   * Write the number of changed cars into the byte kept for it, moving the rest of
+   * the body along if it needs more than one byte.
+   */
+  private void putCount(int at, int count) {
+    if (count < 0x80) {
+      this.body[at] = (byte) count;
+      return;
+    }
+    byte[] rest = Arrays.copyOfRange(this.body, at + 1, this.bodyLength);
+    this.bodyLength = at;
+    this.putVarLong(count);
+    for (byte b : rest) {
+      this.putByte(b);
+    }
+  }
+
+  /**
+   * Write the type, length and body of a frame.
+   */
+  private void writeFrame(byte type) throws IOException {
+    int length = this.bodyLength;
+    this.ensureRoom(11);
+    this.buffer.put(type);
+    int header = 1;
+    long value = length;
+    while ((value & ~0x7fL) != 0) {
+      this.buffer.put((byte) ((value & 0x7f) | 0x80));
+      value >>>= 7;
+      header++;
+    }
+    this.buffer.put((byte) value);
+    header++;
+
+    int written = 0;
+    while (written < length) {
+      this.ensureRoom(1);
+      int chunk = Math.min(length - written, this.buffer.remaining());
+      this.buffer.put(this.body, written, chunk);
+      written += chunk;
+    }
+    this.position += header + length;
+  }
+
+  private void ensureRoom(int bytes) throws IOException {
+    if (this.buffer.remaining() < bytes) {
+      this.writeBuffer();
+    }
+  }
+
+  private void writeBuffer() throws IOException {
+    this.buffer.flip();
+    while (this.buffer.hasRemaining()) {
+      this.channel.write(this.buffer);
+    }
+    this.buffer.clear();
+  }
+
+  /**
+   * This method is used to write the frames gathered so far to the file.  The journal
+   * can be read up to here even if it is never closed, though without its index.
+   *
+   * @throws IOException if the file cannot be written.
+   */
+  public void flush() throws IOException {
+    if (!this.closed) {
+      this.writeBuffer();
+    }
+  }
+
+  /**
+   * This method is used to write the index of keyframes and close the journal.
+   *
+   * @throws IOException if the file cannot be written.
+   */
+  @Override
+  public void close() throws IOException {
+    if (this.closed) {
+      return;
+    }
+    try {
+      long indexOffset = this.position;
+      this.bodyLength = 0;
+      this.putVarLong(this.keyframes);
+      long lastTick = 0;
+      long lastOffset = 0;
+      for (int i = 0; i < this.keyframes; i++) {
+        this.putVarLong(this.keyframeTicks[i] - lastTick);
+        this.putVarLong(this.keyframeOffsets[i] - lastOffset);
+        lastTick = this.keyframeTicks[i];
+        lastOffset = this.keyframeOffsets[i];
+      }
+      this.writeFrame(INDEX);
+      this.ensureRoom(TRAILER_SIZE);
+      this.buffer.putLong(indexOffset).putLong(this.tick).putLong(this.frames).putInt(MAGIC);
+      this.position += TRAILER_SIZE;
+      this.writeBuffer();
+    } finally {
+      this.closed = true;
+      this.channel.close();
+    }
+  }
+}
@@ -0,0 +1,695 @@
+package building.journal;
+
+import building.enums.Direction;
+import building.enums.ElevatorSystemStatus;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * This class reads a journal written by StateJournal.  next() moves to the state at the
+ * next recorded tick, and seek() jumps to the state at any tick by decoding the keyframe
+ * before it and the deltas after that; the state is then read with the same getters as
+ * a BuildingReportBuffer.
+ *
+ * <p>A journal that was never closed has no index.  The reader then finds the keyframes
+ * by walking the frames once when it is opened, and stops cleanly before a frame that
+ * was cut short, which isTruncated() says.</p>
+ */
+public class StateJournalReader implements Closeable {
+  private static final int BUFFER_SIZE = 64 * 1024;
+  private static final Direction[] DIRECTIONS = Direction.values();
+  private static final ElevatorSystemStatus[] STATUSES = ElevatorSystemStatus.values();
+
+  // the longest frame header: the type and a five byte length
+  private static final int MAX_FRAME_HEADER = 6;
+
+  private final FileChannel channel;
+  private final int numberOfFloors;
+  private final int numberOfElevators;
+  private final int words;
+
+  // the bytes of the file from windowStart, read as needed
+  private ByteBuffer window;
+  private long windowStart = -1;
+
+  // the frames run from the header to here
+  private long framesEnd;
+  private long frameCount;
+  private long lastTick = -1;
+  private long[] keyframeTicks = new long[64];
+  private long[] keyframeOffsets = new long[64];
+  private int keyframes;
+  private boolean indexed;
+  private boolean truncated;
+
+  // the frame being decoded
+  private byte[] data;
+  private int position;
+  private int end;
+  private byte frameType;
+  private long frameEnd;
+
+  private long nextOffset = StateJournal.HEADER_SIZE;
+  private boolean started;
+  private long tick = -1;
+  private int status;
+  private int upCount;
+  private int downCount;
+  private final int[] floors;
+  private final int[] flags;
+  private final int[] doorTimers;
+  private final int[] waitTimers;
+  private final long[] stops;
+  private final int[] floorSteps;
+  private final int[] doorSteps;
+  private final int[] waitSteps;
+
+  /**
+   * This constructor is used to open a state journal.
+   *
+   * @param path the journal to read.
+   * @throws IOException if the file cannot be read or is not a state journal.
+   */
+  public StateJournalReader(Path path) throws IOException {
+    this.channel = FileChannel.open(path, StandardOpenOption.READ);
+    this.window = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    try {
+      this.framesEnd = this.channel.size();
+      if (!this.load(0, StateJournal.HEADER_SIZE)) {
+        throw new IOException("The file is too short to be a state journal");
+      }
+      if (this.window.getInt(0) != StateJournal.MAGIC) {
+        throw new IOException("The file is not a state journal");
+      }
+      int version = this.window.getInt(4);
+      if (version != StateJournal.VERSION) {
+        throw new IOException("State journal version " + version + " is not supported");
+      }
+      this.numberOfFloors = this.window.getInt(8);
+      this.numberOfElevators = this.window.getInt(12);
+      if (this.numberOfFloors < 1 || this.numberOfElevators < 1) {
+        throw new IOException("The state journal has no floors or no elevators");
+      }
+    } catch (IOException | RuntimeException e) {
+      this.channel.close();
+      throw e;
+    }
+    this.words = (this.numberOfFloors + 63) >>> 6;
+    this.floors = new int[this.numberOfElevators];
+    this.flags = new int[this.numberOfElevators];
+    this.doorTimers = new int[this.numberOfElevators];
+    this.waitTimers = new int[this.numberOfElevators];
+    this.stops = new long[this.numberOfElevators * this.words];
+    this.floorSteps = new int[this.numberOfElevators];
+    this.doorSteps = new int[this.numberOfElevators];
+    this.waitSteps = new int[this.numberOfElevators];
+    try {
+      if (!this.readIndex()) {
+        this.scan();
+      }
+    } catch (IOException | RuntimeException e) {
+      this.channel.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Read the index from the end of a closed journal.
+   *
+   * @return false if the journal has no index.
+   */
+  private boolean readIndex() throws IOException {
+    long size = this.channel.size();
+    long trailer = size - StateJournal.TRAILER_SIZE;
+    if (trailer < StateJournal.HEADER_SIZE || !this.load(trailer, StateJournal.TRAILER_SIZE)) {
+      return false;
+    }
+    int at = (int) (trailer - this.windowStart);
+    if (this.window.getInt(at + StateJournal.TRAILER_SIZE - Integer.BYTES)
+        != StateJournal.MAGIC) {
+      return false;
+    }
+    long indexOffset = this.window.getLong(at);
+    long last = this.window.getLong(at + Long.BYTES);
+    long frames = this.window.getLong(at + 2 * Long.BYTES);
+    if (indexOffset < StateJournal.HEADER_SIZE || indexOffset >= trailer) {
+      return false;
+    }
+    this.framesEnd = trailer;
+    if (!this.readFrame(indexOffset) || this.frameType != StateJournal.INDEX) {
+      throw new IOException("The state journal index is damaged");
+    }
+    long count = this.getVarLong();
+    long keyframeTick = 0;
+    long keyframeOffset = 0;
+    for (long i = 0; i < count; i++) {
+      keyframeTick += this.getVarLong();
+      keyframeOffset += this.getVarLong();
+      this.addKeyframe(keyframeTick, keyframeOffset);
+    }
+    this.framesEnd = indexOffset;
+    this.lastTick = last;
+    this.frameCount = frames;
+    this.indexed = true;
+    return true;
+  }
+
+  /**
+   * Walk the frames of a journal that has no index to find its keyframes.
+   */
+  private void scan() throws IOException {
+    long offset = StateJournal.HEADER_SIZE;
+    long scanTick = -1;
+    while (this.readFrame(offset)) {
+      if (this.frameType == StateJournal.INDEX) {
+        break;
+      }
+      if (this.frameType == StateJournal.KEYFRAME) {
+        scanTick = this.getVarLong();
+        this.addKeyframe(scanTick, offset);
+      } else if (this.frameType == StateJournal.DELTA && scanTick >= 0) {
+        scanTick += this.getTickGap(this.getByte());
+      } else {
+        throw new IOException("Unknown frame at byte " + offset);
+      }
+      this.frameCount++;
+      offset = this.frameEnd;
+    }
+    this.framesEnd = offset;
+    this.lastTick = scanTick;
+  }
+
+  private void addKeyframe(long keyframeTick, long offset) {
+    if (this.keyframes == this.keyframeTicks.length) {
+      this.keyframeTicks = Arrays.copyOf(this.keyframeTicks, this.keyframes << 1);
+      this.keyframeOffsets = Arrays.copyOf(this.keyframeOffsets, this.keyframes << 1);
+    }
+    this.keyframeTicks[this.keyframes] = keyframeTick;
+    this.keyframeOffsets[this.keyframes] = offset;
+    this.keyframes++;
+  }
+
+  /**
+   * Make sure the window holds the given bytes of the file.
+   *
+   * @return false if the file ends first.
+   */
+  private boolean load(long offset, int bytes) throws IOException {
+    if (offset >= this.windowStart && this.windowStart >= 0
+        && offset + bytes <= this.windowStart + this.window.limit()) {
+      return true;
+    }
+    if (bytes > this.window.capacity()) {
+      this.window = ByteBuffer.allocate(Integer.highestOneBit(bytes - 1) << 1)
+          .order(ByteOrder.LITTLE_ENDIAN);
+    }
+    this.window.clear();
+    while (this.window.hasRemaining()) {
+      if (this.channel.read(this.window, offset + this.window.position()) < 0) {
+        break;
+      }
+    }
+    this.window.flip();
+    this.windowStart = offset;
+    return this.window.limit() >= bytes;
+  }
+
+  /**
+   * Read the type and length of the frame at an offset and make its body the data
+   * being decoded.
+   *
+   * @return false if there is no whole frame there.
+   */
+  private boolean readFrame(long offset) throws IOException {
+    long available = this.framesEnd - offset;
+    if (available <= 0) {
+      return false;
+    }
+    this.load(offset, (int) Math.min(MAX_FRAME_HEADER, available));
+    this.data = this.window.array();
+    this.position = (int) (offset - this.windowStart);
+    this.end = this.position + (int) Math.min(MAX_FRAME_HEADER, available);
+    this.frameType = this.data[this.position++];
+    long length;
+    try {
+      length = this.getVarLong();
+    } catch (IOException e) {
+      this.truncated = true;
+      return false;
+    }
+    long body = this.windowStart + this.position;
+    if (length > Integer.MAX_VALUE || body + length > this.framesEnd) {
+      this.truncated = true;
+      return false;
+    }
+    this.load(body, (int) length);
+    this.data = this.window.array();
+    this.position = (int) (body - this.windowStart);
+    this.end = this.position + (int) length;
+    this.frameEnd = body + length;
+    return true;
+  }
+
+  private long getVarLong() throws IOException {
+    long value = 0;
+    for (int shift = 0; shift < Long.SIZE; shift += 7) {
+      if (this.position >= this.end) {
+        throw new IOException("A state journal frame ends part way through a number");
+      }
+      byte b = this.data[this.position++];
+      value |= (long) (b & 0x7f) << shift;
+      if (b >= 0) {
+        return value;
+      }
+    }
+    throw new IOException("A state journal frame holds a number that is too long");
+  }
+
+  private int getInt() throws IOException {
+    long value = this.getVarLong();
+    if (value < 0 || value > Integer.MAX_VALUE) {
+      throw new IOException("A state journal frame holds a number out of range: " + value);
+    }
+    return (int) value;
+  }
+
+  private int getZigZag() throws IOException {
+    long value = this.getVarLong();
+    return (int) ((value >>> 1) ^ -(value & 1));
+  }
+
+  private int getByte() throws IOException {
+    if (this.position >= this.end) {
+      throw new IOException("A state journal frame is too short");
+    }
+    return this.data[this.position++] & 0xff;
+  }
+
+  /**
+   * Read how many ticks a delta is after the frame before it.
+   */
+  private long getTickGap(int changed) throws IOException {
+    return (changed & StateJournal.NEXT_TICK) != 0 ? 1 : this.getVarLong();
+  }
+
+  private int getStatus() throws IOException {
+    int value = this.getByte();
+    if (value >= STATUSES.length) {
+      throw new IOException("Unknown system status: " + value);
+    }
+    return value;
+  }
+
+  private int getFlags() throws IOException {
+    int value = this.getByte();
+    if ((value & 3) >= DIRECTIONS.length) {
+      throw new IOException("Unknown direction: " + (value & 3));
+    }
+    return value;
+  }
+
+  private int getElevator(int elevator) throws IOException {
+    if (elevator < 0 || elevator >= this.numberOfElevators) {
+      throw new IOException("Elevator " + elevator + " is not in the building");
+    }
+    return elevator;
+  }
+
+  private int getFloor(int floor) throws IOException {
+    if (floor < 0 || floor >= this.numberOfFloors) {
+      throw new IOException("Floor " + floor + " is not in the building");
+    }
+    return floor;
+  }
+
+  /**
+   * Flip the stop bits of a car at the floors that follow in the frame.
+   */
+  private void toggleStops(int e, int count) throws IOException {
+    int floor = -1;
+    for (int i = 0; i < count; i++) {
+      floor = this.getFloor(floor + 1 + this.getInt());
+      this.stops[e * this.words + (floor >>> 6)] ^= 1L << floor;
+    }
+  }
+
+  private void decodeKeyframe() throws IOException {
+    this.tick = this.getVarLong();
+    this.status = this.getStatus();
+    this.upCount = this.getInt();
+    this.downCount = this.getInt();
+    Arrays.fill(this.stops, 0);
+    Arrays.fill(this.floorSteps, 0);
+    Arrays.fill(this.doorSteps, 0);
+    Arrays.fill(this.waitSteps, 0);
+    for (int e = 0; e < this.numberOfElevators; e++) {
+      this.flags[e] = this.getFlags();
+      this.floors[e] = this.getFloor(this.getInt());
+      this.doorTimers[e] = this.getZigZag();
+      this.waitTimers[e] = this.getZigZag();
+      this.toggleStops(e, this.getInt());
+    }
+    this.started = true;
+  }
+
+  private void decodeDelta() throws IOException {
+    if (!this.started) {
+      throw new IOException("A state journal delta has no keyframe before it");
+    }
+    int changed = this.getByte();
+    this.tick += this.getTickGap(changed);
+    if ((changed & StateJournal.STATUS_CHANGED) != 0) {
+      this.status = this.getStatus();
+    }
+    if ((changed & StateJournal.UP_CHANGED) != 0) {
+      this.upCount += this.getZigZag();
+    }
+    if ((changed & StateJournal.DOWN_CHANGED) != 0) {
+      this.downCount += this.getZigZag();
+    }
+    int cars = this.getInt();
+    int e = -1;
+    for (int i = 0; i < cars; i++) {
+      long change = this.getVarLong();
+      int mask = (int) change & ((1 << StateJournal.CHANGE_BITS) - 1);
+      e = this.getElevator((int) Math.min(e + 1 + (change >>> StateJournal.CHANGE_BITS),
+          Integer.MAX_VALUE));
+      if (mask != StateJournal.REPEATED) {
+        this.floorSteps[e] = (mask & StateJournal.FLOOR_CHANGED) != 0 ? this.getZigZag() : 0;
+        if ((mask & StateJournal.FLAGS_CHANGED) != 0) {
+          this.flags[e] = this.getFlags();
+        }
+        this.doorSteps[e] = (mask & StateJournal.DOOR_TIMER_CHANGED) != 0
+            ? this.getZigZag() : 0;
+        this.waitSteps[e] = (mask & StateJournal.WAIT_TIMER_CHANGED) != 0
+            ? this.getZigZag() : 0;
+      }
+      this.floors[e] = this.getFloor(this.floors[e] + this.floorSteps[e]);
+      this.doorTimers[e] += this.doorSteps[e];
+      this.waitTimers[e] += this.waitSteps[e];
+      if ((mask & StateJournal.STOPS_CHANGED) != 0) {
+        this.toggleStops(e, this.getInt());
+      }
+    }
+  }
+
+  /**
+   * This method is used to move to the state at the next recorded tick.
+   *
+   * @return true if there was another state, false at the end of the journal.
+   * @throws IOException if the journal cannot be read or is damaged.
+   */
+  public boolean next() throws IOException {
+    if (!this.readFrame(this.nextOffset) || this.frameType == StateJournal.INDEX) {
+      return false;
+    }
+    if (this.frameType == StateJournal.KEYFRAME) {
+      this.decodeKeyframe();
+    } else if (this.frameType == StateJournal.DELTA) {
+      this.decodeDelta();
+    } else {
+      throw new IOException("Unknown frame at byte " + this.nextOffset);
+    }
+    this.nextOffset = this.frameEnd;
+    return true;
+  }
+
+  /**
+   * This method is used to move to the state at a tick: the state at the last recorded
+   * tick that is not after it.  next() then carries on from there.
+   *
+   * @param target the tick.
+   * @return false if the tick is before the first recorded tick.
+   * @throws IOException if the journal cannot be read or is damaged.
+   */
+  public boolean seek(long target) throws IOException {
+    int low = 0;
+    int high = this.keyframes - 1;
+    int found = -1;
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      if (this.keyframeTicks[middle] <= target) {
+        found = middle;
+        low = middle + 1;
+      } else {
+        high = middle - 1;
+      }
+    }
+    if (found < 0) {
+      return false;
+    }
+
+    // go forward from the keyframe unless the current state is already closer
+    if (!this.started || this.tick > target || this.tick < this.keyframeTicks[found]) {
+      this.nextOffset = this.keyframeOffsets[found];
+      this.next();
+    }
+    while (this.tick < target && this.readFrame(this.nextOffset)
+        && this.frameType == StateJournal.DELTA
+        && this.tick + this.getTickGap(this.getByte()) <= target) {
+      this.next();
+    }
+    return true;
+  }
+
+  /**
+   * This method is used to check if the journal was never closed and ended part way
+   * through a frame.
+   *
+   * @return true if the last frame was cut short.
+   */
+  public boolean isTruncated() {
+    return this.truncated;
+  }
+
+  /**
+   * This method is used to check if the journal was closed and so has an index of its
+   * keyframes.
+   *
+   * @return true if the journal has an index.
+   */
+  public boolean isIndexed() {
+    return this.indexed;
+  }
+
+  /**
+   * This method is used to get the number of frames, one for each recorded tick.
+   *
+   * @return the number of frames.
+   */
+  public long getFrameCount() {
+    return this.frameCount;
+  }
+
+  /**
+   * This method is used to get the number of keyframes.
+   *
+   * @return the number of keyframes.
+   */
+  public int getKeyframeCount() {
+    return this.keyframes;
+  }
+
+  /**
+   * This method is used to get the first recorded tick.
+   *
+   * @return the first tick, or -1 if the journal is empty.
+   */
+  public long getFirstTick() {
+    return this.keyframes == 0 ? -1 : this.keyframeTicks[0];
+  }
+
+  /**
+   * This method is used to get the last recorded tick.
+   *
+   * @return the last tick, or -1 if the journal is empty.
+   */
+  public long getLastTick() {
+    return this.lastTick;
+  }
+
+  /**
+   * This method is used to get the number of floors of the building.
+   *
+   * @return the number of floors.
+   */
+  public int getNumFloors() {
+    return this.numberOfFloors;
+  }
+
+  /**
+   * This method is used to get the number of elevators of the building.
+   *
+   * @return the number of elevators.
+   */
+  public int getNumElevators() {
+    return this.numberOfElevators;
+  }
+
+  /**
+   * This method is used to get the tick of the current state.
+   *
+   * @return the tick, or -1 before the first state.
+   */
+  public long getTick() {
+    return this.tick;
+  }
+
+  /**
+   * This method is used to get the status of the system.
+   *
+   * @return the system status.
+   */
+  public ElevatorSystemStatus getSystemStatus() {
+    return STATUSES[this.status];
+  }
+
+  /**
+   * This method is used to get the number of up requests waiting.
+   *
+   * @return the number of up requests.
+   */
+  public int getUpRequestCount() {
+    return this.upCount;
+  }
+
+  /**
+   * This method is used to get the number of down requests waiting.
+   *
+   * @return the number of down requests.
+   */
+  public int getDownRequestCount() {
+    return this.downCount;
+  }
+
+  /**
+   * This method is used to get the current floor of an elevator.
+   *
+   * @param elevator the index of the elevator.
+   * @return the current floor.
+   */
+  public int getCurrentFloor(int elevator) {
+    return this.floors[this.checkElevator(elevator)];
+  }
+
+  /**
+   * This method is used to get the direction of an elevator.
+   *
+   * @param elevator the index of the elevator.
+   * @return the direction.
+   */
+  public Direction getDirection(int elevator) {
+    return DIRECTIONS[this.flags[this.checkElevator(elevator)] & 3];
+  }
+
+  /**
+   * This method is used to check if the door of an elevator is closed.
+   *
+   * @param elevator the index of the elevator.
+   * @return true if the door is closed.
+   */
+  public boolean isDoorClosed(int elevator) {
+    return (this.flags[this.checkElevator(elevator)] & StateJournal.DOOR_CLOSED) != 0;
+  }
+
+  /**
+   * This method is used to get the door open timer of an elevator.
+   *
+   * @param elevator the index of the elevator.
+   * @return the door open timer.
+   */
+  public int getDoorOpenTimer(int elevator) {
+    return this.doorTimers[this.checkElevator(elevator)];
+  }
+
+  /**
+   * This method is used to get the end wait timer of an elevator.
+   *
+   * @param elevator the index of the elevator.
+   * @return the end wait timer.
+   */
+  public int getEndWaitTimer(int elevator) {
+    return this.waitTimers[this.checkElevator(elevator)];
+  }
+
+  /**
+   * This method is used to check if an elevator is out of service.
+   *
+   * @param elevator the index of the elevator.
+   * @return true if the elevator is out of service.
+   */
+  public boolean isOutOfService(int elevator) {
+    return (this.flags[this.checkElevator(elevator)] & StateJournal.OUT_OF_SERVICE) != 0;
+  }
+
+  /**
+   * This method is used to check if an elevator is taking requests.
+   *
+   * @param elevator the index of the elevator.
+   * @return true if the elevator is taking requests.
+   */
+  public boolean isTakingRequests(int elevator) {
+    return (this.flags[this.checkElevator(elevator)] & StateJournal.TAKING_REQUESTS) != 0;
+  }
+
+  /**
+   * This method is used to check if an elevator will stop at a floor.
+   *
+   * @param elevator the index of the elevator.
+   * @param floor    the floor.
+   * @return true if the elevator has a stop request for the floor.
+   */
+  public boolean hasStopAt(int elevator, int floor) {
+    this.checkFloor(floor);
+    return (this.getFloorStopMask(elevator, floor >>> 6) & (1L << floor)) != 0;
+  }
+
+  /**
+   * This method is used to get one word of the stop requests of an elevator.
+   *
+   * @param elevator the index of the elevator.
+   * @param word     the word of the mask.
+   * @return the stop requests in that word.
+   */
+  public long getFloorStopMask(int elevator, int word) {
+    return this.stops[this.checkElevator(elevator) * this.words + this.checkWord(word)];
+  }
+
+  private int checkElevator(int elevator) {
+    if (elevator < 0 || elevator >= this.numberOfElevators) {
+      throw new IndexOutOfBoundsException("Elevator: " + elevator + ", Elevators: "
+          + this.numberOfElevators);
+    }
+    return elevator;
+  }
+
+  private void checkFloor(int floor) {
+    if (floor < 0 || floor >= this.numberOfFloors) {
+      throw new IndexOutOfBoundsException("Floor: " + floor + ", Floors: "
+          + this.numberOfFloors);
+    }
+  }
+
+  private int checkWord(int word) {
+    if (word < 0 || word >= this.words) {
+      throw new IndexOutOfBoundsException("Word: " + word + ", Words: " + this.words);
+    }
+    return word;
+  }
+
+  /**
+   * This method is used to close the journal.
+   *
+   * @throws IOException if the file cannot be closed.
+   */
+  @Override
+  public void close() throws IOException {
+    this.channel.close();
+  }
+}
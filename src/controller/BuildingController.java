@@ -2,18 +2,53 @@ package controller;
 
 import building.BuildingInterface;
 import building.BuildingReport;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 import javax.swing.SwingUtilities;
-import scanerzus.Request;
+import javax.swing.Timer;
 import views.BuildingViewInterface;
 
 
 /**
  * This class is responsible for controlling the elevator system and managing interactions
  * between the model (building) and the view (Swing GUI).
+ *
+ * <p>The building is only ever touched by one simulation thread.  Every action from the
+ * view is handed to that thread, so stepping never blocks the event dispatch thread.
+ * After each action the thread publishes the latest report, and the view picks it up
+ * at most once per frame; reports published in between are dropped.</p>
  */
 public class BuildingController implements BuildingControllerInterface {
+  /**
+   * How often the view is refreshed, in milliseconds.
+   */
+  public static final int FRAME_MILLIS = 16;
+
+  /**
+   * The fastest fixed rate an auto-run can be scheduled at: one step a nanosecond.
+   */
+  public static final int MAX_STEPS_PER_SECOND = 1_000_000_000;
+
+  /**
+   * How long one batch of steps runs when auto-running as fast as possible, so that
+   * actions from the view are not held up behind the stepping.
+   */
+  private static final long BATCH_NANOS = TimeUnit.MILLISECONDS.toNanos(2);
+
   private BuildingInterface building;
   private BuildingViewInterface view;
+  private final ScheduledExecutorService simulation;
+  private final AtomicReference<BuildingReport> latestReport = new AtomicReference<>();
+  private final Timer frameTimer;
+  private volatile boolean autoRunning;
+
+  // only read and written on the simulation thread
+  private ScheduledFuture<?> autoRunTask;
+  private int autoRunGeneration;
 
   /**
    * The constructor is used to create a new BuildingController object.
@@ -23,9 +58,17 @@ public class BuildingController implements BuildingControllerInterface {
   public BuildingController(BuildingInterface building, BuildingViewInterface view) {
     this.building = building;
     this.view = view;
+    this.simulation = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "simulation");
+      thread.setDaemon(true);
+      return thread;
+    });
+    this.frameTimer = new Timer(FRAME_MILLIS, e -> showLatestReport());
+    this.frameTimer.setCoalesce(true);
     this.view.setController(this);
     initializeView();
-    updateView();
+    this.simulation.execute(this::publishReport);
+    this.frameTimer.start();
   }
 
   private void initializeView() {
@@ -38,49 +81,191 @@ public class BuildingController implements BuildingControllerInterface {
 
   @Override
   public void startElevatorSystem() {
-    try {
-      building.startElevatorSystem();
-      updateView();
-    } catch (IllegalStateException e) {
-      view.displayError(e.getMessage());
-    }
+    simulation.execute(() -> {
+      try {
+        building.startElevatorSystem();
+        publishReport();
+      } catch (IllegalStateException e) {
+        showError(e.getMessage());
+      }
+    });
   }
 
   @Override
   public void stopElevatorSystem() {
-    try {
-      building.stopElevatorSystem();
-      updateView();
-    } catch (IllegalStateException e) {
-      view.displayError(e.getMessage());
-    }
+    simulation.execute(() -> {
+      try {
+        building.stopElevatorSystem();
+        publishReport();
+      } catch (IllegalStateException e) {
+        showError(e.getMessage());
+      }
+    });
   }
 
   @Override
   public void stepElevatorSystem() {
+    simulation.execute(() -> {
+      try {
+        building.stepElevatorSystem();
+        publishReport();
+      } catch (IllegalStateException e) {
+        showError(e.getMessage());
+      }
+    });
+  }
+
+  @Override
+  public void startAutoRun(int stepsPerSecond) {
+    if (stepsPerSecond < 0 || stepsPerSecond > MAX_STEPS_PER_SECOND) {
+      throw new IllegalArgumentException("stepsPerSecond must be from 0 to "
+          + MAX_STEPS_PER_SECOND);
+    }
+    autoRunning = true;
     try {
-      building.stepElevatorSystem();
-      updateView();
-    } catch (IllegalStateException e) {
-      view.displayError(e.getMessage());
+      simulation.execute(() -> scheduleAutoRun(stepsPerSecond));
+    } catch (RejectedExecutionException e) {
+      autoRunning = false;
+      throw new IllegalStateException("The simulation has been shut down");
     }
   }
 
-  private void updateView() {
-    BuildingReport report = building.getBuildingReport();
-    SwingUtilities.invokeLater(() -> {
-      view.updateView(report);
+  /**
+   * Start stepping at the given rate, or tell the view why it could not.  Runs on the
+   * simulation thread.
+   */
+  private void scheduleAutoRun(int stepsPerSecond) {
+    try {
+      cancelAutoRun();
+      int generation = autoRunGeneration;
+      if (stepsPerSecond == 0) {
+        simulation.execute(new Runnable() {
+          @Override
+          public void run() {
+            if (generation != autoRunGeneration) {
+              return;
+            }
+            long end = System.nanoTime() + BATCH_NANOS;
+            try {
+              do {
+                building.stepElevatorSystem();
+              } while (System.nanoTime() < end);
+              publishReportIfShown();
+            } catch (RuntimeException e) {
+              failAutoRun(e);
+              return;
+            }
+            if (building.getIdleSteps() == Integer.MAX_VALUE) {
+              // nothing will happen until the view asks for something, so stop spinning
+              simulation.schedule(this, FRAME_MILLIS, TimeUnit.MILLISECONDS);
+            } else {
+              // go to the back of the queue so actions from the view get their turn
+              simulation.execute(this);
+            }
+          }
+        });
+      } else {
+        long period = TimeUnit.SECONDS.toNanos(1) / stepsPerSecond;
+        autoRunTask = simulation.scheduleAtFixedRate(() -> {
+          try {
+            building.stepElevatorSystem();
+            publishReportIfShown();
+          } catch (RuntimeException e) {
+            failAutoRun(e);
+          }
+        }, period, period, TimeUnit.NANOSECONDS);
+      }
+    } catch (RuntimeException e) {
+      autoRunning = false;
+      showError("Could not start auto-run: " + e.getMessage());
+    }
+  }
+
+  /**
+   * Stop the auto-run after a step failed, and tell the view why.  Runs on the
+   * simulation thread.
+   */
+  private void failAutoRun(RuntimeException e) {
+    autoRunning = false;
+    cancelAutoRun();
+    showError("Auto-run stopped: " + e.getMessage());
+  }
+
+  @Override
+  public void stopAutoRun() {
+    autoRunning = false;
+    simulation.execute(() -> {
+      cancelAutoRun();
+      publishReport();
     });
   }
 
   @Override
-  public void processRequest(int startFloor, int endFloor) {
-    try {
-      Request request = new Request(startFloor, endFloor);
-      building.addRequest(request);
-      view.updateView(building.getBuildingReport());
-    } catch (IllegalArgumentException | IllegalStateException e) {
-      view.displayError(e.getMessage());
+  public boolean isAutoRunning() {
+    return autoRunning;
+  }
+
+  /**
+   * Stop whichever auto-run is going.  Runs on the simulation thread.
+   */
+  private void cancelAutoRun() {
+    autoRunGeneration++;
+    if (autoRunTask != null) {
+      autoRunTask.cancel(false);
+      autoRunTask = null;
+    }
+  }
+
+  /**
+   * Make the current state of the building the next report the view will show.
+   * Runs on the simulation thread.  A report that has not been shown yet is replaced,
+   * so the view never falls behind the simulation.
+   */
+  private void publishReport() {
+    latestReport.set(building.getBuildingReport());
+  }
+
+  /**
+   * Publish a report only if the view has taken the last one.  Used while auto-running
+   * so that no report is taken that would be replaced before a frame shows it.
+   */
+  private void publishReportIfShown() {
+    if (latestReport.get() == null) {
+      publishReport();
     }
   }
+
+  /**
+   * Show the latest report if there is a new one.  Runs on the event dispatch thread
+   * once per frame.
+   */
+  private void showLatestReport() {
+    BuildingReport report = latestReport.getAndSet(null);
+    if (report != null) {
+      view.updateView(report);
+    }
+  }
+
+  private void showError(String message) {
+    SwingUtilities.invokeLater(() -> view.displayError(message));
+  }
+
+  @Override
+  public void processRequest(int startFloor, int endFloor) {
+    simulation.execute(() -> {
+      try {
+        building.addRequest(startFloor, endFloor);
+        publishReport();
+      } catch (IllegalArgumentException | IllegalStateException e) {
+        showError(e.getMessage());
+      }
+    });
+  }
+
+  @Override
+  public void shutdown() {
+    autoRunning = false;
+    frameTimer.stop();
+    simulation.shutdownNow();
+  }
 }
@@ -27,4 +27,33 @@ public interface BuildingControllerInterface {
    * @param endFloor the end floor of the request
    */
   void processRequest(int startFloor, int endFloor);
+
+  /**
+   * This method is called by the view to keep stepping the elevator system
+   * on the simulation thread until stopAutoRun() is called.
+   *
+   * @param stepsPerSecond the number of steps to run each second, or 0 to step
+   *                       as fast as possible.
+   * @throws IllegalArgumentException if stepsPerSecond is negative or more than one
+   *                                  step a nanosecond.
+   * @throws IllegalStateException if the controller has been shut down.
+   */
+  void startAutoRun(int stepsPerSecond) throws IllegalArgumentException;
+
+  /**
+   * This method is called by the view to stop auto-running.
+   */
+  void stopAutoRun();
+
+  /**
+   * This method is used to check if the elevator system is auto-running.
+   *
+   * @return true if auto-running.
+   */
+  boolean isAutoRunning();
+
+  /**
+   * This method is called when the view is closed, to stop the simulation thread.
+   */
+  void shutdown();
 }
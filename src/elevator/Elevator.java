@@ -15,6 +15,18 @@ public class Elevator implements ElevatorInterface {
    ************************************************************************/
   private static int newElevatorId = 0;
 
+  /************************************************************************
+   * The limits for an ordinary building (city bylaws and fire code).
+   ************************************************************************/
+  public static final int MAX_FLOORS = 30;
+  public static final int MAX_OCCUPANCY = 20;
+
+  /************************************************************************
+   * The limits for a supertall building or freight car.
+   ************************************************************************/
+  public static final int SUPERTALL_MAX_FLOORS = 4096;
+  public static final int SUPERTALL_MAX_OCCUPANCY = 1024;
+
   /************************************************************************
    * The id of the elevator.This is read only.
    ************************************************************************/
@@ -78,11 +90,14 @@ public class Elevator implements ElevatorInterface {
   /************************************************************************
    * The requests for the floors.
    ************************************************************************/
-  private final boolean[] floorRequests; // true if there is a request for the floor.
+  private long[] floorStops; // bit f is set if there is a request for floor f.
+  private boolean floorStopsShared; // a report holds floorStops, copy before changing it.
 
 
   private boolean outOfService;  // start must be issued on the elevator to start it.
 
+  private int changeCount; // counts the changes to the state shown in the report.
+
 
   /**
    * The constructor for this elevator.
@@ -97,11 +112,29 @@ public class Elevator implements ElevatorInterface {
    * @throws IllegalArgumentException if the maxFloor or maxOccupancy is out of range
    */
   public Elevator(int maxFloor, int maxOccupancy) {
-    if (maxFloor < 3 || maxFloor > 30) {
-      throw new IllegalArgumentException("maxFloor must be between 3 and 30");
+    this(maxFloor, maxOccupancy, false);
+  }
+
+  /**
+   * The constructor for this elevator, optionally for a supertall building.
+   * A supertall elevator may serve up to SUPERTALL_MAX_FLOORS floors and carry up to
+   * SUPERTALL_MAX_OCCUPANCY people.  Nothing the elevator does on a step looks at
+   * every floor, so a tall building costs no more per step than a short one.
+   *
+   * @param maxFloor     the total number of floors in the building
+   * @param maxOccupancy the maximum number of people that can fit in the elevator
+   * @param supertall    true to use the supertall limits
+   * @throws IllegalArgumentException if the maxFloor or maxOccupancy is out of range
+   */
+  public Elevator(int maxFloor, int maxOccupancy, boolean supertall) {
+    int floorLimit = supertall ? SUPERTALL_MAX_FLOORS : MAX_FLOORS;
+    int occupancyLimit = supertall ? SUPERTALL_MAX_OCCUPANCY : MAX_OCCUPANCY;
+    if (maxFloor < 3 || maxFloor > floorLimit) {
+      throw new IllegalArgumentException("maxFloor must be between 3 and " + floorLimit);
     }
-    if (maxOccupancy < 3 || maxOccupancy > 20) {
-      throw new IllegalArgumentException("maxOccupancy must be between 3 and 20");
+    if (maxOccupancy < 3 || maxOccupancy > occupancyLimit) {
+      throw new IllegalArgumentException("maxOccupancy must be between 3 and "
+          + occupancyLimit);
     }
 
     this.maxFloor = maxFloor;
@@ -109,7 +142,7 @@ public class Elevator implements ElevatorInterface {
     this.currentFloor = 0;
     this.direction = Direction.STOPPED;
     this.outOfService = true;
-    this.floorRequests = new boolean[maxFloor];
+    this.floorStops = FloorMask.create(maxFloor);
     this.takingRequests = false;
 
   }
@@ -177,13 +210,59 @@ public class Elevator implements ElevatorInterface {
   }
 
   /**
-   * Return the current stop requests.
+   * Return a copy of the current stop requests.
    *
    * @return the current stop requests.
    */
   @Override
   public boolean[] getFloorRequests() {
-    return this.floorRequests;
+    boolean[] floorRequests = new boolean[this.maxFloor];
+    for (int f = FloorMask.nextAbove(this.floorStops, -1); f >= 0;
+         f = FloorMask.nextAbove(this.floorStops, f)) {
+      floorRequests[f] = true;
+    }
+    return floorRequests;
+  }
+
+  /**
+   * Return the number of steps the door will stay open for.
+   *
+   * @return the door timer.
+   */
+  @Override
+  public int getDoorOpenTimer() {
+    return this.doorOpenTimeLeft;
+  }
+
+  /**
+   * Return the number of steps left to wait at the top or bottom.
+   *
+   * @return the end of run timer.
+   */
+  @Override
+  public int getEndWaitTimer() {
+    return this.stopWaitTimeLeft;
+  }
+
+  /**
+   * Return whether the elevator is out of service.
+   *
+   * @return true if the elevator is out of service.
+   */
+  @Override
+  public boolean isOutOfService() {
+    return this.outOfService;
+  }
+
+  /**
+   * Return one word of the stop requests without copying them.
+   *
+   * @param word the word of the mask, see {@link FloorMask}.
+   * @return the stop requests for floors 64 * word to 64 * word + 63.
+   */
+  @Override
+  public long getFloorStopMask(int word) {
+    return this.floorStops[word];
   }
 
   /* ***********************************************************************
@@ -192,6 +271,12 @@ public class Elevator implements ElevatorInterface {
    * start() - start the elevator
    * step() - move the elevator one step
    * processRequests() - process the requests
+   * processRequestsAhead() - process hall calls ahead of a moving elevator
+   * hasStopsAhead() - are there stops ahead of the elevator
+   * getIdleSteps() - how many steps would only count down a timer
+   * getChangeCount() - how many times the report has changed
+   * skipSteps() - count down the timers without stepping
+   * reverse() - turn a moving elevator around
    * takeOutOfService() - take the elevator out of service
    * isTakingRequests() - is the elevator taking requests
    * toString() - string representation of the elevator
@@ -205,6 +290,7 @@ public class Elevator implements ElevatorInterface {
    */
   @Override
   public void start() {
+    this.changeCount++;
     this.outOfService = false;
     this.takingRequests = true;
     clearStopRequests();
@@ -223,6 +309,11 @@ public class Elevator implements ElevatorInterface {
    * Fourth check to see if there is a request at this floor.
    */
   public void step() {
+    // Every step changes the elevator except when it is parked.
+    if (!this.isParked()) {
+      this.changeCount++;
+    }
+
     // If the elevator is out of service then we need to deal with that.
     if (this.outOfService) {
       this.stepOutOfService();
@@ -246,10 +337,10 @@ public class Elevator implements ElevatorInterface {
     // the door is closed and we are not waiting at the top or bottom.
     // now we check to see if there is a request at this floor
     // We open the door and set the timer for 3 steps.
-    if (this.floorRequests[this.currentFloor]) {
+    if (FloorMask.contains(this.floorStops, this.currentFloor)) {
       this.doorClosed = false;
       this.doorOpenTimeLeft = this.doorOpenTimeTotal;
-      this.floorRequests[this.currentFloor] = false;
+      FloorMask.remove(this.writableStops(), this.currentFloor);
       return;
     }
 
@@ -296,6 +387,50 @@ public class Elevator implements ElevatorInterface {
     }
   }
 
+  /**
+   * Get the number of steps from now that would do nothing but count down the
+   * door or waiting timer.  The step that runs a timer out is not counted.
+   *
+   * @return the number of idle steps, or Integer.MAX_VALUE if the elevator is
+   *         out of service with its door open on the ground floor.
+   */
+  @Override
+  public int getIdleSteps() {
+    if (this.isParked()) {
+      return Integer.MAX_VALUE;
+    }
+    if (!this.doorClosed) {
+      return Math.max(this.doorOpenTimeLeft - 1, 0);
+    }
+    if (!this.outOfService && this.stopWaitTimeLeft > 0) {
+      return this.stopWaitTimeLeft - 1;
+    }
+    return 0;
+  }
+
+  /**
+   * Count down the timers as if step() had been called the given number of times.
+   *
+   * @param steps the number of steps to skip, no more than getIdleSteps().
+   * @throws IllegalArgumentException if steps is negative or more than getIdleSteps().
+   */
+  @Override
+  public void skipSteps(int steps) throws IllegalArgumentException {
+    if (steps < 0 || steps > this.getIdleSteps()) {
+      throw new IllegalArgumentException("Cannot skip " + steps + " steps, only "
+          + this.getIdleSteps() + " are idle.");
+    }
+    if (this.isParked() || steps == 0) {
+      return;
+    }
+    this.changeCount++;
+    if (!this.doorClosed) {
+      this.doorOpenTimeLeft -= steps;
+    } else {
+      this.stopWaitTimeLeft -= steps;
+    }
+  }
+
   /**
    * Step the elevator when out of service.
    * If the elevator is on the ground floor and the door is open return
@@ -314,7 +449,7 @@ public class Elevator implements ElevatorInterface {
     if (this.currentFloor == 0) {
       this.doorClosed = false;
       // we can clear the floor requests now
-      this.floorRequests[this.currentFloor] = false;
+      FloorMask.remove(this.writableStops(), this.currentFloor);
       // we can set the elevator to stopped.
       this.direction = Direction.STOPPED;
       return;
@@ -370,23 +505,134 @@ public class Elevator implements ElevatorInterface {
    */
   @Override
   public void processRequests(List<Request> requests) throws IllegalStateException {
-    if (this.currentFloor != 0 && this.currentFloor != this.maxFloor - 1) {
-      throw new IllegalStateException("Elevator cannot process requests "
-          + "unless it is at the bottom or top floor.");
-    }
+    this.checkAtTopOrBottom();
 
     if (requests.isEmpty()) {
       return;
     }
 
-    this.processStopRequests(requests);
+    this.changeCount++;
+    clearStopRequests();
+    for (Request request : requests) {
+      FloorMask.add(this.writableStops(), request.getStartFloor());
+      FloorMask.add(this.writableStops(), request.getEndFloor());
+    }
+    this.departFromTopOrBottom();
+  }
+
+  /**
+   * Process the requests held in primitive arrays.  This follows the same
+   * rules as processRequests(List).
+   */
+  @Override
+  public void processRequests(int[] startFloors, int[] endFloors, int count)
+      throws IllegalStateException {
+    this.checkAtTopOrBottom();
+
+    if (count == 0) {
+      return;
+    }
+
+    this.changeCount++;
+    clearStopRequests();
+    for (int i = 0; i < count; i++) {
+      FloorMask.add(this.writableStops(), startFloors[i]);
+      FloorMask.add(this.writableStops(), endFloors[i]);
+    }
+    this.departFromTopOrBottom();
+  }
+
+  /**
+   * Process requests picked up while the elevator is on a run.  Every request
+   * must start at the current floor or ahead of the elevator in its direction of
+   * travel and end further along in that direction.  The current stop requests are kept.
+   */
+  @Override
+  public void processRequestsAhead(int[] startFloors, int[] endFloors, int count)
+      throws IllegalStateException, IllegalArgumentException {
+    if (!this.isTakingRequestsAhead()) {
+      throw new IllegalStateException("Elevator cannot process requests ahead "
+          + "unless it is moving in service.");
+    }
+
+    for (int i = 0; i < count; i++) {
+      boolean ahead;
+      if (this.direction == Direction.UP) {
+        ahead = startFloors[i] >= this.currentFloor && endFloors[i] > startFloors[i]
+            && endFloors[i] < this.maxFloor;
+      } else {
+        ahead = startFloors[i] <= this.currentFloor && endFloors[i] < startFloors[i]
+            && endFloors[i] >= 0;
+      }
+      if (!ahead) {
+        throw new IllegalArgumentException("Request " + startFloors[i] + "->" + endFloors[i]
+            + " is not ahead of the elevator.");
+      }
+    }
+
+    if (count > 0) {
+      this.changeCount++;
+    }
+    for (int i = 0; i < count; i++) {
+      FloorMask.add(this.writableStops(), startFloors[i]);
+      FloorMask.add(this.writableStops(), endFloors[i]);
+    }
+  }
+
+  /**
+   * Check if there is a stop request ahead of the elevator, not counting
+   * the current floor.
+   *
+   * @return true if there is a stop ahead in the direction of travel.
+   */
+  @Override
+  public boolean hasStopsAhead() {
+    if (this.direction == Direction.UP) {
+      return FloorMask.nextAbove(this.floorStops, this.currentFloor) >= 0;
+    } else if (this.direction == Direction.DOWN) {
+      return FloorMask.nextBelow(this.floorStops, this.currentFloor) >= 0;
+    }
+    return false;
+  }
+
+  /**
+   * Turn the elevator around.  This is only allowed while it is moving in
+   * service and has no stops left ahead of it.  It does not wait where it
+   * turns around: on its next step it moves off that floor the other way,
+   * even if it has just reached the top or bottom.
+   */
+  @Override
+  public void reverse() throws IllegalStateException {
+    if (!this.isTakingRequestsAhead()) {
+      throw new IllegalStateException("Elevator cannot reverse unless it is moving in service.");
+    }
+    if (this.hasStopsAhead()) {
+      throw new IllegalStateException("Elevator cannot reverse with stops ahead of it.");
+    }
+    this.changeCount++;
+    this.direction = this.direction == Direction.UP ? Direction.DOWN : Direction.UP;
+  }
+
+  private void checkAtTopOrBottom() {
+    if (this.currentFloor != 0 && this.currentFloor != this.maxFloor - 1) {
+      throw new IllegalStateException("Elevator cannot process requests "
+          + "unless it is at the bottom or top floor.");
+    }
+  }
+
+  /**
+   * Leave the top or bottom once the stop requests have been set.
+   */
+  private void departFromTopOrBottom() {
+    // if the elevator was waiting at the top or bottom
+    // set the timer to 0 and we are off to the races.
+    this.stopWaitTimeLeft = 0;
     if (this.currentFloor == 0) {
       this.direction = Direction.UP;
     } else if (this.currentFloor == this.maxFloor - 1) {
       this.direction = Direction.DOWN;
     }
     this.takingRequests = false;
-
   }
 
   /**
@@ -394,6 +640,7 @@ public class Elevator implements ElevatorInterface {
    */
   @Override
   public void takeOutOfService() {
+    this.changeCount++;
     this.clearStopRequests();
     this.takingRequests = false;
     this.direction = Direction.DOWN;
@@ -413,26 +660,64 @@ public class Elevator implements ElevatorInterface {
     return this.takingRequests;
   }
 
+  /**
+   * isTakingRequestsAhead.
+   * This will return true if the elevator is in service, has left the top or bottom
+   * and is moving up or down, so it can pick up hall calls ahead of it.
+   *
+   * @return true if the elevator is taking requests ahead, false otherwise.
+   */
+  @Override
+  public boolean isTakingRequestsAhead() {
+    return !this.outOfService
+        && !this.takingRequests
+        && this.stopWaitTimeLeft == 0
+        && this.direction != Direction.STOPPED;
+  }
 
-  private void processStopRequests(List<Request> requests) {
-    clearStopRequests();
 
-    for (Request request : requests) {
-      this.floorRequests[request.getStartFloor()] = true;
-      this.floorRequests[request.getEndFloor()] = true;
-    }
-    // if the elevator was waiting at the top or bottom
-    // set the timer to 0 and we are off to the races.
-    this.stopWaitTimeLeft = 0;
+  /**
+   * Get the number of times the state shown in the elevator's report has changed.
+   * Two reports taken with the same count are the same.
+   *
+   * @return the change count.
+   */
+  @Override
+  public int getChangeCount() {
+    return this.changeCount;
+  }
+
+  /**
+   * An elevator out of service on the ground floor with its door open does nothing
+   * until it is started again.
+   */
+  private boolean isParked() {
+    return this.outOfService && this.currentFloor == 0 && !this.doorClosed;
   }
 
   /**
    * Clear the Floor Requests.
    */
   private void clearStopRequests() {
-    for (int i = 0; i < this.maxFloor; i++) {
-      this.floorRequests[i] = false;
+    if (this.floorStopsShared) {
+      this.floorStops = FloorMask.create(this.maxFloor);
+      this.floorStopsShared = false;
+    } else {
+      FloorMask.clear(this.floorStops);
+    }
+  }
+
+  /**
+   * Get the stop requests to change them, copying them first if a report holds them.
+   * Reports share the stop requests instead of copying them, so taking a report
+   * every step costs nothing until the stops change.
+   */
+  private long[] writableStops() {
+    if (this.floorStopsShared) {
+      this.floorStops = this.floorStops.clone();
+      this.floorStopsShared = false;
     }
+    return this.floorStops;
   }
 
   /**
@@ -447,7 +732,8 @@ public class Elevator implements ElevatorInterface {
         this.currentFloor,
         this.direction,
         this.doorClosed,
-        this.floorRequests,
+        this.maxFloor,
+        this.floorStops,
         this.doorOpenTimeLeft,
         this.stopWaitTimeLeft,
         this.outOfService,
@@ -459,17 +745,21 @@ public class Elevator implements ElevatorInterface {
 
   /**
    * Generate a report for the elevator in ElevatorReport format.
+   * The report shares the stop requests with the elevator, which copies them
+   * before it next changes them, so the report does not change as the elevator runs.
    *
    * @return an ElevatorReport object.
    */
   @Override
   public ElevatorReport getElevatorStatus() {
+    this.floorStopsShared = true;
     return new ElevatorReport(
         this.id,
         this.currentFloor,
         this.direction,
         this.doorClosed,
-        this.floorRequests,
+        this.maxFloor,
+        this.floorStops,
         this.doorOpenTimeLeft,
         this.stopWaitTimeLeft,
         this.outOfService,
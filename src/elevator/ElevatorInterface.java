@@ -64,6 +64,36 @@ public interface ElevatorInterface {
    */
   boolean[] getFloorRequests();
 
+  /**
+   * Return the number of steps the door will stay open for.
+   *
+   * @return the door timer, 0 if the door is closed.
+   */
+  int getDoorOpenTimer();
+
+  /**
+   * Return the number of steps left to wait at the top or bottom.
+   *
+   * @return the end of run timer.
+   */
+  int getEndWaitTimer();
+
+  /**
+   * Return whether the elevator is out of service.
+   *
+   * @return true if the elevator is out of service.
+   */
+  boolean isOutOfService();
+
+  /**
+   * Return one word of the stop requests as a bitmask, without copying them.
+   * Bit f of word w is set if the elevator will stop at floor 64 * w + f.
+   *
+   * @param word the word of the mask, from 0 to (getMaxFloor() - 1) / 64.
+   * @return the stop requests for that word.
+   */
+  long getFloorStopMask(int word);
+
   /**
    * start elevator.
    * This will start the elevator if the elevator is on the ground floor.
@@ -89,6 +119,24 @@ public interface ElevatorInterface {
    */
   void step();
 
+  /**
+   * getIdleSteps.
+   * This will tell the building how many of the next steps would do nothing
+   * but count down the door timer or the wait at the top or bottom.
+   *
+   * @return the number of idle steps ahead, Integer.MAX_VALUE if there is no end to them.
+   */
+  int getIdleSteps();
+
+  /**
+   * skipSteps.
+   * This will count down the timers as if step() had been called that many times.
+   *
+   * @param steps the number of steps to skip, no more than getIdleSteps().
+   * @throws IllegalArgumentException if steps is negative or more than getIdleSteps().
+   */
+  void skipSteps(int steps) throws IllegalArgumentException;
+
   /**
    * processUpRequests.
    * This will tell the elevator to process these upRequests on the next run.
@@ -98,6 +146,53 @@ public interface ElevatorInterface {
    */
   void processRequests(List<Request> requests) throws IllegalArgumentException;
 
+  /**
+   * processRequests.
+   * This is the same as processRequests(List) but it reads the requests
+   * from primitive arrays so no Request object is needed per ticket.
+   *
+   * @param startFloors the start floors of the requests.
+   * @param endFloors   the end floors of the requests.
+   * @param count       the number of requests to read from the arrays.
+   */
+  void processRequests(int[] startFloors, int[] endFloors, int count)
+      throws IllegalArgumentException;
+
+
+  /**
+   * processRequestsAhead.
+   * This will add hall calls to an elevator that is already on its run.
+   * Each request must start at the current floor or ahead of the elevator in its
+   * direction of travel and end further along in the same direction.
+   * These are only accepted when isTakingRequestsAhead() is true.
+   *
+   * @param startFloors the start floors of the requests.
+   * @param endFloors   the end floors of the requests.
+   * @param count       the number of requests to read from the arrays.
+   * @throws IllegalStateException if the elevator is not taking requests ahead.
+   * @throws IllegalArgumentException if a request is not ahead of the elevator.
+   */
+  void processRequestsAhead(int[] startFloors, int[] endFloors, int count)
+      throws IllegalStateException, IllegalArgumentException;
+
+  /**
+   * hasStopsAhead.
+   * This will tell the building if the elevator has stop requests further
+   * along in its direction of travel, not counting the current floor.
+   *
+   * @return true if there are stops ahead, false otherwise.
+   */
+  boolean hasStopsAhead();
+
+  /**
+   * reverse.
+   * This will turn a moving elevator around when it has nothing left to do ahead.
+   * These are only accepted when isTakingRequestsAhead() is true.
+   *
+   * @throws IllegalStateException if the elevator is not moving in service
+   *                               or still has stops ahead of it.
+   */
+  void reverse() throws IllegalStateException;
 
   /**
    * isTakingRequests.
@@ -107,8 +202,27 @@ public interface ElevatorInterface {
    */
   boolean isTakingRequests();
 
+  /**
+   * isTakingRequestsAhead.
+   * This will tell the building if the elevator is moving in service
+   * and can pick up hall calls ahead of it.
+   *
+   * @return true if the elevator is taking requests ahead, false otherwise.
+   */
+  boolean isTakingRequestsAhead();
+
+  /**
+   * getChangeCount.
+   * This will return a count that changes whenever the elevator's report would,
+   * so a caller can tell if an elevator has changed without taking a report.
+   *
+   * @return the change count.
+   */
+  int getChangeCount();
+
   /**
    * This method is used to get the elevator status ElevatorReport.
+   * The report is a snapshot and does not change as the elevator runs.
    *
    * @return the elevator status.
    */
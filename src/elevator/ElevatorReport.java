@@ -1,6 +1,8 @@
 package elevator;
 
 import building.enums.Direction;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 
 /**
  * This class is used to represent the status of the elevators.
@@ -9,7 +11,8 @@ public class ElevatorReport {
   private final int elevatorId;
   private final int currentFloor;
   private final boolean doorClosed;
-  private final boolean[] floorRequests;
+  private final int numberOfFloors;
+  private final long[] floorStops;
   private final Direction direction;
 
   private final int doorOpenTimer;
@@ -43,10 +46,42 @@ public class ElevatorReport {
                         int endWaitTimer,
                         boolean outOfService,
                         boolean isTakingRequests) {
+    this(elevatorId, currentFloor, direction, doorClosed, floorRequests.length,
+        toMask(floorRequests), doorOpenTimer, endWaitTimer, outOfService, isTakingRequests);
+  }
+
+  /**
+   * This constructor is used to create a new ElevatorReport object from a stop mask.
+   * The report keeps the mask without copying it, so the caller must not change the
+   * array afterwards.  Elevator meets this by copying its mask before it next changes
+   * its stops.
+   *
+   * @param elevatorId       The id of the elevator.
+   * @param currentFloor     The current floor of the elevator.
+   * @param direction        The direction of the elevator.
+   * @param doorClosed       The status of the door.
+   * @param numberOfFloors   The number of floors the elevator serves.
+   * @param floorStops       The requests for the floors, see {@link FloorMask}.
+   * @param doorOpenTimer    The timer for the door.
+   * @param endWaitTimer     The timer for the end of the run.
+   * @param outOfService     The status of the elevator.
+   * @param isTakingRequests Is the elevator taking requests.
+   */
+  ElevatorReport(int elevatorId,
+                 int currentFloor,
+                 Direction direction,
+                 boolean doorClosed,
+                 int numberOfFloors,
+                 long[] floorStops,
+                 int doorOpenTimer,
+                 int endWaitTimer,
+                 boolean outOfService,
+                 boolean isTakingRequests) {
     this.elevatorId = elevatorId;
     this.currentFloor = currentFloor;
     this.doorClosed = doorClosed;
-    this.floorRequests = floorRequests;
+    this.numberOfFloors = numberOfFloors;
+    this.floorStops = floorStops;
     this.direction = direction;
     this.doorOpenTimer = doorOpenTimer;
     this.endWaitTimer = endWaitTimer;
@@ -86,13 +121,38 @@ public class ElevatorReport {
 
   /**
    * This method is used to get the requests for the floors.
+   * A new array is built from the stop mask each time this is called.
    *
    * @return The requests for the floors.
    */
   public boolean[] getFloorRequests() {
+    boolean[] floorRequests = new boolean[this.numberOfFloors];
+    for (int i = 0; i < this.numberOfFloors; i++) {
+      floorRequests[i] = FloorMask.contains(this.floorStops, i);
+    }
     return floorRequests;
   }
 
+  /**
+   * This method is used to get one word of the requests for the floors, without copying.
+   * Bit f of word w is set if the elevator will stop at floor 64 * w + f.
+   *
+   * @param word the word of the mask.
+   * @return The requests for the floors in that word.
+   */
+  public long getFloorStopMask(int word) {
+    return this.floorStops[word];
+  }
+
+  /**
+   * This method is used to get the number of floors the elevator serves.
+   *
+   * @return The number of floors.
+   */
+  public int getNumFloors() {
+    return this.numberOfFloors;
+  }
+
   /**
    * This method is used to get the direction of the elevator.
    *
@@ -146,40 +206,71 @@ public class ElevatorReport {
    */
   @Override
   public String toString() {
-    StringBuilder sb = new StringBuilder();
+    return this.appendTo(new StringBuilder(8 + 3 * this.numberOfFloors)).toString();
+  }
 
+  /**
+   * This method is used to write the report into a StringBuilder.  The text is the same
+   * as toString() but no intermediate strings are made.
+   *
+   * @param sb the builder to write to.
+   * @return the builder.
+   */
+  public StringBuilder appendTo(StringBuilder sb) {
+    try {
+      this.appendTo((Appendable) sb);
+    } catch (IOException e) {
+      // a StringBuilder never throws
+      throw new UncheckedIOException(e);
+    }
+    return sb;
+  }
+
+  /**
+   * This method is used to write the report to any Appendable.  The text is the same
+   * as toString().
+   *
+   * @param out where to write the report.
+   * @throws IOException if out throws it.
+   */
+  public void appendTo(Appendable out) throws IOException {
     // if the elevator is out of service and on the ground floor
     if (this.outOfService && this.currentFloor == 0) {
-      sb.append(String.format("Out of Service[Floor %d]", this.currentFloor));
-      return sb.toString();
+      out.append("Out of Service[Floor ");
+      ReportText.appendInt(out, this.currentFloor);
+      out.append(']');
+      return;
     }
 
     if (this.endWaitTimer > 0) {
-      sb.append(String.format("Waiting[Floor %d, Time %d]", this.currentFloor, this.endWaitTimer));
-      return sb.toString();
+      out.append("Waiting[Floor ");
+      ReportText.appendInt(out, this.currentFloor);
+      out.append(", Time ");
+      ReportText.appendInt(out, this.endWaitTimer);
+      out.append(']');
+      return;
     }
 
-    sb.append(String.format("[%d|%s|",
-        this.currentFloor,
-        this.direction));
+    out.append('[');
+    ReportText.appendInt(out, this.currentFloor);
+    out.append('|').append(this.direction.toString()).append('|');
 
     if (this.doorClosed) {
-      sb.append("C  ]<");
+      out.append("C  ]<");
     } else {
-      sb.append(String.format("O %d]<", this.doorOpenTimer));
+      out.append("O ");
+      ReportText.appendInt(out, this.doorOpenTimer);
+      out.append("]<");
     }
 
-    for (int i = 0; i < this.floorRequests.length; i++) {
-      if (this.floorRequests[i]) {
-        sb.append(String.format(" %2d", i));
+    for (int i = 0; i < this.numberOfFloors; i++) {
+      if (FloorMask.contains(this.floorStops, i)) {
+        ReportText.appendFloorLabel(out, i);
       } else {
-        sb.append(" --");
+        out.append(" --");
       }
     }
-    sb.append(">");
-
-    return sb.toString();
-
+    out.append('>');
   }
 
   /**
@@ -220,8 +311,11 @@ public class ElevatorReport {
     if (this.isTakingRequests != that.isTakingRequests) {
       return false;
     }
-    for (int i = 0; i < this.floorRequests.length; i++) {
-      if (this.floorRequests[i] != that.floorRequests[i]) {
+    if (this.numberOfFloors != that.numberOfFloors) {
+      return false;
+    }
+    for (int i = 0; i < this.floorStops.length; i++) {
+      if (this.floorStops[i] != that.floorStops[i]) {
         return false;
       }
     }
@@ -242,9 +336,19 @@ public class ElevatorReport {
     result = 31 * result + (this.outOfService ? 1 : 0);
     result = 31 * result + (this.isTakingRequests ? 1 : 0);
     result = 31 * result + this.direction.hashCode();
-    for (boolean floorRequest : this.floorRequests) {
-      result = 31 * result + (floorRequest ? 1 : 0);
+    for (long floorStop : this.floorStops) {
+      result = 31 * result + Long.hashCode(floorStop);
     }
     return result;
   }
+
+  private static long[] toMask(boolean[] floorRequests) {
+    long[] mask = FloorMask.create(floorRequests.length);
+    for (int i = 0; i < floorRequests.length; i++) {
+      if (floorRequests[i]) {
+        FloorMask.add(mask, i);
+      }
+    }
+    return mask;
+  }
 }
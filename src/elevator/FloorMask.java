@@ -0,0 +1,154 @@
+package elevator;
+
+import java.util.Arrays;
+
+
+/**
+ * This class holds the operations on a set of floors stored as a bitmask.  Floor f is
+ * bit (f % 64) of word (f / 64), so a building of up to 64 floors fits in a single long.
+ * Finding the next floor in a direction uses Long.numberOfTrailingZeros and
+ * Long.numberOfLeadingZeros instead of looking at one floor at a time.
+ */
+public final class FloorMask {
+
+  private FloorMask() {
+  }
+
+  /**
+   * This method is used to get the number of words in a mask for the given number of floors.
+   *
+   * @param numberOfFloors the number of floors.
+   * @return the number of longs needed.
+   */
+  public static int words(int numberOfFloors) {
+    return (numberOfFloors + 63) >>> 6;
+  }
+
+  /**
+   * This method is used to create an empty mask for the given number of floors.
+   *
+   * @param numberOfFloors the number of floors.
+   * @return a mask with no floors set.
+   */
+  public static long[] create(int numberOfFloors) {
+    return new long[words(numberOfFloors)];
+  }
+
+  /**
+   * This method is used to check if a floor is set.
+   *
+   * @param mask  the mask.
+   * @param floor the floor.
+   * @return true if the floor is set.
+   */
+  public static boolean contains(long[] mask, int floor) {
+    return (mask[floor >>> 6] & (1L << floor)) != 0;
+  }
+
+  /**
+   * This method is used to set a floor.
+   *
+   * @param mask  the mask.
+   * @param floor the floor.
+   */
+  public static void add(long[] mask, int floor) {
+    mask[floor >>> 6] |= 1L << floor;
+  }
+
+  /**
+   * This method is used to clear a floor.
+   *
+   * @param mask  the mask.
+   * @param floor the floor.
+   */
+  public static void remove(long[] mask, int floor) {
+    mask[floor >>> 6] &= ~(1L << floor);
+  }
+
+  /**
+   * This method is used to clear every floor.
+   *
+   * @param mask the mask.
+   */
+  public static void clear(long[] mask) {
+    if (mask.length == 1) {
+      mask[0] = 0;
+    } else {
+      Arrays.fill(mask, 0);
+    }
+  }
+
+  /**
+   * This method is used to find the lowest floor set above the given floor.
+   *
+   * @param mask  the mask.
+   * @param floor the floor to look above, not included.
+   * @return the next floor up, or -1 if there is none.
+   */
+  public static int nextAbove(long[] mask, int floor) {
+    int from = floor + 1;
+    int word = from >>> 6;
+    if (word >= mask.length) {
+      return -1;
+    }
+    long bits = mask[word] & (-1L << from);
+    while (bits == 0) {
+      if (++word == mask.length) {
+        return -1;
+      }
+      bits = mask[word];
+    }
+    return (word << 6) + Long.numberOfTrailingZeros(bits);
+  }
+
+  /**
+   * This method is used to find the highest floor set below the given floor.
+   *
+   * @param mask  the mask.
+   * @param floor the floor to look below, not included.
+   * @return the next floor down, or -1 if there is none.
+   */
+  public static int nextBelow(long[] mask, int floor) {
+    if (floor <= 0) {
+      return -1;
+    }
+    int to = floor - 1;
+    int word = to >>> 6;
+    long bits = mask[word] & (-1L >>> (63 - (to & 63)));
+    while (bits == 0) {
+      if (--word < 0) {
+        return -1;
+      }
+      bits = mask[word];
+    }
+    return (word << 6) + 63 - Long.numberOfLeadingZeros(bits);
+  }
+
+  /**
+   * This method is used to count the floors set strictly between two floors.
+   *
+   * @param mask the mask.
+   * @param low  the lower floor, not included.
+   * @param high the higher floor, not included.
+   * @return the number of floors set between them.
+   */
+  public static int countBetween(long[] mask, int low, int high) {
+    int from = low + 1;
+    int to = high - 1;
+    if (from > to) {
+      return 0;
+    }
+    int firstWord = from >>> 6;
+    int lastWord = to >>> 6;
+    long first = -1L << from;
+    long last = -1L >>> (63 - (to & 63));
+    if (firstWord == lastWord) {
+      return Long.bitCount(mask[firstWord] & first & last);
+    }
+    int count = Long.bitCount(mask[firstWord] & first);
+    for (int word = firstWord + 1; word < lastWord; word++) {
+      count += Long.bitCount(mask[word]);
+    }
+    return count + Long.bitCount(mask[lastWord] & last);
+  }
+}
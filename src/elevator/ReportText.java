@@ -0,0 +1,57 @@
+package elevator;
+
+import java.io.IOException;
+
+
+/**
+ * This class holds the tables used to write reports as text without String.format.
+ * Numbers below 100 are looked up instead of being converted, so writing a report to
+ * a StringBuilder allocates nothing for the floors, timers and counts in it.
+ */
+public final class ReportText {
+  private static final int TABLE_SIZE = 100;
+  private static final String[] NUMBERS = new String[TABLE_SIZE];
+  private static final String[] FLOOR_LABELS = new String[TABLE_SIZE];
+
+  static {
+    for (int i = 0; i < TABLE_SIZE; i++) {
+      NUMBERS[i] = Integer.toString(i);
+      FLOOR_LABELS[i] = (i < 10 ? "  " : " ") + i;
+    }
+  }
+
+  private ReportText() {
+  }
+
+  /**
+   * This method is used to write a number, the same as String.valueOf(value).
+   *
+   * @param out   where to write the number.
+   * @param value the number.
+   * @throws IOException if out throws it.
+   */
+  public static void appendInt(Appendable out, int value) throws IOException {
+    if (value >= 0 && value < TABLE_SIZE) {
+      out.append(NUMBERS[value]);
+    } else {
+      out.append(Integer.toString(value));
+    }
+  }
+
+  /**
+   * This method is used to write the label of a floor in the list of stops,
+   * the same as String.format(" %2d", floor).
+   *
+   * @param out   where to write the label.
+   * @param floor the floor.
+   * @throws IOException if out throws it.
+   */
+  public static void appendFloorLabel(Appendable out, int floor) throws IOException {
+    if (floor >= 0 && floor < TABLE_SIZE) {
+      out.append(FLOOR_LABELS[floor]);
+    } else {
+      out.append(' ');
+      appendInt(out, floor);
+    }
+  }
+}
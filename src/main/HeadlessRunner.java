@@ -0,0 +1,517 @@
+package main;
+
+import building.Building;
+import building.BuildingReportBuffer;
+import building.SimulationEngine;
+import building.dispatch.CollectiveControlDispatch;
+import building.dispatch.DispatchStrategy;
+import building.dispatch.EtaCostDispatch;
+import building.dispatch.FifoDispatch;
+import building.dispatch.NearestCarDispatch;
+import building.journal.EventJournal;
+import building.journal.StateJournal;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import trace.ImportResult;
+import trace.TicketImporter;
+import trace.TraceReader;
+import trace.TraceReplayer;
+import traffic.PoissonArrivals;
+import traffic.TrafficGenerator;
+import traffic.enums.TrafficProfile;
+
+/**
+ * This class runs the elevator system without a display.  The building and the requests
+ * come from a scenario file, from the command line, or both, and the run ends after a
+ * number of steps or once every request has been served.  Metrics, and reports if asked
+ * for, are written to stdout or to a file.
+ *
+ * <p>Nothing here touches AWT or Swing, so the runner starts quickly and works on
+ * machines without a display, for example in CI or in parameter sweeps.</p>
+ *
+ * <p>A scenario file has one entry per line.  Blank lines and lines starting with #
+ * are ignored.  A line of three numbers, {@code step startFloor endFloor}, is a request
+ * that arrives at that step.  Any other line is {@code name = value} and sets the same
+ * option as {@code --name value} on the command line; the command line wins.</p>
+ *
+ * <p>Requests can also come from a binary trace written by TraceWriter.  The trace is
+ * read a little ahead of the simulation as it runs, so it may be far larger than the
+ * heap.  Historical tickets exported as CSV or JSON lines can be added with --tickets;
+ * lines that are not valid tickets for the building are listed in the output.</p>
+ *
+ * <p>With --state-journal the state of the building is recorded at every step, so
+ * idle steps are run rather than skipped.</p>
+ */
+public final class HeadlessRunner {
+  /**
+   * The limit on the number of steps when running until the queues drain
+   * and no step count is given.
+   */
+  public static final long DEFAULT_DRAIN_LIMIT = 1_000_000L;
+
+
+  /**
+   * How many invalid ticket lines are listed in the output.
+   */
+  private static final int MAX_TICKET_ERRORS = 100;
+
+  /**
+   * The names of the options, on the command line or in a scenario file.
+   */
+  private static final Set<String> OPTIONS = Set.of("scenario", "floors", "elevators",
+      "capacity", "strategy", "supertall", "reverse-when-idle", "steps", "until-drained",
+      "requests", "profile", "rate", "seed", "trace", "tickets", "report-every", "journal",
+      "state-journal", "output", "help");
+
+  private static final String USAGE = String.join("\n",
+      "Usage: HeadlessRunner [options]",
+      "  --scenario FILE      read options and requests from FILE",
+      "  --floors N           number of floors (default 10)",
+      "  --elevators N        number of elevators (default 3)",
+      "  --capacity N         elevator capacity (default 8)",
+      "  --strategy NAME      fifo, collective, nearest or eta (default fifo)",
+      "  --supertall          allow more floors and capacity than a normal building",
+      "  --reverse-when-idle  turn cars around early when they have nothing ahead",
+      "  --steps N            number of steps to run",
+      "  --until-drained      stop once every request has been served",
+      "  --requests N         add N random requests spread over the steps",
+      "  --profile NAME       add Poisson traffic: up-peak, down-peak, lunch or interfloor",
+      "  --rate R             passengers per step for --profile (default 0.1)",
+      "  --seed N             seed for the random requests (default 1)",
+      "  --trace FILE         add the requests in a binary trace",
+      "  --tickets FILE       add the tickets in a .csv or .jsonl file",
+      "  --report-every N     write a building report every N steps",
+      "  --journal FILE       record every event of the run in a binary journal",
+      "  --state-journal FILE record the state at every step in a compressed journal",
+      "  --output FILE        write to FILE instead of stdout",
+      "  --help               show this message");
+
+  private HeadlessRunner() {
+  }
+
+  /**
+   * This method is the entry point of the headless runner.
+   *
+   * @param args the command line arguments, see --help.
+   */
+  public static void main(String[] args) {
+    try {
+      Map<String, String> options = parseArguments(args);
+      if (options.containsKey("help")) {
+        System.out.println(USAGE);
+        return;
+      }
+      Writer out = options.containsKey("output")
+          ? Files.newBufferedWriter(Path.of(options.get("output")), StandardCharsets.UTF_8)
+          : new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+      try {
+        run(options, out);
+      } finally {
+        if (options.containsKey("output")) {
+          out.close();
+        } else {
+          out.flush();
+        }
+      }
+    } catch (IllegalArgumentException | IllegalStateException e) {
+      System.err.println("Error: " + e.getMessage());
+      System.err.println(USAGE);
+      System.exit(2);
+    } catch (IOException e) {
+      System.err.println("Error: " + e.getMessage());
+      System.exit(1);
+    }
+  }
+
+  /**
+   * This method is used to turn the command line into options.  Flags are given
+   * the value "true".
+   *
+   * @param args the command line arguments.
+   * @return the options by name, without the leading dashes.
+   * @throws IllegalArgumentException if an argument is not understood.
+   */
+  public static Map<String, String> parseArguments(String[] args) {
+    Map<String, String> options = new LinkedHashMap<>();
+    for (int i = 0; i < args.length; i++) {
+      String arg = args[i];
+      if (!arg.startsWith("--") || arg.length() == 2) {
+        throw new IllegalArgumentException("Unknown argument: " + arg);
+      }
+      String name = arg.substring(2);
+      if (!OPTIONS.contains(name)) {
+        throw new IllegalArgumentException("Unknown option: " + arg);
+      }
+      if (isFlag(name)) {
+        options.put(name, "true");
+      } else if (i + 1 < args.length) {
+        options.put(name, args[++i]);
+      } else {
+        throw new IllegalArgumentException("Missing value for " + arg);
+      }
+    }
+    return options;
+  }
+
+  private static boolean isFlag(String name) {
+    return name.equals("supertall") || name.equals("reverse-when-idle")
+        || name.equals("until-drained") || name.equals("help");
+  }
+
+  /**
+   * This method is used to run a simulation and write its results.
+   *
+   * @param options the options, as from parseArguments().
+   * @param out     where to write the metrics and reports.
+   * @throws IOException if the scenario cannot be read or out cannot be written.
+   * @throws IllegalArgumentException if an option is not valid.
+   */
+  public static void run(Map<String, String> options, Appendable out) throws IOException {
+    Map<String, String> merged = new LinkedHashMap<>();
+    Scenario scenario = new Scenario();
+    if (options.containsKey("scenario")) {
+      scenario.read(Path.of(options.get("scenario")), merged);
+    }
+    merged.putAll(options);
+
+    if (!merged.containsKey("trace")) {
+      run(merged, scenario, null, out);
+      return;
+    }
+    try (TraceReader trace = new TraceReader(Path.of(merged.get("trace")))) {
+      run(merged, scenario, trace, out);
+    }
+  }
+
+  private static void run(Map<String, String> merged, Scenario scenario, TraceReader trace,
+                          Appendable out) throws IOException {
+    int floors = intOption(merged, "floors", 10);
+    int elevators = intOption(merged, "elevators", 3);
+    int capacity = intOption(merged, "capacity", 8);
+    boolean untilDrained = flagOption(merged, "until-drained");
+    long drainLimit = DEFAULT_DRAIN_LIMIT + (trace == null ? 0 : trace.getLastTick());
+    long steps = longOption(merged, "steps", untilDrained ? drainLimit : 1000);
+    long reportEvery = longOption(merged, "report-every", 0);
+    if (steps < 0 || reportEvery < 0) {
+      throw new IllegalArgumentException("steps and report-every cannot be negative");
+    }
+
+    Building building = new Building(floors, elevators, capacity,
+        strategy(merged.getOrDefault("strategy", "fifo")), flagOption(merged, "supertall"));
+    building.setReverseWhenIdle(flagOption(merged, "reverse-when-idle"));
+    EventJournal journal = merged.containsKey("journal")
+        ? new EventJournal(Path.of(merged.get("journal")), floors, elevators) : null;
+    StateJournal states = null;
+    try {
+      if (merged.containsKey("state-journal")) {
+        states = new StateJournal(Path.of(merged.get("state-journal")), floors, elevators);
+      }
+      building.setJournal(journal);
+      simulate(merged, scenario, trace, building, states, steps, out);
+    } finally {
+      try {
+        if (states != null) {
+          states.close();
+        }
+      } finally {
+        if (journal != null) {
+          journal.close();
+        }
+      }
+    }
+  }
+
+  private static void simulate(Map<String, String> merged, Scenario scenario,
+                               TraceReader trace, Building building, StateJournal states,
+                               long steps, Appendable out) throws IOException {
+    int floors = building.getNumOfFloors();
+    boolean untilDrained = flagOption(merged, "until-drained");
+    long reportEvery = longOption(merged, "report-every", 0);
+    building.startElevatorSystem();
+
+    SimulationEngine engine = new SimulationEngine(building);
+    for (int i = 0; i < scenario.count; i++) {
+      engine.scheduleRequest(scenario.times[i], scenario.startFloors[i], scenario.endFloors[i]);
+    }
+    long randomRequests = longOption(merged, "requests", 0);
+    if (randomRequests > 0) {
+      Random random = new Random(longOption(merged, "seed", 1));
+      // without a step count, about one request arrives each step
+      long spread = Math.max(1, merged.containsKey("steps") || !untilDrained
+          ? steps : randomRequests);
+      for (long i = 0; i < randomRequests; i++) {
+        int start = random.nextInt(floors);
+        int end = (start + 1 + random.nextInt(floors - 1)) % floors;
+        engine.scheduleRequest((long) (random.nextDouble() * spread), start, end);
+      }
+    }
+    if (merged.containsKey("profile")) {
+      TrafficGenerator traffic = new TrafficGenerator(floors,
+          profile(merged.get("profile")),
+          new PoissonArrivals(doubleOption(merged, "rate", 0.1)),
+          longOption(merged, "seed", 1));
+      // without a step count the traffic runs for the usual 1000 steps
+      traffic.scheduleUntil(engine, merged.containsKey("steps") || !untilDrained
+          ? steps : 1000);
+    }
+    ImportResult tickets = null;
+    if (merged.containsKey("tickets")) {
+      TicketImporter importer = new TicketImporter(building.getNumOfFloors());
+      importer.setMaxErrors(MAX_TICKET_ERRORS);
+      tickets = importer.importFile(Path.of(merged.get("tickets")), engine::scheduleRequest);
+    }
+    long scheduled = engine.getPendingArrivals();
+    TraceReplayer replayer = null;
+    long traceScheduled = 0;
+    if (trace != null) {
+      replayer = new TraceReplayer(trace, engine);
+      scheduled += trace.getRecordCount();
+    }
+
+    BuildingReportBuffer buffer = new BuildingReportBuffer();
+    boolean drained = false;
+    long startNanos = System.nanoTime();
+    while (engine.getTime() < steps) {
+      long lookahead = Long.MAX_VALUE;
+      if (replayer != null && replayer.getNextTick() != Long.MAX_VALUE) {
+        lookahead = engine.getTime() + TraceReplayer.READ_AHEAD;
+        traceScheduled += replayer.scheduleUntil(lookahead);
+      }
+      if (untilDrained && engine.getPendingArrivals() == 0 && lookahead == Long.MAX_VALUE) {
+        building.copyReportTo(buffer);
+        if (isDrained(buffer)) {
+          drained = true;
+          break;
+        }
+      }
+      if (reportEvery > 0 && engine.getTime() % reportEvery == 0) {
+        writeReport(building, engine.getTime(), out);
+      }
+      if (states != null) {
+        building.copyReportTo(buffer);
+        states.append(engine.getTime(), buffer);
+      }
+
+      // jump as far as nothing can change: past idle steps, but not past an arrival,
+      // a report, the end of the run, or trace requests that have not been read yet
+      long now = engine.getTime();
+      long next = now + Math.max(1, building.getIdleSteps());
+      next = Math.min(next, Math.max(now + 1, engine.getNextArrivalTime()));
+      next = Math.min(next, lookahead);
+      if (reportEvery > 0) {
+        next = Math.min(next, (now / reportEvery + 1) * reportEvery);
+      }
+      if (states != null) {
+        next = now + 1;
+      }
+      engine.runUntil(Math.min(next, steps));
+    }
+    long elapsedNanos = System.nanoTime() - startNanos;
+    long notRead = trace == null ? 0 : trace.getRecordCount() - traceScheduled;
+    if (!drained && untilDrained) {
+      building.copyReportTo(buffer);
+      drained = engine.getPendingArrivals() == 0 && notRead == 0 && isDrained(buffer);
+    }
+    if (states != null && engine.getTime() > states.getLastTick()) {
+      building.copyReportTo(buffer);
+      states.append(engine.getTime(), buffer);
+    }
+
+    writeReport(building, engine.getTime(), out);
+    out.append("\n\nMetrics:");
+    metric(out, "steps", engine.getTime());
+    metric(out, "stepsRun", engine.getStepsRun());
+    metric(out, "stepsSkipped", engine.getStepsSkipped());
+    metric(out, "requestsScheduled", scheduled);
+    metric(out, "requestsRejected", engine.getRequestsRejected());
+    if (tickets != null) {
+      metric(out, "ticketsInvalid", tickets.getTicketsInvalid());
+    }
+    metric(out, "requestsNotArrived", engine.getPendingArrivals() + notRead);
+    building.copyReportTo(buffer);
+    metric(out, "upRequestsWaiting", buffer.getUpRequestCount());
+    metric(out, "downRequestsWaiting", buffer.getDownRequestCount());
+    if (untilDrained) {
+      out.append("\n  drained: ").append(Boolean.toString(drained));
+    }
+    if (building.getJournal() != null) {
+      metric(out, "journalEvents", building.getJournal().getEventCount());
+    }
+    if (states != null) {
+      metric(out, "stateFrames", states.getFrameCount());
+    }
+    metric(out, "wallMillis", elapsedNanos / 1_000_000);
+    metric(out, "stepsPerSecond",
+        elapsedNanos == 0 ? 0 : engine.getTime() * 1_000_000_000L / elapsedNanos);
+    if (tickets != null && !tickets.getErrors().isEmpty()) {
+      out.append("\n\nInvalid tickets:");
+      for (ImportResult.RowError error : tickets.getErrors()) {
+        out.append("\n  ").append(error.toString());
+      }
+    }
+    out.append('\n');
+  }
+
+  /**
+   * Check that there are no requests waiting and no car has a stop left.
+   */
+  private static boolean isDrained(BuildingReportBuffer buffer) {
+    if (buffer.getUpRequestCount() > 0 || buffer.getDownRequestCount() > 0) {
+      return false;
+    }
+    int words = (buffer.getNumFloors() + 63) >>> 6;
+    for (int e = 0; e < buffer.getNumElevators(); e++) {
+      for (int w = 0; w < words; w++) {
+        if (buffer.getFloorStopMask(e, w) != 0) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  private static void writeReport(Building building, long time, Appendable out)
+      throws IOException {
+    out.append("Step ").append(Long.toString(time)).append('\n');
+    building.getBuildingReport().appendTo(out);
+    out.append('\n');
+  }
+
+  private static void metric(Appendable out, String name, long value) throws IOException {
+    out.append("\n  ").append(name).append(": ").append(Long.toString(value));
+  }
+
+  private static DispatchStrategy strategy(String name) {
+    switch (name) {
+      case "fifo":
+        return new FifoDispatch();
+      case "collective":
+        return new CollectiveControlDispatch();
+      case "nearest":
+        return new NearestCarDispatch();
+      case "eta":
+        return new EtaCostDispatch();
+      default:
+        throw new IllegalArgumentException("Unknown strategy: " + name);
+    }
+  }
+
+  private static TrafficProfile profile(String name) {
+    try {
+      return TrafficProfile.valueOf(name.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("Unknown profile: " + name);
+    }
+  }
+
+  private static double doubleOption(Map<String, String> options, String name,
+                                     double otherwise) {
+    String value = options.get(name);
+    if (value == null) {
+      return otherwise;
+    }
+    try {
+      return Double.parseDouble(value.trim());
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException(name + " must be a number: " + value);
+    }
+  }
+
+  private static boolean flagOption(Map<String, String> options, String name) {
+    return Boolean.parseBoolean(options.getOrDefault(name, "false").trim());
+  }
+
+  private static int intOption(Map<String, String> options, String name, int otherwise) {
+    long value = longOption(options, name, otherwise);
+    if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException(name + " is out of range: " + value);
+    }
+    return (int) value;
+  }
+
+  private static long longOption(Map<String, String> options, String name, long otherwise) {
+    String value = options.get(name);
+    if (value == null) {
+      return otherwise;
+    }
+    try {
+      return Long.parseLong(value.trim());
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException(name + " must be a number: " + value);
+    }
+  }
+
+  /**
+   * The requests read from a scenario file, kept in parallel arrays.
+   */
+  private static final class Scenario {
+    private long[] times = new long[16];
+    private int[] startFloors = new int[16];
+    private int[] endFloors = new int[16];
+    private int count;
+
+    /**
+     * Read a scenario file, putting its options into the map.
+     */
+    private void read(Path path, Map<String, String> options) throws IOException {
+      try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+        int lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+          lineNumber++;
+          line = line.trim();
+          if (line.isEmpty() || line.startsWith("#")) {
+            continue;
+          }
+          int equals = line.indexOf('=');
+          if (equals >= 0) {
+            String name = line.substring(0, equals).trim();
+            if (!OPTIONS.contains(name)) {
+              throw new IllegalArgumentException(path + ":" + lineNumber
+                  + ": unknown option: " + name);
+            }
+            options.put(name, line.substring(equals + 1).trim());
+            continue;
+          }
+          String[] fields = line.split("\\s+");
+          if (fields.length != 3) {
+            throw new IllegalArgumentException(path + ":" + lineNumber
+                + ": expected 'step startFloor endFloor' or 'name = value'");
+          }
+          try {
+            this.add(Long.parseLong(fields[0]), Integer.parseInt(fields[1]),
+                Integer.parseInt(fields[2]));
+          } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(path + ":" + lineNumber
+                + ": not a number: " + e.getMessage());
+          }
+        }
+      }
+    }
+
+    private void add(long time, int startFloor, int endFloor) {
+      if (this.count == this.times.length) {
+        int length = this.count << 1;
+        this.times = Arrays.copyOf(this.times, length);
+        this.startFloors = Arrays.copyOf(this.startFloors, length);
+        this.endFloors = Arrays.copyOf(this.endFloors, length);
+      }
+      this.times[this.count] = time;
+      this.startFloors[this.count] = startFloor;
+      this.endFloors[this.count] = endFloor;
+      this.count++;
+    }
+  }
+}
@@ -55,6 +55,34 @@ public class Request implements RequestInterface {
   public String toString() {
     return startFloor + "->" + endFloor;
   }
+
+  /**
+   * Two requests are equal if they have the same start floor and end floor.
+   *
+   * @param o the object to compare to.
+   * @return true if the requests are equal, false otherwise.
+   */
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof Request)) {
+      return false;
+    }
+    Request that = (Request) o;
+    return this.startFloor == that.startFloor && this.endFloor == that.endFloor;
+  }
+
+  /**
+   * The hashcode method for the Request.
+   *
+   * @return the hashcode of the request.
+   */
+  @Override
+  public int hashCode() {
+    return 31 * this.startFloor + this.endFloor;
+  }
 }
 
 
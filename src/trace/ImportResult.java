@@ -0,0 +1,112 @@
+package trace;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This class holds what happened in an import: how many tickets were taken, and which
+ * lines were not and why.  Only the first few invalid lines are kept, but all of them
+ * are counted.
+ */
+public class ImportResult {
+  private final long linesRead;
+  private final long ticketsImported;
+  private final long ticketsInvalid;
+  private final List<RowError> errors;
+
+  /**
+   * This constructor is used to create a new ImportResult.
+   *
+   * @param linesRead       the number of lines in the file.
+   * @param ticketsImported the number of tickets given to the sink.
+   * @param ticketsInvalid  the number of lines that were not tickets or were refused.
+   * @param errors          the first invalid lines, in line order.
+   */
+  public ImportResult(long linesRead, long ticketsImported, long ticketsInvalid,
+                      List<RowError> errors) {
+    this.linesRead = linesRead;
+    this.ticketsImported = ticketsImported;
+    this.ticketsInvalid = ticketsInvalid;
+    this.errors = Collections.unmodifiableList(errors);
+  }
+
+  /**
+   * This method is used to get the number of lines in the file, counting blank lines,
+   * comments and the header.
+   *
+   * @return the number of lines read.
+   */
+  public long getLinesRead() {
+    return this.linesRead;
+  }
+
+  /**
+   * This method is used to get the number of tickets the sink took.
+   *
+   * @return the number of tickets imported.
+   */
+  public long getTicketsImported() {
+    return this.ticketsImported;
+  }
+
+  /**
+   * This method is used to get the number of lines that were not valid tickets or
+   * that the sink refused.
+   *
+   * @return the number of invalid tickets.
+   */
+  public long getTicketsInvalid() {
+    return this.ticketsInvalid;
+  }
+
+  /**
+   * This method is used to get the invalid lines that were kept, in line order.
+   *
+   * @return the errors.
+   */
+  public List<RowError> getErrors() {
+    return this.errors;
+  }
+
+  /**
+   * This class holds why one line of a file was not imported.
+   */
+  public static final class RowError {
+    private final long line;
+    private final String message;
+
+    /**
+     * This constructor is used to create a new RowError.
+     *
+     * @param line    the line number, counting from 1.
+     * @param message why the line was not imported.
+     */
+    public RowError(long line, String message) {
+      this.line = line;
+      this.message = message;
+    }
+
+    /**
+     * This method is used to get the line number, counting from 1.
+     *
+     * @return the line number.
+     */
+    public long getLine() {
+      return this.line;
+    }
+
+    /**
+     * This method is used to get why the line was not imported.
+     *
+     * @return the message.
+     */
+    public String getMessage() {
+      return this.message;
+    }
+
+    @Override
+    public String toString() {
+      return "line " + this.line + ": " + this.message;
+    }
+  }
+}
@@ -0,0 +1,599 @@
+package trace;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.json.JSONException;
+import org.json.JSONObject;
+import trace.enums.TicketFormat;
+
+/**
+ * This class imports tickets exported by a building management system as CSV or as
+ * JSON lines, and hands them to a TicketSink such as a TraceWriter or a
+ * SimulationEngine.
+ *
+ * <p>The file is read in chunks of whole lines.  Chunks are parsed on a pool of threads
+ * while the next ones are read, and the tickets are handed to the sink in file order on
+ * the calling thread, so the sink does not have to be thread safe.  Only a few chunks
+ * are held at once, so files far larger than the heap can be imported.</p>
+ *
+ * <p>A line that is not a valid ticket for the building does not stop the import.  It
+ * is counted and reported with its line number in the ImportResult.  Blank lines and
+ * lines starting with # are skipped.</p>
+ *
+ * <p>In a CSV file the columns are tick, start floor and end floor unless the first
+ * line is a header naming them, in which case they can be in any order among other
+ * columns.  In JSON lines the same names are used as keys.  A tick may also be called
+ * step or time, a start floor start or from, and an end floor end or to.</p>
+ */
+public class TicketImporter {
+  /**
+   * The default number of invalid lines kept in the result.
+   */
+  public static final int DEFAULT_MAX_ERRORS = 1000;
+
+  private static final int DEFAULT_CHUNK_SIZE = 1 << 20;
+  private static final String[] FIELD_NAMES = {"tick", "start floor", "end floor"};
+
+  private final int numberOfFloors;
+  private final int threads;
+  private final int chunkSize;
+  private int maxErrors = DEFAULT_MAX_ERRORS;
+
+  /**
+   * This constructor is used to create a new TicketImporter using a thread for each
+   * processor.
+   *
+   * @param numberOfFloors the number of floors of the building, from getNumOfFloors().
+   * @throws IllegalArgumentException if the number of floors is less than 2.
+   */
+  public TicketImporter(int numberOfFloors) {
+    this(numberOfFloors, Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * This constructor is used to create a new TicketImporter.
+   *
+   * @param numberOfFloors the number of floors of the building, from getNumOfFloors().
+   * @param threads        the number of threads to parse with.
+   * @throws IllegalArgumentException if the number of floors is less than 2 or
+   *                                  threads is less than 1.
+   */
+  public TicketImporter(int numberOfFloors, int threads) {
+    this(numberOfFloors, threads, DEFAULT_CHUNK_SIZE);
+  }
+
+  /**
+   * This constructor is used to create a new TicketImporter reading a given number of
+   * bytes per chunk.  A line longer than a chunk still fits, as the chunk grows.
+   */
+  TicketImporter(int numberOfFloors, int threads, int chunkSize) {
+    if (numberOfFloors < 2) {
+      throw new IllegalArgumentException("numberOfFloors must be no less than 2");
+    }
+    if (threads < 1 || chunkSize < 1) {
+      throw new IllegalArgumentException("threads and chunkSize must be at least 1");
+    }
+    this.numberOfFloors = numberOfFloors;
+    this.threads = threads;
+    this.chunkSize = chunkSize;
+  }
+
+  /**
+   * This method is used to set how many invalid lines are kept in the result.
+   * Every invalid line is counted either way.
+   *
+   * @param maxErrors the number of invalid lines to keep.
+   * @throws IllegalArgumentException if maxErrors is negative.
+   */
+  public void setMaxErrors(int maxErrors) {
+    if (maxErrors < 0) {
+      throw new IllegalArgumentException("maxErrors cannot be negative");
+    }
+    this.maxErrors = maxErrors;
+  }
+
+  /**
+   * This method is used to import a file whose format is given by its extension.
+   *
+   * @param path the file to import.
+   * @param sink where to send the tickets.
+   * @return what was imported and which lines were not.
+   * @throws IOException if the file cannot be read or the sink cannot be written.
+   * @throws IllegalArgumentException if the format is not known or a CSV header
+   *                                  does not name every column.
+   */
+  public ImportResult importFile(Path path, TicketSink sink) throws IOException {
+    return this.importFile(path, TicketFormat.forPath(path), sink);
+  }
+
+  /**
+   * This method is used to import a file.
+   *
+   * @param path   the file to import.
+   * @param format the format of the file.
+   * @param sink   where to send the tickets.
+   * @return what was imported and which lines were not.
+   * @throws IOException if the file cannot be read or the sink cannot be written.
+   * @throws IllegalArgumentException if an argument is null or a CSV header does not
+   *                                  name every column.
+   */
+  public ImportResult importFile(Path path, TicketFormat format, TicketSink sink)
+      throws IOException {
+    if (path == null || format == null || sink == null) {
+      throw new IllegalArgumentException("path, format and sink cannot be null");
+    }
+
+    ExecutorService pool = Executors.newFixedThreadPool(this.threads, runnable -> {
+      Thread thread = new Thread(runnable, "ticket-import");
+      thread.setDaemon(true);
+      return thread;
+    });
+    Delivery delivery = new Delivery(sink, this.maxErrors);
+    ArrayDeque<Future<Chunk>> parsing = new ArrayDeque<>();
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      ByteBuffer buffer = ByteBuffer.allocate(this.chunkSize);
+      Columns columns = format == TicketFormat.CSV ? null : Columns.DEFAULT;
+      boolean first = true;
+      // the lines before the chunk being searched for a header
+      long linesBefore = 0;
+      boolean end = false;
+      while (!end) {
+        end = fill(channel, buffer);
+        int length = buffer.position();
+        int cut = end ? length : lastLineEnd(buffer.array(), length);
+        if (cut == 0) {
+          if (!end) {
+            // not even one whole line fits, so make room for it
+            buffer = ByteBuffer.allocate(buffer.capacity() * 2).put(buffer.flip());
+          }
+          continue;
+        }
+        byte[] bytes = Arrays.copyOf(buffer.array(), cut);
+        buffer.flip().position(cut);
+        buffer.compact();
+
+        int from = first ? skipByteOrderMark(bytes) : 0;
+        first = false;
+        int headerLine = 0;
+        if (columns == null) {
+          // the header, if there is one, is the first line that is not blank or a comment
+          headerLine = findHeader(bytes, from);
+          if (headerLine > 0) {
+            columns = Columns.fromHeader(path, linesBefore + headerLine, bytes, from,
+                headerLine);
+          } else if (headerLine == 0) {
+            columns = Columns.DEFAULT;
+          } else {
+            for (byte b : bytes) {
+              if (b == '\n') {
+                linesBefore++;
+              }
+            }
+          }
+        }
+        Columns chunkColumns = columns == null ? Columns.DEFAULT : columns;
+        int chunkFrom = from;
+        int chunkHeader = headerLine;
+        parsing.add(pool.submit(() -> Chunk.parse(bytes, chunkFrom, format, chunkColumns,
+            chunkHeader, this.numberOfFloors)));
+        if (parsing.size() >= this.threads * 2) {
+          delivery.deliver(await(parsing.poll()));
+        }
+      }
+      while (!parsing.isEmpty()) {
+        delivery.deliver(await(parsing.poll()));
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+    return delivery.getResult();
+  }
+
+  /**
+   * Read until the buffer is full or the file ends.
+   *
+   * @return true if the file has ended.
+   */
+  private static boolean fill(FileChannel channel, ByteBuffer buffer) throws IOException {
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer) < 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Find where the last whole line ends, or 0 if there is no whole line.
+   */
+  private static int lastLineEnd(byte[] bytes, int length) {
+    for (int i = length - 1; i >= 0; i--) {
+      if (bytes[i] == '\n') {
+        return i + 1;
+      }
+    }
+    return 0;
+  }
+
+  private static int skipByteOrderMark(byte[] bytes) {
+    return bytes.length >= 3 && bytes[0] == (byte) 0xef && bytes[1] == (byte) 0xbb
+        && bytes[2] == (byte) 0xbf ? 3 : 0;
+  }
+
+  /**
+   * Find the line number of a CSV header: the first line that is not blank or a
+   * comment, if one of its cells names a field.  Any other first line is read as a
+   * ticket, so a bad first row is reported like any other bad row.
+   *
+   * @return the line number of the header in the chunk, 0 if there is no header, or -1
+   *         if the chunk is only blank lines and comments.
+   */
+  private static int findHeader(byte[] bytes, int from) {
+    int line = 1;
+    int start = from;
+    while (start < bytes.length) {
+      int end = lineEnd(bytes, start);
+      int first = skipSpaces(bytes, start, end);
+      if (first < end && bytes[first] != '#') {
+        String text = new String(bytes, first, end - first, StandardCharsets.UTF_8);
+        for (String cell : text.split(",", -1)) {
+          if (fieldOf(Columns.unquote(cell.trim())) >= 0) {
+            return line;
+          }
+        }
+        return 0;
+      }
+      start = end + 1;
+      line++;
+    }
+    return -1;
+  }
+
+  private static int lineEnd(byte[] bytes, int start) {
+    int end = start;
+    while (end < bytes.length && bytes[end] != '\n') {
+      end++;
+    }
+    return end;
+  }
+
+  private static int skipSpaces(byte[] bytes, int start, int end) {
+    while (start < end && (bytes[start] == ' ' || bytes[start] == '\t'
+        || bytes[start] == '\r')) {
+      start++;
+    }
+    return start;
+  }
+
+  private static Chunk await(Future<Chunk> future) throws IOException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("The import was interrupted");
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IOException(cause);
+    }
+  }
+
+  /**
+   * Which field of a ticket a column or key holds, or -1 if none.
+   */
+  private static int fieldOf(String name) {
+    switch (name.toLowerCase(Locale.ROOT).replace("_", "").replace(" ", "")) {
+      case "tick":
+      case "step":
+      case "time":
+        return Columns.TICK;
+      case "start":
+      case "startfloor":
+      case "from":
+        return Columns.START;
+      case "end":
+      case "endfloor":
+      case "to":
+        return Columns.END;
+      default:
+        return -1;
+    }
+  }
+
+  /**
+   * The CSV columns that hold each field of a ticket.
+   */
+  private static final class Columns {
+    private static final int TICK = 0;
+    private static final int START = 1;
+    private static final int END = 2;
+    private static final Columns DEFAULT = new Columns(new int[] {0, 1, 2});
+
+    // the column of each field
+    private final int[] columns;
+    // the field of each column up to the last one used, or -1
+    private final int[] fields;
+
+    private Columns(int[] columns) {
+      this.columns = columns;
+      int last = Math.max(columns[TICK], Math.max(columns[START], columns[END]));
+      this.fields = new int[last + 1];
+      Arrays.fill(this.fields, -1);
+      for (int field = 0; field < columns.length; field++) {
+        this.fields[columns[field]] = field;
+      }
+    }
+
+    private static Columns fromHeader(Path path, long fileLine, byte[] bytes, int from,
+                                      int headerLine) {
+      int start = from;
+      for (int line = 1; line < headerLine; line++) {
+        start = lineEnd(bytes, start) + 1;
+      }
+      String header = new String(bytes, start, lineEnd(bytes, start) - start,
+          StandardCharsets.UTF_8);
+      int[] columns = {-1, -1, -1};
+      String[] names = header.split(",", -1);
+      for (int i = 0; i < names.length; i++) {
+        int field = fieldOf(unquote(names[i].trim()));
+        if (field >= 0 && columns[field] < 0) {
+          columns[field] = i;
+        }
+      }
+      for (int field = 0; field < columns.length; field++) {
+        if (columns[field] < 0) {
+          throw new IllegalArgumentException(path + ":" + fileLine + ": the header has no "
+              + FIELD_NAMES[field] + " column");
+        }
+      }
+      return new Columns(columns);
+    }
+
+    private static String unquote(String text) {
+      if (text.length() >= 2 && text.charAt(0) == '"'
+          && text.charAt(text.length() - 1) == '"') {
+        return text.substring(1, text.length() - 1);
+      }
+      return text;
+    }
+  }
+
+  /**
+   * The tickets and invalid lines of one chunk, with line numbers counted from the
+   * start of the chunk.
+   */
+  private static final class Chunk {
+    private int lines;
+    private int count;
+    private long[] ticks = new long[256];
+    private int[] startFloors = new int[256];
+    private int[] endFloors = new int[256];
+    private int[] ticketLines = new int[256];
+    private int errorCount;
+    private int[] errorLines = new int[16];
+    private String[] errorMessages = new String[16];
+
+    // the fields of the ticket being parsed
+    private final long[] values = new long[3];
+
+    private static Chunk parse(byte[] bytes, int from, TicketFormat format, Columns columns,
+                               int headerLine, int numberOfFloors) {
+      Chunk chunk = new Chunk();
+      int start = from;
+      while (start < bytes.length) {
+        int end = lineEnd(bytes, start);
+        int line = ++chunk.lines;
+        int first = skipSpaces(bytes, start, end);
+        if (first < end && bytes[first] != '#' && line != headerLine) {
+          int last = end;
+          while (last > first && (bytes[last - 1] == ' ' || bytes[last - 1] == '\t'
+              || bytes[last - 1] == '\r')) {
+            last--;
+          }
+          try {
+            if (format == TicketFormat.CSV) {
+              chunk.readCsv(bytes, first, last, columns);
+            } else {
+              chunk.readJson(new String(bytes, first, last - first, StandardCharsets.UTF_8));
+            }
+            chunk.add(line, numberOfFloors);
+          } catch (IllegalArgumentException e) {
+            chunk.addError(line, e.getMessage());
+          }
+        }
+        start = end + 1;
+      }
+      return chunk;
+    }
+
+    private void readCsv(byte[] bytes, int start, int end, Columns columns) {
+      int[] fields = columns.fields;
+      int column = 0;
+      int fieldStart = start;
+      for (int i = start; i <= end && column < fields.length; i++) {
+        if (i == end || bytes[i] == ',') {
+          int field = fields[column];
+          if (field >= 0) {
+            this.values[field] = parseLong(bytes, fieldStart, i, FIELD_NAMES[field]);
+          }
+          column++;
+          fieldStart = i + 1;
+        }
+      }
+      if (column < fields.length) {
+        throw new IllegalArgumentException("expected at least " + fields.length
+            + " columns but found " + column);
+      }
+    }
+
+    private void readJson(String line) {
+      JSONObject object;
+      try {
+        object = new JSONObject(line);
+      } catch (JSONException e) {
+        throw new IllegalArgumentException("not a JSON object: " + e.getMessage());
+      }
+      boolean[] found = new boolean[3];
+      for (String key : object.keySet()) {
+        int field = fieldOf(key);
+        if (field >= 0 && !found[field]) {
+          Object value = object.get(key);
+          if (!(value instanceof Integer || value instanceof Long)) {
+            throw new IllegalArgumentException(FIELD_NAMES[field]
+                + " is not a whole number: " + value);
+          }
+          this.values[field] = ((Number) value).longValue();
+          found[field] = true;
+        }
+      }
+      for (int field = 0; field < found.length; field++) {
+        if (!found[field]) {
+          throw new IllegalArgumentException("there is no " + FIELD_NAMES[field]);
+        }
+      }
+    }
+
+    /**
+     * Check the ticket just read and keep it.
+     */
+    private void add(int line, int numberOfFloors) {
+      long tick = this.values[Columns.TICK];
+      long start = this.values[Columns.START];
+      long end = this.values[Columns.END];
+      if (tick < 0) {
+        throw new IllegalArgumentException("tick " + tick + " is negative");
+      } else if (start < 0 || start >= numberOfFloors) {
+        throw new IllegalArgumentException("The start floor must be between 0 and "
+            + (numberOfFloors - 1) + " but is " + start);
+      } else if (end < 0 || end >= numberOfFloors) {
+        throw new IllegalArgumentException("The end floor must be between 0 and "
+            + (numberOfFloors - 1) + " but is " + end);
+      } else if (start == end) {
+        throw new IllegalArgumentException("Start floor and end floor cannot be the same.");
+      }
+
+      if (this.count == this.ticks.length) {
+        int length = this.count << 1;
+        this.ticks = Arrays.copyOf(this.ticks, length);
+        this.startFloors = Arrays.copyOf(this.startFloors, length);
+        this.endFloors = Arrays.copyOf(this.endFloors, length);
+        this.ticketLines = Arrays.copyOf(this.ticketLines, length);
+      }
+      this.ticks[this.count] = tick;
+      this.startFloors[this.count] = (int) start;
+      this.endFloors[this.count] = (int) end;
+      this.ticketLines[this.count] = line;
+      this.count++;
+    }
+
+    private void addError(int line, String message) {
+      if (this.errorCount == this.errorLines.length) {
+        int length = this.errorCount << 1;
+        this.errorLines = Arrays.copyOf(this.errorLines, length);
+        this.errorMessages = Arrays.copyOf(this.errorMessages, length);
+      }
+      this.errorLines[this.errorCount] = line;
+      this.errorMessages[this.errorCount] = message;
+      this.errorCount++;
+    }
+
+    /**
+     * Parse a whole number, allowing spaces and quotes around it.
+     */
+    private static long parseLong(byte[] bytes, int start, int end, String name) {
+      start = skipSpaces(bytes, start, end);
+      while (end > start && (bytes[end - 1] == ' ' || bytes[end - 1] == '\t')) {
+        end--;
+      }
+      if (end - start >= 2 && bytes[start] == '"' && bytes[end - 1] == '"') {
+        start++;
+        end--;
+      }
+      boolean negative = start < end && bytes[start] == '-';
+      int i = negative ? start + 1 : start;
+      if (i == end) {
+        throw new IllegalArgumentException(name + " is not a whole number: '"
+            + new String(bytes, start, end - start, StandardCharsets.UTF_8) + "'");
+      }
+      long value = 0;
+      for (; i < end; i++) {
+        int digit = bytes[i] - '0';
+        if (digit < 0 || digit > 9 || value > (Long.MAX_VALUE - digit) / 10) {
+          throw new IllegalArgumentException(name + " is not a whole number: '"
+              + new String(bytes, start, end - start, StandardCharsets.UTF_8) + "'");
+        }
+        value = value * 10 + digit;
+      }
+      return negative ? -value : value;
+    }
+  }
+
+  /**
+   * Hands the tickets of each chunk to the sink in file order, and keeps count.
+   * Only used on the importing thread.
+   */
+  private static final class Delivery {
+    private final TicketSink sink;
+    private final int maxErrors;
+    private final List<ImportResult.RowError> errors = new ArrayList<>();
+    private long lineBase;
+    private long imported;
+    private long invalid;
+
+    private Delivery(TicketSink sink, int maxErrors) {
+      this.sink = sink;
+      this.maxErrors = maxErrors;
+    }
+
+    private void deliver(Chunk chunk) throws IOException {
+      // the invalid lines are reported in line order among the tickets
+      int e = 0;
+      for (int r = 0; r < chunk.count; r++) {
+        int line = chunk.ticketLines[r];
+        while (e < chunk.errorCount && chunk.errorLines[e] < line) {
+          this.error(chunk.errorLines[e], chunk.errorMessages[e]);
+          e++;
+        }
+        try {
+          this.sink.accept(chunk.ticks[r], chunk.startFloors[r], chunk.endFloors[r]);
+          this.imported++;
+        } catch (IllegalArgumentException ex) {
+          this.error(line, ex.getMessage());
+        }
+      }
+      for (; e < chunk.errorCount; e++) {
+        this.error(chunk.errorLines[e], chunk.errorMessages[e]);
+      }
+      this.lineBase += chunk.lines;
+    }
+
+    private void error(int line, String message) {
+      this.invalid++;
+      if (this.errors.size() < this.maxErrors) {
+        this.errors.add(new ImportResult.RowError(this.lineBase + line, message));
+      }
+    }
+
+    private ImportResult getResult() {
+      return new ImportResult(this.lineBase, this.imported, this.invalid, this.errors);
+    }
+  }
+}
@@ -0,0 +1,24 @@
+package trace;
+
+import java.io.IOException;
+
+/**
+ * This interface is used to receive imported tickets, in the order they appear in the
+ * file.  A TraceWriter's write() and a SimulationEngine's scheduleRequest() both fit.
+ */
+@FunctionalInterface
+public interface TicketSink {
+
+  /**
+   * This method is used to take one ticket.  A ticket the sink cannot take, for
+   * example one whose tick is out of order for a trace, is reported with its line
+   * and the import goes on.
+   *
+   * @param tick       the tick at which the ticket arrives.
+   * @param startFloor the start floor of the ticket.
+   * @param endFloor   the end floor of the ticket.
+   * @throws IOException if the ticket cannot be written.
+   * @throws IllegalArgumentException if the sink cannot take the ticket.
+   */
+  void accept(long tick, int startFloor, int endFloor) throws IOException;
+}
@@ -0,0 +1,221 @@
+package trace;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * This class reads a trace written by TraceWriter, one record at a time.
+ *
+ * <p>The file is never read into the heap.  It is mapped into memory one window at a
+ * time, and the next window is mapped only when the reader walks off the end of the
+ * last one, so a trace of any size is read in one pass with a fixed amount of memory.
+ * Windows always hold a whole number of records.</p>
+ *
+ * <p>A reader is not thread safe.</p>
+ */
+public class TraceReader implements Closeable {
+  /**
+   * The default number of bytes mapped at once.
+   */
+  public static final int DEFAULT_WINDOW_SIZE = 64 * 1024 * 1024;
+
+  private final FileChannel channel;
+  private final long recordCount;
+  private long lastTick;
+  private final long windowSize;
+
+  private MappedByteBuffer window;
+  // the index of the first record in the window
+  private long windowStart;
+  // the position of the current record in the window, -1 before the first
+  private int position = -1;
+  private long recordIndex = -1;
+
+  private long tick;
+  private int startFloor;
+  private int endFloor;
+
+  /**
+   * This constructor is used to open a trace.
+   *
+   * @param path the trace to read.
+   * @throws IOException if the file cannot be read or is not a complete trace.
+   */
+  public TraceReader(Path path) throws IOException {
+    this(path, DEFAULT_WINDOW_SIZE);
+  }
+
+  /**
+   * This constructor is used to open a trace mapping a given number of bytes at once.
+   *
+   * @param path       the trace to read.
+   * @param windowSize the number of bytes to map at once, rounded down to whole records.
+   * @throws IOException if the file cannot be read or is not a complete trace.
+   * @throws IllegalArgumentException if the window cannot hold a record.
+   */
+  TraceReader(Path path, int windowSize) throws IOException {
+    if (windowSize < TraceWriter.RECORD_SIZE) {
+      throw new IllegalArgumentException("The window must hold at least one record");
+    }
+    this.windowSize = windowSize - windowSize % TraceWriter.RECORD_SIZE;
+    this.channel = FileChannel.open(path, StandardOpenOption.READ);
+    try {
+      this.recordCount = readHeader();
+    } catch (IOException | RuntimeException e) {
+      this.channel.close();
+      throw e;
+    }
+  }
+
+  private long readHeader() throws IOException {
+    long size = this.channel.size();
+    if (size < TraceWriter.HEADER_SIZE) {
+      throw new IOException("The file is too short to be a trace");
+    }
+    ByteBuffer header = ByteBuffer.allocate(TraceWriter.HEADER_SIZE)
+        .order(ByteOrder.LITTLE_ENDIAN);
+    while (header.hasRemaining()) {
+      if (this.channel.read(header, header.position()) < 0) {
+        throw new IOException("The file is too short to be a trace");
+      }
+    }
+    header.flip();
+    if (header.getInt() != TraceWriter.MAGIC) {
+      throw new IOException("The file is not a trace");
+    }
+    int version = header.getInt();
+    if (version != TraceWriter.VERSION) {
+      throw new IOException("Trace version " + version + " is not supported");
+    }
+    long count = header.getLong();
+    if (count < 0) {
+      throw new IOException("The trace was not closed when it was written");
+    }
+    if (size - TraceWriter.HEADER_SIZE != count * TraceWriter.RECORD_SIZE) {
+      throw new IOException("The trace should hold " + count + " records but is "
+          + size + " bytes long");
+    }
+    if (count > 0) {
+      ByteBuffer last = ByteBuffer.allocate(Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+      long at = size - TraceWriter.RECORD_SIZE;
+      while (last.hasRemaining()) {
+        this.channel.read(last, at + last.position());
+      }
+      this.lastTick = last.flip().getLong();
+    }
+    return count;
+  }
+
+  /**
+   * This method is used to get the number of records in the trace.
+   *
+   * @return the number of records.
+   */
+  public long getRecordCount() {
+    return this.recordCount;
+  }
+
+  /**
+   * This method is used to get the tick of the last record in the trace, so a replay
+   * knows how long it will run without reading the whole trace.
+   *
+   * @return the last tick, or 0 if the trace is empty.
+   */
+  public long getLastTick() {
+    return this.lastTick;
+  }
+
+  /**
+   * This method is used to get how many records have been read so far.
+   *
+   * @return the number of records read.
+   */
+  public long getRecordsRead() {
+    return this.recordIndex + 1;
+  }
+
+  /**
+   * This method is used to move to the next record.
+   *
+   * @return true if there was another record, false at the end of the trace.
+   * @throws IOException if the next window cannot be mapped, or the record's tick is
+   *                     before the last one.
+   */
+  public boolean next() throws IOException {
+    if (this.recordIndex + 1 >= this.recordCount) {
+      return false;
+    }
+    this.recordIndex++;
+    this.position += TraceWriter.RECORD_SIZE;
+    if (this.window == null || this.position >= this.window.limit()) {
+      mapWindow();
+    }
+    MappedByteBuffer buffer = this.window;
+    int at = this.position;
+    long recordTick = buffer.getLong(at);
+    if (recordTick < this.tick) {
+      throw new IOException("Record " + this.recordIndex + " has tick " + recordTick
+          + ", before tick " + this.tick);
+    }
+    this.tick = recordTick;
+    this.startFloor = Short.toUnsignedInt(buffer.getShort(at + 8));
+    this.endFloor = Short.toUnsignedInt(buffer.getShort(at + 10));
+    return true;
+  }
+
+  private void mapWindow() throws IOException {
+    this.windowStart = this.recordIndex;
+    long records = Math.min(this.recordCount - this.windowStart,
+        this.windowSize / TraceWriter.RECORD_SIZE);
+    // the old window is dropped here and unmapped once it is collected
+    this.window = this.channel.map(FileChannel.MapMode.READ_ONLY,
+        TraceWriter.HEADER_SIZE + this.windowStart * TraceWriter.RECORD_SIZE,
+        records * TraceWriter.RECORD_SIZE);
+    this.window.order(ByteOrder.LITTLE_ENDIAN);
+    this.position = 0;
+  }
+
+  /**
+   * This method is used to get the tick of the current record.
+   *
+   * @return the tick.
+   */
+  public long getTick() {
+    return this.tick;
+  }
+
+  /**
+   * This method is used to get the start floor of the current record.
+   *
+   * @return the start floor.
+   */
+  public int getStartFloor() {
+    return this.startFloor;
+  }
+
+  /**
+   * This method is used to get the end floor of the current record.
+   *
+   * @return the end floor.
+   */
+  public int getEndFloor() {
+    return this.endFloor;
+  }
+
+  /**
+   * This method is used to close the trace.
+   *
+   * @throws IOException if the file cannot be closed.
+   */
+  @Override
+  public void close() throws IOException {
+    this.window = null;
+    this.channel.close();
+  }
+}
@@ -0,0 +1,174 @@
+package trace;
+
+import building.BuildingInterface;
+import building.SimulationEngine;
+import java.io.IOException;
+
+/**
+ * This class replays a trace into a building through a SimulationEngine.  The
+ * requests of each tick are scheduled on the engine, which adds them as one batch at
+ * the start of that tick, before the building is stepped, and skips the idle steps
+ * between them.  Ticks are steps counted from 0.
+ *
+ * <p>Records are read from the trace only a little ahead of the engine, so the heap
+ * holds no more than {@value #READ_AHEAD} steps of requests however long the trace
+ * is.</p>
+ */
+public class TraceReplayer {
+  /**
+   * How many steps ahead of the engine runUntil() reads the trace.
+   */
+  public static final long READ_AHEAD = 4096;
+
+  private final TraceReader reader;
+  private final SimulationEngine engine;
+  private long scheduled;
+  // whether the reader is on a record that has not been scheduled yet
+  private boolean holding;
+  private boolean finished;
+
+  /**
+   * This constructor is used to create a new TraceReplayer that replays into a
+   * building with a new SimulationEngine, at time 0.
+   *
+   * @param reader   the trace to replay, before its first record.
+   * @param building the building to replay it into.
+   * @throws IllegalArgumentException if either argument is null.
+   */
+  public TraceReplayer(TraceReader reader, BuildingInterface building) {
+    this(reader, building == null ? null : new SimulationEngine(building));
+  }
+
+  /**
+   * This constructor is used to create a new TraceReplayer that schedules the trace
+   * on an engine, alongside any other requests the engine has.
+   *
+   * @param reader the trace to replay, before its first record.
+   * @param engine the simulation to schedule the requests on.
+   * @throws IllegalArgumentException if either argument is null.
+   */
+  public TraceReplayer(TraceReader reader, SimulationEngine engine) {
+    if (reader == null || engine == null) {
+      throw new IllegalArgumentException("reader and building cannot be null");
+    }
+    this.reader = reader;
+    this.engine = engine;
+  }
+
+  /**
+   * This method is used to run the replay until the given time.  Requests for that
+   * time have not been added yet when this returns.
+   *
+   * @param endTime the time to stop at.
+   * @throws IOException if the trace cannot be read.
+   * @throws IllegalArgumentException if the end time is in the past.
+   */
+  public void runUntil(long endTime) throws IOException {
+    if (endTime < this.engine.getTime()) {
+      throw new IllegalArgumentException("Cannot run until " + endTime
+          + ", the time is already " + this.engine.getTime());
+    }
+    while (this.engine.getTime() < endTime) {
+      long next = Math.min(endTime, this.engine.getTime() + READ_AHEAD);
+      this.scheduleUntil(next);
+      this.engine.runUntil(next);
+    }
+  }
+
+  /**
+   * This method is used to run the replay until every request in the trace has been
+   * added and the building has been stepped past the tick of the last one.
+   *
+   * @throws IOException if the trace cannot be read.
+   */
+  public void runToEnd() throws IOException {
+    while (this.getNextTick() != Long.MAX_VALUE) {
+      this.runUntil(this.getNextTick() + 1);
+    }
+  }
+
+  /**
+   * This method is used to schedule every request in the trace before a step on the
+   * engine without running it.  The first request at or after that step is held back
+   * for the next call, so a long trace can be fed to the engine a piece at a time.
+   *
+   * @param endStep the step to stop before.
+   * @return the number of requests scheduled.
+   * @throws IOException if the trace cannot be read.
+   */
+  public long scheduleUntil(long endStep) throws IOException {
+    long count = 0;
+    while (this.getNextTick() < endStep) {
+      this.engine.scheduleRequest(this.reader.getTick(), this.reader.getStartFloor(),
+          this.reader.getEndFloor());
+      this.holding = false;
+      count++;
+    }
+    this.scheduled += count;
+    return count;
+  }
+
+  /**
+   * This method is used to get the tick of the next request in the trace that has not
+   * been added yet.
+   *
+   * @return the tick, or Long.MAX_VALUE if every request has been added.
+   * @throws IOException if the trace cannot be read.
+   */
+  public long getNextTick() throws IOException {
+    if (!this.holding && !this.finished) {
+      this.holding = this.reader.next();
+      this.finished = !this.holding;
+    }
+    return this.holding ? this.reader.getTick() : Long.MAX_VALUE;
+  }
+
+  /**
+   * This method is used to get the current time, in steps.
+   *
+   * @return the current time.
+   */
+  public long getTime() {
+    return this.engine.getTime();
+  }
+
+  /**
+   * This method is used to get the number of steps that were actually run.
+   *
+   * @return the number of steps run.
+   */
+  public long getStepsRun() {
+    return this.engine.getStepsRun();
+  }
+
+  /**
+   * This method is used to get the number of idle steps that were skipped.
+   *
+   * @return the number of steps skipped.
+   */
+  public long getStepsSkipped() {
+    return this.engine.getStepsSkipped();
+  }
+
+  /**
+   * This method is used to get the number of requests the building accepted.  Like
+   * the other counts it comes from the engine, so it only counts the trace when the
+   * engine has no other requests.
+   *
+   * @return the number of requests added.
+   */
+  public long getRequestsAdded() {
+    return this.scheduled - this.engine.getPendingArrivals()
+        - this.engine.getRequestsRejected();
+  }
+
+  /**
+   * This method is used to get the number of requests the building did not accept,
+   * for example because a floor is not in the building.
+   *
+   * @return the number of rejected requests.
+   */
+  public long getRequestsRejected() {
+    return this.engine.getRequestsRejected();
+  }
+}
@@ -0,0 +1,143 @@
+package trace;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * This class writes a binary trace of requests.  A trace starts with a header of
+ * {@value #HEADER_SIZE} bytes: the magic number, the format version, and the number
+ * of records.  Then come the records, {@value #RECORD_SIZE} bytes each: the tick as a
+ * long, then the start floor and the end floor as unsigned shorts.  Everything is
+ * little endian.  Ticks start at 0 and must not go down, so a trace can be replayed in
+ * one pass.
+ *
+ * <p>The number of records is written into the header when the writer is closed.
+ * A trace whose writer was never closed has a count of -1 and is not read.</p>
+ */
+public class TraceWriter implements Closeable {
+  /**
+   * The first four bytes of a trace, "ELVT".
+   */
+  public static final int MAGIC = 0x54564c45;
+
+  /**
+   * The version of the format written.
+   */
+  public static final int VERSION = 1;
+
+  /**
+   * The number of bytes before the first record.
+   */
+  public static final int HEADER_SIZE = 16;
+
+  /**
+   * The number of bytes in one record.
+   */
+  public static final int RECORD_SIZE = 12;
+
+  /**
+   * The highest floor a trace can hold.
+   */
+  public static final int MAX_FLOOR = 0xffff;
+
+  private static final int BUFFER_SIZE = RECORD_SIZE * 8192;
+
+  private final FileChannel channel;
+  private final ByteBuffer buffer;
+  private long records;
+  private long lastTick;
+  private boolean closed;
+
+  /**
+   * This constructor is used to create a new trace, replacing any file at the path.
+   *
+   * @param path where to write the trace.
+   * @throws IOException if the file cannot be created.
+   */
+  public TraceWriter(Path path) throws IOException {
+    this.channel = FileChannel.open(path, StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+    this.buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    this.buffer.putInt(MAGIC).putInt(VERSION).putLong(-1);
+  }
+
+  /**
+   * This method is used to add a request to the trace.
+   *
+   * @param tick       the tick at which the request arrives, not negative and no earlier
+   *                   than the last one.
+   * @param startFloor the start floor of the request.
+   * @param endFloor   the end floor of the request.
+   * @throws IOException if the trace cannot be written.
+   * @throws IllegalArgumentException if the tick goes back or a floor is out of range.
+   * @throws IllegalStateException if the writer is closed.
+   */
+  public void write(long tick, int startFloor, int endFloor) throws IOException {
+    if (this.closed) {
+      throw new IllegalStateException("The trace is closed");
+    }
+    if (tick < 0) {
+      throw new IllegalArgumentException("Tick " + tick + " is negative");
+    }
+    if (tick < this.lastTick) {
+      throw new IllegalArgumentException("Tick " + tick + " comes before tick "
+          + this.lastTick);
+    }
+    if (startFloor < 0 || startFloor > MAX_FLOOR || endFloor < 0 || endFloor > MAX_FLOOR) {
+      throw new IllegalArgumentException("Floors must be between 0 and " + MAX_FLOOR);
+    }
+    if (this.buffer.remaining() < RECORD_SIZE) {
+      this.flush();
+    }
+    this.buffer.putLong(tick).putShort((short) startFloor).putShort((short) endFloor);
+    this.lastTick = tick;
+    this.records++;
+  }
+
+  /**
+   * This method is used to get the number of records written so far.
+   *
+   * @return the number of records.
+   */
+  public long getRecordCount() {
+    return this.records;
+  }
+
+  private void flush() throws IOException {
+    this.buffer.flip();
+    while (this.buffer.hasRemaining()) {
+      this.channel.write(this.buffer);
+    }
+    this.buffer.clear();
+  }
+
+  /**
+   * This method is used to finish the trace, writing the number of records into the
+   * header.
+   *
+   * @throws IOException if the trace cannot be written.
+   */
+  @Override
+  public void close() throws IOException {
+    if (this.closed) {
+      return;
+    }
+    this.closed = true;
+    try {
+      this.flush();
+      ByteBuffer count = ByteBuffer.allocate(Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+      count.putLong(this.records).flip();
+      while (count.hasRemaining()) {
+        this.channel.write(count, 8 + count.position());
+      }
+      this.channel.force(false);
+    } finally {
+      this.channel.close();
+    }
+  }
+}
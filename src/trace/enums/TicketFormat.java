@@ -0,0 +1,50 @@
+package trace.enums;
+
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * This enum is used to represent the text formats tickets can be imported from.
+ */
+public enum TicketFormat {
+  /**
+   * Comma separated values, one ticket per line.  The columns are tick, start floor
+   * and end floor unless a header line names them.
+   */
+  CSV("CSV"),
+  /**
+   * One JSON object per line, with the tick, start floor and end floor as numbers.
+   */
+  JSON_LINES("JSON lines");
+
+  private final String display;
+
+  TicketFormat(String display) {
+    this.display = display;
+  }
+
+  /**
+   * This method is used to get the format of a file from its extension:
+   * .csv for CSV, and .json, .jsonl or .ndjson for JSON lines.
+   *
+   * @param path the file.
+   * @return the format of the file.
+   * @throws IllegalArgumentException if the extension is not known.
+   */
+  public static TicketFormat forPath(Path path) {
+    String name = path.getFileName().toString().toLowerCase(Locale.ROOT);
+    if (name.endsWith(".csv")) {
+      return CSV;
+    } else if (name.endsWith(".json") || name.endsWith(".jsonl")
+        || name.endsWith(".ndjson")) {
+      return JSON_LINES;
+    }
+    throw new IllegalArgumentException("Cannot tell the format of " + path
+        + " from its extension");
+  }
+
+  @Override
+  public String toString() {
+    return this.display;
+  }
+}
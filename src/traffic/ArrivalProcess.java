@@ -0,0 +1,36 @@
+package traffic;
+
+import java.util.SplittableRandom;
+
+/**
+ * This interface is used to decide when passengers arrive.  Time is counted in steps
+ * of the simulation but is not whole, so several passengers can arrive in one step.
+ * A process may keep state between calls, so each generator needs its own instance;
+ * see copy().
+ */
+public interface ArrivalProcess {
+
+  /**
+   * This method is used to get the time of the next arrival.
+   *
+   * @param after  the time of the last arrival, or the time to start from.
+   * @param random the random numbers to use.
+   * @return the time of the next arrival, no earlier than after.
+   */
+  double nextArrival(double after, SplittableRandom random);
+
+  /**
+   * This method is used to get the average number of arrivals per step.
+   *
+   * @return the long run arrival rate.
+   */
+  double getMeanRate();
+
+  /**
+   * This method is used to get a process with the same settings and a fresh state,
+   * for another generator.
+   *
+   * @return a new process.
+   */
+  ArrivalProcess copy();
+}
@@ -0,0 +1,80 @@
+package traffic;
+
+import java.util.SplittableRandom;
+
+/**
+ * This class is a bursty arrival process.  It switches between a quiet state and a
+ * burst state, staying in each for an exponentially distributed time, and passengers
+ * arrive as a Poisson process at the rate of the current state.  This is a two state
+ * Markov modulated Poisson process.
+ *
+ * <p>The process remembers its state, so each generator needs its own copy.</p>
+ */
+public class BurstyArrivals implements ArrivalProcess {
+  private final double quietRate;
+  private final double burstRate;
+  private final double meanQuietSteps;
+  private final double meanBurstSteps;
+
+  private boolean inBurst;
+  private double stateEnds = Double.NaN;
+
+  /**
+   * This constructor is used to create a new BurstyArrivals process.  It starts quiet.
+   *
+   * @param quietRate      the arrivals per step between bursts, may be 0.
+   * @param burstRate      the arrivals per step during a burst.
+   * @param meanQuietSteps the average length of a quiet spell, in steps.
+   * @param meanBurstSteps the average length of a burst, in steps.
+   * @throws IllegalArgumentException if a rate is negative, the burst rate is 0,
+   *                                  or a length is not positive.
+   */
+  public BurstyArrivals(double quietRate, double burstRate, double meanQuietSteps,
+                        double meanBurstSteps) {
+    if (!(quietRate >= 0) || !(burstRate > 0)
+        || Double.isInfinite(quietRate) || Double.isInfinite(burstRate)) {
+      throw new IllegalArgumentException("rates must be numbers, the burst rate above 0");
+    }
+    if (!(meanQuietSteps > 0) || !(meanBurstSteps > 0)) {
+      throw new IllegalArgumentException("the mean lengths must be positive");
+    }
+    this.quietRate = quietRate;
+    this.burstRate = burstRate;
+    this.meanQuietSteps = meanQuietSteps;
+    this.meanBurstSteps = meanBurstSteps;
+  }
+
+  @Override
+  public double nextArrival(double after, SplittableRandom random) {
+    double time = after;
+    if (Double.isNaN(this.stateEnds)) {
+      this.stateEnds = time + PoissonArrivals.exponential(1 / this.meanQuietSteps, random);
+    }
+    while (true) {
+      double rate = this.inBurst ? this.burstRate : this.quietRate;
+      // gaps are memoryless, so a gap that runs past the end of the state is
+      // thrown away and drawn again at the new state's rate
+      double arrival = rate > 0
+          ? time + PoissonArrivals.exponential(rate, random) : Double.POSITIVE_INFINITY;
+      if (arrival < this.stateEnds) {
+        return arrival;
+      }
+      time = this.stateEnds;
+      this.inBurst = !this.inBurst;
+      double meanSteps = this.inBurst ? this.meanBurstSteps : this.meanQuietSteps;
+      this.stateEnds = time + PoissonArrivals.exponential(1 / meanSteps, random);
+    }
+  }
+
+  @Override
+  public double getMeanRate() {
+    return (this.quietRate * this.meanQuietSteps + this.burstRate * this.meanBurstSteps)
+        / (this.meanQuietSteps + this.meanBurstSteps);
+  }
+
+  @Override
+  public ArrivalProcess copy() {
+    return new BurstyArrivals(this.quietRate, this.burstRate, this.meanQuietSteps,
+        this.meanBurstSteps);
+  }
+}
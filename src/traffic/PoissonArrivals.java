@@ -0,0 +1,47 @@
+package traffic;
+
+import java.util.SplittableRandom;
+
+/**
+ * This class is a Poisson arrival process: passengers arrive independently at a steady
+ * average rate, so the gaps between them are exponentially distributed.
+ */
+public class PoissonArrivals implements ArrivalProcess {
+  private final double rate;
+
+  /**
+   * This constructor is used to create a new PoissonArrivals process.
+   *
+   * @param rate the average number of arrivals per step.
+   * @throws IllegalArgumentException if the rate is not positive.
+   */
+  public PoissonArrivals(double rate) {
+    if (!(rate > 0) || Double.isInfinite(rate)) {
+      throw new IllegalArgumentException("rate must be a positive number");
+    }
+    this.rate = rate;
+  }
+
+  @Override
+  public double nextArrival(double after, SplittableRandom random) {
+    return after + exponential(this.rate, random);
+  }
+
+  @Override
+  public double getMeanRate() {
+    return this.rate;
+  }
+
+  @Override
+  public ArrivalProcess copy() {
+    return this;
+  }
+
+  /**
+   * Draw an exponentially distributed gap for the given rate.
+   */
+  static double exponential(double rate, SplittableRandom random) {
+    // 1 - nextDouble() is never 0, so the log is always finite
+    return -Math.log(1 - random.nextDouble()) / rate;
+  }
+}
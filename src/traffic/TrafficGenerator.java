@@ -0,0 +1,250 @@
+package traffic;
+
+import building.SimulationEngine;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.stream.Stream;
+import scanerzus.Request;
+import traffic.enums.TrafficProfile;
+
+/**
+ * This class generates requests for a building following a traffic profile.  When each
+ * passenger arrives is decided by an arrival process, and where they go by the profile
+ * and by how many people live or work on each floor.  Floor 0 is the lobby.
+ *
+ * <p>All random numbers come from one SplittableRandom, so a generator made with the
+ * same seed and settings always gives the same requests.  split() gives an independent
+ * generator with its own stream, for example one per thread or per run in a sweep.</p>
+ *
+ * <p>A generator is not thread safe.</p>
+ */
+public class TrafficGenerator {
+  private final int numberOfFloors;
+  private final TrafficProfile profile;
+  private final ArrivalProcess arrivals;
+  private final SplittableRandom random;
+
+  // cumulative population of floors 1 and up, cumulative[i] covering floors 1 to i + 1
+  private double[] cumulative;
+
+  private double time;
+  private long arrivalStep = -1;
+  // a request made by scheduleUntil() that arrives after the steps it was asked for
+  private Request pending;
+
+  /**
+   * This constructor is used to create a new TrafficGenerator with the same
+   * population on every floor but the lobby.
+   *
+   * @param numberOfFloors the number of floors of the building, at least 3 so that
+   *                       interfloor trips have two floors above the lobby.
+   * @param profile        the traffic profile.
+   * @param arrivals       when passengers arrive.
+   * @param seed           the seed for the random numbers.
+   * @throws IllegalArgumentException if an argument is not valid.
+   */
+  public TrafficGenerator(int numberOfFloors, TrafficProfile profile, ArrivalProcess arrivals,
+                          long seed) {
+    this(numberOfFloors, profile, arrivals, new SplittableRandom(seed));
+  }
+
+  private TrafficGenerator(int numberOfFloors, TrafficProfile profile,
+                           ArrivalProcess arrivals, SplittableRandom random) {
+    if (numberOfFloors < 3) {
+      throw new IllegalArgumentException("numberOfFloors must be no less than 3");
+    }
+    if (profile == null || arrivals == null) {
+      throw new IllegalArgumentException("profile and arrivals cannot be null");
+    }
+    this.numberOfFloors = numberOfFloors;
+    this.profile = profile;
+    this.arrivals = arrivals;
+    this.random = random;
+    double[] population = new double[numberOfFloors];
+    Arrays.fill(population, 1, numberOfFloors, 1.0);
+    this.setFloorPopulation(population);
+  }
+
+  /**
+   * This method is used to set how many people are on each floor.  Busier floors are
+   * picked more often as the start or end of a trip.  The lobby's weight is not used,
+   * as every incoming and outgoing trip already uses the lobby.
+   *
+   * @param population the weight of each floor, one per floor.
+   * @throws IllegalArgumentException if there is not one weight per floor, a weight is
+   *                                  negative, or no floor but the lobby has any weight.
+   */
+  public void setFloorPopulation(double[] population) {
+    if (population == null || population.length != this.numberOfFloors) {
+      throw new IllegalArgumentException("There must be one weight for each of the "
+          + this.numberOfFloors + " floors");
+    }
+    double[] sums = new double[this.numberOfFloors - 1];
+    double total = 0;
+    int populated = 0;
+    for (int floor = 1; floor < this.numberOfFloors; floor++) {
+      double weight = population[floor];
+      if (!(weight >= 0) || Double.isInfinite(weight)) {
+        throw new IllegalArgumentException("Floor " + floor + " has a weight of " + weight);
+      }
+      if (weight > 0) {
+        populated++;
+      }
+      total += weight;
+      sums[floor - 1] = total;
+    }
+    if (populated == 0) {
+      throw new IllegalArgumentException("At least one floor above the lobby must have people");
+    }
+    if (populated == 1 && this.profile.getInterfloor() > 0) {
+      throw new IllegalArgumentException("Interfloor trips need people on two floors "
+          + "above the lobby");
+    }
+    this.cumulative = sums;
+  }
+
+  /**
+   * This method is used to get a generator with the same settings and an independent
+   * stream of random numbers.  The new generator starts at time 0.
+   *
+   * @return the new generator.
+   */
+  public TrafficGenerator split() {
+    TrafficGenerator other = new TrafficGenerator(this.numberOfFloors, this.profile,
+        this.arrivals.copy(), this.random.split());
+    other.cumulative = this.cumulative;
+    return other;
+  }
+
+  /**
+   * This method is used to get the next request.  Its arrival step can then be read
+   * with getArrivalStep().
+   *
+   * @return the next request.
+   */
+  public Request next() {
+    this.advance();
+    int start = this.pickStart();
+    return new Request(start, this.pickEnd(start));
+  }
+
+  /**
+   * This method is used to get the step at which the last request from next() or
+   * fill() arrives.
+   *
+   * @return the arrival step, or -1 if no request has been made yet.
+   */
+  public long getArrivalStep() {
+    return this.arrivalStep;
+  }
+
+  /**
+   * This method is used to make many requests at once into primitive arrays, without
+   * making a Request object for each.
+   *
+   * @param steps       the arrival step of each request.
+   * @param startFloors the start floor of each request.
+   * @param endFloors   the end floor of each request.
+   * @param count       how many requests to make.
+   * @throws IllegalArgumentException if an array is shorter than count.
+   */
+  public void fill(long[] steps, int[] startFloors, int[] endFloors, int count) {
+    if (steps.length < count || startFloors.length < count || endFloors.length < count) {
+      throw new IllegalArgumentException("The arrays must hold " + count + " requests");
+    }
+    for (int i = 0; i < count; i++) {
+      this.advance();
+      int start = this.pickStart();
+      steps[i] = this.arrivalStep;
+      startFloors[i] = start;
+      endFloors[i] = this.pickEnd(start);
+    }
+  }
+
+  /**
+   * This method is used to schedule every request that arrives before a step.
+   * The first request at or after that step is held back for the next call.
+   *
+   * @param engine  the simulation to add the requests to.
+   * @param endStep the step to stop before.
+   * @return the number of requests scheduled.
+   */
+  public long scheduleUntil(SimulationEngine engine, long endStep) {
+    long scheduled = 0;
+    while (true) {
+      if (this.pending == null) {
+        this.pending = this.next();
+      }
+      if (this.arrivalStep >= endStep) {
+        return scheduled;
+      }
+      engine.scheduleRequest(this.arrivalStep, this.pending.getStartFloor(),
+          this.pending.getEndFloor());
+      this.pending = null;
+      scheduled++;
+    }
+  }
+
+  /**
+   * This method is used to get the requests as an endless stream.  The arrival step of
+   * the request just taken from the stream can be read with getArrivalStep().
+   *
+   * @return the stream of requests.
+   */
+  public Stream<Request> stream() {
+    return Stream.generate(this::next);
+  }
+
+  private void advance() {
+    this.time = this.arrivals.nextArrival(this.time, this.random);
+    this.arrivalStep = (long) this.time;
+  }
+
+  private int pickStart() {
+    double roll = this.random.nextDouble();
+    if (roll < this.profile.getIncoming()) {
+      return 0;
+    }
+    return this.pickFloor(-1);
+  }
+
+  private int pickEnd(int start) {
+    if (start == 0) {
+      return this.pickFloor(-1);
+    }
+    // a trip from a floor is outgoing or interfloor in the profile's proportions
+    double outgoing = this.profile.getOutgoing();
+    double notIncoming = outgoing + this.profile.getInterfloor();
+    if (this.random.nextDouble() * notIncoming < outgoing) {
+      return 0;
+    }
+    return this.pickFloor(start);
+  }
+
+  /**
+   * Pick a floor above the lobby by population, never the floor given.
+   */
+  private int pickFloor(int except) {
+    double[] sums = this.cumulative;
+    double total = sums[sums.length - 1];
+    while (true) {
+      double roll = this.random.nextDouble() * total;
+      // find the first floor whose running total is above the roll, which skips
+      // floors with no people as their total is the same as the floor below
+      int low = 0;
+      int high = sums.length - 1;
+      while (low < high) {
+        int middle = (low + high) >>> 1;
+        if (sums[middle] > roll) {
+          high = middle;
+        } else {
+          low = middle + 1;
+        }
+      }
+      int floor = low + 1;
+      if (floor != except) {
+        return floor;
+      }
+    }
+  }
+}
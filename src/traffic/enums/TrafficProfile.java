@@ -0,0 +1,68 @@
+package traffic.enums;
+
+/**
+ * The standard patterns of building traffic.  Each request is either incoming, from
+ * the lobby up to a floor, outgoing, from a floor down to the lobby, or interfloor,
+ * between two floors other than the lobby.  A profile says how often each kind comes up.
+ */
+public enum TrafficProfile {
+  /**
+   * The morning rush, nearly everyone arriving at the lobby and going up.
+   */
+  UP_PEAK("Up Peak", 0.85, 0.05),
+  /**
+   * The evening rush, nearly everyone going down to the lobby to leave.
+   */
+  DOWN_PEAK("Down Peak", 0.05, 0.85),
+  /**
+   * The middle of the day, people leaving for lunch and coming back at once.
+   */
+  LUNCH("Lunch", 0.40, 0.40),
+  /**
+   * Normal working hours, mostly trips between floors.
+   */
+  INTERFLOOR("Interfloor", 0.05, 0.05);
+
+  private final String display;
+  private final double incoming;
+  private final double outgoing;
+
+  TrafficProfile(String display, double incoming, double outgoing) {
+    this.display = display;
+    this.incoming = incoming;
+    this.outgoing = outgoing;
+  }
+
+  /**
+   * This method is used to get the share of requests going up from the lobby.
+   *
+   * @return the incoming share, from 0 to 1.
+   */
+  public double getIncoming() {
+    return this.incoming;
+  }
+
+  /**
+   * This method is used to get the share of requests going down to the lobby.
+   *
+   * @return the outgoing share, from 0 to 1.
+   */
+  public double getOutgoing() {
+    return this.outgoing;
+  }
+
+  /**
+   * This method is used to get the share of requests between two floors
+   * other than the lobby.
+   *
+   * @return the interfloor share, from 0 to 1.
+   */
+  public double getInterfloor() {
+    return 1 - this.incoming - this.outgoing;
+  }
+
+  @Override
+  public String toString() {
+    return this.display;
+  }
+}
@@ -2,14 +2,13 @@ package views;
 
 import building.BuildingReport;
 import controller.BuildingController;
-import elevator.ElevatorReport;
 import java.awt.BorderLayout;
 import java.awt.Color;
-import java.awt.Component;
 import java.awt.Dimension;
 import java.awt.FlowLayout;
 import java.awt.GridLayout;
-import javax.swing.BorderFactory;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import javax.swing.BoxLayout;
 import javax.swing.JButton;
 import javax.swing.JFrame;
@@ -26,7 +25,7 @@ import javax.swing.SwingConstants;
  */
 public class BuildingView extends JFrame implements BuildingViewInterface {
   private BuildingController buildingController;
-  private JPanel mainPanel;
+  private ShaftView shaftView;
   private JPanel reportPanel;
   private JPanel elevatorStatusPanel;
   private JPanel controlPanel;
@@ -34,9 +33,14 @@ public class BuildingView extends JFrame implements BuildingViewInterface {
   private JButton stepButton;
   private JButton stopButton;
   private JButton requestButton;
+  private JButton runButton;
+  private JTextField rateField;
   private JTextField startFloorField;
   private JTextField endFloorField;
   private JLabel errorLabel;
+  private JTextArea reportArea;
+  private final StringBuilder reportText = new StringBuilder();
+  private String shownReportText = "";
 
   /**
    * This constructor is used to create a new BuildingView object.
@@ -44,19 +48,26 @@ public class BuildingView extends JFrame implements BuildingViewInterface {
   public BuildingView() {
     super("Building Elevator System");
     setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+    // listeners run before the frame exits, so the simulation stops first
+    addWindowListener(new WindowAdapter() {
+      @Override
+      public void windowClosing(WindowEvent e) {
+        if (buildingController != null) {
+          buildingController.shutdown();
+        }
+      }
+    });
     setSize(1200, 750);
     setLayout(new BorderLayout());
     initializeUi();
   }
 
   private void initializeUi() {
-    mainPanel = new JPanel();
+    shaftView = new ShaftView();
     reportPanel = new JPanel();
     elevatorStatusPanel = new JPanel();
     controlPanel = new JPanel();
 
-    // stacking components vertically.
-    mainPanel.setLayout(new GridLayout(0, 1));
     // stacking components horizontally.
     elevatorStatusPanel.setLayout(new GridLayout(1, 0));
     // arrange a left-to-right flow, wrapping to the next line when space runs out
@@ -64,9 +75,9 @@ public class BuildingView extends JFrame implements BuildingViewInterface {
     reportPanel.setLayout(new BoxLayout(reportPanel, BoxLayout.Y_AXIS));
     reportPanel.setPreferredSize(new Dimension(350, getHeight()));
 
-    JPanel elevatorsContainer = new JPanel(new BorderLayout());
-    elevatorsContainer.add(elevatorStatusPanel, BorderLayout.NORTH);
-    elevatorsContainer.add(mainPanel, BorderLayout.CENTER);
+    // the shafts scroll when the building is too tall to fit, keeping the labels on top
+    JScrollPane elevatorsContainer = new JScrollPane(shaftView);
+    elevatorsContainer.setColumnHeaderView(elevatorStatusPanel);
 
     add(elevatorsContainer, BorderLayout.CENTER);
     add(controlPanel, BorderLayout.SOUTH);
@@ -81,9 +92,11 @@ public class BuildingView extends JFrame implements BuildingViewInterface {
     stepButton = new JButton("Step");
     stopButton = new JButton("Stop");
     requestButton = new JButton("Request");
+    runButton = new JButton("Run");
 
     startFloorField = new JTextField(5);
     endFloorField = new JTextField(5);
+    rateField = new JTextField("10", 4);
 
     controlPanel.add(startButton);
     controlPanel.add(stepButton);
@@ -93,6 +106,9 @@ public class BuildingView extends JFrame implements BuildingViewInterface {
     controlPanel.add(new JLabel("To:"));
     controlPanel.add(endFloorField);
     controlPanel.add(requestButton);
+    controlPanel.add(new JLabel("Steps/s (0 = max):"));
+    controlPanel.add(rateField);
+    controlPanel.add(runButton);
 
     startButton.addActionListener(e -> buildingController.startElevatorSystem());
     stepButton.addActionListener(e -> buildingController.stepElevatorSystem());
@@ -106,6 +122,21 @@ public class BuildingView extends JFrame implements BuildingViewInterface {
         displayError("Invalid input: Please enter valid numbers for floors.");
       }
     });
+    runButton.addActionListener(e -> {
+      if (buildingController.isAutoRunning()) {
+        buildingController.stopAutoRun();
+        runButton.setText("Run");
+        return;
+      }
+      try {
+        buildingController.startAutoRun(Integer.parseInt(rateField.getText().trim()));
+        runButton.setText("Pause");
+      } catch (IllegalArgumentException ex) {
+        // NumberFormatException is an IllegalArgumentException too
+        displayError("Invalid input: Please enter a rate from 0 to "
+            + BuildingController.MAX_STEPS_PER_SECOND + " steps per second.");
+      }
+    });
   }
 
   private void initializeReportPanel() {
@@ -116,6 +147,13 @@ public class BuildingView extends JFrame implements BuildingViewInterface {
     errorLabel.setForeground(Color.RED);
     errorLabel.setVisible(false);
     reportPanel.add(errorLabel);
+
+    // one text area for the life of the view, updated in place
+    reportArea = new JTextArea(10, 30);
+    reportArea.setEditable(false);
+    JScrollPane scrollPane = new JScrollPane(reportArea);
+    scrollPane.setVerticalScrollBarPolicy(ScrollPaneConstants.VERTICAL_SCROLLBAR_ALWAYS);
+    reportPanel.add(scrollPane);
   }
 
   @Override
@@ -125,21 +163,12 @@ public class BuildingView extends JFrame implements BuildingViewInterface {
 
   @Override
   public void initializeFloors(int numFloors, int numElevators) {
-    mainPanel.removeAll();
     elevatorStatusPanel.removeAll();
-
-    mainPanel.setLayout(new GridLayout(numFloors, numElevators));
     elevatorStatusPanel.setLayout(new GridLayout(1, numElevators));
-
     for (int i = 0; i < numElevators; i++) {
       elevatorStatusPanel.add(new JLabel("Elevator " + (i + 1)));
-      for (int j = 0; j < numFloors; j++) {
-        JPanel floorPanel = new JPanel();
-        floorPanel.setBorder(BorderFactory.createLineBorder(Color.black));
-        floorPanel.setBackground(Color.WHITE);
-        mainPanel.add(floorPanel);
-      }
     }
+    shaftView.setBuildingSize(numFloors, numElevators);
     revalidate();
     repaint();
   }
@@ -147,47 +176,21 @@ public class BuildingView extends JFrame implements BuildingViewInterface {
   @Override
   public void updateView(BuildingReport report) {
     clearError();
-    updateElevatorDisplays(report);
+    shaftView.update(report);
     updateReportPanel(report);
   }
 
-  private void updateElevatorDisplays(BuildingReport report) {
-    ElevatorReport[] elevatorReports = report.getElevatorReports();
-    int numFloors = report.getNumFloors();
-    int numElevators = report.getNumElevators();
-
-    Component[] panels = mainPanel.getComponents();
-    for (Component panel : panels) {
-      panel.setBackground(Color.WHITE);
-    }
-
-    for (int i = 0; i < elevatorReports.length; i++) {
-      int floor = elevatorReports[i].getCurrentFloor();
-      int index = (numFloors - floor - 1) * numElevators + i;
-      panels[index].setBackground(Color.BLACK);
-    }
-    mainPanel.revalidate();
-    mainPanel.repaint();
-  }
-
   private void updateReportPanel(BuildingReport report) {
-    reportPanel.removeAll();
-
-    JTextArea reportArea = new JTextArea(10, 30);
-    reportArea.setText(report.toString());
-    reportArea.setEditable(false);
-
-    JScrollPane scrollPane = new JScrollPane(reportArea);
-    scrollPane.setVerticalScrollBarPolicy(ScrollPaneConstants.VERTICAL_SCROLLBAR_ALWAYS);
-    reportPanel.add(errorLabel);
-
-    reportPanel.add(scrollPane);
-    reportPanel.revalidate();
-    reportPanel.repaint();
+    reportText.setLength(0);
+    report.appendTo(reportText);
+    if (!shownReportText.contentEquals(reportText)) {
+      shownReportText = reportText.toString();
+      reportArea.setText(shownReportText);
+    }
   }
 
   private void clearError() {
-    if (errorLabel != null) {
+    if (errorLabel != null && errorLabel.isVisible()) {
       errorLabel.setText("");
       errorLabel.setVisible(false);
       reportPanel.revalidate();
@@ -197,6 +200,10 @@ public class BuildingView extends JFrame implements BuildingViewInterface {
 
   @Override
   public void displayError(String errorMessage) {
+    if (buildingController != null && !buildingController.isAutoRunning()) {
+      // an auto-run that failed has stopped, so offer to start it again
+      runButton.setText("Run");
+    }
     errorLabel.setText(errorMessage);
     errorLabel.setVisible(true);
     reportPanel.revalidate();
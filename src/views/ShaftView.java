@@ -0,0 +1,271 @@
+package views;
+
+import building.BuildingReport;
+import building.enums.Direction;
+import elevator.ElevatorReport;
+import elevator.FloorMask;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Rectangle;
+import javax.swing.JComponent;
+import javax.swing.JViewport;
+import javax.swing.Scrollable;
+import javax.swing.SwingConstants;
+
+/**
+ * This class draws the elevator shafts of a building as one grid, one column per
+ * elevator and one row per floor, with the top floor at the top.  Each car is drawn
+ * with its door and direction, and each floor a car will stop at is marked with a dot.
+ *
+ * <p>The whole grid is painted by a single component.  When a report comes in, only
+ * the cells that changed are marked for repainting, and painting only draws the rows
+ * and columns inside the clip, so a large building costs no more per update than a
+ * small one.</p>
+ */
+public class ShaftView extends JComponent implements Scrollable {
+  private static final long serialVersionUID = 1L;
+
+  private static final int MIN_ROW_HEIGHT = 12;
+  private static final int MIN_COLUMN_WIDTH = 24;
+  private static final Color GRID_COLOR = Color.BLACK;
+  private static final Color CAR_COLOR = Color.BLACK;
+  private static final Color DOOR_COLOR = Color.WHITE;
+  private static final Color STOP_COLOR = new Color(0, 120, 215);
+
+  private int numFloors;
+  private int numElevators;
+  private int[] floors = new int[0];
+  private Direction[] directions = new Direction[0];
+  private boolean[] doorsClosed = new boolean[0];
+  private long[][] stops = new long[0][];
+
+  /**
+   * This constructor is used to create an empty ShaftView.
+   */
+  public ShaftView() {
+    setOpaque(true);
+    setBackground(Color.WHITE);
+  }
+
+  /**
+   * This method is used to size the grid for a building.  No cars are drawn
+   * until the first report.
+   *
+   * @param numFloors    the number of floors.
+   * @param numElevators the number of elevators.
+   */
+  public void setBuildingSize(int numFloors, int numElevators) {
+    this.numFloors = numFloors;
+    this.numElevators = numElevators;
+    this.floors = new int[numElevators];
+    this.directions = new Direction[numElevators];
+    this.doorsClosed = new boolean[numElevators];
+    this.stops = new long[numElevators][FloorMask.words(numFloors)];
+    for (int i = 0; i < numElevators; i++) {
+      this.floors[i] = -1;
+      this.directions[i] = Direction.STOPPED;
+      this.doorsClosed[i] = true;
+    }
+    revalidate();
+    repaint();
+  }
+
+  /**
+   * This method is used to show a new report.  Only the cells whose car, door,
+   * direction or stop changed are repainted.
+   *
+   * @param report the report to show.
+   */
+  public void update(BuildingReport report) {
+    if (report.getNumFloors() != this.numFloors
+        || report.getNumElevators() != this.numElevators) {
+      setBuildingSize(report.getNumFloors(), report.getNumElevators());
+    }
+
+    ElevatorReport[] elevatorReports = report.getElevatorReports();
+    for (int i = 0; i < elevatorReports.length; i++) {
+      ElevatorReport elevator = elevatorReports[i];
+      int floor = elevator.getCurrentFloor();
+      if (floor != this.floors[i]
+          || elevator.getDirection() != this.directions[i]
+          || elevator.isDoorClosed() != this.doorsClosed[i]) {
+        repaintCell(this.floors[i], i);
+        repaintCell(floor, i);
+        this.floors[i] = floor;
+        this.directions[i] = elevator.getDirection();
+        this.doorsClosed[i] = elevator.isDoorClosed();
+      }
+
+      long[] shown = this.stops[i];
+      for (int w = 0; w < shown.length; w++) {
+        long mask = elevator.getFloorStopMask(w);
+        long changed = mask ^ shown[w];
+        while (changed != 0) {
+          repaintCell((w << 6) + Long.numberOfTrailingZeros(changed), i);
+          changed &= changed - 1;
+        }
+        shown[w] = mask;
+      }
+    }
+  }
+
+  private void repaintCell(int floor, int elevator) {
+    if (floor < 0 || floor >= this.numFloors) {
+      return;
+    }
+    repaint(columnX(elevator), rowY(floor), columnX(elevator + 1) - columnX(elevator) + 1,
+        rowY(floor - 1) - rowY(floor) + 1);
+  }
+
+  /**
+   * The left edge of a column.  Columns share the width as evenly as they can.
+   */
+  private int columnX(int elevator) {
+    return (int) ((long) elevator * (getWidth() - 1) / Math.max(1, this.numElevators));
+  }
+
+  /**
+   * The top edge of the row of a floor.  rowY(-1) is the bottom of the grid.
+   */
+  private int rowY(int floor) {
+    int row = this.numFloors - floor - 1;
+    return (int) ((long) row * (getHeight() - 1) / Math.max(1, this.numFloors));
+  }
+
+  @Override
+  protected void paintComponent(Graphics g) {
+    Rectangle clip = g.getClipBounds();
+    if (clip == null) {
+      clip = new Rectangle(0, 0, getWidth(), getHeight());
+    }
+    g.setColor(getBackground());
+    g.fillRect(clip.x, clip.y, clip.width, clip.height);
+    if (this.numFloors == 0 || this.numElevators == 0) {
+      return;
+    }
+
+    // only the rows and columns that meet the clip are drawn,
+    // with one extra on each side so rounding never leaves a cell out
+    int firstColumn = Math.max(0, columnAt(clip.x) - 1);
+    int lastColumn = Math.min(this.numElevators - 1, columnAt(clip.x + clip.width) + 1);
+    int topFloor = Math.min(this.numFloors - 1, floorAt(clip.y) + 1);
+    int bottomFloor = Math.max(0, floorAt(clip.y + clip.height) - 1);
+
+    g.setColor(GRID_COLOR);
+    int left = columnX(firstColumn);
+    int right = columnX(lastColumn + 1);
+    for (int floor = bottomFloor - 1; floor <= topFloor; floor++) {
+      int y = rowY(floor);
+      g.drawLine(left, y, right, y);
+    }
+    int top = rowY(topFloor);
+    int bottom = rowY(bottomFloor - 1);
+    for (int elevator = firstColumn; elevator <= lastColumn + 1; elevator++) {
+      int x = columnX(elevator);
+      g.drawLine(x, top, x, bottom);
+    }
+
+    for (int elevator = firstColumn; elevator <= lastColumn; elevator++) {
+      long[] mask = this.stops[elevator];
+      for (int floor = FloorMask.nextAbove(mask, bottomFloor - 1);
+           floor >= 0 && floor <= topFloor;
+           floor = FloorMask.nextAbove(mask, floor)) {
+        paintStop(g, floor, elevator);
+      }
+      int floor = this.floors[elevator];
+      if (floor >= bottomFloor && floor <= topFloor) {
+        paintCar(g, floor, elevator);
+      }
+    }
+  }
+
+  private void paintStop(Graphics g, int floor, int elevator) {
+    int x = columnX(elevator);
+    int y = rowY(floor);
+    int width = columnX(elevator + 1) - x;
+    int height = rowY(floor - 1) - y;
+    int size = Math.max(2, Math.min(width, height) / 3);
+    g.setColor(STOP_COLOR);
+    g.fillOval(x + (width - size) / 2, y + (height - size) / 2, size, size);
+  }
+
+  private void paintCar(Graphics g, int floor, int elevator) {
+    int x = columnX(elevator) + 1;
+    int y = rowY(floor) + 1;
+    int width = columnX(elevator + 1) - x;
+    int height = rowY(floor - 1) - y;
+    g.setColor(CAR_COLOR);
+    g.fillRect(x, y, width, height);
+
+    // an open door is a gap down the middle of the car
+    if (!this.doorsClosed[elevator]) {
+      g.setColor(DOOR_COLOR);
+      g.fillRect(x + width / 3, y + 1, Math.max(1, width / 3), Math.max(1, height - 2));
+    }
+
+    Direction direction = this.directions[elevator];
+    if (direction == Direction.UP || direction == Direction.DOWN) {
+      int size = Math.max(2, Math.min(width / 3, height - 2) / 2 * 2);
+      int arrowX = x + width - size - 2;
+      int arrowTop = y + (height - size) / 2;
+      int arrowBottom = arrowTop + size;
+      g.setColor(DOOR_COLOR);
+      if (direction == Direction.UP) {
+        g.fillPolygon(new int[] {arrowX, arrowX + size / 2, arrowX + size},
+            new int[] {arrowBottom, arrowTop, arrowBottom}, 3);
+      } else {
+        g.fillPolygon(new int[] {arrowX, arrowX + size / 2, arrowX + size},
+            new int[] {arrowTop, arrowBottom, arrowTop}, 3);
+      }
+    }
+  }
+
+  private int columnAt(int x) {
+    return (int) ((long) x * this.numElevators / Math.max(1, getWidth() - 1));
+  }
+
+  private int floorAt(int y) {
+    int row = (int) ((long) y * this.numFloors / Math.max(1, getHeight() - 1));
+    return this.numFloors - row - 1;
+  }
+
+  @Override
+  public Dimension getPreferredSize() {
+    if (isPreferredSizeSet()) {
+      return super.getPreferredSize();
+    }
+    return new Dimension(this.numElevators * MIN_COLUMN_WIDTH + 1,
+        this.numFloors * MIN_ROW_HEIGHT + 1);
+  }
+
+  @Override
+  public Dimension getPreferredScrollableViewportSize() {
+    return getPreferredSize();
+  }
+
+  @Override
+  public int getScrollableUnitIncrement(Rectangle visibleRect, int orientation,
+                                        int direction) {
+    return orientation == SwingConstants.VERTICAL ? MIN_ROW_HEIGHT : MIN_COLUMN_WIDTH;
+  }
+
+  @Override
+  public int getScrollableBlockIncrement(Rectangle visibleRect, int orientation,
+                                         int direction) {
+    return orientation == SwingConstants.VERTICAL ? visibleRect.height : visibleRect.width;
+  }
+
+  @Override
+  public boolean getScrollableTracksViewportWidth() {
+    // stretch to fill the viewport unless the grid needs more room than it has
+    return getParent() instanceof JViewport
+        && getParent().getWidth() > getPreferredSize().width;
+  }
+
+  @Override
+  public boolean getScrollableTracksViewportHeight() {
+    return getParent() instanceof JViewport
+        && getParent().getHeight() > getPreferredSize().height;
+  }
+}
@@ -0,0 +1,145 @@
+package building;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import building.dispatch.EtaCostDispatch;
+import building.enums.ElevatorSystemStatus;
+import elevator.ElevatorReport;
+import java.util.Random;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * This is a test class using JUnit 4 for the BuildingDelta class.
+ */
+public class BuildingDeltaTest {
+  private Building building;
+
+  @Before
+  public void setUp() {
+    building = new Building(10, 3, 8);
+  }
+
+  /**
+   * Test that applying deltas keeps a report the same as a fresh one.
+   */
+  @Test
+  public void testDeltasMatchFullReports() {
+    Building busy = new Building(20, 6, 6, new EtaCostDispatch());
+    busy.startElevatorSystem();
+    BuildingReport report = busy.getBuildingReport();
+    Random random = new Random(3);
+
+    for (int t = 0; t < 2000; t++) {
+      if (t < 1500 && random.nextInt(4) == 0) {
+        int start = random.nextInt(20);
+        busy.addRequest(start, (start + 1 + random.nextInt(19)) % 20);
+      }
+      if (t == 1500) {
+        busy.stopElevatorSystem();
+      }
+      busy.stepElevatorSystem();
+
+      if (random.nextInt(3) == 0) {
+        BuildingDelta delta = busy.getBuildingDelta(report.getVersion());
+        report = delta.applyTo(report);
+        BuildingReport full = busy.getBuildingReport();
+        assertEquals(full.getVersion(), report.getVersion());
+        assertArrayEquals(full.getElevatorReports(), report.getElevatorReports());
+        assertEquals(full.getUpRequests(), report.getUpRequests());
+        assertEquals(full.getDownRequests(), report.getDownRequests());
+        assertEquals(full.getSystemStatus(), report.getSystemStatus());
+      }
+    }
+  }
+
+  /**
+   * Test that a parked building has nothing to report.
+   */
+  @Test
+  public void testNothingChangesWhenParked() {
+    building.stepElevatorSystem();
+    BuildingReport report = building.getBuildingReport();
+    building.stepElevatorSystem();
+    building.stepElevatorSystem();
+
+    BuildingDelta delta = building.getBuildingDelta(report.getVersion());
+    assertTrue(delta.isEmpty());
+    assertEquals(report.getVersion(), delta.getToVersion());
+    assertEquals(report.getVersion(), building.getBuildingReport().getVersion());
+  }
+
+  /**
+   * Test that a delta where only the status changed is not empty, and brings the
+   * status of a report up to date.
+   */
+  @Test
+  public void testStatusOnlyDelta() {
+    BuildingReport report = building.getBuildingReport();
+    BuildingDelta delta = new BuildingDelta(report.getVersion(), report.getVersion() + 1,
+        new int[0], new ElevatorReport[0], null, null, ElevatorSystemStatus.stopping, true);
+    assertTrue(delta.isStatusChanged());
+    assertFalse(delta.isEmpty());
+    assertEquals(ElevatorSystemStatus.stopping, delta.applyTo(report).getSystemStatus());
+  }
+
+  /**
+   * Test that a building reports a change of status in its delta.
+   */
+  @Test
+  public void testStatusChangeIsSent() {
+    BuildingReport report = building.getBuildingReport();
+    building.startElevatorSystem();
+    assertTrue(building.getBuildingDelta(report.getVersion()).isStatusChanged());
+    report = building.getBuildingReport();
+    building.stepElevatorSystem();
+    assertFalse(building.getBuildingDelta(report.getVersion()).isStatusChanged());
+  }
+
+  /**
+   * Test that only the queue that changed is sent.
+   */
+  @Test
+  public void testOnlyChangedQueueIsSent() {
+    building.startElevatorSystem();
+    BuildingReport report = building.getBuildingReport();
+    building.addRequest(7, 2);
+
+    BuildingDelta delta = building.getBuildingDelta(report.getVersion());
+    assertNull(delta.getUpRequests());
+    assertNotNull(delta.getDownRequests());
+    assertEquals(1, delta.getDownRequests().size());
+    assertEquals(0, delta.getChangedElevatorCount());
+    assertFalse(delta.isEmpty());
+    assertTrue(delta.getToVersion() > report.getVersion());
+  }
+
+  /**
+   * Test that the changed elevators are listed with their index.
+   */
+  @Test
+  public void testChangedElevators() {
+    building.startElevatorSystem();
+    BuildingDelta delta = building.getBuildingDelta(-1);
+    assertEquals(3, delta.getChangedElevatorCount());
+    assertEquals(2, delta.getChangedElevatorIndex(2));
+    assertEquals(building.elevators[2].getElevatorStatus(), delta.getChangedElevatorReport(2));
+  }
+
+  /**
+   * Test that a delta cannot be applied to a report older than it.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testApplyToOlderReport() {
+    BuildingReport old = building.getBuildingReport();
+    building.startElevatorSystem();
+    long version = building.getBuildingReport().getVersion();
+    building.stepElevatorSystem();
+    building.getBuildingDelta(version).applyTo(old);
+  }
+}
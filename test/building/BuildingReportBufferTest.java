@@ -0,0 +1,148 @@
+package building;
+
+import static org.junit.Assert.assertEquals;
+
+import building.dispatch.CollectiveControlDispatch;
+import building.dispatch.DispatchStrategy;
+import building.dispatch.EtaCostDispatch;
+import building.dispatch.FifoDispatch;
+import building.dispatch.NearestCarDispatch;
+import elevator.ElevatorReport;
+import java.lang.management.ManagementFactory;
+import org.junit.Test;
+import scanerzus.Request;
+
+/**
+ * This is a test class using JUnit 4 for the BuildingReportBuffer class.
+ */
+public class BuildingReportBufferTest {
+  private static final int[] START_FLOORS = {0, 7, 3, 12, 15, 1, 9, 4, 14, 6, 11, 2};
+  private static final int[] END_FLOORS = {9, 2, 13, 0, 5, 8, 15, 10, 3, 0, 1, 14};
+
+  /**
+   * Test that the buffer holds the same state as a report.
+   */
+  @Test
+  public void testBufferMatchesReport() {
+    Building building = new Building(16, 4, 8, new EtaCostDispatch());
+    BuildingReportBuffer buffer = new BuildingReportBuffer();
+    building.startElevatorSystem();
+    for (int t = 0; t < 300; t++) {
+      if (t % 3 == 0) {
+        int i = (t / 3) % START_FLOORS.length;
+        building.addRequest(START_FLOORS[i], END_FLOORS[i]);
+      }
+      building.stepElevatorSystem();
+
+      BuildingReport report = building.getBuildingReport();
+      building.copyReportTo(buffer);
+      assertEquals(report.getVersion(), buffer.getVersion());
+      assertEquals(report.getSystemStatus(), buffer.getSystemStatus());
+      assertEquals(4, buffer.getNumElevators());
+      for (int e = 0; e < 4; e++) {
+        ElevatorReport elevator = report.getElevatorReports()[e];
+        assertEquals(elevator.getCurrentFloor(), buffer.getCurrentFloor(e));
+        assertEquals(elevator.getDirection(), buffer.getDirection(e));
+        assertEquals(elevator.isDoorClosed(), buffer.isDoorClosed(e));
+        assertEquals(elevator.getDoorOpenTimer(), buffer.getDoorOpenTimer(e));
+        assertEquals(elevator.getEndWaitTimer(), buffer.getEndWaitTimer(e));
+        assertEquals(elevator.isOutOfService(), buffer.isOutOfService(e));
+        assertEquals(elevator.isTakingRequests(), buffer.isTakingRequests(e));
+        assertEquals(elevator.getFloorStopMask(0), buffer.getFloorStopMask(e, 0));
+        for (int floor = 0; floor < 16; floor++) {
+          assertEquals(elevator.getFloorRequests()[floor], buffer.hasStopAt(e, floor));
+        }
+      }
+      assertEquals(report.getUpRequests().size(), buffer.getUpRequestCount());
+      for (int i = 0; i < buffer.getUpRequestCount(); i++) {
+        long packed = buffer.getUpRequest(i);
+        assertEquals(report.getUpRequests().get(i), new Request(
+            RequestQueue.startFloorOf(packed), RequestQueue.endFloorOf(packed)));
+      }
+      assertEquals(report.getDownRequests().size(), buffer.getDownRequestCount());
+    }
+  }
+
+  /**
+   * Test that stepping and copying the report allocate nothing once warmed up,
+   * for every built-in dispatch strategy.
+   */
+  @Test
+  public void testSteadyStateAllocatesNothing() {
+    com.sun.management.ThreadMXBean threads =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    if (!threads.isThreadAllocatedMemorySupported()) {
+      return;
+    }
+    threads.setThreadAllocatedMemoryEnabled(true);
+
+    DispatchStrategy[] strategies = {new FifoDispatch(), new CollectiveControlDispatch(),
+        new NearestCarDispatch(), new EtaCostDispatch()};
+    Building[] buildings = new Building[strategies.length];
+    BuildingReportBuffer buffer = new BuildingReportBuffer();
+    // warm every building up first, so the JIT has seen all the strategies
+    // before anything is measured
+    for (int i = 0; i < strategies.length; i++) {
+      buildings[i] = new Building(16, 6, 8, strategies[i]);
+      buildings[i].setReverseWhenIdle(true);
+      buildings[i].startElevatorSystem();
+      runTraffic(buildings[i], buffer, 20000);
+    }
+    for (int i = 0; i < strategies.length; i++) {
+      runTraffic(buildings[i], buffer, 20000);
+    }
+
+    for (int i = 0; i < strategies.length; i++) {
+      long before = threads.getCurrentThreadAllocatedBytes();
+      runTraffic(buildings[i], buffer, 5000);
+      long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+      assertEquals(strategies[i].getClass().getSimpleName() + " allocated", 0, allocated);
+    }
+  }
+
+  /**
+   * Test that a floor past the top is not read from the next elevator's stops.
+   */
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void testStopAtFloorTooHigh() {
+    twoElevatorBuffer().hasStopAt(0, 64);
+  }
+
+  /**
+   * Test that a negative floor is not wrapped around to another floor.
+   */
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void testStopAtNegativeFloor() {
+    twoElevatorBuffer().hasStopAt(0, -64);
+  }
+
+  /**
+   * Test that a word past the end of the mask is not read from the next elevator's stops.
+   */
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void testStopMaskWordTooHigh() {
+    twoElevatorBuffer().getFloorStopMask(0, 1);
+  }
+
+  /**
+   * A buffer for a building of 16 floors and two elevators, so the stops of the second
+   * elevator come right after those of the first.
+   */
+  private static BuildingReportBuffer twoElevatorBuffer() {
+    Building building = new Building(16, 2, 8);
+    BuildingReportBuffer buffer = new BuildingReportBuffer();
+    building.copyReportTo(buffer);
+    return buffer;
+  }
+
+  private static void runTraffic(Building building, BuildingReportBuffer buffer, int steps) {
+    for (int t = 0; t < steps; t++) {
+      if (t % 2 == 0) {
+        int i = (t / 2) % START_FLOORS.length;
+        building.addRequest(START_FLOORS[i], END_FLOORS[i]);
+      }
+      building.stepElevatorSystem();
+      building.copyReportTo(buffer);
+    }
+  }
+}
@@ -1,11 +1,21 @@
 package building;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import building.dispatch.CollectiveControlDispatch;
+import building.dispatch.NearestCarDispatch;
 import building.enums.ElevatorSystemStatus;
+import building.enums.RequestStatus;
 import elevator.ElevatorInterface;
+import elevator.ElevatorReport;
+import java.io.StringWriter;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 import org.junit.Before;
 import org.junit.Test;
 import scanerzus.Request;
@@ -80,6 +90,14 @@ public class BuildingTest {
   }
 
 
+  /**
+   * Test the constructor with no dispatch strategy.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testConstructorNullDispatchStrategy() {
+    new Building(10, 3, 8, null);
+  }
+
   /**
    * Test the getNumOfFloors method.
    */
@@ -189,6 +207,71 @@ public class BuildingTest {
     assertEquals(request2, building.upRequests.get(1));
   }
 
+  /**
+   * Test the addRequest method that takes the floors directly.
+   */
+  @Test
+  public void testAddRequestByFloors() {
+    building.startElevatorSystem();
+    assertTrue(building.addRequest(1, 5));
+    assertTrue(building.addRequest(7, 3));
+    assertEquals(1, building.upRequests.size());
+    assertEquals(1, building.downRequests.size());
+    assertEquals(new Request(1, 5), building.upRequests.get(0));
+    assertEquals(new Request(7, 3), building.downRequests.get(0));
+  }
+
+  /**
+   * Test the addRequest method that takes the floors directly with an invalid end floor.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testAddRequestByFloorsInvalidEndFloor() {
+    building.startElevatorSystem();
+    building.addRequest(1, 10);
+  }
+
+  /**
+   * Test the addRequests method with a batch of good and bad requests.
+   */
+  @Test
+  public void testAddRequestsBatch() {
+    building.startElevatorSystem();
+    byte[] statuses = building.addRequests(
+        new int[]{1, 7, -1, 2, 4, 3},
+        new int[]{5, 3, 5, 10, 4, 9});
+
+    assertArrayEquals(new byte[]{
+        RequestStatus.ACCEPTED.getCode(),
+        RequestStatus.ACCEPTED.getCode(),
+        RequestStatus.INVALID_START_FLOOR.getCode(),
+        RequestStatus.INVALID_END_FLOOR.getCode(),
+        RequestStatus.SAME_FLOOR.getCode(),
+        RequestStatus.ACCEPTED.getCode()}, statuses);
+    assertEquals(2, building.upRequests.size());
+    assertEquals(1, building.downRequests.size());
+    assertEquals(new Request(3, 9), building.upRequests.get(1));
+  }
+
+  /**
+   * Test the addRequests method when the system is not running.
+   */
+  @Test
+  public void testAddRequestsSystemOutOfService() {
+    byte[] statuses = building.addRequests(new int[]{1, 2}, new int[]{5, 6});
+    assertEquals(RequestStatus.NOT_RUNNING, RequestStatus.fromCode(statuses[0]));
+    assertEquals(RequestStatus.NOT_RUNNING, RequestStatus.fromCode(statuses[1]));
+    assertEquals(0, building.upRequests.size());
+  }
+
+  /**
+   * Test the addRequests method with arrays of different lengths.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testAddRequestsMismatchedArrays() {
+    building.startElevatorSystem();
+    building.addRequests(new int[]{1, 2}, new int[]{5});
+  }
+
   /**
    * Test the addRequest method with request allocation extensively.
    */
@@ -316,6 +399,104 @@ public class BuildingTest {
     }
   }
 
+  /**
+   * Test that a moving elevator picks up a hall call ahead of it under collective control.
+   */
+  @Test
+  public void testCollectiveControlPicksUpAhead() {
+    Building smallBuilding = new Building(10, 1, 5, new CollectiveControlDispatch());
+    smallBuilding.startElevatorSystem();
+
+    // wait at the bottom, then move up to floor 2
+    for (int i = 0; i < 7; i++) {
+      smallBuilding.stepElevatorSystem();
+    }
+    assertEquals(2, smallBuilding.elevators[0].getCurrentFloor());
+
+    smallBuilding.addRequest(5, 8);
+    smallBuilding.addRequest(1, 4);
+    smallBuilding.addRequest(6, 2);
+    smallBuilding.stepElevatorSystem();
+
+    assertEquals(1, smallBuilding.upRequests.size());
+    assertEquals(new Request(1, 4), smallBuilding.upRequests.get(0));
+    assertEquals(1, smallBuilding.downRequests.size());
+    assertTrue(smallBuilding.elevators[0].getFloorRequests()[5]);
+    assertTrue(smallBuilding.elevators[0].getFloorRequests()[8]);
+  }
+
+  /**
+   * Test that a moving elevator leaves hall calls alone under the default FIFO dispatch.
+   */
+  @Test
+  public void testFifoDoesNotPickUpAhead() {
+    Building smallBuilding = new Building(10, 1, 5);
+    smallBuilding.startElevatorSystem();
+    for (int i = 0; i < 7; i++) {
+      smallBuilding.stepElevatorSystem();
+    }
+
+    smallBuilding.addRequest(5, 8);
+    smallBuilding.stepElevatorSystem();
+
+    assertEquals(1, smallBuilding.upRequests.size());
+    assertFalse(smallBuilding.elevators[0].getFloorRequests()[5]);
+  }
+
+  /**
+   * Test that with early reversal an elevator turns around after its last stop.
+   */
+  @Test
+  public void testReverseWhenIdle() {
+    Building smallBuilding = new Building(10, 1, 5);
+    smallBuilding.setReverseWhenIdle(true);
+    smallBuilding.startElevatorSystem();
+    smallBuilding.addRequest(0, 3);
+
+    int highestFloor = 0;
+    for (int i = 0; i < 40; i++) {
+      smallBuilding.stepElevatorSystem();
+      highestFloor = Math.max(highestFloor, smallBuilding.elevators[0].getCurrentFloor());
+    }
+    assertEquals(3, highestFloor);
+    assertEquals(0, smallBuilding.elevators[0].getCurrentFloor());
+    assertTrue(smallBuilding.elevators[0].isTakingRequests());
+  }
+
+  /**
+   * Test that with early reversal an elevator still goes to the top for a down call.
+   */
+  @Test
+  public void testReverseWhenIdleStillServesDownCalls() {
+    Building smallBuilding = new Building(10, 1, 5);
+    smallBuilding.setReverseWhenIdle(true);
+    smallBuilding.startElevatorSystem();
+    smallBuilding.addRequest(0, 3);
+    smallBuilding.addRequest(6, 2);
+
+    for (int i = 0; i < 20; i++) {
+      smallBuilding.stepElevatorSystem();
+    }
+    assertEquals(0, smallBuilding.downRequests.size());
+  }
+
+  /**
+   * Test that without early reversal an elevator runs to the top floor.
+   */
+  @Test
+  public void testNoReverseByDefault() {
+    Building smallBuilding = new Building(10, 1, 5);
+    smallBuilding.startElevatorSystem();
+    smallBuilding.addRequest(0, 3);
+
+    int highestFloor = 0;
+    for (int i = 0; i < 40; i++) {
+      smallBuilding.stepElevatorSystem();
+      highestFloor = Math.max(highestFloor, smallBuilding.elevators[0].getCurrentFloor());
+    }
+    assertEquals(9, highestFloor);
+  }
+
   /**
    * Test the stepElevatorSystem method with no requests.
    */
@@ -432,6 +613,161 @@ public class BuildingTest {
     assertEquals(ElevatorSystemStatus.outOfService, report.getSystemStatus());
   }
 
+  /**
+   * Test that stepping a large fleet in parallel matches stepping it serially.
+   */
+  @Test
+  public void testParallelSteppingMatchesSerial() {
+    Building serial = new Building(25, 200, 10, new NearestCarDispatch());
+    Building parallel = new Building(25, 200, 10, new NearestCarDispatch());
+    ForkJoinPool pool = new ForkJoinPool(4);
+    parallel.setStepPool(pool);
+    assertEquals(pool, parallel.getStepPool());
+
+    serial.startElevatorSystem();
+    parallel.startElevatorSystem();
+    Random random = new Random(42);
+    try {
+      for (int t = 0; t < 400; t++) {
+        for (int i = 0; i < 20; i++) {
+          int start = random.nextInt(25);
+          int end = (start + 1 + random.nextInt(24)) % 25;
+          serial.addRequest(start, end);
+          parallel.addRequest(start, end);
+        }
+        serial.stepElevatorSystem();
+        parallel.stepElevatorSystem();
+      }
+    } finally {
+      pool.shutdown();
+    }
+
+    ElevatorReport[] expected = serial.getBuildingReport().getElevatorReports();
+    ElevatorReport[] actual = parallel.getBuildingReport().getElevatorReports();
+    for (int i = 0; i < expected.length; i++) {
+      assertEquals(expected[i].getCurrentFloor(), actual[i].getCurrentFloor());
+      assertEquals(expected[i].getDirection(), actual[i].getDirection());
+      assertEquals(expected[i].isDoorClosed(), actual[i].isDoorClosed());
+      assertEquals(expected[i].getDoorOpenTimer(), actual[i].getDoorOpenTimer());
+      assertEquals(expected[i].getEndWaitTimer(), actual[i].getEndWaitTimer());
+      assertArrayEquals(expected[i].getFloorRequests(), actual[i].getFloorRequests());
+    }
+    assertEquals(serial.getBuildingReport().getUpRequests(),
+        parallel.getBuildingReport().getUpRequests());
+    assertEquals(serial.getBuildingReport().getDownRequests(),
+        parallel.getBuildingReport().getDownRequests());
+  }
+
+  /**
+   * Test that an ordinary building cannot have more than 30 floors.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testConstructorTooManyFloors() {
+    new Building(31, 3, 8);
+  }
+
+  /**
+   * Test that a supertall building carries passengers to its top floors.
+   */
+  @Test
+  public void testSupertallBuilding() {
+    Building tower = new Building(500, 4, 100, new CollectiveControlDispatch(), true);
+    assertTrue(tower.isSupertall());
+    tower.setReverseWhenIdle(true);
+    tower.startElevatorSystem();
+    tower.addRequest(0, 499);
+    tower.addRequest(250, 3);
+    tower.addRequest(120, 480);
+
+    for (int t = 0; t < 3000; t++) {
+      tower.stepElevatorSystem();
+    }
+    assertTrue(tower.upRequests.isEmpty());
+    assertTrue(tower.downRequests.isEmpty());
+    for (ElevatorInterface elevator : tower.elevators) {
+      assertFalse(elevator.hasStopsAhead());
+    }
+  }
+
+  /**
+   * Test that a building report does not change as the building runs.
+   */
+  @Test
+  public void testBuildingReportIsSnapshot() {
+    building.startElevatorSystem();
+    building.addRequest(0, 5);
+    building.addRequest(3, 1);
+    BuildingReport before = building.getBuildingReport();
+    String beforeText = before.toString();
+
+    building.stepElevatorSystem();
+    BuildingReport after = building.getBuildingReport();
+    building.addRequest(2, 6);
+    assertEquals(1, before.getUpRequests().size());
+    assertEquals(new Request(0, 5), before.getUpRequests().get(0));
+    assertEquals(beforeText, before.toString());
+    assertTrue(after.getElevatorReports()[0].getFloorRequests()[5]);
+    assertFalse(before.getElevatorReports()[0].getFloorRequests()[5]);
+    assertTrue(after.getUpRequests().isEmpty());
+
+    for (int i = 0; i < 12; i++) {
+      building.stepElevatorSystem();
+    }
+    assertTrue(after.getElevatorReports()[0].getFloorRequests()[5]);
+  }
+
+  /**
+   * Test that writing a report gives the same text as the old concatenated toString,
+   * both for live snapshots and for reports built from plain lists.
+   */
+  @Test
+  public void testBuildingReportAppendTo() throws Exception {
+    Building busy = new Building(12, 3, 8, new NearestCarDispatch());
+    busy.startElevatorSystem();
+    Random random = new Random(5);
+    StringBuilder reused = new StringBuilder();
+    for (int t = 0; t < 300; t++) {
+      if (random.nextInt(3) == 0) {
+        int start = random.nextInt(12);
+        busy.addRequest(start, (start + 1 + random.nextInt(11)) % 12);
+      }
+      busy.stepElevatorSystem();
+      BuildingReport report = busy.getBuildingReport();
+      String expected = concatenated(report);
+      assertEquals(expected, report.toString());
+      reused.setLength(0);
+      assertEquals(expected, report.appendTo(reused).toString());
+      StringWriter writer = new StringWriter();
+      report.appendTo((Appendable) writer);
+      assertEquals(expected, writer.toString());
+    }
+
+    BuildingReport plain = new BuildingReport(150, 1, 8, new ElevatorReport[0],
+        new LinkedList<>(List.of(new Request(120, 140))),
+        List.of(new Request(3, 1), new Request(101, 0)),
+        ElevatorSystemStatus.running);
+    assertEquals(concatenated(plain), plain.toString());
+  }
+
+  /**
+   * The report as it was written by concatenating each part's toString.
+   */
+  private static String concatenated(BuildingReport report) {
+    StringBuilder elevatorReports = new StringBuilder();
+    for (ElevatorReport elevatorReport : report.getElevatorReports()) {
+      elevatorReports.append("\n\s\s\s\s").append(elevatorReport);
+    }
+    return "Building Report:"
+        + "\n\s\sNumber of Floors: " + report.getNumFloors()
+        + "\s (from 0 to " + (report.getNumFloors() - 1) + ")"
+        + "\n\s\sNumber of Elevators: " + report.getNumElevators()
+        + "\n\s\sElevator Capacity: " + report.getElevatorCapacity()
+        + "\n\s\sElevator Reports: " + elevatorReports
+        + "\n\s\sUp Requests: " + report.getUpRequests()
+        + "\n\s\sDown Requests: " + report.getDownRequests()
+        + "\n\s\sSystem Status: " + report.getSystemStatus();
+  }
+
   /**
    * Test the toString method in the BuildingReport class.
    */
@@ -0,0 +1,139 @@
+package building;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import building.enums.RequestStatus;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * This is a test class using JUnit 4 for the ConcurrentBuilding class.
+ */
+public class ConcurrentBuildingTest {
+  private ConcurrentBuilding building;
+
+  @Before
+  public void setUp() {
+    building = new ConcurrentBuilding(10, 3, 8);
+  }
+
+  /**
+   * Test that requests only reach the queues when the system steps.
+   */
+  @Test
+  public void testRequestsArriveOnStep() {
+    building.startElevatorSystem();
+    assertTrue(building.addRequest(9, 2));
+    assertEquals(0, building.downRequests.size());
+
+    building.stepElevatorSystem();
+    assertEquals(1, building.downRequests.size());
+    assertEquals(9, building.downRequests.getStartFloor(0));
+    assertEquals(2, building.downRequests.getEndFloor(0));
+  }
+
+  /**
+   * Test that requests are still validated on the calling thread.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidRequestThrows() {
+    building.startElevatorSystem();
+    building.addRequest(3, 3);
+  }
+
+  /**
+   * Test that requests cannot be added when the system is not running.
+   */
+  @Test(expected = IllegalStateException.class)
+  public void testRequestSystemOutOfService() {
+    building.addRequest(1, 5);
+  }
+
+  /**
+   * Test that a full inbox rejects requests instead of blocking.
+   */
+  @Test
+  public void testFullInboxRejects() {
+    ConcurrentBuilding small = new ConcurrentBuilding(10, 1, 3, 2);
+    small.startElevatorSystem();
+    assertTrue(small.addRequest(9, 1));
+    assertTrue(small.addRequest(8, 1));
+    assertFalse(small.addRequest(7, 1));
+
+    small.stepElevatorSystem();
+    assertTrue(small.addRequest(7, 1));
+  }
+
+  /**
+   * Test that a batch that does not fit in the inbox is rejected as a whole.
+   */
+  @Test
+  public void testBatchIntoFullInbox() {
+    ConcurrentBuilding small = new ConcurrentBuilding(10, 1, 3, 4);
+    small.startElevatorSystem();
+    assertTrue(small.addRequest(9, 1));
+    byte[] statuses = small.addRequests(new int[]{9, 8, 7, 6, 1}, new int[]{1, 1, 1, 1, 5});
+
+    assertEquals(RequestStatus.REJECTED, RequestStatus.fromCode(statuses[0]));
+    assertEquals(RequestStatus.REJECTED, RequestStatus.fromCode(statuses[3]));
+    assertEquals(RequestStatus.ACCEPTED, RequestStatus.fromCode(statuses[4]));
+
+    statuses = small.addRequests(new int[]{9, 8, 7}, new int[]{1, 1, 1});
+    assertEquals(RequestStatus.ACCEPTED, RequestStatus.fromCode(statuses[2]));
+    small.stepElevatorSystem();
+    assertEquals(4, small.downRequests.size());
+  }
+
+  /**
+   * Test that requests waiting in the inbox are dropped when the system stops.
+   */
+  @Test
+  public void testStopDropsPendingRequests() {
+    building.startElevatorSystem();
+    building.addRequest(9, 2);
+    building.stopElevatorSystem();
+    building.stepElevatorSystem();
+    assertEquals(0, building.downRequests.size());
+  }
+
+  /**
+   * Test that no request is lost when many threads add requests at once.
+   */
+  @Test
+  public void testManyProducers() throws InterruptedException {
+    final int threads = 8;
+    final int perThread = 2000;
+    building.startElevatorSystem();
+
+    CountDownLatch startLine = new CountDownLatch(1);
+    List<Thread> producers = new ArrayList<>();
+    for (int t = 0; t < threads; t++) {
+      final int startFloor = 1 + t % 9;
+      Thread producer = new Thread(() -> {
+        try {
+          startLine.await();
+        } catch (InterruptedException e) {
+          return;
+        }
+        for (int i = 0; i < perThread; i++) {
+          building.addRequest(startFloor, 0);
+        }
+      });
+      producer.start();
+      producers.add(producer);
+    }
+
+    startLine.countDown();
+    for (Thread producer : producers) {
+      producer.join();
+    }
+    building.stepElevatorSystem();
+
+    assertEquals(threads * perThread, building.downRequests.size());
+  }
+}
@@ -0,0 +1,269 @@
+package building;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.Before;
+import org.junit.Test;
+import scanerzus.Request;
+
+/**
+ * This is a test class using JUnit 4 for the RequestQueue class.
+ */
+public class RequestQueueTest {
+  private RequestQueue queue;
+
+  @Before
+  public void setUp() {
+    queue = new RequestQueue();
+  }
+
+  /**
+   * Test that a new queue is empty.
+   */
+  @Test
+  public void testNewQueueIsEmpty() {
+    assertTrue(queue.isEmpty());
+    assertEquals(0, queue.size());
+    assertEquals(0, queue.asList().size());
+  }
+
+  /**
+   * Test that requests come out in the order they were added.
+   */
+  @Test
+  public void testFirstInFirstOut() {
+    queue.add(0, 3);
+    queue.add(1, 4);
+    queue.add(2, 5);
+
+    int[] starts = new int[2];
+    int[] ends = new int[2];
+    assertEquals(3, queue.size());
+    assertEquals(2, queue.poll(starts, ends, 2));
+    assertArrayEquals(new int[]{0, 1}, starts);
+    assertArrayEquals(new int[]{3, 4}, ends);
+    assertEquals(1, queue.poll(starts, ends, 2));
+    assertEquals(2, starts[0]);
+    assertEquals(5, ends[0]);
+    assertTrue(queue.isEmpty());
+    assertEquals(0, queue.poll(starts, ends, 2));
+  }
+
+  /**
+   * Test that the requests are packed and unpacked without loss.
+   */
+  @Test
+  public void testPackRoundTrip() {
+    long packed = RequestQueue.pack(29, 0);
+    assertEquals(29, RequestQueue.startFloorOf(packed));
+    assertEquals(0, RequestQueue.endFloorOf(packed));
+    packed = RequestQueue.pack(-1, Integer.MAX_VALUE);
+    assertEquals(-1, RequestQueue.startFloorOf(packed));
+    assertEquals(Integer.MAX_VALUE, RequestQueue.endFloorOf(packed));
+  }
+
+  /**
+   * Test that the queue keeps its order when it grows after wrapping around.
+   */
+  @Test
+  public void testGrowAfterWrapAround() {
+    int[] starts = new int[100];
+    int[] ends = new int[100];
+    for (int i = 0; i < 10; i++) {
+      queue.add(i, i + 1);
+    }
+    queue.poll(starts, ends, 10);
+    for (int i = 0; i < 100; i++) {
+      queue.add(i, i + 1);
+    }
+
+    assertEquals(100, queue.size());
+    for (int i = 0; i < 100; i++) {
+      assertEquals(i, queue.getStartFloor(i));
+      assertEquals(i + 1, queue.getEndFloor(i));
+    }
+    assertEquals(100, queue.poll(starts, ends, 100));
+    for (int i = 0; i < 100; i++) {
+      assertEquals(i, starts[i]);
+    }
+  }
+
+  /**
+   * Test that requests can be taken from the middle by start floor, keeping the order.
+   */
+  @Test
+  public void testPollStartingBetween() {
+    queue.add(1, 5);
+    queue.add(6, 9);
+    queue.add(2, 3);
+    queue.add(7, 8);
+    queue.add(8, 9);
+
+    int[] starts = new int[2];
+    int[] ends = new int[2];
+    assertEquals(2, queue.pollStartingBetween(5, 9, starts, ends, 2));
+    assertArrayEquals(new int[]{6, 7}, starts);
+    assertArrayEquals(new int[]{9, 8}, ends);
+    assertEquals("[1->5, 2->3, 8->9]", queue.toString());
+
+    assertEquals(0, queue.pollStartingBetween(3, 7, starts, ends, 2));
+    assertEquals(3, queue.size());
+  }
+
+  /**
+   * Test that the list view follows the queue.
+   */
+  @Test
+  public void testListViewIsLive() {
+    List<Request> view = queue.asList();
+    queue.add(2, 5);
+    queue.add(3, 6);
+    assertEquals(2, view.size());
+    assertEquals("[2->5, 3->6]", view.toString());
+    assertEquals(new Request(2, 5), view.get(0));
+
+    queue.poll(new int[1], new int[1], 1);
+    assertEquals(1, view.size());
+    assertEquals(3, view.get(0).getStartFloor());
+  }
+
+  /**
+   * Test that the list view cannot be used to change the queue.
+   */
+  @Test(expected = UnsupportedOperationException.class)
+  public void testListViewIsReadOnly() {
+    queue.add(2, 5);
+    queue.asList().remove(0);
+  }
+
+  /**
+   * Test that clear removes all the requests.
+   */
+  @Test
+  public void testClear() {
+    queue.add(2, 5);
+    queue.add(3, 6);
+    queue.clear();
+    assertTrue(queue.isEmpty());
+    assertFalse(queue.asList().iterator().hasNext());
+  }
+
+  /**
+   * Test that get outside the queue throws.
+   */
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void testGetOutOfRange() {
+    queue.add(2, 5);
+    queue.get(1);
+  }
+
+  /**
+   * Test that the start floor counts follow requests in and out of the queue.
+   */
+  @Test
+  public void testStartFloorCounts() {
+    queue.add(2, 5);
+    queue.add(2, 7);
+    queue.add(300, 310);
+    queue.addAll(new long[]{RequestQueue.pack(40, 41)}, 1);
+    assertEquals(2, queue.countStartingAt(2));
+    assertEquals(1, queue.countStartingAt(300));
+    assertEquals(0, queue.countStartingAt(1000));
+    assertTrue(queue.anyStartingBetween(41, 300));
+    assertTrue(queue.anyStartingBetween(0, 2));
+    assertFalse(queue.anyStartingBetween(3, 39));
+    assertFalse(queue.anyStartingBetween(301, 5000));
+
+    int[] starts = new int[4];
+    int[] ends = new int[4];
+    assertEquals(1, queue.pollStartingBetween(200, 400, starts, ends, 4));
+    assertFalse(queue.anyStartingBetween(41, 400));
+    assertEquals(1, queue.pollIf((start, end) -> end == 7, 4));
+    assertEquals(1, queue.countStartingAt(2));
+    assertEquals(2, queue.poll(starts, ends, 4));
+    assertFalse(queue.anyStartingBetween(0, 400));
+
+    queue.add(9, 1);
+    queue.clear();
+    assertEquals(0, queue.countStartingAt(9));
+    assertFalse(queue.anyStartingBetween(0, 400));
+  }
+
+  /**
+   * Test that a negative start floor is rejected.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testNegativeStartFloor() {
+    queue.add(-1, 5);
+  }
+
+  /**
+   * Test that a snapshot does not change when the queue does.
+   */
+  @Test
+  public void testSnapshotDoesNotChange() {
+    queue.add(2, 5);
+    queue.add(3, 6);
+    List<Request> snapshot = queue.snapshot();
+
+    queue.add(4, 7);
+    queue.pollIf((start, end) -> start == 3, 1);
+    assertEquals(2, snapshot.size());
+    assertEquals(new Request(2, 5), snapshot.get(0));
+    assertEquals(new Request(3, 6), snapshot.get(1));
+    assertEquals(2, queue.size());
+  }
+
+  /**
+   * Test that snapshots taken at random points all keep what they saw, while the
+   * queue wraps around, grows, compacts and is cleared.
+   */
+  @Test
+  public void testSnapshotsUnderRandomChanges() {
+    Random random = new Random(5);
+    List<List<Request>> snapshots = new ArrayList<>();
+    List<List<Request>> expected = new ArrayList<>();
+    int[] starts = new int[8];
+    int[] ends = new int[8];
+    for (int step = 0; step < 5000; step++) {
+      switch (random.nextInt(6)) {
+        case 0:
+        case 1:
+          queue.add(random.nextInt(10), 10 + random.nextInt(10));
+          break;
+        case 2:
+          queue.addAll(new long[]{RequestQueue.pack(1, 11), RequestQueue.pack(2, 12),
+              RequestQueue.pack(3, 13)}, 1 + random.nextInt(3));
+          break;
+        case 3:
+          queue.poll(starts, ends, 1 + random.nextInt(3));
+          break;
+        case 4:
+          int low = random.nextInt(10);
+          queue.pollStartingBetween(low, low + 2, starts, ends, 2);
+          break;
+        default:
+          if (random.nextInt(50) == 0) {
+            queue.clear();
+          } else {
+            queue.pollIf((start, end) -> start % 3 == 0, 2);
+          }
+          break;
+      }
+      if (random.nextInt(4) == 0) {
+        snapshots.add(queue.snapshot());
+        expected.add(new ArrayList<>(queue.asList()));
+      }
+    }
+
+    for (int i = 0; i < snapshots.size(); i++) {
+      assertEquals(expected.get(i), snapshots.get(i));
+    }
+  }
+}
@@ -0,0 +1,223 @@
+package building;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import building.dispatch.CollectiveControlDispatch;
+import building.dispatch.EtaCostDispatch;
+import building.enums.ElevatorSystemStatus;
+import elevator.ElevatorReport;
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * This is a test class using JUnit 4 for the SimulationEngine class.
+ */
+public class SimulationEngineTest {
+
+  /**
+   * Test that the engine ends up in the same state as stepping one step at a time.
+   */
+  @Test
+  public void testMatchesSteppingEveryStep() {
+    Building stepped = new Building(12, 3, 5);
+    Building engineBuilding = new Building(12, 3, 5);
+    assertSameRun(stepped, engineBuilding, 7);
+  }
+
+  /**
+   * Test that the engine matches stepping with a cost based strategy and early reversal.
+   */
+  @Test
+  public void testMatchesSteppingWithReversal() {
+    Building stepped = new Building(15, 4, 6, new EtaCostDispatch());
+    Building engineBuilding = new Building(15, 4, 6, new EtaCostDispatch());
+    stepped.setReverseWhenIdle(true);
+    engineBuilding.setReverseWhenIdle(true);
+    assertSameRun(stepped, engineBuilding, 11);
+  }
+
+  /**
+   * Test that the engine matches stepping a concurrent building.
+   */
+  @Test
+  public void testMatchesSteppingConcurrentBuilding() {
+    Building stepped = new ConcurrentBuilding(10, 2, 4,
+        new CollectiveControlDispatch(), 64);
+    Building engineBuilding = new ConcurrentBuilding(10, 2, 4,
+        new CollectiveControlDispatch(), 64);
+    assertSameRun(stepped, engineBuilding, 3);
+  }
+
+  /**
+   * Test that a stopped system is skipped over in one jump.
+   */
+  @Test
+  public void testOutOfServiceIsSkipped() {
+    Building building = new Building(10, 3, 8);
+    SimulationEngine engine = new SimulationEngine(building);
+    engine.runUntil(1_000_000L);
+
+    assertEquals(1_000_000L, engine.getTime());
+    assertEquals(0, engine.getStepsRun());
+    assertEquals(1_000_000L, engine.getStepsSkipped());
+  }
+
+  /**
+   * Test that the waits at the top and bottom are skipped.
+   */
+  @Test
+  public void testWaitsAreSkipped() {
+    Building building = new Building(10, 3, 8);
+    building.startElevatorSystem();
+    SimulationEngine engine = new SimulationEngine(building);
+    engine.runUntil(500);
+
+    assertEquals(500, engine.getTime());
+    assertEquals(500, engine.getStepsRun() + engine.getStepsSkipped());
+    assertTrue(engine.getStepsSkipped() > 0);
+  }
+
+  /**
+   * Test that requests arriving while the system is not running are counted as rejected.
+   */
+  @Test
+  public void testRejectedRequests() {
+    Building building = new Building(10, 3, 8);
+    SimulationEngine engine = new SimulationEngine(building);
+    engine.scheduleRequest(10, 1, 5);
+    engine.scheduleRequest(10, 6, 2);
+    engine.runUntil(10);
+    assertEquals(2, engine.getPendingArrivals());
+    assertEquals(10, engine.getNextArrivalTime());
+
+    engine.runUntil(11);
+    assertEquals(0, engine.getPendingArrivals());
+    assertEquals(Long.MAX_VALUE, engine.getNextArrivalTime());
+    assertEquals(2, engine.getRequestsRejected());
+  }
+
+  /**
+   * Test that a request cannot be scheduled in the past.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testScheduleInThePast() {
+    SimulationEngine engine = new SimulationEngine(new Building(10, 3, 8));
+    engine.runUntil(20);
+    engine.scheduleRequest(19, 1, 5);
+  }
+
+  /**
+   * Test that the engine cannot run backwards.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testRunUntilThePast() {
+    SimulationEngine engine = new SimulationEngine(new Building(10, 3, 8));
+    engine.runUntil(20);
+    engine.runUntil(19);
+  }
+
+  /**
+   * Test that the building cannot be null.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testNullBuilding() {
+    new SimulationEngine(null);
+  }
+
+  /**
+   * Test that skipping more steps than are idle throws.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testSkipTooManySteps() {
+    Building building = new Building(10, 3, 8);
+    building.startElevatorSystem();
+    building.skipSteps(building.getIdleSteps() + 1);
+  }
+
+  /**
+   * Run sparse random traffic through both buildings, one stepped every step and one
+   * run by the engine, and compare them at a series of times.
+   */
+  private static void assertSameRun(Building stepped, Building engineBuilding, long seed) {
+    final int steps = 3000;
+    int floors = stepped.getNumOfFloors();
+    int[][] arrivals = new int[steps][];
+    Random random = new Random(seed);
+    for (int t = 0; t < steps; t++) {
+      // Quiet stretches with the odd burst, so there are idle steps to skip.
+      if ((t / 200) % 2 == 0 && random.nextInt(15) == 0) {
+        int count = 1 + random.nextInt(3);
+        arrivals[t] = new int[count * 2];
+        for (int i = 0; i < count; i++) {
+          int start = random.nextInt(floors);
+          int end = random.nextInt(floors - 1);
+          arrivals[t][2 * i] = start;
+          arrivals[t][2 * i + 1] = end >= start ? end + 1 : end;
+        }
+      }
+    }
+
+    stepped.startElevatorSystem();
+    engineBuilding.startElevatorSystem();
+    SimulationEngine engine = new SimulationEngine(engineBuilding);
+    for (int t = 0; t < steps; t++) {
+      if (arrivals[t] != null) {
+        for (int i = 0; i < arrivals[t].length; i += 2) {
+          engine.scheduleRequest(t, arrivals[t][i], arrivals[t][i + 1]);
+        }
+      }
+    }
+
+    for (int t = 0; t < steps; t++) {
+      if (t == 2500) {
+        stepped.stopElevatorSystem();
+        engine.runUntil(t);
+        engineBuilding.stopElevatorSystem();
+      }
+      if (arrivals[t] != null) {
+        int count = arrivals[t].length / 2;
+        int[] starts = new int[count];
+        int[] ends = new int[count];
+        for (int i = 0; i < count; i++) {
+          starts[i] = arrivals[t][2 * i];
+          ends[i] = arrivals[t][2 * i + 1];
+        }
+        stepped.addRequests(starts, ends);
+      }
+      stepped.stepElevatorSystem();
+
+      if ((t + 1) % 97 == 0 || t + 1 == steps) {
+        engine.runUntil(t + 1);
+        BuildingReport expected = stepped.getBuildingReport();
+        BuildingReport actual = engineBuilding.getBuildingReport();
+        for (int i = 0; i < expected.getElevatorReports().length; i++) {
+          assertSameState("at step " + (t + 1), expected.getElevatorReports()[i],
+              actual.getElevatorReports()[i]);
+        }
+        assertEquals(expected.getUpRequests(), actual.getUpRequests());
+        assertEquals(expected.getDownRequests(), actual.getDownRequests());
+        assertEquals(expected.getSystemStatus(), actual.getSystemStatus());
+      }
+    }
+    assertEquals(ElevatorSystemStatus.outOfService,
+        engineBuilding.getBuildingReport().getSystemStatus());
+    assertTrue(engine.getStepsSkipped() > 0);
+  }
+
+  /**
+   * Compare two elevator reports, ignoring the elevator ids.
+   */
+  private static void assertSameState(String message, ElevatorReport expected,
+                                      ElevatorReport actual) {
+    assertEquals(message, expected.getCurrentFloor(), actual.getCurrentFloor());
+    assertEquals(message, expected.getDirection(), actual.getDirection());
+    assertEquals(message, expected.isDoorClosed(), actual.isDoorClosed());
+    assertEquals(message, expected.getDoorOpenTimer(), actual.getDoorOpenTimer());
+    assertEquals(message, expected.getEndWaitTimer(), actual.getEndWaitTimer());
+    assertEquals(message, expected.isOutOfService(), actual.isOutOfService());
+    assertEquals(message, expected.isTakingRequests(), actual.isTakingRequests());
+    assertArrayEquals(expected.getFloorRequests(), actual.getFloorRequests());
+  }
+}
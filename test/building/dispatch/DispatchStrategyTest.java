@@ -0,0 +1,158 @@
+package building.dispatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import building.RequestQueue;
+import elevator.Elevator;
+import elevator.ElevatorInterface;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * This is a test class using JUnit 4 for the built-in dispatch strategies.
+ */
+public class DispatchStrategyTest {
+  private RequestQueue upRequests;
+  private RequestQueue downRequests;
+
+  @Before
+  public void setUp() {
+    upRequests = new RequestQueue();
+    downRequests = new RequestQueue();
+  }
+
+  /**
+   * Make an elevator that is moving up past floor 2 with stops at 3, 4 and 5.
+   */
+  private Elevator busyElevatorAtFloorTwo() {
+    Elevator elevator = new Elevator(10, 5);
+    elevator.start();
+    for (int i = 0; i < 7; i++) {
+      elevator.step();
+    }
+    assertEquals(2, elevator.getCurrentFloor());
+    elevator.processRequestsAhead(new int[]{3, 4}, new int[]{5, 5}, 2);
+    return elevator;
+  }
+
+  /**
+   * Test that FIFO gives all the requests to the first waiting elevator.
+   */
+  @Test
+  public void testFifoFillsFirstElevator() {
+    Elevator first = new Elevator(10, 5);
+    Elevator second = new Elevator(10, 5);
+    first.start();
+    second.start();
+    upRequests.add(0, 3);
+    upRequests.add(0, 4);
+
+    new FifoDispatch().distributeRequests(
+        new ElevatorInterface[]{first, second}, upRequests, downRequests, 5);
+
+    assertFalse(first.isTakingRequests());
+    assertTrue(second.isTakingRequests());
+    assertTrue(upRequests.isEmpty());
+  }
+
+  /**
+   * Test that nearest car spreads equally near requests across waiting elevators.
+   */
+  @Test
+  public void testNearestCarSpreadsTies() {
+    Elevator first = new Elevator(10, 5);
+    Elevator second = new Elevator(10, 5);
+    first.start();
+    second.start();
+    upRequests.add(0, 3);
+    upRequests.add(0, 4);
+
+    new NearestCarDispatch().distributeRequests(
+        new ElevatorInterface[]{first, second}, upRequests, downRequests, 5);
+
+    assertFalse(first.isTakingRequests());
+    assertFalse(second.isTakingRequests());
+    assertTrue(first.getFloorRequests()[3]);
+    assertTrue(second.getFloorRequests()[4]);
+  }
+
+  /**
+   * Test that nearest car picks the closest elevator even if it has stops on the way.
+   */
+  @Test
+  public void testNearestCarPicksClosest() {
+    Elevator busy = busyElevatorAtFloorTwo();
+    Elevator idle = new Elevator(10, 5);
+    idle.start();
+    upRequests.add(6, 9);
+
+    new NearestCarDispatch().distributeRequests(
+        new ElevatorInterface[]{busy, idle}, upRequests, downRequests, 5);
+
+    assertTrue(busy.getFloorRequests()[6]);
+    assertTrue(idle.isTakingRequests());
+  }
+
+  /**
+   * Test that the ETA strategy counts the stops on the way.
+   */
+  @Test
+  public void testEtaAvoidsBusyElevator() {
+    Elevator busy = busyElevatorAtFloorTwo();
+    Elevator idle = new Elevator(10, 5);
+    idle.start();
+    upRequests.add(6, 9);
+
+    new EtaCostDispatch().distributeRequests(
+        new ElevatorInterface[]{busy, idle}, upRequests, downRequests, 5);
+
+    assertFalse(busy.getFloorRequests()[6]);
+    assertFalse(idle.isTakingRequests());
+    assertTrue(idle.getFloorRequests()[6]);
+    assertTrue(idle.getFloorRequests()[9]);
+  }
+
+  /**
+   * Test that requests no elevator can serve stay in the queue in order.
+   */
+  @Test
+  public void testUnservedRequestsStay() {
+    Elevator busy = busyElevatorAtFloorTwo();
+    upRequests.add(1, 9);
+    upRequests.add(6, 9);
+    upRequests.add(0, 4);
+    downRequests.add(8, 1);
+
+    new EtaCostDispatch().distributeRequests(
+        new ElevatorInterface[]{busy}, upRequests, downRequests, 5);
+
+    assertEquals("[1->9, 0->4]", upRequests.toString());
+    assertEquals(1, downRequests.size());
+  }
+
+  /**
+   * Test that collective control respects the room left on the run.
+   */
+  @Test
+  public void testCollectiveControlRespectsCapacity() {
+    Elevator elevator = new Elevator(10, 5);
+    elevator.start();
+    upRequests.add(0, 1);
+    upRequests.add(0, 2);
+    upRequests.add(0, 3);
+    CollectiveControlDispatch strategy = new CollectiveControlDispatch();
+    ElevatorInterface[] elevators = new ElevatorInterface[]{elevator};
+    strategy.distributeRequests(elevators, upRequests, downRequests, 4);
+
+    elevator.step();
+    upRequests.add(5, 6);
+    upRequests.add(6, 7);
+    strategy.distributeRequests(elevators, upRequests, downRequests, 4);
+
+    assertEquals(1, upRequests.size());
+    assertTrue(elevator.getFloorRequests()[5]);
+    assertFalse(elevator.getFloorRequests()[7]);
+  }
+}
@@ -0,0 +1,217 @@
+package building.journal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import building.Building;
+import building.ConcurrentBuilding;
+import building.SimulationEngine;
+import building.dispatch.NearestCarDispatch;
+import building.enums.Direction;
+import building.enums.ElevatorSystemStatus;
+import building.enums.EventType;
+import elevator.ElevatorReport;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * This is a test class using JUnit 4 for the EventJournal and JournalReader classes.
+ */
+public class EventJournalTest {
+
+  /**
+   * Test that playing the journal back gives the state of the building at every
+   * checkpoint, with idle steps skipped and a stop part way through.
+   */
+  @Test
+  public void testJournalFollowsBuilding() throws IOException {
+    final int steps = 3000;
+    Path path = tempJournal();
+    Building building = new Building(12, 3, 5, new NearestCarDispatch());
+    List<long[]> checkpoints = new ArrayList<>();
+    long requests = 0;
+    // a small buffer so the journal is written in many batches
+    try (EventJournal journal = new EventJournal(path, 12, 3, 64)) {
+      building.setJournal(journal);
+      building.startElevatorSystem();
+      SimulationEngine engine = new SimulationEngine(building);
+      Random random = new Random(4);
+      for (int t = 0; t < 2400; t++) {
+        if ((t / 200) % 2 == 0 && random.nextInt(15) == 0) {
+          int start = random.nextInt(12);
+          engine.scheduleRequest(t, start, (start + 1 + random.nextInt(11)) % 12);
+          requests++;
+        }
+      }
+      for (long t = 97; t < steps; t += 97) {
+        if (t > 2500 && building.getBuildingReport().getSystemStatus()
+            == ElevatorSystemStatus.running) {
+          building.stopElevatorSystem();
+        }
+        engine.runUntil(t);
+        checkpoints.add(state(building, t));
+      }
+      assertTrue(engine.getStepsSkipped() > 0);
+    }
+
+    int[] floors = new int[3];
+    Direction[] directions = new Direction[3];
+    boolean[] doorsClosed = new boolean[3];
+    boolean[] outOfService = new boolean[3];
+    ElevatorSystemStatus status = null;
+    long requested = 0;
+    long assigned = 0;
+    long lastTick = 0;
+    try (JournalReader reader = new JournalReader(path)) {
+      assertEquals(12, reader.getNumOfFloors());
+      assertEquals(3, reader.getNumOfElevators());
+      int checkpoint = 0;
+      boolean more = reader.next();
+      while (checkpoint < checkpoints.size()) {
+        long[] expected = checkpoints.get(checkpoint);
+        // the state after t steps is every event of the steps before t
+        while (more && reader.getTick() < expected[0]) {
+          assertTrue(reader.getTick() >= lastTick);
+          lastTick = reader.getTick();
+          int e = reader.getElevator();
+          switch (reader.getType()) {
+            case SYSTEM_STATUS:
+              status = reader.getStatus();
+              break;
+            case REQUEST:
+              requested++;
+              break;
+            case ASSIGN:
+              assigned++;
+              break;
+            case FLOOR:
+              floors[e] = reader.getFloor();
+              break;
+            case DIRECTION:
+              directions[e] = reader.getDirection();
+              break;
+            case DOOR_OPEN:
+            case DOOR_CLOSE:
+              doorsClosed[e] = reader.getType() == EventType.DOOR_CLOSE;
+              break;
+            case SERVICE:
+              outOfService[e] = reader.isOutOfService();
+              break;
+            default:
+              break;
+          }
+          more = reader.next();
+        }
+        long[] actual = new long[expected.length];
+        actual[0] = expected[0];
+        actual[1] = status.ordinal();
+        for (int i = 0; i < 3; i++) {
+          actual[2 + 4 * i] = floors[i];
+          actual[3 + 4 * i] = directions[i].ordinal();
+          actual[4 + 4 * i] = doorsClosed[i] ? 1 : 0;
+          actual[5 + 4 * i] = outOfService[i] ? 1 : 0;
+        }
+        for (int i = 0; i < expected.length; i++) {
+          assertEquals("at step " + expected[0] + ", field " + i, expected[i], actual[i]);
+        }
+        checkpoint++;
+      }
+      assertFalse(reader.isTruncated());
+    }
+    assertEquals(requests, requested);
+    assertTrue(assigned > 0 && assigned <= requested);
+  }
+
+  /**
+   * Test that requests added to a concurrent building are recorded once, when they
+   * reach the queues.
+   */
+  @Test
+  public void testConcurrentBuildingRecordsDrainedRequests() throws IOException {
+    Path path = tempJournal();
+    Building building = new ConcurrentBuilding(10, 2, 5);
+    try (EventJournal journal = new EventJournal(path, 10, 2)) {
+      building.startElevatorSystem();
+      building.setJournal(journal);
+      building.addRequest(1, 5);
+      building.addRequests(new int[] {2, 8, 3}, new int[] {6, 1, 3});
+      building.stepElevatorSystem();
+      assertEquals(1, journal.getTick());
+    }
+
+    List<String> requests = new ArrayList<>();
+    try (JournalReader reader = new JournalReader(path)) {
+      while (reader.next()) {
+        if (reader.getType() == EventType.REQUEST) {
+          assertEquals(0, reader.getTick());
+          requests.add(reader.getStartFloor() + "->" + reader.getEndFloor());
+        }
+      }
+    }
+    assertEquals(List.of("1->5", "2->6", "8->1"), requests);
+  }
+
+  /**
+   * Test that a journal cut off part way through an event is read up to that event.
+   */
+  @Test
+  public void testTruncatedJournal() throws IOException {
+    Path path = tempJournal();
+    try (EventJournal journal = new EventJournal(path, 10, 2)) {
+      journal.request(1, 2);
+      journal.advance(5);
+      journal.floor(1, 7);
+    }
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+      channel.truncate(channel.size() - 1);
+    }
+    try (JournalReader reader = new JournalReader(path)) {
+      assertTrue(reader.next());
+      assertEquals(EventType.REQUEST, reader.getType());
+      assertFalse(reader.next());
+      assertTrue(reader.isTruncated());
+    }
+  }
+
+  /**
+   * Test that a journal must match the size of the building.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testJournalForAnotherBuilding() throws IOException {
+    try (EventJournal journal = new EventJournal(tempJournal(), 10, 2)) {
+      new Building(10, 3, 5).setJournal(journal);
+    }
+  }
+
+  /**
+   * The tick, the system status and each elevator's floor, direction, door and
+   * service, as numbers.
+   */
+  private static long[] state(Building building, long tick) {
+    ElevatorReport[] reports = building.getBuildingReport().getElevatorReports();
+    long[] state = new long[2 + 4 * reports.length];
+    state[0] = tick;
+    state[1] = building.getBuildingReport().getSystemStatus().ordinal();
+    for (int i = 0; i < reports.length; i++) {
+      state[2 + 4 * i] = reports[i].getCurrentFloor();
+      state[3 + 4 * i] = reports[i].getDirection().ordinal();
+      state[4 + 4 * i] = reports[i].isDoorClosed() ? 1 : 0;
+      state[5 + 4 * i] = reports[i].isOutOfService() ? 1 : 0;
+    }
+    return state;
+  }
+
+  private static Path tempJournal() throws IOException {
+    File file = File.createTempFile("journal", ".bin");
+    file.deleteOnExit();
+    return file.toPath();
+  }
+}
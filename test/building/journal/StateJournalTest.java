@@ -0,0 +1,294 @@
+package building.journal;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import building.Building;
+import building.BuildingReportBuffer;
+import building.SimulationEngine;
+import building.dispatch.NearestCarDispatch;
+import building.enums.ElevatorSystemStatus;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * This is a test class using JUnit 4 for the StateJournal and StateJournalReader classes.
+ */
+public class StateJournalTest {
+  private static final int FLOORS = 70;
+  private static final int ELEVATORS = 4;
+  private static final int STEPS = 4000;
+
+  /**
+   * Test that reading the journal in order gives the state at every recorded tick,
+   * across keyframes and with ticks left out.
+   */
+  @Test
+  public void testReadInOrder() throws IOException {
+    Path path = tempJournal();
+    List<int[]> states = record(path, 64);
+    try (StateJournalReader reader = new StateJournalReader(path)) {
+      assertEquals(FLOORS, reader.getNumFloors());
+      assertEquals(ELEVATORS, reader.getNumElevators());
+      assertTrue(reader.isIndexed());
+      assertEquals(states.size(), reader.getFrameCount());
+      assertEquals((states.size() + 63) / 64, reader.getKeyframeCount());
+      assertEquals(states.get(states.size() - 1)[0], reader.getLastTick());
+      for (int[] expected : states) {
+        assertTrue(reader.next());
+        assertArrayEquals("at tick " + expected[0], expected, state(reader));
+      }
+      assertFalse(reader.next());
+      assertFalse(reader.isTruncated());
+    }
+  }
+
+  /**
+   * Test that seeking to any tick gives the state at the last recorded tick before it,
+   * and that reading carries on from there.
+   */
+  @Test
+  public void testSeek() throws IOException {
+    Path path = tempJournal();
+    List<int[]> states = record(path, 64);
+    Random random = new Random(9);
+    try (StateJournalReader reader = new StateJournalReader(path)) {
+      assertFalse(reader.seek(-1));
+      for (int i = 0; i < 500; i++) {
+        int index = random.nextInt(states.size());
+        int[] expected = states.get(index);
+        // a tick that was left out reads as the one recorded before it
+        long tick = expected[0];
+        if (index + 1 < states.size() && states.get(index + 1)[0] > tick + 1) {
+          tick++;
+        }
+        assertTrue(reader.seek(tick));
+        assertArrayEquals("at tick " + tick, expected, state(reader));
+        if (index + 1 < states.size()) {
+          assertTrue(reader.next());
+          assertArrayEquals(states.get(index + 1), state(reader));
+        }
+      }
+      assertTrue(reader.seek(Long.MAX_VALUE));
+      assertArrayEquals(states.get(states.size() - 1), state(reader));
+    }
+  }
+
+  /**
+   * Test that the journal is at least ten times smaller than writing every field of
+   * every car at every tick.
+   */
+  @Test
+  public void testSize() throws IOException {
+    Path path = tempJournal();
+    List<int[]> states = record(path, StateJournal.DEFAULT_KEYFRAME_INTERVAL);
+    // status and request counts, then each car's floor, timers, flags and stop mask
+    long fixed = Long.BYTES + 1 + 2 * Integer.BYTES
+        + ELEVATORS * (3 * Integer.BYTES + 4 + 2 * Long.BYTES);
+    long naive = fixed * states.size();
+    assertTrue(Files.size(path) + " of " + naive, Files.size(path) * 10 < naive);
+  }
+
+  /**
+   * Test that a journal that was never closed is read without its index, up to the
+   * frame that was cut short.
+   */
+  @Test
+  public void testUnclosedJournal() throws IOException {
+    Path path = tempJournal();
+    List<int[]> states = record(path, 64);
+    long indexOffset;
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ,
+        StandardOpenOption.WRITE)) {
+      ByteBuffer trailer = ByteBuffer.allocate(Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+      channel.read(trailer, channel.size() - StateJournal.TRAILER_SIZE);
+      indexOffset = trailer.getLong(0);
+      channel.truncate(indexOffset - 1);
+    }
+    try (StateJournalReader reader = new StateJournalReader(path)) {
+      assertFalse(reader.isIndexed());
+      assertTrue(reader.isTruncated());
+      assertEquals(states.size() - 1, reader.getFrameCount());
+      int[] last = states.get(states.size() - 2);
+      assertEquals(last[0], reader.getLastTick());
+      assertTrue(reader.seek(Long.MAX_VALUE));
+      assertArrayEquals(last, state(reader));
+      assertTrue(reader.seek(states.get(100)[0]));
+      assertArrayEquals(states.get(100), state(reader));
+    }
+  }
+
+  /**
+   * Test that ticks must go forward.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testTickMustIncrease() throws IOException {
+    Building building = new Building(10, 2, 5);
+    BuildingReportBuffer buffer = new BuildingReportBuffer();
+    building.copyReportTo(buffer);
+    try (StateJournal journal = new StateJournal(tempJournal(), 10, 2)) {
+      journal.append(5, buffer);
+      journal.append(5, buffer);
+    }
+  }
+
+  /**
+   * Test that a file of another kind is not read as a state journal.
+   */
+  @Test(expected = IOException.class)
+  public void testNotAStateJournal() throws IOException {
+    Path path = tempJournal();
+    try (EventJournal journal = new EventJournal(path, 10, 2)) {
+      journal.request(1, 2);
+    }
+    new StateJournalReader(path).close();
+  }
+
+  /**
+   * Test that a floor past the top is not read from the next elevator's stops.
+   */
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void testStopAtFloorTooHigh() throws IOException {
+    try (StateJournalReader reader = twoElevatorJournal()) {
+      reader.hasStopAt(0, 64);
+    }
+  }
+
+  /**
+   * Test that a word past the end of the mask is not read from the next elevator's stops.
+   */
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void testStopMaskWordTooHigh() throws IOException {
+    try (StateJournalReader reader = twoElevatorJournal()) {
+      reader.getFloorStopMask(0, 1);
+    }
+  }
+
+  /**
+   * A journal of one tick of a building of 16 floors and two elevators, read up to
+   * that tick.
+   */
+  private static StateJournalReader twoElevatorJournal() throws IOException {
+    Path path = tempJournal();
+    Building building = new Building(16, 2, 8);
+    BuildingReportBuffer buffer = new BuildingReportBuffer();
+    building.copyReportTo(buffer);
+    try (StateJournal journal = new StateJournal(path, 16, 2)) {
+      journal.append(0, buffer);
+    }
+    StateJournalReader reader = new StateJournalReader(path);
+    assertTrue(reader.next());
+    return reader;
+  }
+
+  /**
+   * Run a building with random traffic and a stop near the end, recording most ticks,
+   * and return the states recorded.
+   */
+  private static List<int[]> record(Path path, int keyframeInterval) throws IOException {
+    Building building = new Building(FLOORS, ELEVATORS, 8, new NearestCarDispatch(), true);
+    building.startElevatorSystem();
+    SimulationEngine engine = new SimulationEngine(building);
+    Random random = new Random(3);
+    for (int t = 0; t < 3500; t++) {
+      if (random.nextInt(4) == 0) {
+        int start = random.nextInt(FLOORS);
+        engine.scheduleRequest(t, start, (start + 1 + random.nextInt(FLOORS - 1)) % FLOORS);
+      }
+    }
+
+    List<int[]> states = new ArrayList<>();
+    BuildingReportBuffer buffer = new BuildingReportBuffer();
+    try (StateJournal journal = new StateJournal(path, FLOORS, ELEVATORS, keyframeInterval)) {
+      for (long t = 0; t < STEPS; t++) {
+        if (t == 3700) {
+          building.stopElevatorSystem();
+        }
+        engine.runUntil(t);
+        // leave out some ticks so the reader has gaps to step over
+        if (t % 7 != 3) {
+          building.copyReportTo(buffer);
+          journal.append(t, buffer);
+          states.add(state(buffer, t));
+        }
+      }
+      assertEquals(states.size(), journal.getFrameCount());
+    }
+    assertEquals(ElevatorSystemStatus.outOfService, buffer.getSystemStatus());
+    return states;
+  }
+
+  /**
+   * The tick, the system and each car's state as numbers.
+   */
+  private static int[] state(BuildingReportBuffer buffer, long tick) {
+    int words = (FLOORS + 63) >>> 6;
+    int[] state = new int[4 + ELEVATORS * (7 + 2 * words)];
+    state[0] = (int) tick;
+    state[1] = buffer.getSystemStatus().ordinal();
+    state[2] = buffer.getUpRequestCount();
+    state[3] = buffer.getDownRequestCount();
+    int i = 4;
+    for (int e = 0; e < ELEVATORS; e++) {
+      state[i++] = buffer.getCurrentFloor(e);
+      state[i++] = buffer.getDirection(e).ordinal();
+      state[i++] = buffer.isDoorClosed(e) ? 1 : 0;
+      state[i++] = buffer.getDoorOpenTimer(e);
+      state[i++] = buffer.getEndWaitTimer(e);
+      state[i++] = buffer.isOutOfService(e) ? 1 : 0;
+      state[i++] = buffer.isTakingRequests(e) ? 1 : 0;
+      for (int w = 0; w < words; w++) {
+        long mask = buffer.getFloorStopMask(e, w);
+        state[i++] = (int) mask;
+        state[i++] = (int) (mask >>> 32);
+      }
+    }
+    return state;
+  }
+
+  /**
+   * The same numbers read back from the journal.
+   */
+  private static int[] state(StateJournalReader reader) {
+    int words = (FLOORS + 63) >>> 6;
+    int[] state = new int[4 + ELEVATORS * (7 + 2 * words)];
+    state[0] = (int) reader.getTick();
+    state[1] = reader.getSystemStatus().ordinal();
+    state[2] = reader.getUpRequestCount();
+    state[3] = reader.getDownRequestCount();
+    int i = 4;
+    for (int e = 0; e < ELEVATORS; e++) {
+      state[i++] = reader.getCurrentFloor(e);
+      state[i++] = reader.getDirection(e).ordinal();
+      state[i++] = reader.isDoorClosed(e) ? 1 : 0;
+      state[i++] = reader.getDoorOpenTimer(e);
+      state[i++] = reader.getEndWaitTimer(e);
+      state[i++] = reader.isOutOfService(e) ? 1 : 0;
+      state[i++] = reader.isTakingRequests(e) ? 1 : 0;
+      for (int w = 0; w < words; w++) {
+        long mask = reader.getFloorStopMask(e, w);
+        state[i++] = (int) mask;
+        state[i++] = (int) (mask >>> 32);
+      }
+    }
+    return state;
+  }
+
+  private static Path tempJournal() throws IOException {
+    File file = File.createTempFile("states", ".bin");
+    file.deleteOnExit();
+    return file.toPath();
+  }
+}
@@ -7,6 +7,9 @@ import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertTrue;
 
 import building.enums.Direction;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Random;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -55,6 +58,21 @@ public class ElevatorReportTest {
     assertArrayEquals(new boolean[]{false, true, true}, report.getFloorRequests());
   }
 
+  @Test
+  public void getFloorStopMask() {
+    assertEquals(0b110L, report.getFloorStopMask(0));
+    assertEquals(3, report.getNumFloors());
+  }
+
+  @Test
+  public void sameStopsFromMaskAndArrayAreEqual() {
+    ElevatorReport fromMask = new ElevatorReport(1, 1, Direction.STOPPED, true,
+        3, new long[]{0b110L}, 0, 0, false, false);
+    assertEquals(report, fromMask);
+    assertEquals(report.hashCode(), fromMask.hashCode());
+    assertEquals(report.toString(), fromMask.toString());
+  }
+
   @Test
   public void getDirection() {
     assertEquals(Direction.STOPPED, report.getDirection());
@@ -263,4 +281,60 @@ public class ElevatorReportTest {
   public void testSameObjectEqual() {
     assertEquals(report, report);
   }
+
+  /**
+   * Test that the report is written the same way String.format wrote it,
+   * for every kind of report and for floors past the lookup tables.
+   */
+  @Test
+  public void testAppendToMatchesFormat() throws IOException {
+    Random random = new Random(11);
+    for (int n = 0; n < 500; n++) {
+      int floors = n < 250 ? 2 + random.nextInt(30) : 2 + random.nextInt(200);
+      boolean[] stops = new boolean[floors];
+      for (int i = 0; i < floors; i++) {
+        stops[i] = random.nextInt(3) == 0;
+      }
+      ElevatorReport randomReport = new ElevatorReport(n,
+          random.nextInt(floors),
+          Direction.values()[random.nextInt(3)],
+          random.nextBoolean(),
+          stops,
+          random.nextInt(4),
+          random.nextInt(3) == 0 ? random.nextInt(6) : 0,
+          random.nextInt(4) == 0,
+          random.nextBoolean());
+
+      String expected = formatted(randomReport, stops);
+      assertEquals(expected, randomReport.toString());
+      assertEquals("x" + expected, randomReport.appendTo(new StringBuilder("x")).toString());
+      StringWriter writer = new StringWriter();
+      randomReport.appendTo((Appendable) writer);
+      assertEquals(expected, writer.toString());
+    }
+  }
+
+  /**
+   * The report as it was written with String.format.
+   */
+  private static String formatted(ElevatorReport report, boolean[] stops) {
+    if (report.isOutOfService() && report.getCurrentFloor() == 0) {
+      return String.format("Out of Service[Floor %d]", report.getCurrentFloor());
+    }
+    if (report.getEndWaitTimer() > 0) {
+      return String.format("Waiting[Floor %d, Time %d]", report.getCurrentFloor(),
+          report.getEndWaitTimer());
+    }
+    StringBuilder sb = new StringBuilder();
+    sb.append(String.format("[%d|%s|", report.getCurrentFloor(), report.getDirection()));
+    if (report.isDoorClosed()) {
+      sb.append("C  ]<");
+    } else {
+      sb.append(String.format("O %d]<", report.getDoorOpenTimer()));
+    }
+    for (int i = 0; i < stops.length; i++) {
+      sb.append(stops[i] ? String.format(" %2d", i) : " --");
+    }
+    return sb.append(">").toString();
+  }
 }
\ No newline at end of file
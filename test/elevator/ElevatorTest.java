@@ -108,6 +108,50 @@ public class ElevatorTest {
     new Elevator(30, 2);
   }
 
+  /**
+   * Test the constructor exceptions.
+   * An ordinary elevator cannot serve more than 30 floors.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void elevatorConstructorThrowsExceptionForThirtyOneFloors() {
+    System.out.println("Testing: elevatorConstructorThrowsExceptionForThirtyOneFloors");
+    new Elevator(31, 5);
+  }
+
+  /**
+   * Test the constructor exceptions.
+   * A supertall elevator still has a limit.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void elevatorConstructorThrowsExceptionForTooTallSupertall() {
+    System.out.println("Testing: elevatorConstructorThrowsExceptionForTooTallSupertall");
+    new Elevator(Elevator.SUPERTALL_MAX_FLOORS + 1, 5, true);
+  }
+
+  /**
+   * Test that a supertall elevator serves stops far above the ordinary limit.
+   */
+  @Test
+  public void supertallElevatorServesHighFloors() {
+    System.out.println("Testing: supertallElevatorServesHighFloors");
+    Elevator elevator = new Elevator(500, 200, true);
+    elevator.start();
+    for (int i = 0; i < 5; i++) {
+      elevator.step();
+    }
+    elevator.processRequestsAhead(new int[]{120}, new int[]{450}, 1);
+    assertTrue(elevator.hasStopsAhead());
+
+    while (elevator.getCurrentFloor() < 120) {
+      elevator.step();
+    }
+    elevator.step();
+    assertFalse(elevator.isDoorClosed());
+    assertFalse(elevator.getFloorRequests()[120]);
+    assertTrue(elevator.getFloorRequests()[450]);
+    assertEquals(1L << (450 - 448), elevator.getFloorStopMask(7));
+  }
+
   /**
    * Test the constructor exceptions.
    * Occupancy must be greater than or equal to 3
@@ -715,6 +759,208 @@ public class ElevatorTest {
 
   }
 
+  /**
+   * Test that an elevator mid-run takes requests that start ahead of it.
+   */
+  @Test
+  public void elevatorProcessesRequestsAheadMidRun() {
+    System.out.println("Testing: elevatorProcessesRequestsAheadMidRun");
+    Elevator elevator = new Elevator(10, 5);
+    assertFalse(elevator.isTakingRequestsAhead());
+    elevator.start();
+    assertFalse(elevator.isTakingRequestsAhead());
+
+    for (int i = 0; i < 10; i++) {
+      elevator.step();
+    }
+    assertEquals(5, elevator.getCurrentFloor());
+    assertTrue(elevator.isTakingRequestsAhead());
+
+    elevator.processRequestsAhead(new int[]{7}, new int[]{9}, 1);
+    boolean[] floorRequests = elevator.getFloorRequests();
+    assertTrue(floorRequests[7]);
+    assertTrue(floorRequests[9]);
+    assertFalse(floorRequests[8]);
+    assertEquals(Direction.UP, elevator.getDirection());
+  }
+
+  /**
+   * Test that an elevator mid-run rejects requests behind it.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void elevatorRejectsRequestsBehindMidRun() {
+    System.out.println("Testing: elevatorRejectsRequestsBehindMidRun");
+    Elevator elevator = new Elevator(10, 5);
+    elevator.start();
+    for (int i = 0; i < 10; i++) {
+      elevator.step();
+    }
+    elevator.processRequestsAhead(new int[]{3}, new int[]{6}, 1);
+  }
+
+  /**
+   * Test that an elevator waiting at the bottom does not take requests ahead.
+   */
+  @Test(expected = IllegalStateException.class)
+  public void elevatorRejectsRequestsAheadWhileWaiting() {
+    System.out.println("Testing: elevatorRejectsRequestsAheadWhileWaiting");
+    Elevator elevator = new Elevator(10, 5);
+    elevator.start();
+    elevator.processRequestsAhead(new int[]{3}, new int[]{6}, 1);
+  }
+
+  /**
+   * Test that skipping the idle steps of the wait at the bottom matches stepping.
+   */
+  @Test
+  public void elevatorSkipsWaitAtBottom() {
+    System.out.println("Testing: elevatorSkipsWaitAtBottom");
+    Elevator stepped = new Elevator(10, 5);
+    Elevator skipped = new Elevator(10, 5);
+    stepped.start();
+    skipped.start();
+    assertEquals(4, skipped.getIdleSteps());
+
+    skipped.skipSteps(skipped.getIdleSteps());
+    for (int i = 0; i < 4; i++) {
+      stepped.step();
+    }
+    assertEquals(stepped.getElevatorStatus().getEndWaitTimer(),
+        skipped.getElevatorStatus().getEndWaitTimer());
+    assertEquals(0, skipped.getIdleSteps());
+
+    stepped.step();
+    skipped.step();
+    assertEquals(stepped.getDirection(), skipped.getDirection());
+    assertEquals(stepped.isTakingRequests(), skipped.isTakingRequests());
+    assertEquals(Direction.UP, skipped.getDirection());
+    assertEquals(0, skipped.getIdleSteps());
+  }
+
+  /**
+   * Test that an elevator parked out of service on the ground floor is always idle.
+   */
+  @Test
+  public void elevatorOutOfServiceIsIdle() {
+    System.out.println("Testing: elevatorOutOfServiceIsIdle");
+    Elevator elevator = new Elevator(10, 5);
+    elevator.step();
+    assertEquals(Integer.MAX_VALUE, elevator.getIdleSteps());
+    elevator.skipSteps(Integer.MAX_VALUE);
+    assertEquals(0, elevator.getCurrentFloor());
+  }
+
+  /**
+   * Test that an elevator cannot skip a step that does more than count down a timer.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void elevatorSkipsTooManySteps() {
+    System.out.println("Testing: elevatorSkipsTooManySteps");
+    Elevator elevator = new Elevator(10, 5);
+    elevator.start();
+    elevator.skipSteps(5);
+  }
+
+  /**
+   * Test that a report keeps the stops the elevator had when it was taken.
+   */
+  @Test
+  public void elevatorReportIsSnapshot() {
+    System.out.println("Testing: elevatorReportIsSnapshot");
+    Elevator elevator = new Elevator(10, 5);
+    elevator.start();
+    elevator.processRequests(new int[]{0}, new int[]{2}, 1);
+    ElevatorReport report = elevator.getElevatorStatus();
+    assertTrue(report.getFloorRequests()[0]);
+
+    elevator.step();
+    assertFalse(elevator.getFloorRequests()[0]);
+    assertTrue(report.getFloorRequests()[0]);
+    assertTrue(report.getFloorRequests()[2]);
+    assertEquals(0b101L, report.getFloorStopMask(0));
+  }
+
+  /**
+   * Test that a moving elevator with no stops ahead can turn around.
+   */
+  @Test
+  public void elevatorReversesWithNoStopsAhead() {
+    System.out.println("Testing: elevatorReversesWithNoStopsAhead");
+    Elevator elevator = new Elevator(10, 5);
+    elevator.start();
+    for (int i = 0; i < 10; i++) {
+      elevator.step();
+    }
+    assertEquals(5, elevator.getCurrentFloor());
+    assertFalse(elevator.hasStopsAhead());
+
+    elevator.reverse();
+    assertEquals(Direction.DOWN, elevator.getDirection());
+    elevator.step();
+    assertEquals(4, elevator.getCurrentFloor());
+  }
+
+  /**
+   * Test that an elevator that turns around on reaching the top moves straight
+   * back down instead of waiting there.
+   */
+  @Test
+  public void elevatorReversesAtTopWithoutWaiting() {
+    System.out.println("Testing: elevatorReversesAtTopWithoutWaiting");
+    Elevator elevator = new Elevator(10, 5);
+    elevator.start();
+    while (elevator.getCurrentFloor() < 9) {
+      elevator.step();
+    }
+    assertEquals(Direction.UP, elevator.getDirection());
+
+    elevator.reverse();
+    assertEquals(Direction.DOWN, elevator.getDirection());
+    elevator.step();
+    assertEquals(8, elevator.getCurrentFloor());
+    assertEquals(Direction.DOWN, elevator.getDirection());
+  }
+
+  /**
+   * Test that an elevator that turns around on reaching the bottom moves straight
+   * back up instead of waiting there.
+   */
+  @Test
+  public void elevatorReversesAtBottomWithoutWaiting() {
+    System.out.println("Testing: elevatorReversesAtBottomWithoutWaiting");
+    Elevator elevator = new Elevator(10, 5);
+    elevator.start();
+    while (elevator.getDirection() != Direction.DOWN) {
+      elevator.step();
+    }
+    while (elevator.getCurrentFloor() > 0) {
+      elevator.step();
+    }
+    assertEquals(Direction.DOWN, elevator.getDirection());
+
+    elevator.reverse();
+    assertEquals(Direction.UP, elevator.getDirection());
+    elevator.step();
+    assertEquals(1, elevator.getCurrentFloor());
+    assertEquals(Direction.UP, elevator.getDirection());
+  }
+
+  /**
+   * Test that an elevator with stops ahead cannot turn around.
+   */
+  @Test(expected = IllegalStateException.class)
+  public void elevatorDoesNotReverseWithStopsAhead() {
+    System.out.println("Testing: elevatorDoesNotReverseWithStopsAhead");
+    Elevator elevator = new Elevator(10, 5);
+    elevator.start();
+    for (int i = 0; i < 10; i++) {
+      elevator.step();
+    }
+    elevator.processRequestsAhead(new int[]{7}, new int[]{9}, 1);
+    assertTrue(elevator.hasStopsAhead());
+    elevator.reverse();
+  }
+
   /**
    * test that an elevator midrun reports it is not taking requests
    * and throws an exception when processRequests is called.
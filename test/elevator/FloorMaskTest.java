@@ -0,0 +1,88 @@
+package elevator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * This is a test class using JUnit 4 for the FloorMask class.
+ */
+public class FloorMaskTest {
+
+  /**
+   * Test that floors can be added, checked and removed.
+   */
+  @Test
+  public void testAddContainsRemove() {
+    long[] mask = FloorMask.create(30);
+    assertEquals(1, mask.length);
+    FloorMask.add(mask, 0);
+    FloorMask.add(mask, 29);
+    assertTrue(FloorMask.contains(mask, 0));
+    assertTrue(FloorMask.contains(mask, 29));
+    assertFalse(FloorMask.contains(mask, 15));
+
+    FloorMask.remove(mask, 0);
+    assertFalse(FloorMask.contains(mask, 0));
+    FloorMask.clear(mask);
+    assertFalse(FloorMask.contains(mask, 29));
+  }
+
+  /**
+   * Test finding the next floor in each direction within one word.
+   */
+  @Test
+  public void testNextInOneWord() {
+    long[] mask = FloorMask.create(10);
+    FloorMask.add(mask, 2);
+    FloorMask.add(mask, 7);
+
+    assertEquals(2, FloorMask.nextAbove(mask, -1));
+    assertEquals(7, FloorMask.nextAbove(mask, 2));
+    assertEquals(-1, FloorMask.nextAbove(mask, 7));
+    assertEquals(7, FloorMask.nextBelow(mask, 9));
+    assertEquals(2, FloorMask.nextBelow(mask, 7));
+    assertEquals(-1, FloorMask.nextBelow(mask, 2));
+    assertEquals(-1, FloorMask.nextBelow(mask, 0));
+  }
+
+  /**
+   * Test finding the next floor across words in a tall building.
+   */
+  @Test
+  public void testNextAcrossWords() {
+    long[] mask = FloorMask.create(200);
+    assertEquals(4, mask.length);
+    FloorMask.add(mask, 3);
+    FloorMask.add(mask, 63);
+    FloorMask.add(mask, 64);
+    FloorMask.add(mask, 190);
+
+    assertEquals(63, FloorMask.nextAbove(mask, 3));
+    assertEquals(64, FloorMask.nextAbove(mask, 63));
+    assertEquals(190, FloorMask.nextAbove(mask, 64));
+    assertEquals(-1, FloorMask.nextAbove(mask, 199));
+    assertEquals(64, FloorMask.nextBelow(mask, 190));
+    assertEquals(63, FloorMask.nextBelow(mask, 64));
+    assertEquals(3, FloorMask.nextBelow(mask, 63));
+  }
+
+  /**
+   * Test counting the floors strictly between two floors.
+   */
+  @Test
+  public void testCountBetween() {
+    long[] mask = FloorMask.create(200);
+    for (int floor : new int[]{5, 10, 63, 64, 100, 150}) {
+      FloorMask.add(mask, floor);
+    }
+
+    assertEquals(1, FloorMask.countBetween(mask, 5, 63));
+    assertEquals(0, FloorMask.countBetween(mask, 5, 6));
+    assertEquals(0, FloorMask.countBetween(mask, 7, 7));
+    assertEquals(4, FloorMask.countBetween(mask, 5, 150));
+    assertEquals(6, FloorMask.countBetween(mask, -1, 199));
+  }
+}
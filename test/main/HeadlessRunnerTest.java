@@ -0,0 +1,203 @@
+package main;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Map;
+import building.journal.JournalReader;
+import building.journal.StateJournalReader;
+import org.junit.Test;
+import trace.TraceWriter;
+
+/**
+ * This is a test class using JUnit 4 for the HeadlessRunner class.
+ */
+public class HeadlessRunnerTest {
+
+  /**
+   * Test that a scenario runs until every request has been served.
+   */
+  @Test
+  public void testScenarioUntilDrained() throws IOException {
+    File scenario = File.createTempFile("scenario", ".txt");
+    scenario.deleteOnExit();
+    Files.write(scenario.toPath(), String.join("\n",
+        "# two cars, three requests",
+        "floors = 12",
+        "elevators = 2",
+        "strategy = nearest",
+        "0 0 7",
+        "0 5 1",
+        "40 11 2").getBytes(StandardCharsets.UTF_8));
+
+    StringBuilder out = new StringBuilder();
+    HeadlessRunner.run(HeadlessRunner.parseArguments(new String[] {
+        "--scenario", scenario.getPath(), "--until-drained"}), out);
+
+    String text = out.toString();
+    assertTrue(text.contains("Number of Floors: 12"));
+    assertTrue(text.contains("requestsScheduled: 3"));
+    assertTrue(text.contains("drained: true"));
+    assertTrue(text.contains("Up Requests: []"));
+  }
+
+  /**
+   * Test that reports are written at every multiple of report-every, even across
+   * steps the engine skips.
+   */
+  @Test
+  public void testReportEvery() throws IOException {
+    StringBuilder out = new StringBuilder();
+    HeadlessRunner.run(HeadlessRunner.parseArguments(new String[] {
+        "--steps", "100", "--report-every", "25"}), out);
+
+    String text = out.toString();
+    for (int step = 0; step < 100; step += 25) {
+      assertTrue(text.contains("Step " + step + "\n"));
+    }
+    assertTrue(text.contains("Step 100\n"));
+    assertTrue(text.contains("steps: 100\n"));
+  }
+
+  /**
+   * Test that a trace longer than the read-ahead is replayed until every request has
+   * been served.
+   */
+  @Test
+  public void testTraceUntilDrained() throws IOException {
+    File trace = File.createTempFile("trace", ".bin");
+    trace.deleteOnExit();
+    try (TraceWriter writer = new TraceWriter(trace.toPath())) {
+      for (int i = 0; i < 50; i++) {
+        writer.write(i * 500L, i % 10, (i * 3 + 1) % 10);
+      }
+    }
+
+    StringBuilder out = new StringBuilder();
+    HeadlessRunner.run(HeadlessRunner.parseArguments(new String[] {
+        "--trace", trace.getPath(), "--until-drained"}), out);
+
+    String text = out.toString();
+    assertTrue(text.contains("requestsScheduled: 50\n"));
+    assertTrue(text.contains("requestsNotArrived: 0\n"));
+    assertTrue(text.contains("drained: true"));
+  }
+
+  /**
+   * Test that tickets are imported and invalid lines are listed.
+   */
+  @Test
+  public void testTickets() throws IOException {
+    File tickets = File.createTempFile("tickets", ".csv");
+    tickets.deleteOnExit();
+    Files.write(tickets.toPath(), String.join("\n",
+        "step,start,end",
+        "0,0,7",
+        "3,9,2",
+        "5,4,40").getBytes(StandardCharsets.UTF_8));
+
+    StringBuilder out = new StringBuilder();
+    HeadlessRunner.run(HeadlessRunner.parseArguments(new String[] {
+        "--tickets", tickets.getPath(), "--until-drained"}), out);
+
+    String text = out.toString();
+    assertTrue(text.contains("requestsScheduled: 2\n"));
+    assertTrue(text.contains("ticketsInvalid: 1\n"));
+    assertTrue(text.contains("drained: true"));
+    assertTrue(text.contains("Invalid tickets:\n  line 4: The end floor"));
+  }
+
+  /**
+   * Test that a run can be recorded in a journal.
+   */
+  @Test
+  public void testJournal() throws IOException {
+    File journal = File.createTempFile("journal", ".bin");
+    journal.deleteOnExit();
+    StringBuilder out = new StringBuilder();
+    HeadlessRunner.run(HeadlessRunner.parseArguments(new String[] {
+        "--requests", "20", "--steps", "500", "--journal", journal.getPath()}), out);
+
+    long events = 0;
+    try (JournalReader reader = new JournalReader(journal.toPath())) {
+      while (reader.next()) {
+        events++;
+      }
+    }
+    assertTrue(events > 20);
+    assertTrue(out.toString().contains("journalEvents: " + events + "\n"));
+  }
+
+  /**
+   * Test that the state at every step is recorded in a state journal.
+   */
+  @Test
+  public void testStateJournal() throws IOException {
+    File states = File.createTempFile("states", ".bin");
+    states.deleteOnExit();
+    StringBuilder out = new StringBuilder();
+    HeadlessRunner.run(HeadlessRunner.parseArguments(new String[] {
+        "--requests", "20", "--steps", "500", "--state-journal", states.getPath()}), out);
+
+    assertTrue(out.toString().contains("stateFrames: 501\n"));
+    try (StateJournalReader reader = new StateJournalReader(states.toPath())) {
+      assertEquals(501, reader.getFrameCount());
+      assertEquals(500, reader.getLastTick());
+      assertTrue(reader.seek(250));
+      assertEquals(250, reader.getTick());
+    }
+  }
+
+  /**
+   * Test that flags are read from the command line.
+   */
+  @Test
+  public void testParseArguments() {
+    Map<String, String> options = HeadlessRunner.parseArguments(new String[] {
+        "--floors", "20", "--supertall", "--strategy", "eta"});
+    assertEquals("20", options.get("floors"));
+    assertEquals("true", options.get("supertall"));
+    assertEquals("eta", options.get("strategy"));
+  }
+
+  /**
+   * Test that a misspelled option is rejected rather than ignored.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testUnknownOption() {
+    HeadlessRunner.parseArguments(new String[] {"--stpes", "5"});
+  }
+
+  /**
+   * Test that a misspelled option in a scenario file is rejected rather than ignored.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testUnknownScenarioOption() throws IOException {
+    File scenario = File.createTempFile("scenario", ".txt");
+    scenario.deleteOnExit();
+    Files.write(scenario.toPath(), "stpes = 5\n".getBytes(StandardCharsets.UTF_8));
+    HeadlessRunner.run(HeadlessRunner.parseArguments(new String[] {
+        "--scenario", scenario.getPath()}), new StringBuilder());
+  }
+
+  /**
+   * Test that a value must follow an option that needs one.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testMissingValue() {
+    HeadlessRunner.parseArguments(new String[] {"--floors"});
+  }
+
+  /**
+   * Test that an unknown strategy is rejected.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testUnknownStrategy() throws IOException {
+    HeadlessRunner.run(HeadlessRunner.parseArguments(new String[] {
+        "--strategy", "random"}), new StringBuilder());
+  }
+}
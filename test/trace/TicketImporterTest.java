@@ -0,0 +1,198 @@
+package trace;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+import trace.enums.TicketFormat;
+
+/**
+ * This is a test class using JUnit 4 for the TicketImporter class.
+ */
+public class TicketImporterTest {
+
+  /**
+   * Test that a CSV header can put the columns in any order, and that invalid lines
+   * are reported with their line numbers without stopping the import.
+   */
+  @Test
+  public void testCsvWithHeader() throws IOException {
+    Path path = tempFile(".csv", String.join("\n",
+        "# exported tickets",
+        "id,To,\"from\",step",
+        "a,5,1,0",
+        "",
+        "b,0,9,3",
+        "c,12,1,4",
+        "d,2,2,5",
+        "e,3,x,6",
+        "f,4",
+        "g, 7 , \"3\" ,8\r",
+        "h,0,1,-2"));
+    List<long[]> tickets = new ArrayList<>();
+    // a tiny chunk makes every line its own chunk, and makes some lines grow it
+    ImportResult result = new TicketImporter(10, 3, 4).importFile(path,
+        (tick, start, end) -> tickets.add(new long[] {tick, start, end}));
+
+    assertEquals(11, result.getLinesRead());
+    assertEquals(3, result.getTicketsImported());
+    assertEquals(5, result.getTicketsInvalid());
+    assertEquals(List.of("0 1 5", "3 9 0", "8 3 7"), describe(tickets));
+    List<Long> lines = new ArrayList<>();
+    for (ImportResult.RowError error : result.getErrors()) {
+      lines.add(error.getLine());
+    }
+    assertEquals(List.of(6L, 7L, 8L, 9L, 11L), lines);
+    assertTrue(result.getErrors().get(0).toString().startsWith("line 6: The end floor"));
+  }
+
+  /**
+   * Test that the tickets and errors are the same however the file is split up and
+   * however many threads parse it.
+   */
+  @Test
+  public void testChunkingDoesNotChangeResult() throws IOException {
+    StringBuilder text = new StringBuilder();
+    Random random = new Random(5);
+    for (int i = 0; i < 5000; i++) {
+      int start = random.nextInt(22) - 1;
+      int end = random.nextInt(22) - 1;
+      text.append(i / 3).append(',').append(start).append(',').append(end).append('\n');
+    }
+    Path path = tempFile(".csv", text.toString());
+
+    List<long[]> expected = new ArrayList<>();
+    ImportResult one = new TicketImporter(20, 1).importFile(path,
+        (tick, start, end) -> expected.add(new long[] {tick, start, end}));
+    List<long[]> actual = new ArrayList<>();
+    ImportResult many = new TicketImporter(20, 4, 100).importFile(path,
+        (tick, start, end) -> actual.add(new long[] {tick, start, end}));
+
+    assertEquals(describe(expected), describe(actual));
+    assertEquals(5000, one.getTicketsImported() + one.getTicketsInvalid());
+    assertTrue(one.getTicketsInvalid() > 0);
+    assertEquals(one.getTicketsInvalid(), many.getTicketsInvalid());
+    for (int i = 0; i < one.getErrors().size(); i++) {
+      assertEquals(one.getErrors().get(i).toString(), many.getErrors().get(i).toString());
+    }
+  }
+
+  /**
+   * Test that JSON lines are read by key, and that lines that are not valid are
+   * reported.
+   */
+  @Test
+  public void testJsonLines() throws IOException {
+    Path path = tempFile(".jsonl", String.join("\n",
+        "{\"tick\": 1, \"startFloor\": 2, \"endFloor\": 7, \"badge\": \"x\"}",
+        "{\"time\": 4, \"from\": 6, \"to\": 0}",
+        "{\"tick\": 5, \"start\": 1}",
+        "{\"tick\": 6, \"start\": 1.5, \"end\": 3}",
+        "not json",
+        "{\"step\": 9, \"start\": 3, \"end\": 8}",
+        ""));
+    List<long[]> tickets = new ArrayList<>();
+    ImportResult result = new TicketImporter(10, 2).importFile(path,
+        (tick, start, end) -> tickets.add(new long[] {tick, start, end}));
+
+    assertEquals(List.of("1 2 7", "4 6 0", "9 3 8"), describe(tickets));
+    assertEquals(3, result.getTicketsInvalid());
+    assertEquals(3, result.getErrors().get(0).getLine());
+    assertEquals("there is no end floor", result.getErrors().get(0).getMessage());
+    assertEquals(4, result.getErrors().get(1).getLine());
+    assertEquals(5, result.getErrors().get(2).getLine());
+  }
+
+  /**
+   * Test that tickets can be written to a trace, and that a ticket the trace refuses
+   * is reported with its line.
+   */
+  @Test
+  public void testImportToTrace() throws IOException {
+    Path csv = tempFile(".csv", "0,1,2\n5,2,3\n4,3,4\n9,4,5\n");
+    File trace = File.createTempFile("tickets", ".bin");
+    trace.deleteOnExit();
+    ImportResult result;
+    try (TraceWriter writer = new TraceWriter(trace.toPath())) {
+      result = new TicketImporter(10).importFile(csv, writer::write);
+    }
+
+    assertEquals(3, result.getTicketsImported());
+    assertEquals(3, result.getErrors().get(0).getLine());
+    try (TraceReader reader = new TraceReader(trace.toPath())) {
+      assertEquals(3, reader.getRecordCount());
+      assertEquals(9, reader.getLastTick());
+    }
+  }
+
+  /**
+   * Test that only so many errors are kept, but all are counted.
+   */
+  @Test
+  public void testMaxErrors() throws IOException {
+    Path path = tempFile(".csv", "1,1,1\n2,2,2\n3,3,3\n4,4,5\n");
+    TicketImporter importer = new TicketImporter(10);
+    importer.setMaxErrors(2);
+    ImportResult result = importer.importFile(path, (tick, start, end) -> { });
+    assertEquals(3, result.getTicketsInvalid());
+    assertEquals(2, result.getErrors().size());
+  }
+
+  /**
+   * Test that a bad first row of a file without a header is reported as an invalid
+   * line rather than read as a header.
+   */
+  @Test
+  public void testBadFirstRowWithoutHeader() throws IOException {
+    Path path = tempFile(".csv", "# no header\nabc,1,2\n1e3,0,5\n4,2,7\n");
+    List<long[]> tickets = new ArrayList<>();
+    ImportResult result = new TicketImporter(10).importFile(path,
+        (tick, start, end) -> tickets.add(new long[] {tick, start, end}));
+
+    assertEquals(List.of("4 2 7"), describe(tickets));
+    assertEquals(2, result.getTicketsInvalid());
+    assertEquals(2L, result.getErrors().get(0).getLine());
+    assertEquals(3L, result.getErrors().get(1).getLine());
+  }
+
+  /**
+   * Test that a header must name every field.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testHeaderMissingColumn() throws IOException {
+    Path path = tempFile(".csv", "tick,start\n1,2\n");
+    new TicketImporter(10).importFile(path, (tick, start, end) -> { });
+  }
+
+  /**
+   * Test that the format is taken from the extension.
+   */
+  @Test
+  public void testFormatForPath() {
+    assertEquals(TicketFormat.CSV, TicketFormat.forPath(Path.of("a/tickets.CSV")));
+    assertEquals(TicketFormat.JSON_LINES, TicketFormat.forPath(Path.of("tickets.ndjson")));
+  }
+
+  private static List<String> describe(List<long[]> tickets) {
+    List<String> described = new ArrayList<>();
+    for (long[] ticket : tickets) {
+      described.add(ticket[0] + " " + ticket[1] + " " + ticket[2]);
+    }
+    return described;
+  }
+
+  private static Path tempFile(String suffix, String text) throws IOException {
+    File file = File.createTempFile("tickets", suffix);
+    file.deleteOnExit();
+    Files.write(file.toPath(), text.getBytes(StandardCharsets.UTF_8));
+    return file.toPath();
+  }
+}
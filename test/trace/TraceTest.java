@@ -0,0 +1,182 @@
+package trace;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import building.Building;
+import building.dispatch.NearestCarDispatch;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * This is a test class using JUnit 4 for the trace classes.
+ */
+public class TraceTest {
+
+  /**
+   * Test that records are read back as written, across many small windows.
+   */
+  @Test
+  public void testRoundTrip() throws IOException {
+    Path path = tempTrace();
+    long[] ticks = new long[1000];
+    int[] starts = new int[ticks.length];
+    int[] ends = new int[ticks.length];
+    Random random = new Random(3);
+    try (TraceWriter writer = new TraceWriter(path)) {
+      long tick = 0;
+      for (int i = 0; i < ticks.length; i++) {
+        tick += random.nextInt(3);
+        ticks[i] = tick;
+        starts[i] = random.nextInt(TraceWriter.MAX_FLOOR + 1);
+        ends[i] = random.nextInt(TraceWriter.MAX_FLOOR + 1);
+        writer.write(ticks[i], starts[i], ends[i]);
+      }
+      assertEquals(ticks.length, writer.getRecordCount());
+    }
+
+    // 50 bytes rounds down to four records a window
+    try (TraceReader reader = new TraceReader(path, 50)) {
+      assertEquals(ticks.length, reader.getRecordCount());
+      assertEquals(ticks[ticks.length - 1], reader.getLastTick());
+      for (int i = 0; i < ticks.length; i++) {
+        assertTrue(reader.next());
+        assertEquals(ticks[i], reader.getTick());
+        assertEquals(starts[i], reader.getStartFloor());
+        assertEquals(ends[i], reader.getEndFloor());
+      }
+      assertFalse(reader.next());
+      assertEquals(ticks.length, reader.getRecordsRead());
+    }
+  }
+
+  /**
+   * Test that an empty trace has no records.
+   */
+  @Test
+  public void testEmptyTrace() throws IOException {
+    Path path = tempTrace();
+    new TraceWriter(path).close();
+    try (TraceReader reader = new TraceReader(path)) {
+      assertEquals(0, reader.getRecordCount());
+      assertFalse(reader.next());
+    }
+  }
+
+  /**
+   * Test that ticks cannot go back.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testTickGoesBack() throws IOException {
+    try (TraceWriter writer = new TraceWriter(tempTrace())) {
+      writer.write(5, 1, 2);
+      writer.write(4, 1, 2);
+    }
+  }
+
+  /**
+   * Test that a trace cut short is not read.
+   */
+  @Test(expected = IOException.class)
+  public void testTruncatedTrace() throws IOException {
+    Path path = tempTrace();
+    try (TraceWriter writer = new TraceWriter(path)) {
+      writer.write(0, 1, 2);
+      writer.write(1, 2, 3);
+    }
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+      channel.truncate(channel.size() - 1);
+    }
+    new TraceReader(path).close();
+  }
+
+  /**
+   * Test that replaying a trace matches adding the same requests by hand before each
+   * step, while skipping idle steps.
+   */
+  @Test
+  public void testReplayMatchesStepping() throws IOException {
+    final int steps = 4000;
+    Path path = tempTrace();
+    int[][] arrivals = new int[steps][];
+    Random random = new Random(11);
+    try (TraceWriter writer = new TraceWriter(path)) {
+      for (int t = 0; t < steps; t++) {
+        // quiet stretches with the odd burst, so there are idle steps to skip
+        if ((t / 300) % 2 == 0 && random.nextInt(20) == 0) {
+          int count = 1 + random.nextInt(3);
+          arrivals[t] = new int[count * 2];
+          for (int i = 0; i < count; i++) {
+            int start = random.nextInt(12);
+            int end = (start + 1 + random.nextInt(11)) % 12;
+            arrivals[t][2 * i] = start;
+            arrivals[t][2 * i + 1] = end;
+            writer.write(t, start, end);
+          }
+        }
+      }
+    }
+
+    Building stepped = new Building(12, 3, 5, new NearestCarDispatch());
+    Building replayed = new Building(12, 3, 5, new NearestCarDispatch());
+    stepped.startElevatorSystem();
+    replayed.startElevatorSystem();
+    try (TraceReader reader = new TraceReader(path, 120)) {
+      TraceReplayer replayer = new TraceReplayer(reader, replayed);
+      for (int t = 0; t < steps; t++) {
+        if (arrivals[t] != null) {
+          for (int i = 0; i < arrivals[t].length; i += 2) {
+            stepped.addRequest(arrivals[t][i], arrivals[t][i + 1]);
+          }
+        }
+        stepped.stepElevatorSystem();
+        if ((t + 1) % 89 == 0 || t + 1 == steps) {
+          replayer.runUntil(t + 1);
+          assertEquals("at step " + (t + 1), stepped.getBuildingReport().toString(),
+              replayed.getBuildingReport().toString());
+        }
+      }
+      assertEquals(steps, replayer.getStepsRun() + replayer.getStepsSkipped());
+      assertTrue(replayer.getStepsSkipped() > 0);
+      assertEquals(reader.getRecordCount(), replayer.getRequestsAdded());
+      assertEquals(0, replayer.getRequestsRejected());
+    }
+  }
+
+  /**
+   * Test that requests the building cannot take are counted, and that runToEnd()
+   * stops just after the last request.
+   */
+  @Test
+  public void testRejectedRequests() throws IOException {
+    Path path = tempTrace();
+    try (TraceWriter writer = new TraceWriter(path)) {
+      writer.write(3, 1, 5);
+      writer.write(3, 40, 2);
+      writer.write(70, 4, 4);
+      writer.write(90, 6, 0);
+    }
+    Building building = new Building(10, 2, 8);
+    building.startElevatorSystem();
+    try (TraceReader reader = new TraceReader(path)) {
+      TraceReplayer replayer = new TraceReplayer(reader, building);
+      replayer.runToEnd();
+      assertEquals(91, replayer.getTime());
+      assertEquals(2, replayer.getRequestsAdded());
+      assertEquals(2, replayer.getRequestsRejected());
+      assertEquals(Long.MAX_VALUE, replayer.getNextTick());
+    }
+  }
+
+  private static Path tempTrace() throws IOException {
+    File file = File.createTempFile("trace", ".bin");
+    file.deleteOnExit();
+    return file.toPath();
+  }
+}
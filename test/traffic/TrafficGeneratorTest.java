@@ -0,0 +1,173 @@
+package traffic;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import building.Building;
+import building.SimulationEngine;
+import org.junit.Test;
+import scanerzus.Request;
+import traffic.enums.TrafficProfile;
+
+/**
+ * This is a test class using JUnit 4 for the TrafficGenerator class.
+ */
+public class TrafficGeneratorTest {
+  private static final int SAMPLES = 100_000;
+
+  /**
+   * Test that the same seed gives the same requests at the same steps.
+   */
+  @Test
+  public void testSameSeedSameTraffic() {
+    TrafficGenerator first = new TrafficGenerator(20, TrafficProfile.LUNCH,
+        new BurstyArrivals(0.1, 2, 50, 10), 99);
+    TrafficGenerator second = new TrafficGenerator(20, TrafficProfile.LUNCH,
+        new BurstyArrivals(0.1, 2, 50, 10), 99);
+    for (int i = 0; i < 1000; i++) {
+      assertEquals(first.next(), second.next());
+      assertEquals(first.getArrivalStep(), second.getArrivalStep());
+    }
+  }
+
+  /**
+   * Test that split generators are reproducible and differ from each other.
+   */
+  @Test
+  public void testSplitStreams() {
+    TrafficGenerator parent = new TrafficGenerator(20, TrafficProfile.INTERFLOOR,
+        new PoissonArrivals(1), 5);
+    TrafficGenerator again = new TrafficGenerator(20, TrafficProfile.INTERFLOOR,
+        new PoissonArrivals(1), 5);
+    TrafficGenerator child = parent.split();
+    TrafficGenerator childAgain = again.split();
+
+    int same = 0;
+    for (int i = 0; i < 1000; i++) {
+      Request fromChild = child.next();
+      assertEquals(fromChild, childAgain.next());
+      if (fromChild.equals(parent.next())) {
+        same++;
+      }
+    }
+    assertTrue(same < 100);
+  }
+
+  /**
+   * Test that the up-peak profile mostly starts at the lobby, and the down-peak
+   * profile mostly ends there.
+   */
+  @Test
+  public void testPeakProfiles() {
+    TrafficGenerator up = new TrafficGenerator(15, TrafficProfile.UP_PEAK,
+        new PoissonArrivals(1), 1);
+    TrafficGenerator down = new TrafficGenerator(15, TrafficProfile.DOWN_PEAK,
+        new PoissonArrivals(1), 1);
+    int fromLobby = 0;
+    int toLobby = 0;
+    for (int i = 0; i < SAMPLES; i++) {
+      Request request = up.next();
+      assertNotEquals(request.getStartFloor(), request.getEndFloor());
+      if (request.getStartFloor() == 0) {
+        fromLobby++;
+      }
+      if (down.next().getEndFloor() == 0) {
+        toLobby++;
+      }
+    }
+    assertEquals(0.85, fromLobby / (double) SAMPLES, 0.01);
+    assertEquals(0.85, toLobby / (double) SAMPLES, 0.01);
+  }
+
+  /**
+   * Test that trips from the lobby go to floors in proportion to their population,
+   * and that empty floors are never used.
+   */
+  @Test
+  public void testFloorPopulation() {
+    TrafficGenerator generator = new TrafficGenerator(5, TrafficProfile.UP_PEAK,
+        new PoissonArrivals(1), 3);
+    generator.setFloorPopulation(new double[] {0, 3, 0, 1, 0});
+    int[] counts = new int[5];
+    for (int i = 0; i < SAMPLES; i++) {
+      Request request = generator.next();
+      assertTrue(request.getStartFloor() != 2 && request.getStartFloor() != 4);
+      if (request.getStartFloor() == 0) {
+        counts[request.getEndFloor()]++;
+      }
+    }
+    assertEquals(0, counts[2]);
+    assertEquals(0, counts[4]);
+    assertEquals(3.0, counts[1] / (double) counts[3], 0.1);
+  }
+
+  /**
+   * Test that the arrival processes keep their average rates.
+   */
+  @Test
+  public void testArrivalRates() {
+    ArrivalProcess[] processes = {new PoissonArrivals(0.25), new PoissonArrivals(4),
+        new BurstyArrivals(0.05, 3, 200, 20)};
+    for (ArrivalProcess process : processes) {
+      TrafficGenerator generator = new TrafficGenerator(10, TrafficProfile.INTERFLOOR,
+          process, 8);
+      for (int i = 0; i < SAMPLES; i++) {
+        generator.next();
+      }
+      double rate = SAMPLES / (double) (generator.getArrivalStep() + 1);
+      assertEquals(process.getMeanRate(), rate, process.getMeanRate() * 0.05);
+    }
+  }
+
+  /**
+   * Test that scheduling stops at the given step and carries on from there.
+   */
+  @Test
+  public void testScheduleUntil() {
+    Building building = new Building(10, 2, 8);
+    SimulationEngine engine = new SimulationEngine(building);
+    TrafficGenerator generator = new TrafficGenerator(10, TrafficProfile.LUNCH,
+        new PoissonArrivals(2), 4);
+    long first = generator.scheduleUntil(engine, 100);
+    assertEquals(first, engine.getPendingArrivals());
+    assertTrue(generator.getArrivalStep() >= 100);
+    long second = generator.scheduleUntil(engine, 200);
+    assertEquals(400, first + second, 60);
+    assertEquals(first + second, engine.getPendingArrivals());
+  }
+
+  /**
+   * Test that the smallest building, three floors, makes every kind of trip.
+   */
+  @Test
+  public void testThreeFloors() {
+    for (TrafficProfile profile : TrafficProfile.values()) {
+      TrafficGenerator generator = new TrafficGenerator(3, profile, new PoissonArrivals(1), 2);
+      for (int i = 0; i < 200; i++) {
+        Request request = generator.next();
+        assertTrue(request.getStartFloor() >= 0 && request.getStartFloor() < 3);
+        assertTrue(request.getEndFloor() >= 0 && request.getEndFloor() < 3);
+        assertTrue(request.getStartFloor() != request.getEndFloor());
+      }
+    }
+  }
+
+  /**
+   * Test that a building of two floors is too small for traffic.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testTwoFloors() {
+    new TrafficGenerator(2, TrafficProfile.UP_PEAK, new PoissonArrivals(1), 1);
+  }
+
+  /**
+   * Test that interfloor traffic needs two floors with people on them.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testInterfloorNeedsTwoFloors() {
+    TrafficGenerator generator = new TrafficGenerator(4, TrafficProfile.INTERFLOOR,
+        new PoissonArrivals(1), 1);
+    generator.setFloorPopulation(new double[] {5, 0, 2, 0});
+  }
+}